@@ -27,6 +27,7 @@ import static org.junit.Assert.assertThrows;
 
 import android.content.Context;
 
+import androidx.appsearch.app.AppSearchBatchResult;
 import androidx.appsearch.app.AppSearchResult;
 import androidx.appsearch.app.AppSearchSchema;
 import androidx.appsearch.app.GenericDocument;
@@ -89,6 +90,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings("GuardedBy")
 public class AppSearchImplTest {
@@ -721,6 +723,94 @@ public class AppSearchImplTest {
         assertThat(searchResultPage.getResults()).isEmpty();
     }
 
+    @Test
+    public void testGlobalQuery_cachesVisibility() throws Exception {
+        // Create a new mAppSearchImpl with a Visibility Checker counting its calls
+        mAppSearchImpl.close();
+        File tempFolder = mTemporaryFolder.newFolder();
+        AtomicInteger checkCount = new AtomicInteger();
+        VisibilityChecker countingVisibilityChecker =
+                (callerAccess, packageName, prefixedSchema, visibilityStore) -> {
+                    checkCount.incrementAndGet();
+                    return true;
+                };
+        mAppSearchImpl = AppSearchImpl.create(
+                tempFolder,
+                new AppSearchConfigImpl(
+                        new UnlimitedLimitConfig(),
+                        new DefaultIcingOptionsConfig()
+                ),
+                /*initStatsBuilder=*/ null,
+                ALWAYS_OPTIMIZE,
+                countingVisibilityChecker);
+
+        // Insert package1 schema and document
+        List<AppSearchSchema> schemas =
+                Collections.singletonList(new AppSearchSchema.Builder("Type").build());
+        InternalSetSchemaResponse internalSetSchemaResponse = mAppSearchImpl.setSchema(
+                "package1",
+                "database1",
+                schemas,
+                /*visibilityDocuments=*/ Collections.emptyList(),
+                /*forceOverride=*/ false,
+                /*version=*/ 0,
+                /* setSchemaStatsBuilder= */ null);
+        assertThat(internalSetSchemaResponse.isSuccess()).isTrue();
+        GenericDocument document = new GenericDocument.Builder<>("namespace", "id", "Type")
+                .build();
+        mAppSearchImpl.putDocument(
+                "package1",
+                "database1",
+                document,
+                /*sendChangeNotifications=*/ false,
+                /*logger=*/ null);
+
+        SearchSpec searchSpec =
+                new SearchSpec.Builder().setTermMatch(TermMatchType.Code.PREFIX_VALUE).build();
+        CallerAccess callerAccess = new CallerAccess(/*callingPackageName=*/"package2");
+
+        // The first query asks the checker
+        SearchResultPage searchResultPage = mAppSearchImpl.globalQuery(
+                /*queryExpression=*/"", searchSpec, callerAccess, /*logger=*/ null);
+        assertThat(searchResultPage.getResults()).hasSize(1);
+        assertThat(checkCount.get()).isEqualTo(1);
+
+        // The second query reuses its answer
+        searchResultPage = mAppSearchImpl.globalQuery(
+                /*queryExpression=*/"", searchSpec, callerAccess, /*logger=*/ null);
+        assertThat(searchResultPage.getResults()).hasSize(1);
+        assertThat(checkCount.get()).isEqualTo(1);
+
+        // Setting a schema drops the cached answers
+        internalSetSchemaResponse = mAppSearchImpl.setSchema(
+                "package1",
+                "database1",
+                schemas,
+                /*visibilityDocuments=*/ Collections.emptyList(),
+                /*forceOverride=*/ false,
+                /*version=*/ 0,
+                /* setSchemaStatsBuilder= */ null);
+        assertThat(internalSetSchemaResponse.isSuccess()).isTrue();
+        searchResultPage = mAppSearchImpl.globalQuery(
+                /*queryExpression=*/"", searchSpec, callerAccess, /*logger=*/ null);
+        assertThat(searchResultPage.getResults()).hasSize(1);
+        assertThat(checkCount.get()).isEqualTo(2);
+
+        // So does a package change
+        mAppSearchImpl.invalidateVisibilityCache();
+        searchResultPage = mAppSearchImpl.globalQuery(
+                /*queryExpression=*/"", searchSpec, callerAccess, /*logger=*/ null);
+        assertThat(searchResultPage.getResults()).hasSize(1);
+        assertThat(checkCount.get()).isEqualTo(3);
+
+        // The owner of the data never asks the checker
+        searchResultPage = mAppSearchImpl.globalQuery(
+                /*queryExpression=*/"", searchSpec,
+                new CallerAccess(/*callingPackageName=*/"package1"), /*logger=*/ null);
+        assertThat(searchResultPage.getResults()).hasSize(1);
+        assertThat(checkCount.get()).isEqualTo(3);
+    }
+
     @Test
     public void testGlobalQuery_withJoin_packageFilter() throws Exception {
         // Create a new mAppSearchImpl with a mock Visibility Checker
@@ -2785,6 +2875,20 @@ public class AppSearchImplTest {
                 /*sendChangeNotifications=*/ false,
                 /*logger=*/ null));
 
+        // A batch reports the failure for each of its documents instead of throwing
+        AppSearchBatchResult<String, Void> putResult = mAppSearchImpl.putDocuments(
+                "package",
+                "database",
+                ImmutableList.of(
+                        new GenericDocument.Builder<>("namespace", "id1", "type").build(),
+                        new GenericDocument.Builder<>("namespace", "id2", "type").build()),
+                /*sendChangeNotifications=*/ false,
+                /*logger=*/ null);
+        assertThat(putResult.getSuccesses()).isEmpty();
+        assertThat(putResult.getFailures().keySet()).containsExactly("id1", "id2");
+        assertThat(putResult.getFailures().get("id1").getResultCode())
+                .isEqualTo(AppSearchResult.RESULT_INTERNAL_ERROR);
+
         assertThrows(IllegalStateException.class, () -> mAppSearchImpl.getDocument(
                 "package", "database", "namespace", "id", Collections.emptyMap()));
 
@@ -4012,6 +4116,63 @@ public class AppSearchImplTest {
                         /*changedDocumentIds=*/ImmutableSet.of("id2")));
     }
 
+    @Test
+    public void testPutDocuments() throws Exception {
+        InternalSetSchemaResponse internalSetSchemaResponse = mAppSearchImpl.setSchema(
+                mContext.getPackageName(),
+                "database1",
+                /*schemas=*/ImmutableList.of(new AppSearchSchema.Builder("Type1").build()),
+                /*visibilityDocuments=*/ Collections.emptyList(),
+                /*forceOverride=*/false,
+                /*version=*/0,
+                /*setSchemaStatsBuilder=*/null);
+        assertThat(internalSetSchemaResponse.isSuccess()).isTrue();
+
+        TestObserverCallback observer = new TestObserverCallback();
+        mAppSearchImpl.registerObserverCallback(
+                /*listeningPackageAccess=*/mSelfCallerAccess,
+                /*targetPackageName=*/mContext.getPackageName(),
+                new ObserverSpec.Builder().build(),
+                MoreExecutors.directExecutor(),
+                observer);
+
+        // Index a batch in which one document has an unknown type
+        GenericDocument doc1 = new GenericDocument.Builder<>("namespace1", "id1", "Type1").build();
+        GenericDocument doc2 = new GenericDocument.Builder<>("namespace1", "id2", "Type1").build();
+        GenericDocument invalidDoc =
+                new GenericDocument.Builder<>("namespace1", "id3", "UnknownType").build();
+        GenericDocument doc4 = new GenericDocument.Builder<>("namespace2", "id4", "Type1").build();
+        AppSearchBatchResult<String, Void> result = mAppSearchImpl.putDocuments(
+                mContext.getPackageName(),
+                "database1",
+                ImmutableList.of(doc1, doc2, invalidDoc, doc4),
+                /*sendChangeNotifications=*/ true,
+                /*logger=*/null);
+
+        // The other documents are indexed despite the failure
+        assertThat(result.getSuccesses().keySet()).containsExactly("id1", "id2", "id4");
+        assertThat(result.getFailures().keySet()).containsExactly("id3");
+        assertThat(mAppSearchImpl.getDocument(mContext.getPackageName(), "database1",
+                "namespace1", "id2", /*typePropertyPaths=*/ Collections.emptyMap()))
+                .isEqualTo(doc2);
+
+        // The notifications are grouped by namespace and schema type
+        mAppSearchImpl.dispatchAndClearChangeNotifications();
+        assertThat(observer.getDocumentChanges()).containsExactly(
+                new DocumentChangeInfo(
+                        mContext.getPackageName(),
+                        "database1",
+                        "namespace1",
+                        "Type1",
+                        /*changedDocumentIds=*/ImmutableSet.of("id1", "id2")),
+                new DocumentChangeInfo(
+                        mContext.getPackageName(),
+                        "database1",
+                        "namespace2",
+                        "Type1",
+                        /*changedDocumentIds=*/ImmutableSet.of("id4")));
+    }
+
     @Test
     public void testGetGlobalDocumentThrowsExceptionWhenNotVisible() throws Exception {
         List<AppSearchSchema> schemas =
@@ -18,6 +18,7 @@ package androidx.appsearch.localstorage;
 
 import static androidx.appsearch.app.AppSearchResult.RESULT_INTERNAL_ERROR;
 import static androidx.appsearch.app.AppSearchResult.RESULT_SECURITY_ERROR;
+import static androidx.appsearch.app.AppSearchResult.throwableToFailedResult;
 import static androidx.appsearch.app.InternalSetSchemaResponse.newFailedSetSchemaResponse;
 import static androidx.appsearch.app.InternalSetSchemaResponse.newSuccessfulSetSchemaResponse;
 import static androidx.appsearch.localstorage.util.PrefixUtil.addPrefixToDocument;
@@ -37,6 +38,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
+import androidx.appsearch.app.AppSearchBatchResult;
 import androidx.appsearch.app.AppSearchResult;
 import androidx.appsearch.app.AppSearchSchema;
 import androidx.appsearch.app.GenericDocument;
@@ -69,9 +71,9 @@ import androidx.appsearch.localstorage.stats.SearchStats;
 import androidx.appsearch.localstorage.stats.SetSchemaStats;
 import androidx.appsearch.localstorage.util.PrefixUtil;
 import androidx.appsearch.localstorage.visibilitystore.CallerAccess;
+import androidx.appsearch.localstorage.visibilitystore.VisibilityCache;
 import androidx.appsearch.localstorage.visibilitystore.VisibilityChecker;
 import androidx.appsearch.localstorage.visibilitystore.VisibilityStore;
-import androidx.appsearch.localstorage.visibilitystore.VisibilityUtil;
 import androidx.appsearch.observer.ObserverCallback;
 import androidx.appsearch.observer.ObserverSpec;
 import androidx.appsearch.util.LogUtil;
@@ -236,6 +238,15 @@ public final class AppSearchImpl implements Closeable {
     @GuardedBy("mReadWriteLock")
     private final VisibilityChecker mVisibilityCheckerLocked;
 
+    /**
+     * Answers of {@link #mVisibilityCheckerLocked} for callers querying other packages' data.
+     * Invalidated whenever a schema, its visibility or the set of packages changes.
+     *
+     * <p>It is thread safe on its own because it is filled at query time, while holding only the
+     * read lock.
+     */
+    private final VisibilityCache mVisibilityCache = new VisibilityCache();
+
     /**
      * The counter to check when to call {@link #checkForOptimize}. The
      * interval is
@@ -794,6 +805,9 @@ public final class AppSearchImpl implements Closeable {
         for (String schemaType : rewrittenSchemaResults.mDeletedPrefixedTypes) {
             removeFromMap(mSchemaMapLocked, prefix, schemaType);
         }
+        // Drop the cached answers before updating the visibility store, so that they can't
+        // outlive a partial update if it fails.
+        mVisibilityCache.invalidate();
         // Since the constructor of VisibilityStore will set schema. Avoid call visibility
         // store before we have already created it.
         if (mVisibilityStoreLocked != null) {
@@ -878,7 +892,7 @@ public final class AppSearchImpl implements Closeable {
                     // This schema type doesn't belong to the database we're querying for.
                     continue;
                 }
-                if (!VisibilityUtil.isSchemaSearchableByCaller(
+                if (!mVisibilityCache.isSchemaSearchableByCaller(
                         callerAccess,
                         packageName,
                         prefixedSchemaType,
@@ -1023,35 +1037,18 @@ public final class AppSearchImpl implements Closeable {
             long rewriteDocumentTypeEndTimeMillis = SystemClock.elapsedRealtime();
             DocumentProto finalDocument = documentBuilder.build();
 
-            // Check limits
-            int newDocumentCount = enforceLimitConfigLocked(
-                    packageName, finalDocument.getUri(), finalDocument.getSerializedSize());
-
-            // Insert document
-            LogUtil.piiTrace(TAG, "putDocument, request", finalDocument.getUri(), finalDocument);
-            PutResultProto putResultProto = mIcingSearchEngineLocked.put(finalDocument);
-            LogUtil.piiTrace(
-                    TAG, "putDocument, response", putResultProto.getStatus(), putResultProto);
-
             // Logging stats
             if (pStatsBuilder != null) {
                 pStatsBuilder
-                        .setStatusCode(statusProtoToResultCode(putResultProto.getStatus()))
                         .setGenerateDocumentProtoLatencyMillis(
                                 (int) (generateDocumentProtoEndTimeMillis
                                         - generateDocumentProtoStartTimeMillis))
                         .setRewriteDocumentTypesLatencyMillis(
                                 (int) (rewriteDocumentTypeEndTimeMillis
                                         - rewriteDocumentTypeStartTimeMillis));
-                AppSearchLoggerHelper.copyNativeStats(putResultProto.getPutDocumentStats(),
-                        pStatsBuilder);
             }
 
-            checkSuccess(putResultProto.getStatus());
-
-            // Only update caches if the document is successfully put to Icing.
-            addToMap(mNamespaceMapLocked, prefix, finalDocument.getNamespace());
-            mDocumentCountMapLocked.put(packageName, newDocumentCount);
+            putDocumentLocked(packageName, prefix, finalDocument, pStatsBuilder);
 
             // Prepare notifications
             if (sendChangeNotifications) {
@@ -1076,6 +1073,178 @@ public final class AppSearchImpl implements Closeable {
         }
     }
 
+    /**
+     * Adds documents to the AppSearch index.
+     *
+     * <p>This has the same effect as calling {@link #putDocument} for each document in turn, but
+     * converts all the documents before taking the write lock, takes the lock only once, and
+     * queues the change notifications once for each namespace and schema type. A document that
+     * cannot be indexed does not prevent the following ones from being indexed. If this instance
+     * has been closed, each document gets a failed result with
+     * {@link AppSearchResult#RESULT_INTERNAL_ERROR}, as {@link #putDocument} would throw an
+     * {@link IllegalStateException} for it.
+     *
+     * <p>This method belongs to mutate group.
+     *
+     * @param packageName             The package name that owns these documents.
+     * @param databaseName            The databaseName these documents reside in.
+     * @param documents               The documents to index.
+     * @param sendChangeNotifications Whether to dispatch
+     *                                {@link androidx.appsearch.observer.DocumentChangeInfo}
+     *                                messages to observers for these changes.
+     * @return The result of each document, keyed by document ID.
+     */
+    @NonNull
+    public AppSearchBatchResult<String, Void> putDocuments(
+            @NonNull String packageName,
+            @NonNull String databaseName,
+            @NonNull List<GenericDocument> documents,
+            boolean sendChangeNotifications,
+            @Nullable AppSearchLogger logger) {
+        AppSearchBatchResult.Builder<String, Void> resultBuilder =
+                new AppSearchBatchResult.Builder<>();
+        String prefix = createPrefix(packageName, databaseName);
+        DocumentProto[] finalDocuments = new DocumentProto[documents.size()];
+        PutDocumentStats.Builder[] pStatsBuilders = null;
+        long[] startTimesMillis = null;
+        if (logger != null) {
+            pStatsBuilders = new PutDocumentStats.Builder[documents.size()];
+            startTimesMillis = new long[documents.size()];
+        }
+
+        // Generate Document Protos and rewrite Document Types, which doesn't need the lock
+        for (int i = 0; i < documents.size(); i++) {
+            GenericDocument document = documents.get(i);
+            long generateDocumentProtoStartTimeMillis = SystemClock.elapsedRealtime();
+            if (pStatsBuilders != null) {
+                pStatsBuilders[i] = new PutDocumentStats.Builder(packageName, databaseName);
+                startTimesMillis[i] = generateDocumentProtoStartTimeMillis;
+            }
+            try {
+                DocumentProto.Builder documentBuilder =
+                        GenericDocumentToProtoConverter.toDocumentProto(document).toBuilder();
+                long generateDocumentProtoEndTimeMillis = SystemClock.elapsedRealtime();
+                addPrefixToDocument(documentBuilder, prefix);
+                long rewriteDocumentTypeEndTimeMillis = SystemClock.elapsedRealtime();
+                finalDocuments[i] = documentBuilder.build();
+
+                if (pStatsBuilders != null) {
+                    pStatsBuilders[i]
+                            .setGenerateDocumentProtoLatencyMillis(
+                                    (int) (generateDocumentProtoEndTimeMillis
+                                            - generateDocumentProtoStartTimeMillis))
+                            .setRewriteDocumentTypesLatencyMillis(
+                                    (int) (rewriteDocumentTypeEndTimeMillis
+                                            - generateDocumentProtoEndTimeMillis));
+                }
+            } catch (Throwable t) {
+                resultBuilder.setResult(document.getId(), throwableToFailedResult(t));
+                if (pStatsBuilders != null) {
+                    pStatsBuilders[i].setTotalLatencyMillis(
+                            (int) (SystemClock.elapsedRealtime() - startTimesMillis[i]));
+                }
+            }
+        }
+
+        // Changed document IDs, by namespace and then by schema type
+        Map<String, Map<String, Set<String>>> changedDocumentIds = new ArrayMap<>();
+        mReadWriteLock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                if (finalDocuments[i] == null) {
+                    continue;
+                }
+                GenericDocument document = documents.get(i);
+                PutDocumentStats.Builder pStatsBuilder =
+                        pStatsBuilders != null ? pStatsBuilders[i] : null;
+                try {
+                    throwIfClosedLocked();
+                    putDocumentLocked(packageName, prefix, finalDocuments[i], pStatsBuilder);
+                    resultBuilder.setSuccess(document.getId(), /*value=*/ null);
+
+                    if (sendChangeNotifications) {
+                        Map<String, Set<String>> schemaTypeMap =
+                                changedDocumentIds.get(document.getNamespace());
+                        if (schemaTypeMap == null) {
+                            schemaTypeMap = new ArrayMap<>();
+                            changedDocumentIds.put(document.getNamespace(), schemaTypeMap);
+                        }
+                        addToMap(schemaTypeMap, document.getSchemaType(), document.getId());
+                    }
+                } catch (Throwable t) {
+                    resultBuilder.setResult(document.getId(), throwableToFailedResult(t));
+                } finally {
+                    if (pStatsBuilder != null) {
+                        pStatsBuilder.setTotalLatencyMillis(
+                                (int) (SystemClock.elapsedRealtime() - startTimesMillis[i]));
+                    }
+                }
+            }
+
+            // Prepare notifications
+            for (Map.Entry<String, Map<String, Set<String>>> namespaceEntry
+                    : changedDocumentIds.entrySet()) {
+                for (Map.Entry<String, Set<String>> schemaTypeEntry
+                        : namespaceEntry.getValue().entrySet()) {
+                    mObserverManager.onDocumentsChange(
+                            packageName,
+                            databaseName,
+                            namespaceEntry.getKey(),
+                            schemaTypeEntry.getKey(),
+                            schemaTypeEntry.getValue(),
+                            mVisibilityStoreLocked,
+                            mVisibilityCheckerLocked);
+                }
+            }
+        } finally {
+            mReadWriteLock.writeLock().unlock();
+
+            if (pStatsBuilders != null && logger != null) {
+                for (int i = 0; i < pStatsBuilders.length; i++) {
+                    logger.logStats(pStatsBuilders[i].build());
+                }
+            }
+        }
+        return resultBuilder.build();
+    }
+
+    /**
+     * Checks the limits for a converted document and inserts it into Icing, updating the caches
+     * when it succeeds.
+     *
+     * @throws AppSearchException on IcingSearchEngine error or if the limits are violated.
+     */
+    @GuardedBy("mReadWriteLock")
+    private void putDocumentLocked(
+            @NonNull String packageName,
+            @NonNull String prefix,
+            @NonNull DocumentProto finalDocument,
+            @Nullable PutDocumentStats.Builder pStatsBuilder)
+            throws AppSearchException {
+        // Check limits
+        int newDocumentCount = enforceLimitConfigLocked(
+                packageName, finalDocument.getUri(), finalDocument.getSerializedSize());
+
+        // Insert document
+        LogUtil.piiTrace(TAG, "putDocument, request", finalDocument.getUri(), finalDocument);
+        PutResultProto putResultProto = mIcingSearchEngineLocked.put(finalDocument);
+        LogUtil.piiTrace(
+                TAG, "putDocument, response", putResultProto.getStatus(), putResultProto);
+
+        // Logging stats
+        if (pStatsBuilder != null) {
+            pStatsBuilder.setStatusCode(statusProtoToResultCode(putResultProto.getStatus()));
+            AppSearchLoggerHelper.copyNativeStats(putResultProto.getPutDocumentStats(),
+                    pStatsBuilder);
+        }
+
+        checkSuccess(putResultProto.getStatus());
+
+        // Only update caches if the document is successfully put to Icing.
+        addToMap(mNamespaceMapLocked, prefix, finalDocument.getNamespace());
+        mDocumentCountMapLocked.put(packageName, newDocumentCount);
+    }
+
     /**
      * Checks that a new document can be added to the given packageName with the given serialized
      * size without violating our {@link LimitConfig}.
@@ -1168,7 +1337,7 @@ public final class AppSearchImpl implements Closeable {
                 documentProto = getDocumentProtoByIdLocked(packageName, databaseName,
                         namespace, id, typePropertyPaths);
 
-                if (!VisibilityUtil.isSchemaSearchableByCaller(
+                if (!mVisibilityCache.isSchemaSearchableByCaller(
                         callerAccess,
                         packageName,
                         documentProto.getSchema(),
@@ -1445,7 +1614,8 @@ public final class AppSearchImpl implements Closeable {
                             mNamespaceMapLocked, mSchemaMapLocked, mConfig);
             // Remove those inaccessible schemas.
             searchSpecToProtoConverter.removeInaccessibleSchemaFilter(
-                    callerAccess, mVisibilityStoreLocked, mVisibilityCheckerLocked);
+                    callerAccess, mVisibilityStoreLocked, mVisibilityCheckerLocked,
+                    mVisibilityCache);
             if (searchSpecToProtoConverter.hasNothingToSearch()) {
                 // there is nothing to search over given their search filters, so we can return an
                 // empty SearchResult and skip sending request to Icing.
@@ -2248,6 +2418,16 @@ public final class AppSearchImpl implements Closeable {
         }
     }
 
+    /**
+     * Drops the cached answers of the {@link VisibilityChecker}.
+     *
+     * <p>Must be called whenever the answers may change for reasons this class doesn't see, such
+     * as packages being installed, updated or removed, or their permissions changing.
+     */
+    public void invalidateVisibilityCache() {
+        mVisibilityCache.invalidate();
+    }
+
     /**
      * Remove all {@link AppSearchSchema}s and {@link GenericDocument}s under the given package.
      *
@@ -2324,6 +2504,7 @@ public final class AppSearchImpl implements Closeable {
             checkSuccess(setSchemaResultProto.getStatus());
 
             // Prune cached maps
+            mVisibilityCache.invalidate();
             for (Map.Entry<String, Set<String>> entry : packageToDatabases.entrySet()) {
                 String packageName = entry.getKey();
                 Set<String> databaseNames = entry.getValue();
@@ -2373,6 +2554,7 @@ public final class AppSearchImpl implements Closeable {
         synchronized (mNextPageTokensLocked) {
             mNextPageTokensLocked.clear();
         }
+        mVisibilityCache.invalidate();
         if (initStatsBuilder != null) {
             initStatsBuilder
                     .setHasReset(true)
@@ -37,6 +37,7 @@ import androidx.core.util.ObjectsCompat;
 import androidx.core.util.Preconditions;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -205,6 +206,30 @@ public class ObserverManager {
             @NonNull String documentId,
             @Nullable VisibilityStore visibilityStore,
             @Nullable VisibilityChecker visibilityChecker) {
+        onDocumentsChange(packageName, databaseName, namespace, schemaType,
+                Collections.singleton(documentId), visibilityStore, visibilityChecker);
+    }
+
+    /**
+     * Should be called when changes occur to several documents of the same namespace and schema
+     * type.
+     *
+     * <p>This behaves like calling {@link #onDocumentChange} for each document, but checks the
+     * visibility of the schema type for each observer only once.
+     *
+     * @param visibilityStore   Store for visibility information. If not provided, only access to
+     *                          own data will be allowed.
+     * @param visibilityChecker Checker for visibility access. If not provided, only access to own
+     *                          data will be allowed.
+     */
+    public void onDocumentsChange(
+            @NonNull String packageName,
+            @NonNull String databaseName,
+            @NonNull String namespace,
+            @NonNull String schemaType,
+            @NonNull Collection<String> documentIds,
+            @Nullable VisibilityStore visibilityStore,
+            @Nullable VisibilityChecker visibilityChecker) {
         synchronized (mLock) {
             List<ObserverInfo> allObserverInfosForPackage = mObserversLocked.get(packageName);
             if (allObserverInfosForPackage == null || allObserverInfosForPackage.isEmpty()) {
@@ -236,7 +261,7 @@ public class ObserverManager {
                     changedDocumentIds = new ArraySet<>();
                     observerInfo.mDocumentChanges.put(key, changedDocumentIds);
                 }
-                changedDocumentIds.add(documentId);
+                changedDocumentIds.addAll(documentIds);
             }
             mHasNotifications = true;
         }
@@ -32,6 +32,7 @@ import androidx.appsearch.app.SearchSpec;
 import androidx.appsearch.exceptions.AppSearchException;
 import androidx.appsearch.localstorage.IcingOptionsConfig;
 import androidx.appsearch.localstorage.visibilitystore.CallerAccess;
+import androidx.appsearch.localstorage.visibilitystore.VisibilityCache;
 import androidx.appsearch.localstorage.visibilitystore.VisibilityChecker;
 import androidx.appsearch.localstorage.visibilitystore.VisibilityStore;
 import androidx.appsearch.localstorage.visibilitystore.VisibilityUtil;
@@ -217,9 +218,33 @@ public final class SearchSpecToProtoConverter {
             @NonNull CallerAccess callerAccess,
             @Nullable VisibilityStore visibilityStore,
             @Nullable VisibilityChecker visibilityChecker) {
+        removeInaccessibleSchemaFilter(callerAccess, visibilityStore, visibilityChecker,
+                /*visibilityCache=*/null);
+    }
+
+    /**
+     * For each target schema, we will check visibility store is that accessible to the caller. And
+     * remove this schemas if it is not allowed for caller to query.
+     *
+     * @param callerAccess      Visibility access info of the calling app
+     * @param visibilityStore   The {@link VisibilityStore} that store all visibility
+     *                          information.
+     * @param visibilityChecker Optional visibility checker to check whether the caller
+     *                          could access target schemas. Pass {@code null} will
+     *                          reject access for all documents which doesn't belong
+     *                          to the calling package.
+     * @param visibilityCache   Optional cache of the answers of the visibility checker, shared
+     *                          across queries. Pass {@code null} to always ask the checker.
+     */
+    public void removeInaccessibleSchemaFilter(
+            @NonNull CallerAccess callerAccess,
+            @Nullable VisibilityStore visibilityStore,
+            @Nullable VisibilityChecker visibilityChecker,
+            @Nullable VisibilityCache visibilityCache) {
         removeInaccessibleSchemaFilterCached(callerAccess, visibilityStore,
                 /*inaccessibleSchemaPrefixes=*/new ArraySet<>(),
-                /*accessibleSchemaPrefixes=*/new ArraySet<>(), visibilityChecker);
+                /*accessibleSchemaPrefixes=*/new ArraySet<>(), visibilityChecker,
+                visibilityCache);
     }
 
     /**
@@ -241,13 +266,16 @@ public final class SearchSpecToProtoConverter {
      * @param accessibleSchemaPrefixes A set of schemas that are known to be accessible. This is
      *                                 helpful for reducing duplicate calls to
      *                                 {@link VisibilityUtil}.
+     * @param visibilityCache   Optional cache of the answers of the visibility checker, shared
+     *                          across queries.
      */
     private void removeInaccessibleSchemaFilterCached(
             @NonNull CallerAccess callerAccess,
             @Nullable VisibilityStore visibilityStore,
             @NonNull Set<String> inaccessibleSchemaPrefixes,
             @NonNull Set<String> accessibleSchemaPrefixes,
-            @Nullable VisibilityChecker visibilityChecker) {
+            @Nullable VisibilityChecker visibilityChecker,
+            @Nullable VisibilityCache visibilityCache) {
         Iterator<String> targetPrefixedSchemaFilterIterator =
                 mTargetPrefixedSchemaFilters.iterator();
         while (targetPrefixedSchemaFilterIterator.hasNext()) {
@@ -258,12 +286,13 @@ public final class SearchSpecToProtoConverter {
                 continue;
             } else if (inaccessibleSchemaPrefixes.contains(targetPrefixedSchemaFilter)) {
                 targetPrefixedSchemaFilterIterator.remove();
-            } else if (!VisibilityUtil.isSchemaSearchableByCaller(
+            } else if (!isSchemaSearchableByCaller(
                     callerAccess,
                     packageName,
                     targetPrefixedSchemaFilter,
                     visibilityStore,
-                    visibilityChecker)) {
+                    visibilityChecker,
+                    visibilityCache)) {
                 targetPrefixedSchemaFilterIterator.remove();
                 inaccessibleSchemaPrefixes.add(targetPrefixedSchemaFilter);
             } else {
@@ -274,8 +303,23 @@ public final class SearchSpecToProtoConverter {
         if (mNestedConverter != null) {
             mNestedConverter.removeInaccessibleSchemaFilterCached(
                     callerAccess, visibilityStore, inaccessibleSchemaPrefixes,
-                    accessibleSchemaPrefixes, visibilityChecker);
+                    accessibleSchemaPrefixes, visibilityChecker, visibilityCache);
+        }
+    }
+
+    private static boolean isSchemaSearchableByCaller(
+            @NonNull CallerAccess callerAccess,
+            @NonNull String targetPackageName,
+            @NonNull String prefixedSchema,
+            @Nullable VisibilityStore visibilityStore,
+            @Nullable VisibilityChecker visibilityChecker,
+            @Nullable VisibilityCache visibilityCache) {
+        if (visibilityCache != null) {
+            return visibilityCache.isSchemaSearchableByCaller(callerAccess, targetPackageName,
+                    prefixedSchema, visibilityStore, visibilityChecker);
         }
+        return VisibilityUtil.isSchemaSearchableByCaller(callerAccess, targetPackageName,
+                prefixedSchema, visibilityStore, visibilityChecker);
     }
 
 
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.localstorage.visibilitystore;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.collection.ArrayMap;
+import androidx.core.util.Preconditions;
+
+import java.util.Map;
+
+/**
+ * Caches whether callers may access prefixed schema types, so that queries across many packages
+ * don't ask the {@link VisibilityChecker} about every schema type again.
+ *
+ * <p>The cache must be invalidated whenever the answer of the {@link VisibilityChecker} could
+ * change: when a schema or its visibility is set, when package data is removed, and when packages
+ * are installed, updated or removed. An answer computed before an invalidation is never stored
+ * after it.
+ *
+ * <p>This class is thread safe, so it may be used while holding only the read lock of
+ * {@link androidx.appsearch.localstorage.AppSearchImpl}.
+ * @exportToFramework:hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class VisibilityCache {
+    /**
+     * The maximum number of callers whose answers are kept. The whole cache is dropped once
+     * reached, since callers with many identities are not expected to query repeatedly.
+     */
+    private static final int MAX_CALLERS = 64;
+
+    private final Object mLock = new Object();
+
+    @GuardedBy("mLock")
+    private final Map<CallerAccess, Map<String, Boolean>> mCache = new ArrayMap<>();
+
+    /** Incremented on each invalidation, so that stale answers are not stored afterwards. */
+    @GuardedBy("mLock")
+    private long mVersion;
+
+    /**
+     * Determines whether the calling package has access to the given prefixed schema type, as
+     * {@link VisibilityUtil#isSchemaSearchableByCaller} does, reusing the answer of an earlier
+     * call when there has been no invalidation since.
+     *
+     * @param callerAccess      Visibility access info of the calling app
+     * @param targetPackageName The package name of the app that owns the data.
+     * @param prefixedSchema    The prefixed schema type the caller wants to access.
+     * @param visibilityStore   Store for visibility information. If not provided, only
+     *                          access to own data will be allowed.
+     * @param visibilityChecker Checker for visibility access. If not provided, only access to
+     *                          own data will be allowed.
+     * @return Whether access by the caller to this prefixed schema should be allowed.
+     */
+    public boolean isSchemaSearchableByCaller(
+            @NonNull CallerAccess callerAccess,
+            @NonNull String targetPackageName,
+            @NonNull String prefixedSchema,
+            @Nullable VisibilityStore visibilityStore,
+            @Nullable VisibilityChecker visibilityChecker) {
+        Preconditions.checkNotNull(callerAccess);
+        Preconditions.checkNotNull(targetPackageName);
+        Preconditions.checkNotNull(prefixedSchema);
+
+        if (visibilityStore == null || visibilityChecker == null
+                || callerAccess.getCallingPackageName().equals(targetPackageName)) {
+            // Answered without asking the checker, nothing worth caching.
+            return VisibilityUtil.isSchemaSearchableByCaller(callerAccess, targetPackageName,
+                    prefixedSchema, visibilityStore, visibilityChecker);
+        }
+
+        long version;
+        synchronized (mLock) {
+            Map<String, Boolean> schemas = mCache.get(callerAccess);
+            if (schemas != null) {
+                Boolean searchable = schemas.get(prefixedSchema);
+                if (searchable != null) {
+                    return searchable;
+                }
+            }
+            version = mVersion;
+        }
+
+        // The checker may be slow, don't block other callers while asking it.
+        boolean searchable = visibilityChecker.isSchemaSearchableByCaller(
+                callerAccess, targetPackageName, prefixedSchema, visibilityStore);
+
+        synchronized (mLock) {
+            if (version == mVersion) {
+                Map<String, Boolean> schemas = mCache.get(callerAccess);
+                if (schemas == null) {
+                    if (mCache.size() >= MAX_CALLERS) {
+                        mCache.clear();
+                    }
+                    schemas = new ArrayMap<>();
+                    mCache.put(callerAccess, schemas);
+                }
+                schemas.put(prefixedSchema, searchable);
+            }
+        }
+        return searchable;
+    }
+
+    /** Drops every cached answer. */
+    public void invalidate() {
+        synchronized (mLock) {
+            mCache.clear();
+            mVersion++;
+        }
+    }
+}
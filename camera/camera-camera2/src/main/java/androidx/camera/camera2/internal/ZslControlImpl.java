@@ -165,6 +165,7 @@ final class ZslControlImpl implements ZslControl {
                 MAX_IMAGES);
         mMetadataMatchingCaptureCallback = metadataImageReader.getCameraCaptureCallback();
         mReprocessingImageReader = new SafeCloseImageReaderProxy(metadataImageReader);
+        // The ring buffer must be filled by one thread at a time.
         metadataImageReader.setOnImageAvailableListener(
                 imageReader -> {
                     try {
@@ -177,7 +178,7 @@ final class ZslControlImpl implements ZslControl {
                                 + e.getMessage());
                     }
 
-                }, CameraXExecutors.ioExecutor());
+                }, CameraXExecutors.newSequentialExecutor(CameraXExecutors.ioExecutor()));
 
         // Init the reprocessing image reader surface and add into the target surfaces of capture
         mReprocessingImageDeferrableSurface = new ImmediateSurface(
@@ -253,8 +254,8 @@ final class ZslControlImpl implements ZslControl {
         // We might need synchronization here when clearing ring buffer while image is enqueued
         // at the same time. Will test this case.
         ZslRingBuffer imageRingBuffer = mImageRingBuffer;
-        while (!imageRingBuffer.isEmpty()) {
-            ImageProxy imageProxy = imageRingBuffer.dequeue();
+        ImageProxy imageProxy;
+        while ((imageProxy = imageRingBuffer.poll()) != null) {
             imageProxy.close();
         }
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.camera.core.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.camera.core.internal.utils.ArrayRingBuffer
+import androidx.camera.core.internal.utils.LockFreeRingBuffer
+import androidx.camera.core.internal.utils.RingBuffer
+import androidx.test.filters.LargeTest
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.concurrent.thread
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Compares [LockFreeRingBuffer] against [ArrayRingBuffer], on one thread and with a producer
+ * thread enqueuing while the measured thread dequeues, as when the camera enqueues ZSL frames
+ * while the capture pipeline dequeues them.
+ */
+@RunWith(Parameterized::class)
+@LargeTest
+class RingBufferBenchmark(private val lockFree: Boolean, private val capacity: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val element = Any()
+
+    companion object {
+        @Parameterized.Parameters(name = "lockFree={0},capacity={1}")
+        @JvmStatic
+        fun parameters() = listOf(false, true).flatMap { lockFree ->
+            listOf(3, 64).map { capacity -> arrayOf(lockFree, capacity) }
+        }
+    }
+
+    private fun createBuffer(): RingBuffer<Any> =
+        if (lockFree) LockFreeRingBuffer(capacity) else ArrayRingBuffer(capacity)
+
+    private fun RingBuffer<Any>.dequeueOrNull(): Any? =
+        if (this is LockFreeRingBuffer) {
+            poll()
+        } else {
+            // The producer only removes elements of an ArrayRingBuffer to replace them, so it
+            // can't become empty between the calls of its only consumer.
+            if (isEmpty) null else dequeue()
+        }
+
+    @Test
+    fun enqueueAndDequeue() {
+        val buffer = createBuffer()
+        benchmarkRule.measureRepeated {
+            buffer.enqueue(element)
+            buffer.dequeueOrNull()
+        }
+    }
+
+    @Test
+    fun dequeue_whileProducing() {
+        val buffer = createBuffer()
+        val producing = AtomicBoolean(true)
+        val producer = thread {
+            while (producing.get()) {
+                buffer.enqueue(element)
+            }
+        }
+        try {
+            benchmarkRule.measureRepeated {
+                buffer.dequeueOrNull()
+            }
+        } finally {
+            producing.set(false)
+            producer.join()
+        }
+    }
+}
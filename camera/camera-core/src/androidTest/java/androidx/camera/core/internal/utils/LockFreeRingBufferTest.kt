@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.camera.core.internal.utils
+
+import androidx.testutils.assertThrows
+import com.google.common.truth.Truth
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.concurrent.thread
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito
+
+@RunWith(JUnit4::class)
+class LockFreeRingBufferTest {
+
+    @Test
+    fun testEnqueue() {
+        val testBuffer: RingBuffer<Int> =
+            LockFreeRingBuffer(3)
+        testBuffer.enqueue(1)
+        testBuffer.enqueue(2)
+        testBuffer.enqueue(3)
+        testBuffer.enqueue(4)
+        Truth.assertThat(testBuffer.dequeue()).isEqualTo(2)
+    }
+
+    @Test
+    fun testDequeue_OnRemoveCallbackCalledOnlyWhenDiscardingItemsDueToCapacity() {
+        @Suppress("UNCHECKED_CAST")
+        val mockCallback: RingBuffer.OnRemoveCallback<Int> = Mockito.mock(
+            RingBuffer.OnRemoveCallback::class.java
+        ) as RingBuffer.OnRemoveCallback<Int>
+
+        val testBuffer = LockFreeRingBuffer(3, mockCallback)
+        testBuffer.enqueue(1)
+        testBuffer.enqueue(2)
+        testBuffer.enqueue(3)
+        testBuffer.enqueue(4)
+        Mockito.verify(mockCallback).onRemove(1)
+        Truth.assertThat(testBuffer.dequeue()).isEqualTo(2)
+        Mockito.verify(mockCallback, Mockito.times(1)).onRemove(any())
+        Truth.assertThat(testBuffer.droppedCount).isEqualTo(1)
+    }
+
+    @Test
+    fun testDequeue_exceptionThrownWhenBufferEmpty() {
+        val testBuffer = LockFreeRingBuffer<Int>(5)
+        testBuffer.enqueue(1)
+        testBuffer.dequeue()
+        Truth.assertThat(testBuffer.isEmpty).isTrue()
+        assertThrows(NoSuchElementException::class.java, testBuffer::dequeue)
+    }
+
+    @Test
+    fun testPoll_returnsNullWhenBufferEmpty() {
+        val testBuffer = LockFreeRingBuffer<Int>(2)
+        testBuffer.enqueue(1)
+        testBuffer.enqueue(2)
+        Truth.assertThat(testBuffer.poll()).isEqualTo(1)
+        Truth.assertThat(testBuffer.poll()).isEqualTo(2)
+        Truth.assertThat(testBuffer.poll()).isNull()
+    }
+
+    @Test
+    fun testConcurrentDequeue_everyElementIsDequeuedOrDroppedInOrder() {
+        val dropped = AtomicLong()
+        val testBuffer = LockFreeRingBuffer<Long>(3) { dropped.incrementAndGet() }
+        val producerDone = AtomicBoolean()
+        var dequeued = 0L
+        var last = -1L
+        var inOrder = true
+
+        val consumer = thread {
+            while (true) {
+                val done = producerDone.get()
+                if (testBuffer.isEmpty) {
+                    if (done) break
+                    continue
+                }
+                val element = testBuffer.dequeue()
+                inOrder = inOrder && element > last
+                last = element
+                dequeued++
+            }
+        }
+        for (i in 0L until 100_000L) {
+            testBuffer.enqueue(i)
+        }
+        producerDone.set(true)
+        consumer.join()
+
+        Truth.assertThat(inOrder).isTrue()
+        Truth.assertThat(dequeued + dropped.get()).isEqualTo(100_000L)
+        Truth.assertThat(testBuffer.droppedCount).isEqualTo(dropped.get())
+    }
+}
@@ -88,6 +88,11 @@ abstract class ImageAnalysisAbstractAnalyzer implements ImageReaderProxy.OnImage
     @Nullable
     private ImageWriter mProcessedImageWriter;
 
+    // Writes the RGB images to mProcessedImageReaderProxy when the native library is unavailable.
+    @GuardedBy("mAnalyzerLock")
+    @Nullable
+    private ImageWriter mRGBImageWriter;
+
     @GuardedBy("mAnalyzerLock")
     private Rect mOriginalViewPortCropRect = new Rect();
 
@@ -172,6 +177,7 @@ abstract class ImageAnalysisAbstractAnalyzer implements ImageReaderProxy.OnImage
         ImageAnalysis.Analyzer analyzer;
         SafeCloseImageReaderProxy processedImageReaderProxy;
         ImageWriter processedImageWriter;
+        ImageWriter rgbImageWriter;
         ByteBuffer rgbConvertedBuffer;
         ByteBuffer yRotatedBuffer;
         ByteBuffer uRotatedBuffer;
@@ -199,8 +205,13 @@ abstract class ImageAnalysisAbstractAnalyzer implements ImageReaderProxy.OnImage
                 createHelperBuffer(imageProxy);
             }
 
+            if (mOutputImageFormat == OUTPUT_IMAGE_FORMAT_RGBA_8888) {
+                createRGBImageWriterIfNeeded();
+            }
+
             processedImageReaderProxy = mProcessedImageReaderProxy;
             processedImageWriter = mProcessedImageWriter;
+            rgbImageWriter = mRGBImageWriter;
             rgbConvertedBuffer = mRGBConvertedBuffer;
             yRotatedBuffer = mYRotatedBuffer;
             uRotatedBuffer = mURotatedBuffer;
@@ -218,6 +229,7 @@ abstract class ImageAnalysisAbstractAnalyzer implements ImageReaderProxy.OnImage
                             convertYUVToRGB(
                                     imageProxy,
                                     processedImageReaderProxy,
+                                    rgbImageWriter,
                                     rgbConvertedBuffer,
                                     currentBufferRotationDegrees,
                                     mOnePixelShiftEnabled);
@@ -354,6 +366,7 @@ abstract class ImageAnalysisAbstractAnalyzer implements ImageReaderProxy.OnImage
             @NonNull SafeCloseImageReaderProxy processedImageReaderProxy) {
         synchronized (mAnalyzerLock) {
             mProcessedImageReaderProxy = processedImageReaderProxy;
+            closeRGBImageWriter();
         }
 
     }
@@ -421,6 +434,7 @@ abstract class ImageAnalysisAbstractAnalyzer implements ImageReaderProxy.OnImage
             return;
         }
 
+        closeRGBImageWriter();
         mProcessedImageReaderProxy.safeClose();
         mProcessedImageReaderProxy = createImageReaderProxy(
                 imageProxy.getWidth(),
@@ -442,6 +456,30 @@ abstract class ImageAnalysisAbstractAnalyzer implements ImageReaderProxy.OnImage
         }
     }
 
+    /**
+     * Creates the writer of the RGB images when the native library, which otherwise writes them,
+     * is unavailable.
+     */
+    @GuardedBy("mAnalyzerLock")
+    private void createRGBImageWriterIfNeeded() {
+        if (Build.VERSION.SDK_INT >= 23
+                && mRGBImageWriter == null
+                && mProcessedImageReaderProxy != null
+                && !ImageProcessingUtil.isNativeLibraryLoaded()) {
+            mRGBImageWriter = ImageWriterCompat.newInstance(
+                    mProcessedImageReaderProxy.getSurface(),
+                    mProcessedImageReaderProxy.getMaxImages());
+        }
+    }
+
+    @GuardedBy("mAnalyzerLock")
+    private void closeRGBImageWriter() {
+        if (Build.VERSION.SDK_INT >= 23 && mRGBImageWriter != null) {
+            ImageWriterCompat.close(mRGBImageWriter);
+        }
+        mRGBImageWriter = null;
+    }
+
     @GuardedBy("mAnalyzerLock")
     private void recalculateTransformMatrixAndCropRect(
             int originalWidth,
@@ -34,8 +34,10 @@ import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.camera.core.impl.ImageOutputConfig;
 import androidx.camera.core.impl.ImageReaderProxy;
+import androidx.camera.core.impl.utils.executor.CameraXExecutors;
 import androidx.camera.core.internal.compat.ImageWriterCompat;
 import androidx.camera.core.internal.utils.ImageUtil;
+import androidx.camera.core.internal.utils.YuvKernels;
 import androidx.core.util.Preconditions;
 
 import java.nio.ByteBuffer;
@@ -52,9 +54,19 @@ public final class ImageProcessingUtil {
     private static final String TAG = "ImageProcessingUtil";
     private static int sImageCount = 0;
 
-    static {
-        System.loadLibrary("image_processing_util_jni");
-    }
+    /**
+     * The minimum number of pixels of an image for it to be converted to RGB on several threads
+     * when the native library is unavailable.
+     */
+    private static final int MIN_PIXELS_FOR_PARALLEL_CONVERSION = 1280 * 720;
+
+    /** The maximum number of threads converting an image to RGB, including the calling one. */
+    private static final int MAX_CONVERSION_PARALLELISM = 3;
+
+    /** The RGBA pixel stride of the converted images. */
+    private static final int RGBA_PIXEL_STRIDE = 4;
+
+    private static final boolean NATIVE_LIBRARY_LOADED = loadNativeLibrary();
 
     enum Result {
         UNKNOWN,
@@ -65,6 +77,22 @@ public final class ImageProcessingUtil {
     private ImageProcessingUtil() {
     }
 
+    private static boolean loadNativeLibrary() {
+        try {
+            System.loadLibrary("image_processing_util_jni");
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            Logger.w(TAG, "Failed to load native library, using Java image processing instead.",
+                    e);
+            return false;
+        }
+    }
+
+    /** Returns true if the images are processed by the native library, otherwise in Java. */
+    static boolean isNativeLibraryLoaded() {
+        return NATIVE_LIBRARY_LOADED;
+    }
+
     /**
      * Wraps a JPEG byte array with an {@link Image}.
      *
@@ -167,6 +195,23 @@ public final class ImageProcessingUtil {
         }
     }
 
+    /**
+     * Converts image proxy in YUV to RGB.
+     *
+     * <p>Same as {@link #convertYUVToRGB(ImageProxy, ImageReaderProxy, ImageWriter, ByteBuffer,
+     * int, boolean)} without an image writer, so it fails when the native library is unavailable.
+     */
+    @Nullable
+    public static ImageProxy convertYUVToRGB(
+            @NonNull ImageProxy imageProxy,
+            @NonNull ImageReaderProxy rgbImageReaderProxy,
+            @Nullable ByteBuffer rgbConvertedBuffer,
+            @IntRange(from = 0, to = 359) int rotationDegrees,
+            boolean onePixelShiftEnabled) {
+        return convertYUVToRGB(imageProxy, rgbImageReaderProxy, null, rgbConvertedBuffer,
+                rotationDegrees, onePixelShiftEnabled);
+    }
+
     /**
      * Converts image proxy in YUV to RGB.
      *
@@ -174,8 +219,14 @@ public final class ImageProcessingUtil {
      * otherwise the input YUV layout will be converted to NV12 first and then to RGBA_8888 as a
      * fallback.
      *
+     * <p>When the native library is unavailable, the image is converted in Java and written to the
+     * image reader through the image writer, which requires API level 23. One pixel shift isn't
+     * supported in that case.
+     *
      * @param imageProxy           input image proxy in YUV.
      * @param rgbImageReaderProxy  output image reader proxy in RGB.
+     * @param rgbImageWriter       output image writer on the Surface of the image reader, only
+     *                             used when the native library is unavailable.
      * @param rgbConvertedBuffer   intermediate image buffer for format conversion.
      * @param rotationDegrees      output image rotation degrees.
      * @param onePixelShiftEnabled true if one pixel shift should be applied, otherwise false.
@@ -185,6 +236,7 @@ public final class ImageProcessingUtil {
     public static ImageProxy convertYUVToRGB(
             @NonNull ImageProxy imageProxy,
             @NonNull ImageReaderProxy rgbImageReaderProxy,
+            @Nullable ImageWriter rgbImageWriter,
             @Nullable ByteBuffer rgbConvertedBuffer,
             @IntRange(from = 0, to = 359) int rotationDegrees,
             boolean onePixelShiftEnabled) {
@@ -200,12 +252,26 @@ public final class ImageProcessingUtil {
         }
 
         // Convert YUV To RGB and write data to surface
-        Result result = convertYUVToRGBInternal(
-                imageProxy,
-                rgbImageReaderProxy.getSurface(),
-                rgbConvertedBuffer,
-                rotationDegrees,
-                onePixelShiftEnabled);
+        Result result;
+        if (NATIVE_LIBRARY_LOADED) {
+            result = convertYUVToRGBInternal(
+                    imageProxy,
+                    rgbImageReaderProxy.getSurface(),
+                    rgbConvertedBuffer,
+                    rotationDegrees,
+                    onePixelShiftEnabled);
+        } else if (Build.VERSION.SDK_INT >= 23 && rgbImageWriter != null
+                && !onePixelShiftEnabled) {
+            result = convertYUVToRGBWithImageWriter(
+                    imageProxy,
+                    rgbImageWriter,
+                    rgbConvertedBuffer,
+                    rotationDegrees);
+        } else {
+            Logger.e(TAG, "YUV to RGB conversion without the native library requires an image "
+                    + "writer and no one pixel shift");
+            return null;
+        }
 
         if (result == ERROR_CONVERSION) {
             Logger.e(TAG, "YUV to RGB conversion failure");
@@ -268,6 +334,28 @@ public final class ImageProcessingUtil {
                 imageProxy.getHeight(), Bitmap.Config.ARGB_8888);
         int bitmapStride = bitmap.getRowBytes();
 
+        if (!NATIVE_LIBRARY_LOADED) {
+            // Not kept between calls, as it is as large as the bitmap.
+            ByteBuffer rgbaBuffer = ByteBuffer.allocate(bitmapStride * imageHeight);
+            YuvKernels.yuv420ToRgba(
+                    imageProxy.getPlanes()[0].getBuffer(),
+                    srcStrideY,
+                    srcPixelStrideY,
+                    imageProxy.getPlanes()[1].getBuffer(),
+                    srcStrideU,
+                    imageProxy.getPlanes()[2].getBuffer(),
+                    srcStrideV,
+                    srcPixelStrideUV,
+                    rgbaBuffer,
+                    bitmapStride,
+                    imageWidth,
+                    imageHeight,
+                    CameraXExecutors.ioExecutor(),
+                    getConversionParallelism(imageWidth, imageHeight));
+            bitmap.copyPixelsFromBuffer(rgbaBuffer);
+            return bitmap;
+        }
+
         int result = nativeConvertAndroid420ToBitmap(
                 imageProxy.getPlanes()[0].getBuffer(),
                 srcStrideY,
@@ -298,6 +386,10 @@ public final class ImageProcessingUtil {
             Logger.e(TAG, "Unsupported format for YUV to RGB");
             return false;
         }
+        if (!NATIVE_LIBRARY_LOADED) {
+            Logger.e(TAG, "One pixel shift for YUV requires the native library");
+            return false;
+        }
 
         Result result = applyPixelShiftInternal(imageProxy);
 
@@ -377,6 +469,13 @@ public final class ImageProcessingUtil {
         return wrappedRotatedImageProxy;
     }
 
+    /** Returns the number of threads converting an image of the given size in Java. */
+    private static int getConversionParallelism(int width, int height) {
+        return width * height >= MIN_PIXELS_FOR_PARALLEL_CONVERSION
+                ? Math.min(MAX_CONVERSION_PARALLELISM, Runtime.getRuntime().availableProcessors())
+                : 1;
+    }
+
     private static boolean isSupportedYUVFormat(@NonNull ImageProxy imageProxy) {
         return imageProxy.getFormat() == ImageFormat.YUV_420_888
                 && imageProxy.getPlanes().length == 3;
@@ -432,6 +531,80 @@ public final class ImageProcessingUtil {
         return SUCCESS;
     }
 
+    @RequiresApi(23)
+    @NonNull
+    private static Result convertYUVToRGBWithImageWriter(
+            @NonNull ImageProxy imageProxy,
+            @NonNull ImageWriter rgbImageWriter,
+            @Nullable ByteBuffer rgbConvertedBuffer,
+            @ImageOutputConfig.RotationDegreesValue int rotationDegrees) {
+        int imageWidth = imageProxy.getWidth();
+        int imageHeight = imageProxy.getHeight();
+        int convertedStride = imageWidth * RGBA_PIXEL_STRIDE;
+        // A rotated image is converted to the intermediate buffer first.
+        if (rotationDegrees != 0 && (rgbConvertedBuffer == null
+                || rgbConvertedBuffer.capacity() < convertedStride * imageHeight)) {
+            return ERROR_CONVERSION;
+        }
+
+        Image rgbImage = ImageWriterCompat.dequeueInputImage(rgbImageWriter);
+        if (rgbImage == null) {
+            return ERROR_CONVERSION;
+        }
+        boolean queued = false;
+        try {
+            Image.Plane dstPlane = rgbImage.getPlanes()[0];
+            ByteBuffer convertedBuffer = rotationDegrees != 0 ? rgbConvertedBuffer
+                    : dstPlane.getBuffer();
+            YuvKernels.yuv420ToRgba(
+                    imageProxy.getPlanes()[0].getBuffer(),
+                    imageProxy.getPlanes()[0].getRowStride(),
+                    imageProxy.getPlanes()[0].getPixelStride(),
+                    imageProxy.getPlanes()[1].getBuffer(),
+                    imageProxy.getPlanes()[1].getRowStride(),
+                    imageProxy.getPlanes()[2].getBuffer(),
+                    imageProxy.getPlanes()[2].getRowStride(),
+                    imageProxy.getPlanes()[1].getPixelStride(),
+                    convertedBuffer,
+                    rotationDegrees != 0 ? convertedStride : dstPlane.getRowStride(),
+                    imageWidth,
+                    imageHeight,
+                    CameraXExecutors.ioExecutor(),
+                    getConversionParallelism(imageWidth, imageHeight));
+
+            if (rotationDegrees != 0) {
+                // Rotate each channel as a plane whose pixel stride is the RGBA one.
+                for (int i = 0; i < RGBA_PIXEL_STRIDE; i++) {
+                    YuvKernels.rotatePlane(
+                            sliceFrom(convertedBuffer, i),
+                            convertedStride,
+                            RGBA_PIXEL_STRIDE,
+                            sliceFrom(dstPlane.getBuffer(), i),
+                            dstPlane.getRowStride(),
+                            dstPlane.getPixelStride(),
+                            imageWidth,
+                            imageHeight,
+                            rotationDegrees);
+                }
+            }
+            ImageWriterCompat.queueInputImage(rgbImageWriter, rgbImage);
+            queued = true;
+        } finally {
+            if (!queued) {
+                // The image is only closed by the writer once queued, give it back otherwise.
+                rgbImage.close();
+            }
+        }
+        return SUCCESS;
+    }
+
+    @NonNull
+    private static ByteBuffer sliceFrom(@NonNull ByteBuffer buffer, int offset) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        return duplicate.slice();
+    }
+
     @NonNull
     private static Result applyPixelShiftInternal(@NonNull ImageProxy imageProxy) {
         int imageWidth = imageProxy.getWidth();
@@ -487,6 +660,27 @@ public final class ImageProcessingUtil {
             return ERROR_CONVERSION;
         }
 
+        if (!NATIVE_LIBRARY_LOADED) {
+            // Rotate each plane directly into the output image, the intermediate buffers are
+            // only needed by the native library.
+            for (int i = 0; i < 3; i++) {
+                ImageProxy.PlaneProxy srcPlane = imageProxy.getPlanes()[i];
+                Image.Plane dstPlane = rotatedImage.getPlanes()[i];
+                YuvKernels.rotatePlane(
+                        srcPlane.getBuffer(),
+                        srcPlane.getRowStride(),
+                        srcPlane.getPixelStride(),
+                        dstPlane.getBuffer(),
+                        dstPlane.getRowStride(),
+                        dstPlane.getPixelStride(),
+                        i == 0 ? imageWidth : (imageWidth + 1) / 2,
+                        i == 0 ? imageHeight : (imageHeight + 1) / 2,
+                        rotationDegrees);
+            }
+            ImageWriterCompat.queueInputImage(rotatedImageWriter, rotatedImage);
+            return SUCCESS;
+        }
+
         int result = nativeRotateYUV(
                 imageProxy.getPlanes()[0].getBuffer(),
                 srcStrideY,
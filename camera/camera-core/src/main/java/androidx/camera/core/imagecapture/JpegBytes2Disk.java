@@ -34,9 +34,11 @@ import androidx.camera.core.impl.utils.Exif;
 import androidx.camera.core.internal.compat.workaround.InvalidJpegDataParser;
 import androidx.camera.core.processing.Operation;
 import androidx.camera.core.processing.Packet;
+import androidx.exifinterface.media.ExifInterface;
 
 import com.google.auto.value.AutoValue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -44,6 +46,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.UUID;
 
 /**
@@ -58,19 +69,247 @@ class JpegBytes2Disk implements Operation<JpegBytes2Disk.In, ImageCapture.Output
     private static final int PENDING = 1;
     private static final int NOT_PENDING = 0;
 
+    // Tags changed by updateExif and Exif#prepareForSave which can be patched in the original
+    // Exif segment. ASCII values may be shorter than the original ones, they are padded with NULs.
+    private static final List<String> PATCHABLE_SHORT_TAGS =
+            Arrays.asList(ExifInterface.TAG_ORIENTATION);
+    private static final List<String> PATCHABLE_ASCII_TAGS =
+            Arrays.asList(ExifInterface.TAG_DATETIME, ExifInterface.TAG_SUBSEC_TIME);
+    // Ids of the patchable tags ExifInterface also writes to the thumbnail IFD, whose copies
+    // there must be patched as well.
+    private static final Map<String, Integer> THUMBNAIL_IFD_TAG_IDS = new HashMap<>();
+    private static final int EXIF_SEGMENT_MARKER = 0xE1;
+    private static final int START_OF_SCAN_MARKER = 0xDA;
+    private static final byte[] EXIF_IDENTIFIER = {'E', 'x', 'i', 'f', 0, 0};
+    private static final int IFD_ENTRY_SIZE = 12;
+    private static final int IFD_FORMAT_ASCII = 2;
+    private static final int IFD_FORMAT_SHORT = 3;
+
+    static {
+        THUMBNAIL_IFD_TAG_IDS.put(ExifInterface.TAG_ORIENTATION, 0x0112);
+        THUMBNAIL_IFD_TAG_IDS.put(ExifInterface.TAG_DATETIME, 0x0132);
+    }
+
     @NonNull
     @Override
     public ImageCapture.OutputFileResults apply(@NonNull In in) throws ImageCaptureException {
         Packet<byte[]> packet = in.getPacket();
         ImageCapture.OutputFileOptions options = in.getOutputFileOptions();
-        File tempFile = createTempFile(options);
-        writeBytesToFile(tempFile, packet.getData());
-        updateFileExif(tempFile, requireNonNull(packet.getExif()), options,
-                packet.getRotationDegrees());
-        Uri uri = moveFileToTarget(tempFile, options);
+        byte[] jpegBytes = packet.getData();
+        int length = new InvalidJpegDataParser().getValidDataLength(jpegBytes);
+        Map<Integer, byte[]> exifPatches = createExifPatches(jpegBytes, length,
+                requireNonNull(packet.getExif()), options, packet.getRotationDegrees());
+        Uri uri;
+        if (exifPatches != null) {
+            // The Exif changes fit in the original Exif segment, so the bytes are written to the
+            // target once, without reading them back.
+            uri = writeToTarget(
+                    outputStream -> writePatchedBytes(outputStream, jpegBytes, length, exifPatches),
+                    options);
+        } else {
+            File tempFile = createTempFile(options);
+            writeBytesToFile(tempFile, jpegBytes);
+            updateFileExif(tempFile, requireNonNull(packet.getExif()), options,
+                    packet.getRotationDegrees());
+            uri = moveFileToTarget(tempFile, options);
+        }
         return new ImageCapture.OutputFileResults(uri);
     }
 
+    /**
+     * Applies {@link #updateExif} to the Exif data of the JPEG bytes and returns the changes as
+     * patches of the original Exif segment, keyed by their offsets in the bytes.
+     *
+     * @return null if the changes don't fit in the original Exif segment, e.g. when the location
+     * is attached, in which case the Exif segment has to be rewritten with
+     * {@link #updateFileExif}.
+     */
+    @Nullable
+    private static Map<Integer, byte[]> createExifPatches(
+            @NonNull byte[] jpegBytes,
+            int length,
+            @NonNull Exif originalExif,
+            @NonNull ImageCapture.OutputFileOptions options,
+            int rotationDegrees) {
+        Exif exif;
+        try {
+            exif = Exif.createFromInputStream(new ByteArrayInputStream(jpegBytes, 0, length));
+        } catch (IOException e) {
+            return null;
+        }
+        ExifInterface exifInterface = exif.getExifInterface();
+
+        // Ranges can only be read before the Exif data is changed.
+        Map<String, List<long[]>> ranges = new HashMap<>();
+        for (String tag : PATCHABLE_SHORT_TAGS) {
+            putRange(ranges, exifInterface, tag);
+        }
+        for (String tag : PATCHABLE_ASCII_TAGS) {
+            putRange(ranges, exifInterface, tag);
+        }
+        Map<Integer, long[]> thumbnailRanges = getThumbnailIfdRanges(jpegBytes, length);
+        if (thumbnailRanges == null) {
+            return null;
+        }
+        for (Map.Entry<String, Integer> entry : THUMBNAIL_IFD_TAG_IDS.entrySet()) {
+            List<long[]> tagRanges = ranges.get(entry.getKey());
+            long[] thumbnailRange = thumbnailRanges.get(entry.getValue());
+            if (tagRanges == null || thumbnailRange == null) {
+                continue;
+            }
+            if (tagRanges.get(0)[0] == thumbnailRange[0]) {
+                // Only the thumbnail IFD has the tag, the primary IFD would need a new entry.
+                ranges.remove(entry.getKey());
+            } else {
+                tagRanges.add(thumbnailRange);
+            }
+        }
+        List<String> tags = Exif.getAllExifTags();
+        Map<String, String> values = new HashMap<>();
+        for (String tag : tags) {
+            values.put(tag, exifInterface.getAttribute(tag));
+        }
+
+        updateExif(exif, originalExif, options, rotationDegrees);
+        exif.prepareForSave();
+
+        Map<Integer, byte[]> patches = new TreeMap<>();
+        for (String tag : tags) {
+            if (Objects.equals(values.get(tag), exifInterface.getAttribute(tag))) {
+                continue;
+            }
+            List<long[]> tagRanges = ranges.get(tag);
+            byte[] bytes = exifInterface.getAttributeBytes(tag);
+            if (tagRanges == null || bytes == null) {
+                return null;
+            }
+            for (long[] range : tagRanges) {
+                if (bytes.length > range[1]
+                        || (bytes.length < range[1] && !PATCHABLE_ASCII_TAGS.contains(tag))) {
+                    return null;
+                }
+                patches.put((int) range[0], Arrays.copyOf(bytes, (int) range[1]));
+            }
+        }
+        return patches;
+    }
+
+    private static void putRange(@NonNull Map<String, List<long[]>> ranges,
+            @NonNull ExifInterface exifInterface, @NonNull String tag) {
+        long[] range = exifInterface.getAttributeRange(tag);
+        // Default values added by ExifInterface for missing tags have no offset.
+        if (range != null && range[0] >= 0) {
+            List<long[]> tagRanges = new ArrayList<>();
+            tagRanges.add(range);
+            ranges.put(tag, tagRanges);
+        }
+    }
+
+    /**
+     * Returns the ranges of the values of the tags in {@link #THUMBNAIL_IFD_TAG_IDS} found in the
+     * thumbnail IFD of the Exif segment, keyed by their ids.
+     *
+     * <p>ExifInterface doesn't expose these ranges, as it only reports the first IFD holding
+     * a tag, so the IFDs are read here.
+     *
+     * @return an empty map if there is no Exif segment, or null if the Exif segment can't be
+     * read.
+     */
+    @Nullable
+    private static Map<Integer, long[]> getThumbnailIfdRanges(@NonNull byte[] jpegBytes,
+            int length) {
+        Map<Integer, long[]> ranges = new HashMap<>();
+        try {
+            // Skip the SOI marker and find the Exif segment among the ones before the image data.
+            int position = 2;
+            while (true) {
+                if ((jpegBytes[position] & 0xFF) != 0xFF) {
+                    return null;
+                }
+                int marker = jpegBytes[position + 1] & 0xFF;
+                if (marker == START_OF_SCAN_MARKER) {
+                    return ranges;
+                }
+                int segmentLength = ((jpegBytes[position + 2] & 0xFF) << 8)
+                        | (jpegBytes[position + 3] & 0xFF);
+                int dataStart = position + 4;
+                position += 2 + segmentLength;
+                if (position > length) {
+                    return null;
+                }
+                if (marker == EXIF_SEGMENT_MARKER
+                        && segmentLength - 2 >= EXIF_IDENTIFIER.length
+                        && Arrays.equals(EXIF_IDENTIFIER, Arrays.copyOfRange(jpegBytes,
+                        dataStart, dataStart + EXIF_IDENTIFIER.length))) {
+                    int tiffStart = dataStart + EXIF_IDENTIFIER.length;
+                    readThumbnailIfdRanges(
+                            ByteBuffer.wrap(jpegBytes, tiffStart, position - tiffStart).slice(),
+                            tiffStart, ranges);
+                    return ranges;
+                }
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the ranges of the patchable tags in the thumbnail IFD, the second IFD of the TIFF
+     * data, offset by the position of the TIFF data in the JPEG bytes.
+     */
+    private static void readThumbnailIfdRanges(@NonNull ByteBuffer tiff, int tiffStart,
+            @NonNull Map<Integer, long[]> ranges) {
+        if (tiff.getShort(0) == 0x4949) {
+            tiff.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (tiff.getShort(0) != 0x4D4D) {
+            throw new IllegalArgumentException("Invalid byte order");
+        }
+        int primaryIfd = tiff.getInt(4);
+        int thumbnailIfd = tiff.getInt(
+                primaryIfd + 2 + (tiff.getShort(primaryIfd) & 0xFFFF) * IFD_ENTRY_SIZE);
+        if (thumbnailIfd == 0) {
+            return;
+        }
+        int entryCount = tiff.getShort(thumbnailIfd) & 0xFFFF;
+        for (int i = 0; i < entryCount; i++) {
+            int entry = thumbnailIfd + 2 + i * IFD_ENTRY_SIZE;
+            int tagId = tiff.getShort(entry) & 0xFFFF;
+            if (!THUMBNAIL_IFD_TAG_IDS.containsValue(tagId)) {
+                continue;
+            }
+            int format = tiff.getShort(entry + 2);
+            int size = tiff.getInt(entry + 4);
+            if (format == IFD_FORMAT_SHORT) {
+                size *= 2;
+            } else if (format != IFD_FORMAT_ASCII) {
+                throw new IllegalArgumentException("Unexpected format " + format);
+            }
+            // Values of up to 4 bytes are stored in the entry, others at the given offset.
+            int offset = size <= 4 ? entry + 8 : tiff.getInt(entry + 8);
+            if (size < 0 || offset < 0 || offset + size > tiff.limit()) {
+                throw new IllegalArgumentException("Invalid value range");
+            }
+            ranges.put(tagId, new long[]{tiffStart + offset, size});
+        }
+    }
+
+    /**
+     * Writes the JPEG bytes with the given patches, keyed by their offsets in ascending order.
+     */
+    private static void writePatchedBytes(
+            @NonNull OutputStream outputStream,
+            @NonNull byte[] jpegBytes,
+            int length,
+            @NonNull Map<Integer, byte[]> patches) throws IOException {
+        int position = 0;
+        for (Map.Entry<Integer, byte[]> patch : patches.entrySet()) {
+            outputStream.write(jpegBytes, position, patch.getKey() - position);
+            outputStream.write(patch.getValue());
+            position = patch.getKey() + patch.getValue().length;
+        }
+        outputStream.write(jpegBytes, position, length - position);
+    }
+
     /**
      * Creates a temporary JPEG file.
      */
@@ -126,32 +365,44 @@ class JpegBytes2Disk implements Operation<JpegBytes2Disk.In, ImageCapture.Output
         try {
             // Create new exif based on the original exif.
             Exif exif = Exif.createFromFile(tempFile);
-            originalExif.copyToCroppedImage(exif);
-
-            if (exif.getRotation() == 0 && rotationDegrees != 0) {
-                // When the HAL does not handle rotation, exif rotation is 0. In which case we
-                // apply the packet rotation.
-                // See: EXIF_ROTATION_AVAILABILITY
-                exif.rotate(rotationDegrees);
-            }
-
-            // Overwrite exif based on metadata.
-            ImageCapture.Metadata metadata = options.getMetadata();
-            if (metadata.isReversedHorizontal()) {
-                exif.flipHorizontally();
-            }
-            if (metadata.isReversedVertical()) {
-                exif.flipVertically();
-            }
-            if (metadata.getLocation() != null) {
-                exif.attachLocation(metadata.getLocation());
-            }
+            updateExif(exif, originalExif, options, rotationDegrees);
             exif.save();
         } catch (IOException e) {
             throw new ImageCaptureException(ERROR_FILE_IO, "Failed to update Exif data", e);
         }
     }
 
+    /**
+     * Updates the Exif data read from the JPEG bytes based on the original exif, the rotation and
+     * the metadata.
+     */
+    private static void updateExif(
+            @NonNull Exif exif,
+            @NonNull Exif originalExif,
+            @NonNull ImageCapture.OutputFileOptions options,
+            int rotationDegrees) {
+        originalExif.copyToCroppedImage(exif);
+
+        if (exif.getRotation() == 0 && rotationDegrees != 0) {
+            // When the HAL does not handle rotation, exif rotation is 0. In which case we
+            // apply the packet rotation.
+            // See: EXIF_ROTATION_AVAILABILITY
+            exif.rotate(rotationDegrees);
+        }
+
+        // Overwrite exif based on metadata.
+        ImageCapture.Metadata metadata = options.getMetadata();
+        if (metadata.isReversedHorizontal()) {
+            exif.flipHorizontally();
+        }
+        if (metadata.isReversedVertical()) {
+            exif.flipVertically();
+        }
+        if (metadata.getLocation() != null) {
+            exif.attachLocation(metadata.getLocation());
+        }
+    }
+
     /**
      * Copies the file to target, deletes the original file and returns the target's {@link Uri}.
      *
@@ -164,7 +415,8 @@ class JpegBytes2Disk implements Operation<JpegBytes2Disk.In, ImageCapture.Output
         Uri uri = null;
         try {
             if (isSaveToMediaStore(options)) {
-                uri = copyFileToMediaStore(tempFile, options);
+                uri = writeToMediaStore(
+                        outputStream -> copyFileToOutputStream(tempFile, outputStream), options);
             } else if (isSaveToOutputStream(options)) {
                 copyFileToOutputStream(tempFile, requireNonNull(options.getOutputStream()));
             } else if (isSaveToFile(options)) {
@@ -179,8 +431,46 @@ class JpegBytes2Disk implements Operation<JpegBytes2Disk.In, ImageCapture.Output
         return uri;
     }
 
-    private static Uri copyFileToMediaStore(
-            @NonNull File file,
+    /**
+     * Writes to target with the given writer and returns the target's {@link Uri}.
+     *
+     * <p>A target file is written to a temp file first, which is then renamed, so that the target
+     * is never left incomplete.
+     *
+     * @return null if the target is {@link OutputStream}.
+     */
+    @Nullable
+    private static Uri writeToTarget(
+            @NonNull ImageWriter writer, @NonNull ImageCapture.OutputFileOptions options)
+            throws ImageCaptureException {
+        if (isSaveToMediaStore(options)) {
+            return writeToMediaStore(writer, options);
+        } else if (isSaveToOutputStream(options)) {
+            try {
+                writer.write(requireNonNull(options.getOutputStream()));
+            } catch (IOException e) {
+                throw new ImageCaptureException(
+                        ERROR_FILE_IO, "Failed to write to OutputStream.", e);
+            }
+        } else if (isSaveToFile(options)) {
+            File tempFile = createTempFile(options);
+            try {
+                try (FileOutputStream output = new FileOutputStream(tempFile)) {
+                    writer.write(output);
+                } catch (IOException e) {
+                    throw new ImageCaptureException(
+                            ERROR_FILE_IO, "Failed to write to temp file", e);
+                }
+                return copyFileToFile(tempFile, requireNonNull(options.getFile()));
+            } finally {
+                tempFile.delete();
+            }
+        }
+        return null;
+    }
+
+    private static Uri writeToMediaStore(
+            @NonNull ImageWriter writer,
             @NonNull ImageCapture.OutputFileOptions options)
             throws ImageCaptureException {
         ContentResolver contentResolver = requireNonNull(options.getContentResolver());
@@ -195,7 +485,7 @@ class JpegBytes2Disk implements Operation<JpegBytes2Disk.In, ImageCapture.Output
                 throw new ImageCaptureException(
                         ERROR_FILE_IO, "Failed to insert a MediaStore URI.", null);
             }
-            copyTempFileToUri(file, uri, contentResolver);
+            writeToUri(writer, uri, contentResolver);
         } catch (IOException | SecurityException e) {
             throw new ImageCaptureException(
                     ERROR_FILE_IO, "Failed to write to MediaStore URI: " + uri, e);
@@ -225,17 +515,17 @@ class JpegBytes2Disk implements Operation<JpegBytes2Disk.In, ImageCapture.Output
     }
 
     /**
-     * Copies temp file to {@link Uri}.
+     * Writes to {@link Uri} with the given writer.
      */
-    private static void copyTempFileToUri(
-            @NonNull File tempFile,
+    private static void writeToUri(
+            @NonNull ImageWriter writer,
             @NonNull Uri uri,
             @NonNull ContentResolver contentResolver) throws IOException {
         try (OutputStream outputStream = contentResolver.openOutputStream(uri)) {
             if (outputStream == null) {
                 throw new FileNotFoundException(uri + " cannot be resolved.");
             }
-            copyFileToOutputStream(tempFile, outputStream);
+            writer.write(outputStream);
         }
     }
 
@@ -285,6 +575,13 @@ class JpegBytes2Disk implements Operation<JpegBytes2Disk.In, ImageCapture.Output
         return outputFileOptions.getOutputStream() != null;
     }
 
+    /**
+     * Writes the image to an {@link OutputStream}.
+     */
+    private interface ImageWriter {
+        void write(@NonNull OutputStream outputStream) throws IOException;
+    }
+
     /**
      * Input packet.
      */
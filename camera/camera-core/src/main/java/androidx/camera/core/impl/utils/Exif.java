@@ -173,10 +173,18 @@ public final class Exif {
 
     /** Persists changes to disc. */
     public void save() throws IOException {
+        prepareForSave();
+        mExifInterface.saveAttributes();
+    }
+
+    /**
+     * Makes the changes {@link #save()} makes before persisting, for callers writing the Exif
+     * data themselves.
+     */
+    public void prepareForSave() {
         if (!mRemoveTimestamp) {
             attachLastModifiedTimestamp();
         }
-        mExifInterface.saveAttributes();
     }
 
     /**
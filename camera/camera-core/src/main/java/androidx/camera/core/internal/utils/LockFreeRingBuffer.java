@@ -0,0 +1,141 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.camera.core.internal.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.Preconditions;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Implements {@link RingBuffer} without locks, for a single producer.
+ *
+ * <p>Elements must be enqueued by one thread at a time, such as the thread delivering camera
+ * frames, while any thread may dequeue them. When the buffer is full, the oldest element is
+ * dropped to make space for the new one, passed to the {@link OnRemoveCallback} and counted in
+ * {@link #getDroppedCount()}.
+ *
+ * <p>The producer and the consumers only contend on the index of the oldest element, which is
+ * updated with compare-and-set, so neither of them ever blocks the other. Removed elements stay
+ * referenced by their slot until it is reused.
+ *
+ * @param <T> the type of elements stored in the RingBuffer.
+ */
+public class LockFreeRingBuffer<T> implements RingBuffer<T> {
+
+    private final int mRingBufferCapacity;
+
+    private final AtomicReferenceArray<T> mSlots;
+
+    // The number of elements ever removed, by dequeuing or dropping them.
+    private final AtomicLong mHead = new AtomicLong();
+
+    // The number of elements ever enqueued, only updated by the producer.
+    private final AtomicLong mTail = new AtomicLong();
+
+    private final AtomicLong mDroppedCount = new AtomicLong();
+
+    @Nullable final OnRemoveCallback<T> mOnRemoveCallback;
+
+    public LockFreeRingBuffer(int ringBufferCapacity) {
+        this(ringBufferCapacity, null);
+    }
+
+    public LockFreeRingBuffer(int ringBufferCapacity,
+            @Nullable OnRemoveCallback<T> onRemoveCallback) {
+        Preconditions.checkArgument(ringBufferCapacity > 0, "capacity must be positive");
+        mRingBufferCapacity = ringBufferCapacity;
+        mSlots = new AtomicReferenceArray<>(ringBufferCapacity);
+        mOnRemoveCallback = onRemoveCallback;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Must not be called concurrently with itself.
+     */
+    @Override
+    public void enqueue(@NonNull T element) {
+        long tail = mTail.get();
+        while (tail - mHead.get() >= mRingBufferCapacity) {
+            // Full, drop the oldest element unless a consumer takes it first.
+            T removedItem = poll();
+            if (removedItem != null) {
+                mDroppedCount.incrementAndGet();
+                if (mOnRemoveCallback != null) {
+                    mOnRemoveCallback.onRemove(removedItem);
+                }
+            }
+        }
+        // Publish the element before the new tail, so that consumers seeing the tail see it too.
+        mSlots.lazySet(getIndex(tail), element);
+        mTail.lazySet(tail + 1);
+    }
+
+    @Override
+    public @NonNull T dequeue() {
+        T element = poll();
+        if (element == null) {
+            throw new NoSuchElementException();
+        }
+        return element;
+    }
+
+    @Override
+    public int getMaxCapacity() {
+        return mRingBufferCapacity;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mHead.get() >= mTail.get();
+    }
+
+    /** Returns the number of elements dropped so far to make space for newer ones. */
+    public long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * Dequeues the oldest element, or returns {@code null} if the buffer is empty.
+     *
+     * <p>Unlike checking {@link #isEmpty()} before calling {@link #dequeue()}, this can't fail
+     * when the producer or another consumer removes the last element in between.
+     */
+    @Nullable
+    public T poll() {
+        while (true) {
+            long head = mHead.get();
+            if (head >= mTail.get()) {
+                return null;
+            }
+            T element = mSlots.get(getIndex(head));
+            // The slot can't be reused before the head moves past it, so the element read is the
+            // oldest one if the compare-and-set succeeds.
+            if (mHead.compareAndSet(head, head + 1)) {
+                return element;
+            }
+        }
+    }
+
+    private int getIndex(long position) {
+        return (int) (position % mRingBufferCapacity);
+    }
+}
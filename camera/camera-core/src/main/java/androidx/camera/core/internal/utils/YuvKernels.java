@@ -0,0 +1,370 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.camera.core.internal.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.core.util.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pure Java kernels processing the planes of YUV_420_888 images.
+ *
+ * <p>The kernels read and write {@link ByteBuffer}s with absolute accesses, so they neither
+ * allocate nor change the position of the buffers, and honor the row and pixel strides of each
+ * plane. They are used when the native image processing library is unavailable, and run as well
+ * on a desktop JVM.
+ */
+@RequiresApi(21) // TODO(b/200306659): Remove and replace with annotation on package-info.java
+public final class YuvKernels {
+
+    /** The RGBA pixel stride of the converted images. */
+    private static final int RGBA_PIXEL_STRIDE = 4;
+
+    /** Side of the square tiles rotated at once, so that both planes stay in the cache. */
+    private static final int ROTATION_TILE_SIZE = 32;
+
+    // Full swing BT.601 coefficients in 16.16 fixed point, as used by libyuv for JPEG.
+    private static final int FIXED_POINT_SHIFT = 16;
+    private static final int FIXED_POINT_HALF = 1 << (FIXED_POINT_SHIFT - 1);
+    private static final int COEFFICIENT_R_V = 91881; // 1.402
+    private static final int COEFFICIENT_G_U = 22554; // 0.344136
+    private static final int COEFFICIENT_G_V = 46802; // 0.714136
+    private static final int COEFFICIENT_B_U = 116130; // 1.772
+
+    private YuvKernels() {
+    }
+
+    /**
+     * Converts rows of a YUV_420_888 image to RGBA_8888.
+     *
+     * <p>The conversion uses full swing BT.601, matching the native conversion to
+     * {@link android.graphics.Bitmap}. Only the rows in {@code [startRow, endRow)} are written,
+     * so that separate bands of the same image can be converted concurrently.
+     *
+     * @param srcY             the Y plane.
+     * @param srcStrideY       the row stride of the Y plane.
+     * @param srcPixelStrideY  the pixel stride of the Y plane.
+     * @param srcU             the U plane.
+     * @param srcStrideU       the row stride of the U plane.
+     * @param srcV             the V plane.
+     * @param srcStrideV       the row stride of the V plane.
+     * @param srcPixelStrideUV the pixel stride of the U and V planes.
+     * @param dst              the RGBA output.
+     * @param dstStride        the row stride of the RGBA output.
+     * @param width            the width of the image.
+     * @param startRow         the first row to convert.
+     * @param endRow           the row after the last one to convert.
+     */
+    public static void yuv420ToRgba(
+            @NonNull ByteBuffer srcY,
+            int srcStrideY,
+            int srcPixelStrideY,
+            @NonNull ByteBuffer srcU,
+            int srcStrideU,
+            @NonNull ByteBuffer srcV,
+            int srcStrideV,
+            int srcPixelStrideUV,
+            @NonNull ByteBuffer dst,
+            int dstStride,
+            int width,
+            int startRow,
+            int endRow) {
+        for (int y = startRow; y < endRow; y++) {
+            int offsetY = y * srcStrideY;
+            int offsetU = (y >> 1) * srcStrideU;
+            int offsetV = (y >> 1) * srcStrideV;
+            int offsetDst = y * dstStride;
+            for (int x = 0; x < width; x += 2) {
+                // Both pixels of a pair share their chroma samples.
+                int u = (srcU.get(offsetU) & 0xFF) - 128;
+                int v = (srcV.get(offsetV) & 0xFF) - 128;
+                int deltaR = COEFFICIENT_R_V * v + FIXED_POINT_HALF;
+                int deltaG = -COEFFICIENT_G_U * u - COEFFICIENT_G_V * v + FIXED_POINT_HALF;
+                int deltaB = COEFFICIENT_B_U * u + FIXED_POINT_HALF;
+
+                putRgba(dst, offsetDst, (srcY.get(offsetY) & 0xFF) << FIXED_POINT_SHIFT,
+                        deltaR, deltaG, deltaB);
+                if (x + 1 < width) {
+                    putRgba(dst, offsetDst + RGBA_PIXEL_STRIDE,
+                            (srcY.get(offsetY + srcPixelStrideY) & 0xFF) << FIXED_POINT_SHIFT,
+                            deltaR, deltaG, deltaB);
+                }
+                offsetY += 2 * srcPixelStrideY;
+                offsetU += srcPixelStrideUV;
+                offsetV += srcPixelStrideUV;
+                offsetDst += 2 * RGBA_PIXEL_STRIDE;
+            }
+        }
+    }
+
+    /**
+     * Converts a YUV_420_888 image to RGBA_8888, splitting it in bands converted concurrently.
+     *
+     * <p>Up to {@code parallelism - 1} tasks are submitted to the executor, while the calling
+     * thread converts bands as well. The call returns once every band has been converted, and
+     * can't deadlock even if the executor never runs the tasks.
+     *
+     * @param executor    the executor running the additional tasks.
+     * @param parallelism the maximum number of threads converting the image, including the
+     *                    calling one.
+     * @see #yuv420ToRgba(ByteBuffer, int, int, ByteBuffer, int, ByteBuffer, int, int, ByteBuffer,
+     * int, int, int, int)
+     */
+    public static void yuv420ToRgba(
+            @NonNull ByteBuffer srcY,
+            int srcStrideY,
+            int srcPixelStrideY,
+            @NonNull ByteBuffer srcU,
+            int srcStrideU,
+            @NonNull ByteBuffer srcV,
+            int srcStrideV,
+            int srcPixelStrideUV,
+            @NonNull ByteBuffer dst,
+            int dstStride,
+            int width,
+            int height,
+            @NonNull Executor executor,
+            int parallelism) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+        // Use a few bands per thread so that a slow thread doesn't delay the whole conversion,
+        // keeping an even number of rows per band so that no chroma row is shared by two bands.
+        int bandCount = Math.max(1, Math.min(parallelism * 4, height / 16));
+        int bandHeight = ((height + bandCount - 1) / bandCount + 1) & ~1;
+        int taskCount = Math.min(parallelism, bandCount) - 1;
+        if (taskCount == 0) {
+            yuv420ToRgba(srcY, srcStrideY, srcPixelStrideY, srcU, srcStrideU, srcV, srcStrideV,
+                    srcPixelStrideUV, dst, dstStride, width, 0, height);
+            return;
+        }
+
+        AtomicInteger nextBand = new AtomicInteger();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        CountDownLatch remainingBands = new CountDownLatch(bandCount);
+        Runnable converter = () -> {
+            int band;
+            while ((band = nextBand.getAndIncrement()) < bandCount) {
+                try {
+                    int startRow = band * bandHeight;
+                    yuv420ToRgba(srcY, srcStrideY, srcPixelStrideY, srcU, srcStrideU, srcV,
+                            srcStrideV, srcPixelStrideUV, dst, dstStride, width,
+                            Math.min(startRow, height), Math.min(startRow + bandHeight, height));
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    remainingBands.countDown();
+                }
+            }
+        };
+        for (int i = 0; i < taskCount; i++) {
+            executor.execute(converter);
+        }
+        converter.run();
+        awaitUninterruptibly(remainingBands);
+
+        RuntimeException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+     * Rotates a plane clockwise.
+     *
+     * <p>The plane is rotated in square tiles, so that the rows of both the source and the
+     * destination being accessed stay in the cache.
+     *
+     * @param src             the source plane.
+     * @param srcStride       the row stride of the source plane.
+     * @param srcPixelStride  the pixel stride of the source plane.
+     * @param dst             the destination plane, which must not overlap with the source.
+     * @param dstStride       the row stride of the destination plane.
+     * @param dstPixelStride  the pixel stride of the destination plane.
+     * @param width           the width of the source plane.
+     * @param height          the height of the source plane.
+     * @param rotationDegrees the rotation, one of 0, 90, 180 or 270.
+     */
+    public static void rotatePlane(
+            @NonNull ByteBuffer src,
+            int srcStride,
+            int srcPixelStride,
+            @NonNull ByteBuffer dst,
+            int dstStride,
+            int dstPixelStride,
+            int width,
+            int height,
+            int rotationDegrees) {
+        // Map the source pixel (x, y) to the destination offset
+        // origin + x * stepX + y * stepY.
+        int origin;
+        int stepX;
+        int stepY;
+        switch (rotationDegrees) {
+            case 0:
+                origin = 0;
+                stepX = dstPixelStride;
+                stepY = dstStride;
+                break;
+            case 90:
+                origin = (height - 1) * dstPixelStride;
+                stepX = dstStride;
+                stepY = -dstPixelStride;
+                break;
+            case 180:
+                origin = (height - 1) * dstStride + (width - 1) * dstPixelStride;
+                stepX = -dstPixelStride;
+                stepY = -dstStride;
+                break;
+            case 270:
+                origin = (width - 1) * dstStride;
+                stepX = -dstStride;
+                stepY = dstPixelStride;
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unsupported rotation degrees: " + rotationDegrees);
+        }
+
+        for (int tileY = 0; tileY < height; tileY += ROTATION_TILE_SIZE) {
+            int tileEndY = Math.min(tileY + ROTATION_TILE_SIZE, height);
+            for (int tileX = 0; tileX < width; tileX += ROTATION_TILE_SIZE) {
+                int tileEndX = Math.min(tileX + ROTATION_TILE_SIZE, width);
+                for (int y = tileY; y < tileEndY; y++) {
+                    int offsetSrc = y * srcStride + tileX * srcPixelStride;
+                    int offsetDst = origin + tileX * stepX + y * stepY;
+                    for (int x = tileX; x < tileEndX; x++) {
+                        dst.put(offsetDst, src.get(offsetSrc));
+                        offsetSrc += srcPixelStride;
+                        offsetDst += stepX;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Downsamples a plane, taking the nearest sample of each output pixel.
+     *
+     * @param src            the source plane.
+     * @param srcWidth       the width of the source plane.
+     * @param srcHeight      the height of the source plane.
+     * @param srcStride      the row stride of the source plane.
+     * @param srcPixelStride the pixel stride of the source plane.
+     * @param dst            the destination plane, with a pixel stride of 1.
+     * @param dstStride      the row stride of the destination plane.
+     * @param dstWidth       the width of the destination plane.
+     * @param dstHeight      the height of the destination plane.
+     */
+    public static void resizeNearestNeighbor(
+            @NonNull ByteBuffer src,
+            int srcWidth,
+            int srcHeight,
+            int srcStride,
+            int srcPixelStride,
+            @NonNull ByteBuffer dst,
+            int dstStride,
+            int dstWidth,
+            int dstHeight) {
+        float scaleX = (float) srcWidth / dstWidth;
+        float scaleY = (float) srcHeight / dstHeight;
+
+        for (int y = 0; y < dstHeight; y++) {
+            int offsetSrc = Math.min((int) (y * scaleY), srcHeight - 1) * srcStride;
+            int offsetDst = y * dstStride;
+            for (int x = 0; x < dstWidth; x++) {
+                int sourceX = (int) (x * scaleX);
+                dst.put(offsetDst + x, src.get(offsetSrc + sourceX * srcPixelStride));
+            }
+        }
+    }
+
+    /**
+     * Downsamples a plane, averaging the 2x2 samples nearest to each output pixel.
+     *
+     * @param src            the source plane.
+     * @param srcWidth       the width of the source plane.
+     * @param srcHeight      the height of the source plane.
+     * @param srcStride      the row stride of the source plane.
+     * @param srcPixelStride the pixel stride of the source plane.
+     * @param dst            the destination plane, with a pixel stride of 1.
+     * @param dstStride      the row stride of the destination plane.
+     * @param dstWidth       the width of the destination plane.
+     * @param dstHeight      the height of the destination plane.
+     */
+    public static void resizeAveraging(
+            @NonNull ByteBuffer src,
+            int srcWidth,
+            int srcHeight,
+            int srcStride,
+            int srcPixelStride,
+            @NonNull ByteBuffer dst,
+            int dstStride,
+            int dstWidth,
+            int dstHeight) {
+        float scaleX = (float) srcWidth / dstWidth;
+        float scaleY = (float) srcHeight / dstHeight;
+
+        for (int y = 0; y < dstHeight; y++) {
+            int sourceY = (int) (y * scaleY);
+            int offsetSrc0 = Math.min(sourceY, srcHeight - 1) * srcStride;
+            int offsetSrc1 = Math.min(sourceY + 1, srcHeight - 1) * srcStride;
+            int offsetDst = y * dstStride;
+            for (int x = 0; x < dstWidth; x++) {
+                int sourceX = (int) (x * scaleX);
+                int offset0 = sourceX * srcPixelStride;
+                int offset1 = Math.min(sourceX + 1, srcWidth - 1) * srcPixelStride;
+                int sum = (src.get(offsetSrc0 + offset0) & 0xFF)
+                        + (src.get(offsetSrc0 + offset1) & 0xFF)
+                        + (src.get(offsetSrc1 + offset0) & 0xFF)
+                        + (src.get(offsetSrc1 + offset1) & 0xFF);
+                dst.put(offsetDst + x, (byte) (sum >> 2));
+            }
+        }
+    }
+
+    private static void putRgba(@NonNull ByteBuffer dst, int offset, int luma, int deltaR,
+            int deltaG, int deltaB) {
+        dst.put(offset, clamp((luma + deltaR) >> FIXED_POINT_SHIFT));
+        dst.put(offset + 1, clamp((luma + deltaG) >> FIXED_POINT_SHIFT));
+        dst.put(offset + 2, clamp((luma + deltaB) >> FIXED_POINT_SHIFT));
+        dst.put(offset + 3, (byte) 0xFF);
+    }
+
+    private static byte clamp(int value) {
+        return (byte) (value < 0 ? 0 : (value > 255 ? 255 : value));
+    }
+
+    private static void awaitUninterruptibly(@NonNull CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -36,9 +36,11 @@ import androidx.camera.core.impl.CameraCaptureResults;
  * - AE Converged
  * - AWB Converged
  * </p>
+ *
+ * <p>Frames must be enqueued by one thread at a time, see {@link LockFreeRingBuffer}.</p>
  */
 @RequiresApi(21)
-public final class ZslRingBuffer extends ArrayRingBuffer<ImageProxy> {
+public final class ZslRingBuffer extends LockFreeRingBuffer<ImageProxy> {
 
     public ZslRingBuffer(int ringBufferCapacity,
             @NonNull OnRemoveCallback<ImageProxy> onRemoveCallback) {
@@ -37,8 +37,11 @@ import androidx.camera.core.impl.utils.Exif.createFromFileString
 import androidx.camera.core.processing.Packet
 import androidx.camera.testing.impl.ExifUtil.createExif
 import androidx.camera.testing.impl.TestImageUtil.createJpegBytes
+import androidx.exifinterface.media.ExifInterface
 import com.google.common.truth.Truth.assertThat
 import java.io.File
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
 import java.util.UUID
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -116,6 +119,95 @@ class JpegBytes2DiskTest {
         assertThat(createFromFileString(path).location!!.altitude).isEqualTo(ALTITUDE)
     }
 
+    @Test
+    fun saveWithExifSegment_exifPatchedInPlace() {
+        // Arrange: create a JPEG whose Exif segment has the tags changed on save.
+        TEMP_FILE.writeBytes(createJpegBytes(WIDTH, HEIGHT))
+        ExifInterface(TEMP_FILE).apply {
+            setAttribute(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL.toString())
+            setAttribute(ExifInterface.TAG_DATETIME, "2023:01:01 00:00:00")
+            setAttribute(ExifInterface.TAG_SUBSEC_TIME, "000")
+            setAttribute(ExifInterface.TAG_IMAGE_DESCRIPTION, EXIF_DESCRIPTION)
+            saveAttributes()
+        }
+        val jpegBytes = TEMP_FILE.readBytes()
+        // Act.
+        val path = saveFileAndGetPath(jpegBytes, createExif(jpegBytes), ImageCapture.Metadata(), 90)
+        // Assert: the Exif values are replaced without changing the size of the file.
+        assertThat(File(path).length()).isEqualTo(jpegBytes.size.toLong())
+        val restoredExif = createFromFileString(path)
+        assertThat(restoredExif.rotation).isEqualTo(90)
+        assertThat(restoredExif.description).isEqualTo(EXIF_DESCRIPTION)
+        assertThat(restoredExif.lastModifiedTimestamp).isNotEqualTo(Exif.INVALID_TIMESTAMP)
+    }
+
+    @Test
+    fun saveWithThumbnailIfdOrientation_bothOrientationsPatched() {
+        // Arrange: create a JPEG whose thumbnail IFD also has an orientation.
+        TEMP_FILE.writeBytes(createJpegBytes(WIDTH, HEIGHT))
+        ExifInterface(TEMP_FILE).apply {
+            setAttribute(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL.toString())
+            setAttribute(ExifInterface.TAG_DATETIME, "2023:01:01 00:00:00")
+            setAttribute(ExifInterface.TAG_SUBSEC_TIME, "000")
+            saveAttributes()
+        }
+        val jpegBytes = appendThumbnailIfd(TEMP_FILE.readBytes(), ExifInterface.ORIENTATION_NORMAL)
+        // Act.
+        val path = saveFileAndGetPath(jpegBytes, createExif(jpegBytes), ImageCapture.Metadata(), 90)
+        // Assert: the orientation is replaced in both IFDs without changing the size of the file.
+        val savedBytes = File(path).readBytes()
+        assertThat(savedBytes.size).isEqualTo(jpegBytes.size)
+        assertThat(createFromFileString(path).rotation).isEqualTo(90)
+        assertThat(readThumbnailIfdOrientation(savedBytes))
+            .isEqualTo(ExifInterface.ORIENTATION_ROTATE_90)
+    }
+
+    /**
+     * Appends a thumbnail IFD holding only the given orientation to the Exif segment, which
+     * ExifInterface writes right after the SOI marker.
+     */
+    private fun appendThumbnailIfd(jpegBytes: ByteArray, orientation: Int): ByteArray {
+        val tiff = getTiffBuffer(jpegBytes)
+        val segmentEnd = EXIF_TIFF_START + tiff.limit()
+        tiff.putInt(getThumbnailIfdPointerPosition(tiff), tiff.limit())
+        val thumbnailIfd = ByteBuffer.allocate(18).order(tiff.order())
+            .putShort(1)
+            .putShort(TAG_ID_ORIENTATION)
+            .putShort(IFD_FORMAT_SHORT)
+            .putInt(1)
+            .putShort(orientation.toShort())
+            .putShort(0)
+            .putInt(0)
+        val segmentLength = segmentEnd - 4 + thumbnailIfd.capacity()
+        jpegBytes[4] = (segmentLength shr 8).toByte()
+        jpegBytes[5] = segmentLength.toByte()
+        return jpegBytes.copyOfRange(0, segmentEnd) + thumbnailIfd.array() +
+            jpegBytes.copyOfRange(segmentEnd, jpegBytes.size)
+    }
+
+    private fun readThumbnailIfdOrientation(jpegBytes: ByteArray): Int {
+        val tiff = getTiffBuffer(jpegBytes)
+        val thumbnailIfd = tiff.getInt(getThumbnailIfdPointerPosition(tiff))
+        assertThat(tiff.getShort(thumbnailIfd + 2)).isEqualTo(TAG_ID_ORIENTATION)
+        return tiff.getShort(thumbnailIfd + 10).toInt()
+    }
+
+    private fun getTiffBuffer(jpegBytes: ByteArray): ByteBuffer {
+        assertThat(jpegBytes[3]).isEqualTo(0xE1.toByte())
+        val segmentEnd = 4 + ((jpegBytes[4].toInt() and 0xFF) shl 8) +
+            (jpegBytes[5].toInt() and 0xFF)
+        val tiff = ByteBuffer.wrap(jpegBytes, EXIF_TIFF_START, segmentEnd - EXIF_TIFF_START).slice()
+        if (tiff.getShort(0) == 0x4949.toShort()) {
+            tiff.order(ByteOrder.LITTLE_ENDIAN)
+        }
+        return tiff
+    }
+
+    private fun getThumbnailIfdPointerPosition(tiff: ByteBuffer): Int {
+        val primaryIfd = tiff.getInt(4)
+        return primaryIfd + 2 + tiff.getShort(primaryIfd) * 12
+    }
+
     private fun saveFileAndGetPath(metadata: ImageCapture.Metadata): String {
         return saveFileAndGetPath(createExif(createJpegBytes(WIDTH, HEIGHT)), metadata, 0)
     }
@@ -125,7 +217,15 @@ class JpegBytes2DiskTest {
         metadata: ImageCapture.Metadata = ImageCapture.Metadata(),
         rotation: Int = ROTATION_DEGREES
     ): String {
-        val jpegBytes = createJpegBytes(WIDTH, HEIGHT)
+        return saveFileAndGetPath(createJpegBytes(WIDTH, HEIGHT), exif, metadata, rotation)
+    }
+
+    private fun saveFileAndGetPath(
+        jpegBytes: ByteArray,
+        exif: Exif,
+        metadata: ImageCapture.Metadata,
+        rotation: Int
+    ): String {
         val inputPacket = Packet.of(
             jpegBytes,
             exif,
@@ -140,4 +240,11 @@ class JpegBytes2DiskTest {
         val input = JpegBytes2Disk.In.of(inputPacket, options)
         return operation.apply(input).savedUri!!.path!!
     }
+
+    companion object {
+        // The SOI marker, the Exif segment marker and length and the Exif identifier.
+        private const val EXIF_TIFF_START = 12
+        private const val TAG_ID_ORIENTATION: Short = 0x0112
+        private const val IFD_FORMAT_SHORT: Short = 3
+    }
 }
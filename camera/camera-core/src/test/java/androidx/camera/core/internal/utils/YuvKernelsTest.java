@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.camera.core.internal.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.internal.DoNotInstrument;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Unit tests for {@link YuvKernels}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@DoNotInstrument
+@Config(minSdk = Build.VERSION_CODES.LOLLIPOP)
+public class YuvKernelsTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    private static final int PADDING = 8;
+
+    @Test
+    public void yuv420ToRgba_convertsFullSwing() {
+        // Black, white and the primary colors in full swing BT.601.
+        assertThat(convertPixel(0, 128, 128)).isEqualTo(new int[]{0, 0, 0, 255});
+        assertThat(convertPixel(255, 128, 128)).isEqualTo(new int[]{255, 255, 255, 255});
+        assertThat(convertPixel(76, 85, 255)).isEqualTo(new int[]{254, 0, 0, 255});
+        assertThat(convertPixel(150, 44, 21)).isEqualTo(new int[]{0, 255, 1, 255});
+        assertThat(convertPixel(29, 255, 107)).isEqualTo(new int[]{0, 0, 254, 255});
+    }
+
+    @Test
+    public void yuv420ToRgba_onSeveralThreads_matchesSingleThread() {
+        ByteBuffer y = createPlane(WIDTH + PADDING, HEIGHT);
+        ByteBuffer uv = createPlane(WIDTH + PADDING, HEIGHT / 2);
+        ByteBuffer v = sliceFrom(uv, 1);
+        ByteBuffer expected = ByteBuffer.allocateDirect(WIDTH * 4 * HEIGHT);
+        ByteBuffer actual = ByteBuffer.allocateDirect(WIDTH * 4 * HEIGHT);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            YuvKernels.yuv420ToRgba(y, WIDTH + PADDING, 1, uv, WIDTH + PADDING, v,
+                    WIDTH + PADDING, 2, expected, WIDTH * 4, WIDTH, 0, HEIGHT);
+            YuvKernels.yuv420ToRgba(y, WIDTH + PADDING, 1, uv, WIDTH + PADDING, v,
+                    WIDTH + PADDING, 2, actual, WIDTH * 4, WIDTH, HEIGHT, executor, 3);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual.position()).isEqualTo(0);
+    }
+
+    @Test
+    public void rotatePlane_rotatesClockwise() {
+        ByteBuffer src = createPlane(WIDTH + PADDING, HEIGHT);
+
+        for (int rotation : new int[]{0, 90, 180, 270}) {
+            boolean transposed = rotation % 180 != 0;
+            int dstWidth = transposed ? HEIGHT : WIDTH;
+            int dstStride = dstWidth * 2;
+            ByteBuffer dst = ByteBuffer.allocate(dstStride * (transposed ? WIDTH : HEIGHT));
+
+            YuvKernels.rotatePlane(src, WIDTH + PADDING, 1, dst, dstStride, 2, WIDTH, HEIGHT,
+                    rotation);
+
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    int dstX = rotation == 90 ? HEIGHT - 1 - y : rotation == 180 ? WIDTH - 1 - x
+                            : rotation == 270 ? y : x;
+                    int dstY = rotation == 90 ? x : rotation == 180 ? HEIGHT - 1 - y
+                            : rotation == 270 ? WIDTH - 1 - x : y;
+                    assertThat(dst.get(dstY * dstStride + dstX * 2))
+                            .isEqualTo(src.get(y * (WIDTH + PADDING) + x));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void resizeNearestNeighbor_takesTopLeftSample() {
+        ByteBuffer src = createPlane(WIDTH * 2 + PADDING, HEIGHT);
+        ByteBuffer dst = ByteBuffer.allocate(WIDTH / 2 * HEIGHT / 2);
+
+        YuvKernels.resizeNearestNeighbor(src, WIDTH, HEIGHT, WIDTH * 2 + PADDING, 2, dst,
+                WIDTH / 2, WIDTH / 2, HEIGHT / 2);
+
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            for (int x = 0; x < WIDTH / 2; x++) {
+                assertThat(dst.get(y * WIDTH / 2 + x))
+                        .isEqualTo(src.get(2 * y * (WIDTH * 2 + PADDING) + 2 * x * 2));
+            }
+        }
+    }
+
+    @Test
+    public void resizeAveraging_averagesFourSamples() {
+        ByteBuffer src = ByteBuffer.wrap(new byte[]{
+                0, 4, 8, 12,
+                100, (byte) 200, 16, 20,
+        });
+        ByteBuffer dst = ByteBuffer.allocate(2);
+
+        YuvKernels.resizeAveraging(src, 4, 2, 4, 1, dst, 2, 2, 1);
+
+        assertThat(dst.get(0) & 0xFF).isEqualTo((0 + 4 + 100 + 200) / 4);
+        assertThat(dst.get(1) & 0xFF).isEqualTo((8 + 12 + 16 + 20) / 4);
+    }
+
+    private static int[] convertPixel(int y, int u, int v) {
+        ByteBuffer dst = ByteBuffer.allocate(4);
+        YuvKernels.yuv420ToRgba(ByteBuffer.wrap(new byte[]{(byte) y}), 1, 1,
+                ByteBuffer.wrap(new byte[]{(byte) u}), 1, ByteBuffer.wrap(new byte[]{(byte) v}),
+                1, 1, dst, 4, 1, 0, 1);
+        return new int[]{dst.get(0) & 0xFF, dst.get(1) & 0xFF, dst.get(2) & 0xFF,
+                dst.get(3) & 0xFF};
+    }
+
+    private static ByteBuffer createPlane(int rowStride, int height) {
+        ByteBuffer plane = ByteBuffer.allocateDirect(rowStride * height);
+        for (int i = 0; i < plane.capacity(); i++) {
+            plane.put(i, (byte) (i * 31 + i / rowStride * 7));
+        }
+        return plane;
+    }
+
+    private static ByteBuffer sliceFrom(ByteBuffer buffer, int offset) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        return duplicate.slice();
+    }
+}
@@ -91,6 +91,7 @@ import androidx.camera.video.internal.compat.quirk.EncoderNotUsePersistentInputS
 import androidx.camera.video.internal.config.AudioMimeInfo;
 import androidx.camera.video.internal.encoder.AudioEncoderConfig;
 import androidx.camera.video.internal.encoder.BufferCopiedEncodedData;
+import androidx.camera.video.internal.encoder.ByteBufferPool;
 import androidx.camera.video.internal.encoder.EncodeException;
 import androidx.camera.video.internal.encoder.EncodedData;
 import androidx.camera.video.internal.encoder.Encoder;
@@ -342,6 +343,9 @@ public final class Recorder implements VideoOutput {
     // The audio data is expected to be less than 1 kB, the value of the cache size is used to limit
     // the memory used within an acceptable range.
     private static final int AUDIO_CACHE_SIZE = 60;
+    // The cached audio data is copied to buffers of a pool, which keeps enough buffers to fill the
+    // cache with data up to 2 kB.
+    private static final long AUDIO_BUFFER_POOL_SIZE_BYTES = AUDIO_CACHE_SIZE * 2 * 1024;
     @VisibleForTesting
     static final EncoderFactory DEFAULT_ENCODER_FACTORY = EncoderImpl::new;
     private static final Executor AUDIO_EXECUTOR =
@@ -467,7 +471,10 @@ public final class Recorder implements VideoOutput {
     @SuppressWarnings("WeakerAccess") /* synthetic accessor */
     @NonNull
     final RingBuffer<EncodedData> mPendingAudioRingBuffer = new ArrayRingBuffer<>(
-            AUDIO_CACHE_SIZE);
+            AUDIO_CACHE_SIZE, EncodedData::close);
+    @SuppressWarnings("WeakerAccess") /* synthetic accessor */
+    @NonNull
+    final ByteBufferPool mAudioBufferPool = new ByteBufferPool(AUDIO_BUFFER_POOL_SIZE_BYTES);
     @SuppressWarnings("WeakerAccess") /* synthetic accessor */
     Throwable mAudioErrorCause = null;
     @SuppressWarnings("WeakerAccess") /* synthetic accessor */
@@ -1491,11 +1498,11 @@ public final class Recorder implements VideoOutput {
                     + "frame.");
         }
 
+        List<EncodedData> audioDataToWrite = getAudioDataToWriteAndClearCache(
+                mPendingFirstVideoData.getPresentationTimeUs()
+        );
         try (EncodedData videoDataToWrite = mPendingFirstVideoData) {
             mPendingFirstVideoData = null;
-            List<EncodedData> audioDataToWrite = getAudioDataToWriteAndClearCache(
-                    videoDataToWrite.getPresentationTimeUs()
-            );
             // Make sure we can write the first audio and video data without hitting the file size
             // limit. Otherwise we will be left with a malformed (empty) track on stop.
             long firstDataSize = videoDataToWrite.size();
@@ -1564,6 +1571,12 @@ public final class Recorder implements VideoOutput {
             for (EncodedData data : audioDataToWrite) {
                 writeAudioData(data, recordingToStart);
             }
+        } finally {
+            // The list is the only owner of the cached audio data, so each item is closed exactly
+            // once here, whether it was written or not. Closing returns its buffer to the pool.
+            for (EncodedData data : audioDataToWrite) {
+                data.close();
+            }
         }
     }
 
@@ -1579,6 +1592,8 @@ public final class Recorder implements VideoOutput {
             // timestamp.
             if (data.getPresentationTimeUs() >= firstVideoDataTimeUs) {
                 res.add(data);
+            } else {
+                data.close();
             }
         }
 
@@ -1856,12 +1871,12 @@ public final class Recorder implements VideoOutput {
                                     if (!mInProgressRecordingStopping) {
                                         // BufferCopiedEncodedData is used to copy the content of
                                         // the encoded data, preventing byte buffers of the media
-                                        // codec from being occupied. Also, since the resources of
-                                        // BufferCopiedEncodedData will be automatically released
-                                        // by garbage collection, there is no need to call its
-                                        // close() function.
+                                        // codec from being occupied. The copy is held in a buffer
+                                        // of mAudioBufferPool, which is returned to the pool when
+                                        // the copy is closed after being written or dropped.
                                         mPendingAudioRingBuffer.enqueue(
-                                                new BufferCopiedEncodedData(encodedData));
+                                                new BufferCopiedEncodedData(encodedData,
+                                                        mAudioBufferPool));
 
                                         if (mPendingFirstVideoData != null) {
                                             // Both audio and data are ready. Start the muxer.
@@ -2149,14 +2164,15 @@ public final class Recorder implements VideoOutput {
     @ExecutedBy("mSequentialExecutor")
     private void clearPendingAudioRingBuffer() {
         while (!mPendingAudioRingBuffer.isEmpty()) {
-            mPendingAudioRingBuffer.dequeue();
+            mPendingAudioRingBuffer.dequeue().close();
         }
     }
 
     @ExecutedBy("mSequentialExecutor")
     private void reset() {
         if (mAudioEncoder != null) {
-            Logger.d(TAG, "Releasing audio encoder.");
+            Logger.d(TAG, "Releasing audio encoder. Audio buffer pool statistics: "
+                    + mAudioBufferPool);
             mAudioEncoder.release();
             mAudioEncoder = null;
             mAudioOutputConfig = null;
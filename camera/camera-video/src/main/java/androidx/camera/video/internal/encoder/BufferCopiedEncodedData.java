@@ -19,6 +19,7 @@ package androidx.camera.video.internal.encoder;
 import android.media.MediaCodec;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.camera.core.impl.utils.futures.Futures;
 import androidx.concurrent.futures.CallbackToFutureAdapter;
@@ -27,6 +28,7 @@ import androidx.core.util.Preconditions;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -35,6 +37,9 @@ import java.util.concurrent.atomic.AtomicReference;
  *
  * <p> To reduce the memory used, the capacity of the copied byte buffer may not equal to its
  * source, only the required size is allocated to put the copied data.
+ *
+ * <p> When created with a {@link ByteBufferPool}, the copied data is held in a buffer of the pool,
+ * which is returned to it by {@link #close()}.
  */
 @RequiresApi(21) // TODO(b/200306659): Remove and replace with annotation on package-info.java
 public class BufferCopiedEncodedData implements EncodedData {
@@ -43,8 +48,23 @@ public class BufferCopiedEncodedData implements EncodedData {
     private final MediaCodec.BufferInfo mBufferInfo;
     private final ListenableFuture<Void> mClosedFuture;
     private final CallbackToFutureAdapter.Completer<Void> mClosedCompleter;
+    @Nullable
+    private final ByteBufferPool mByteBufferPool;
+    private final AtomicBoolean mClosed = new AtomicBoolean(false);
 
     public BufferCopiedEncodedData(@NonNull EncodedData encodedData) {
+        this(encodedData, null);
+    }
+
+    /**
+     * Creates a copy of the encoded data held in a buffer of the given pool, if any.
+     *
+     * <p>The copy has to be closed to return its buffer to the pool, and its byte buffer must not
+     * be used after that.
+     */
+    public BufferCopiedEncodedData(@NonNull EncodedData encodedData,
+            @Nullable ByteBufferPool byteBufferPool) {
+        mByteBufferPool = byteBufferPool;
         mBufferInfo = generateCopiedByteInfo(encodedData);
         mByteBuffer = generateCopiedByteBuffer(encodedData);
 
@@ -80,7 +100,9 @@ public class BufferCopiedEncodedData implements EncodedData {
         byteBuffer.limit(bufferInfo.offset + bufferInfo.size);
 
         // Copy only the part that contents data
-        ByteBuffer copiedByteBuffer = ByteBuffer.allocate(bufferInfo.size);
+        ByteBuffer copiedByteBuffer = mByteBufferPool != null
+                ? mByteBufferPool.acquire(bufferInfo.size)
+                : ByteBuffer.allocate(bufferInfo.size);
         copiedByteBuffer.order(byteBuffer.order());
         copiedByteBuffer.put(byteBuffer);
         copiedByteBuffer.flip();
@@ -121,10 +143,17 @@ public class BufferCopiedEncodedData implements EncodedData {
     }
 
     /**
-     * No need to call this function. Resources will be released by garbage collection.
+     * Returns the byte buffer to the pool, if any. Otherwise there is no need to call this
+     * function, resources will be released by garbage collection.
      */
     @Override
     public void close() {
+        if (mClosed.getAndSet(true)) {
+            return;
+        }
+        if (mByteBufferPool != null) {
+            mByteBufferPool.release(mByteBuffer);
+        }
         mClosedCompleter.set(null);
     }
 
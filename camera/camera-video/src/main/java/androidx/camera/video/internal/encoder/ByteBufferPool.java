@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.camera.video.internal.encoder;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.core.util.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A bounded pool of direct {@link ByteBuffer}s, used to hold copies of encoded data without
+ * allocating a new buffer for each of them.
+ *
+ * <p>Buffers are pooled by size class, each class holding buffers whose capacity is a power of
+ * two between 1 KiB and 1 MiB. Larger buffers are allocated on each request and never pooled. The
+ * pool keeps at most the given number of bytes; buffers released while it is full are left to
+ * garbage collection.
+ *
+ * <p>This class is thread safe.
+ */
+@RequiresApi(21) // TODO(b/200306659): Remove and replace with annotation on package-info.java
+public final class ByteBufferPool {
+
+    private static final int MIN_CAPACITY_SHIFT = 10; // 1 KiB
+    private static final int MAX_CAPACITY_SHIFT = 20; // 1 MiB
+
+    private final Object mLock = new Object();
+    private final long mMaxPooledBytes;
+    @GuardedBy("mLock")
+    private final List<ArrayDeque<ByteBuffer>> mSizeClasses = new ArrayList<>();
+    @GuardedBy("mLock")
+    private long mPooledBytes;
+    @GuardedBy("mLock")
+    private long mHitCount;
+    @GuardedBy("mLock")
+    private long mMissCount;
+    @GuardedBy("mLock")
+    private long mReusedBytes;
+
+    /**
+     * Creates a pool.
+     *
+     * @param maxPooledBytes the maximum total capacity of the buffers kept in the pool.
+     */
+    public ByteBufferPool(long maxPooledBytes) {
+        Preconditions.checkArgument(maxPooledBytes >= 0, "maxPooledBytes must not be negative");
+        mMaxPooledBytes = maxPooledBytes;
+        for (int shift = MIN_CAPACITY_SHIFT; shift <= MAX_CAPACITY_SHIFT; shift++) {
+            mSizeClasses.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Gets a direct buffer which can hold the given number of bytes.
+     *
+     * <p>The buffer is cleared and its limit is set to the given size. It should be returned with
+     * {@link #release} once no longer used.
+     */
+    @NonNull
+    public ByteBuffer acquire(int size) {
+        Preconditions.checkArgument(size >= 0, "size must not be negative");
+        int sizeClass = getSizeClass(size);
+        ByteBuffer buffer = null;
+        synchronized (mLock) {
+            if (sizeClass >= 0) {
+                buffer = mSizeClasses.get(sizeClass).poll();
+            }
+            if (buffer != null) {
+                mPooledBytes -= buffer.capacity();
+                mHitCount++;
+                mReusedBytes += size;
+            } else {
+                mMissCount++;
+            }
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(
+                    sizeClass >= 0 ? 1 << (sizeClass + MIN_CAPACITY_SHIFT) : size);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer acquired from this pool.
+     *
+     * <p>The buffer must not be used anymore, as it may be handed out again by {@link #acquire}.
+     */
+    public void release(@NonNull ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int sizeClass = getSizeClass(capacity);
+        if (!buffer.isDirect() || sizeClass < 0
+                || capacity != 1 << (sizeClass + MIN_CAPACITY_SHIFT)) {
+            // Not from a size class of this pool.
+            return;
+        }
+        synchronized (mLock) {
+            if (mPooledBytes + capacity <= mMaxPooledBytes) {
+                mSizeClasses.get(sizeClass).push(buffer);
+                mPooledBytes += capacity;
+            }
+        }
+    }
+
+    /** Returns the number of buffers reused from the pool. */
+    public long getHitCount() {
+        synchronized (mLock) {
+            return mHitCount;
+        }
+    }
+
+    /** Returns the number of buffers which had to be allocated. */
+    public long getMissCount() {
+        synchronized (mLock) {
+            return mMissCount;
+        }
+    }
+
+    /** Returns the number of bytes held in reused buffers instead of newly allocated ones. */
+    public long getReusedBytes() {
+        synchronized (mLock) {
+            return mReusedBytes;
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        synchronized (mLock) {
+            return String.format(Locale.US,
+                    "ByteBufferPool[hits: %d, misses: %d, reused bytes: %d, pooled bytes: %d]",
+                    mHitCount, mMissCount, mReusedBytes, mPooledBytes);
+        }
+    }
+
+    /** Returns the index of the smallest size class holding the given size, or -1 if none. */
+    private static int getSizeClass(int size) {
+        if (size > 1 << MAX_CAPACITY_SHIFT) {
+            return -1;
+        }
+        int shift = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.max(shift, MIN_CAPACITY_SHIFT) - MIN_CAPACITY_SHIFT;
+    }
+}
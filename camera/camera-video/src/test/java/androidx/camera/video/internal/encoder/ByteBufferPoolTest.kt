@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.camera.video.internal.encoder
+
+import android.media.MediaCodec
+import android.os.Build
+import com.google.common.truth.Truth.assertThat
+import java.nio.ByteBuffer
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.internal.DoNotInstrument
+
+@RunWith(RobolectricTestRunner::class)
+@DoNotInstrument
+@Config(minSdk = Build.VERSION_CODES.LOLLIPOP)
+class ByteBufferPoolTest {
+
+    private val pool = ByteBufferPool(4096)
+
+    @Test
+    fun acquire_returnsDirectBufferOfSizeClass() {
+        val buffer = pool.acquire(1000)
+
+        assertThat(buffer.isDirect).isTrue()
+        assertThat(buffer.capacity()).isEqualTo(1024)
+        assertThat(buffer.position()).isEqualTo(0)
+        assertThat(buffer.limit()).isEqualTo(1000)
+        assertThat(pool.missCount).isEqualTo(1)
+    }
+
+    @Test
+    fun acquire_reusesReleasedBuffer() {
+        val buffer = pool.acquire(1000)
+        pool.release(buffer)
+
+        val reusedBuffer = pool.acquire(900)
+
+        assertThat(reusedBuffer).isSameInstanceAs(buffer)
+        assertThat(reusedBuffer.limit()).isEqualTo(900)
+        assertThat(pool.hitCount).isEqualTo(1)
+        assertThat(pool.reusedBytes).isEqualTo(900)
+    }
+
+    @Test
+    fun acquire_doesNotReuseBufferOfSmallerSizeClass() {
+        pool.release(pool.acquire(1000))
+
+        val buffer = pool.acquire(1025)
+
+        assertThat(buffer.capacity()).isEqualTo(2048)
+        assertThat(pool.hitCount).isEqualTo(0)
+    }
+
+    @Test
+    fun release_dropsBufferWhenPoolIsFull() {
+        val buffer1 = pool.acquire(4096)
+        val buffer2 = pool.acquire(4096)
+        pool.release(buffer1)
+        pool.release(buffer2)
+
+        assertThat(pool.acquire(4096)).isSameInstanceAs(buffer1)
+        assertThat(pool.acquire(4096)).isNotSameInstanceAs(buffer2)
+    }
+
+    @Test
+    fun release_dropsBufferLargerThanSizeClasses() {
+        val largePool = ByteBufferPool(Long.MAX_VALUE)
+        val buffer = largePool.acquire(2 * 1024 * 1024)
+        largePool.release(buffer)
+
+        assertThat(buffer.capacity()).isEqualTo(2 * 1024 * 1024)
+        assertThat(largePool.acquire(2 * 1024 * 1024)).isNotSameInstanceAs(buffer)
+    }
+
+    @Test
+    fun release_ignoresBufferNotFromPool() {
+        pool.release(ByteBuffer.allocate(1024))
+
+        assertThat(pool.acquire(1024).isDirect).isTrue()
+    }
+
+    @Test
+    fun bufferCopiedEncodedData_closeReturnsBufferToPool() {
+        val bufferInfo = MediaCodec.BufferInfo()
+        bufferInfo.set(0, 100, 0L, 0)
+        val copiedEncodedData = BufferCopiedEncodedData(
+            FakeEncodedData(ByteBuffer.allocate(100), bufferInfo),
+            pool
+        )
+        val buffer = copiedEncodedData.byteBuffer
+
+        copiedEncodedData.close()
+        copiedEncodedData.close()
+
+        assertThat(pool.acquire(100)).isSameInstanceAs(buffer)
+        assertThat(pool.acquire(100)).isNotSameInstanceAs(buffer)
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.LinearSystem;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure + layout of generated hierarchies.
+ *
+ * With {@code OPTIMIZATION_NONE} everything goes through {@link LinearSystem#minimize()};
+ * the other levels exercise the dependency graph, direct resolution and grouping. Grouping
+ * is only used by wrap content layouts, so the height can be measured as such.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LayoutBenchmark {
+
+    @Param({"10", "100", "500", "2000"})
+    public int widgetCount;
+
+    @Param({"CHAINS", "BARRIERS", "FLOWS", "RATIOS", "GUIDELINES"})
+    public LayoutGenerator.Shape shape;
+
+    @Param({"NONE", "STANDARD", "GROUPING", "PARALLEL_GROUPING"})
+    public String optimization;
+
+    @Param({"EXACTLY", "WRAP_CONTENT"})
+    public String heightMode;
+
+    @Param({"DEFAULT", "OPTIMIZED", "SPARSE"})
+    public String engine;
+
+    private ConstraintWidgetContainer mRoot;
+    private int mOptimizationLevel;
+    private int mHeightMode;
+    private boolean mOptimizedEngine;
+    private boolean mSparseEngine;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mOptimizedEngine = LinearSystem.OPTIMIZED_ENGINE;
+        mSparseEngine = LinearSystem.SPARSE_ENGINE;
+        LinearSystem.OPTIMIZED_ENGINE = engine.equals("OPTIMIZED");
+        LinearSystem.SPARSE_ENGINE = engine.equals("SPARSE");
+        switch (optimization) {
+            case "NONE":
+                mOptimizationLevel = Optimizer.OPTIMIZATION_NONE;
+                break;
+            case "GROUPING":
+                mOptimizationLevel = Optimizer.OPTIMIZATION_STANDARD
+                        | Optimizer.OPTIMIZATION_GROUPING;
+                break;
+            case "PARALLEL_GROUPING":
+                mOptimizationLevel = Optimizer.OPTIMIZATION_STANDARD
+                        | Optimizer.OPTIMIZATION_GROUPING
+                        | Optimizer.OPTIMIZATION_PARALLEL_GROUPING;
+                break;
+            default:
+                mOptimizationLevel = Optimizer.OPTIMIZATION_STANDARD;
+        }
+        // the engine is picked when the container creates its LinearSystem
+        mRoot = LayoutGenerator.create(shape, widgetCount);
+        mRoot.setOptimizationLevel(mOptimizationLevel);
+        mHeightMode = BasicMeasure.EXACTLY;
+        if (heightMode.equals("WRAP_CONTENT")) {
+            mRoot.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+            mHeightMode = BasicMeasure.AT_MOST;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        LinearSystem.OPTIMIZED_ENGINE = mOptimizedEngine;
+        LinearSystem.SPARSE_ENGINE = mSparseEngine;
+    }
+
+    @Benchmark
+    public int measureAndLayout(SolverCounters counters) {
+        mRoot.fillMetrics(counters.mMetrics);
+        mRoot.measure(mOptimizationLevel,
+                BasicMeasure.EXACTLY, LayoutGenerator.ROOT_WIDTH,
+                mHeightMode, LayoutGenerator.ROOT_HEIGHT,
+                0, 0, 0, 0);
+        mRoot.layout();
+        counters.collect();
+        return mRoot.getChildren().get(mRoot.getChildren().size() - 1).getTop();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.widgets.Barrier;
+import androidx.constraintlayout.core.widgets.ConstraintAnchor.Type;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Flow;
+import androidx.constraintlayout.core.widgets.Guideline;
+import androidx.constraintlayout.core.widgets.VirtualLayout;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+/**
+ * Generates synthetic widget hierarchies used by the benchmarks. Every shape is made of
+ * small groups of widgets stacked vertically, each group being constrained to the bottom of
+ * the previous one, so the size of the system grows linearly with the number of widgets.
+ */
+public class LayoutGenerator {
+
+    public static final int ROOT_WIDTH = 1080;
+    public static final int ROOT_HEIGHT = 1920;
+
+    /**
+     * The kind of constraints used to build a layout
+     */
+    public enum Shape {
+        /** horizontal spread chains of 8 widgets */
+        CHAINS,
+        /** columns of 3 widgets followed by a widget placed after their barrier */
+        BARRIERS,
+        /** flows wrapping 16 widgets each */
+        FLOWS,
+        /** match constraint widgets with a dimension ratio */
+        RATIOS,
+        /** widgets placed between two percent guidelines */
+        GUIDELINES
+    }
+
+    /**
+     * Measurer standing in for the host toolkit: widgets keep the size they were given,
+     * virtual layouts (flows) are measured with the core implementation.
+     */
+    public static final BasicMeasure.Measurer MEASURER = new BasicMeasure.Measurer() {
+        @Override
+        public void measure(ConstraintWidget widget, BasicMeasure.Measure measure) {
+            if (widget instanceof VirtualLayout) {
+                VirtualLayout layout = (VirtualLayout) widget;
+                int widthMode = BasicMeasure.AT_MOST;
+                int widthSize = ROOT_WIDTH;
+                int heightMode = BasicMeasure.UNSPECIFIED;
+                int heightSize = 0;
+                if (measure.horizontalBehavior == DimensionBehaviour.FIXED) {
+                    widthMode = BasicMeasure.EXACTLY;
+                    widthSize = measure.horizontalDimension;
+                }
+                if (measure.verticalBehavior == DimensionBehaviour.FIXED) {
+                    heightMode = BasicMeasure.EXACTLY;
+                    heightSize = measure.verticalDimension;
+                }
+                layout.measure(widthMode, widthSize, heightMode, heightSize);
+                measure.measuredWidth = layout.getMeasuredWidth();
+                measure.measuredHeight = layout.getMeasuredHeight();
+                return;
+            }
+            measure.measuredWidth = measure.horizontalDimension;
+            measure.measuredHeight = measure.verticalDimension;
+            measure.measuredBaseline = 8;
+        }
+
+        @Override
+        public void didMeasures() {
+        }
+    };
+
+    private LayoutGenerator() {
+    }
+
+    /**
+     * Create a container holding (about) the given number of widgets, helpers not included.
+     *
+     * @param shape       the kind of constraints to use
+     * @param widgetCount number of widgets
+     * @return the root of the hierarchy
+     */
+    public static ConstraintWidgetContainer create(Shape shape, int widgetCount) {
+        ConstraintWidgetContainer root =
+                new ConstraintWidgetContainer(0, 0, ROOT_WIDTH, ROOT_HEIGHT);
+        root.setDebugName("root");
+        root.setMeasurer(MEASURER);
+        ConstraintWidget previous = root;
+        int count = 0;
+        int group = 0;
+        while (count < widgetCount) {
+            switch (shape) {
+                case CHAINS:
+                    previous = addChain(root, previous, group, 8);
+                    count += 8;
+                    break;
+                case BARRIERS:
+                    previous = addBarrierGroup(root, previous, group);
+                    count += 4;
+                    break;
+                case FLOWS:
+                    previous = addFlow(root, previous, group, 16);
+                    count += 16;
+                    break;
+                case RATIOS:
+                    previous = addRatio(root, previous, group);
+                    count += 1;
+                    break;
+                case GUIDELINES:
+                    previous = addGuidelineGroup(root, previous, group);
+                    count += 2;
+                    break;
+            }
+            group++;
+        }
+        return root;
+    }
+
+    private static ConstraintWidget createWidget(ConstraintWidgetContainer root,
+            String name, int width, int height) {
+        ConstraintWidget widget = new ConstraintWidget(width, height);
+        widget.setDebugName(name);
+        widget.setBaselineDistance(8);
+        root.add(widget);
+        return widget;
+    }
+
+    private static void connectTop(ConstraintWidget widget, ConstraintWidget previous) {
+        if (previous.getParent() == null) {
+            widget.connect(Type.TOP, previous, Type.TOP, 8);
+        } else {
+            widget.connect(Type.TOP, previous, Type.BOTTOM, 8);
+        }
+    }
+
+    private static ConstraintWidget addChain(ConstraintWidgetContainer root,
+            ConstraintWidget previous, int group, int size) {
+        ConstraintWidget[] widgets = new ConstraintWidget[size];
+        for (int i = 0; i < size; i++) {
+            widgets[i] = createWidget(root, "chain" + group + "_" + i, 40 + i * 4, 20);
+            connectTop(widgets[i], previous);
+        }
+        widgets[0].connect(Type.LEFT, root, Type.LEFT, 8);
+        for (int i = 0; i < size - 1; i++) {
+            widgets[i].connect(Type.RIGHT, widgets[i + 1], Type.LEFT);
+            widgets[i + 1].connect(Type.LEFT, widgets[i], Type.RIGHT);
+        }
+        widgets[size - 1].connect(Type.RIGHT, root, Type.RIGHT, 8);
+        widgets[0].setHorizontalChainStyle(ConstraintWidget.CHAIN_SPREAD);
+        return widgets[0];
+    }
+
+    private static ConstraintWidget addBarrierGroup(ConstraintWidgetContainer root,
+            ConstraintWidget previous, int group) {
+        Barrier barrier = new Barrier("barrier" + group);
+        barrier.setBarrierType(Barrier.RIGHT);
+        root.add(barrier);
+        ConstraintWidget top = previous;
+        ConstraintWidget last = null;
+        for (int i = 0; i < 3; i++) {
+            ConstraintWidget widget = createWidget(root, "column" + group + "_" + i,
+                    60 + ((group + i) % 5) * 20, 20);
+            widget.connect(Type.LEFT, root, Type.LEFT, 8);
+            connectTop(widget, top);
+            barrier.add(widget);
+            top = widget;
+            last = widget;
+        }
+        ConstraintWidget after = createWidget(root, "after" + group, 100, 20);
+        after.connect(Type.LEFT, barrier, Type.RIGHT, 8);
+        after.connect(Type.TOP, last, Type.TOP);
+        return last;
+    }
+
+    private static ConstraintWidget addFlow(ConstraintWidgetContainer root,
+            ConstraintWidget previous, int group, int size) {
+        Flow flow = new Flow();
+        flow.setDebugName("flow" + group);
+        flow.setWrapMode(Flow.WRAP_CHAIN);
+        flow.setHorizontalGap(8);
+        flow.setVerticalGap(8);
+        flow.setHorizontalDimensionBehaviour(DimensionBehaviour.MATCH_CONSTRAINT);
+        flow.setVerticalDimensionBehaviour(DimensionBehaviour.WRAP_CONTENT);
+        flow.connect(Type.LEFT, root, Type.LEFT);
+        flow.connect(Type.RIGHT, root, Type.RIGHT);
+        connectTop(flow, previous);
+        root.add(flow);
+        for (int i = 0; i < size; i++) {
+            flow.add(createWidget(root, "flow" + group + "_" + i, 80 + (i % 4) * 30, 24));
+        }
+        return flow;
+    }
+
+    private static ConstraintWidget addRatio(ConstraintWidgetContainer root,
+            ConstraintWidget previous, int group) {
+        ConstraintWidget widget = createWidget(root, "ratio" + group, 100, 100);
+        widget.setHorizontalDimensionBehaviour(DimensionBehaviour.MATCH_CONSTRAINT);
+        widget.setVerticalDimensionBehaviour(DimensionBehaviour.MATCH_CONSTRAINT);
+        widget.setDimensionRatio(group % 2 == 0 ? "16:9" : "4:3");
+        widget.connect(Type.LEFT, root, Type.LEFT, 8 + (group % 4) * 8);
+        widget.connect(Type.RIGHT, root, Type.RIGHT, 8);
+        connectTop(widget, previous);
+        return widget;
+    }
+
+    private static ConstraintWidget addGuidelineGroup(ConstraintWidgetContainer root,
+            ConstraintWidget previous, int group) {
+        Guideline first = new Guideline();
+        first.setDebugName("first" + group);
+        first.setOrientation(Guideline.VERTICAL);
+        first.setGuidePercent(0.25f + (group % 3) * 0.1f);
+        root.add(first);
+        Guideline second = new Guideline();
+        second.setDebugName("second" + group);
+        second.setOrientation(Guideline.VERTICAL);
+        second.setGuidePercent(0.75f);
+        root.add(second);
+
+        ConstraintWidget start = createWidget(root, "start" + group, 100, 20);
+        start.connect(Type.LEFT, root, Type.LEFT);
+        start.connect(Type.RIGHT, first, Type.LEFT);
+        connectTop(start, previous);
+        ConstraintWidget middle = createWidget(root, "middle" + group, 100, 20);
+        middle.setHorizontalDimensionBehaviour(DimensionBehaviour.MATCH_CONSTRAINT);
+        middle.connect(Type.LEFT, first, Type.RIGHT, 8);
+        middle.connect(Type.RIGHT, second, Type.LEFT, 8);
+        middle.connect(Type.TOP, start, Type.TOP);
+        return start;
+    }
+}
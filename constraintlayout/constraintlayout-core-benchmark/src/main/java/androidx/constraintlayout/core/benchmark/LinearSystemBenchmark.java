@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.LinearSystem;
+import androidx.constraintlayout.core.SolverVariable;
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solver-only benchmark: a row of intervals, each one starting after the previous one and
+ * pulled toward a preferred position, with the size of the first interval being edited.
+ * Compares rebuilding the whole system against the incremental resolution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LinearSystemBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int intervalCount;
+
+    private LinearSystem mSystem;
+    private ConstraintAnchor[] mStarts;
+    private ConstraintAnchor[] mEnds;
+    private SolverVariable mEdited;
+    private int mSize;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        mStarts = new ConstraintAnchor[intervalCount];
+        mEnds = new ConstraintAnchor[intervalCount];
+        for (int i = 0; i < intervalCount; i++) {
+            ConstraintWidget widget = new ConstraintWidget();
+            mStarts[i] = widget.getAnchor(ConstraintAnchor.Type.LEFT);
+            mEnds[i] = widget.getAnchor(ConstraintAnchor.Type.RIGHT);
+        }
+        mSystem = new LinearSystem();
+        build(0);
+        mSystem.minimize();
+    }
+
+    private void build(int size) {
+        SolverVariable previousEnd = null;
+        for (int i = 0; i < intervalCount; i++) {
+            SolverVariable start = mSystem.createObjectVariable(mStarts[i]);
+            SolverVariable end = mSystem.createObjectVariable(mEnds[i]);
+            if (i == 0) {
+                mSystem.addEquality(start, 0);
+                mEdited = end;
+                mSystem.addEditVariable(end, size, SolverVariable.STRENGTH_HIGH);
+            } else {
+                mSystem.addGreaterThan(start, previousEnd, 8, SolverVariable.STRENGTH_FIXED);
+                mSystem.addEquality(start, previousEnd, 16, SolverVariable.STRENGTH_LOW);
+                mSystem.addEquality(end, start, 100, SolverVariable.STRENGTH_FIXED);
+            }
+            previousEnd = end;
+        }
+    }
+
+    @Benchmark
+    public float incrementalResolve() throws Exception {
+        mSize = (mSize + 1) % 200;
+        if (!mSystem.suggestValue(mEdited, mSize)) {
+            // we would only be timing the resolution of an unchanged system
+            throw new IllegalStateException("the edit variable isn't part of the system");
+        }
+        mSystem.resolve();
+        return mEdited.computedValue;
+    }
+
+    @Benchmark
+    public float fullResolve() throws Exception {
+        mSize = (mSize + 1) % 200;
+        mSystem.reset();
+        build(mSize);
+        mSystem.minimize();
+        return mEdited.computedValue;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.Metrics;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH results, reported next to the timings: the solver {@link Metrics}
+ * accumulated over an iteration. Allocations are reported by running with {@code -prof gc}.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SolverCounters {
+    public long pivots;
+    public long iterations;
+    public long minimize;
+    public long measures;
+    public long graphSolved;
+    public long linearSolved;
+    public long maxTableSize;
+
+    final Metrics mMetrics = new Metrics();
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        pivots = 0;
+        iterations = 0;
+        minimize = 0;
+        measures = 0;
+        graphSolved = 0;
+        linearSolved = 0;
+        maxTableSize = 0;
+        mMetrics.reset();
+    }
+
+    /**
+     * Accumulate the metrics collected since the last call and reset them
+     */
+    void collect() {
+        pivots += mMetrics.pivots;
+        iterations += mMetrics.iterations;
+        minimize += mMetrics.minimize;
+        measures += mMetrics.measures;
+        graphSolved += mMetrics.graphSolved;
+        linearSolved += mMetrics.linearSolved;
+        maxTableSize = Math.max(maxTableSize, mMetrics.maxTableSize);
+        mMetrics.reset();
+    }
+}
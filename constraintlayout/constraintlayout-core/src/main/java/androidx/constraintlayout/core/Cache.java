@@ -19,8 +19,19 @@ package androidx.constraintlayout.core;
  * Cache for common objects
  */
 public class Cache {
-    Pools.Pool<ArrayRow> mOptimizedArrayRowPool = new Pools.SimplePool<>(256);
-    Pools.Pool<ArrayRow> mArrayRowPool = new Pools.SimplePool<>(256);
-    Pools.Pool<SolverVariable> mSolverVariablePool = new Pools.SimplePool<>(256);
+    private static final int POOL_SIZE = 256;
+    // the sparse engine aims at not allocating when solving large layouts repeatedly.
+    // The pools only grow as instances are released, so a large bound costs nothing
+    // to the engines that don't reach it.
+    private static final int SPARSE_POOL_SIZE = 4096;
+
+    Pools.Pool<ArrayRow> mOptimizedArrayRowPool = new Pools.SimplePool<>(POOL_SIZE);
+    Pools.Pool<ArrayRow> mArrayRowPool = new Pools.SimplePool<>(POOL_SIZE);
+    Pools.Pool<ArrayRow> mSparseArrayRowPool = new Pools.SimplePool<>(SPARSE_POOL_SIZE);
+    Pools.Pool<SolverVariable> mSolverVariablePool = new Pools.SimplePool<>(SPARSE_POOL_SIZE);
     SolverVariable[] mIndexedVariables = new SolverVariable[32];
+
+    // scratch buffers used by SparseSolverVariableValues when merging rows
+    int[] mSparseScratchIds = new int[64];
+    float[] mSparseScratchValues = new float[64];
 }
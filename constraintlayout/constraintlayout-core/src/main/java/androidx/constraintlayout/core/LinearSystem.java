@@ -40,6 +40,7 @@ public class LinearSystem {
     public static boolean USE_SYNONYMS = true;
     public static boolean SKIP_COLUMNS = true;
     public static boolean OPTIMIZED_ENGINE = false;
+    public static boolean SPARSE_ENGINE = false;
 
     /*
      * Default size for the object pools
@@ -85,18 +86,35 @@ public class LinearSystem {
     public static Metrics sMetrics;
     private Row mTempGoal;
 
+    /*
+     * Edit variables (see addEditVariable()), kept so that their value can be
+     * changed without rebuilding the system. Allocated on the first edit variable.
+     */
+    private SolverVariable[] mEditVariables;
+    private SolverVariable[] mEditErrors;
+    private float[] mEditValues;
+    private int mNumEditVariables = 0;
+
     static class ValuesRow extends ArrayRow {
         ValuesRow(Cache cache) {
             variables = new SolverVariableValues(this, cache);
         }
     }
 
+    static class SparseRow extends ArrayRow {
+        SparseRow(Cache cache) {
+            variables = new SparseSolverVariableValues(this, cache);
+        }
+    }
+
     public LinearSystem() {
         mRows = new ArrayRow[mTableSize];
         releaseRows();
         mCache = new Cache();
         mGoal = new PriorityGoalRow(mCache);
-        if (OPTIMIZED_ENGINE) {
+        if (SPARSE_ENGINE) {
+            mTempGoal = new SparseRow(mCache);
+        } else if (OPTIMIZED_ENGINE) {
             mTempGoal = new ValuesRow(mCache);
         } else {
             mTempGoal = new ArrayRow(mCache);
@@ -165,22 +183,25 @@ public class LinearSystem {
      * Release ArrayRows back to their pool
      */
     private void releaseRows() {
-        if (OPTIMIZED_ENGINE) {
-            for (int i = 0; i < mNumRows; i++) {
-                ArrayRow row = mRows[i];
-                if (row != null) {
-                    mCache.mOptimizedArrayRowPool.release(row);
-                }
-                mRows[i] = null;
+        for (int i = 0; i < mNumRows; i++) {
+            ArrayRow row = mRows[i];
+            if (row != null) {
+                releaseRow(row);
             }
+            mRows[i] = null;
+        }
+    }
+
+    /**
+     * Release an ArrayRow back to the pool of the current engine
+     */
+    private void releaseRow(ArrayRow row) {
+        if (SPARSE_ENGINE) {
+            mCache.mSparseArrayRowPool.release(row);
+        } else if (OPTIMIZED_ENGINE) {
+            mCache.mOptimizedArrayRowPool.release(row);
         } else {
-            for (int i = 0; i < mNumRows; i++) {
-                ArrayRow row = mRows[i];
-                if (row != null) {
-                    mCache.mArrayRowPool.release(row);
-                }
-                mRows[i] = null;
-            }
+            mCache.mArrayRowPool.release(row);
         }
     }
 
@@ -216,7 +237,15 @@ public class LinearSystem {
         }
         releaseRows();
         mNumRows = 0;
-        if (OPTIMIZED_ENGINE) {
+        if (mNumEditVariables > 0) {
+            Arrays.fill(mEditVariables, 0, mNumEditVariables, null);
+            Arrays.fill(mEditErrors, 0, mNumEditVariables, null);
+            mNumEditVariables = 0;
+        }
+        if (SPARSE_ENGINE) {
+            // the variables were all reset above, simply reuse the row
+            mTempGoal.clear();
+        } else if (OPTIMIZED_ENGINE) {
             mTempGoal = new ValuesRow(mCache);
         } else {
             mTempGoal = new ArrayRow(mCache);
@@ -258,13 +287,24 @@ public class LinearSystem {
         return variable;
     }
 
+    // Debug counters, only updated when a row has to be allocated. They are not synchronized:
+    // with Optimizer.OPTIMIZATION_PARALLEL_GROUPING, concurrent updates may be lost.
     public static long ARRAY_ROW_CREATION = 0;
     public static long OPTIMIZED_ARRAY_ROW_CREATION = 0;
+    public static long SPARSE_ARRAY_ROW_CREATION = 0;
 
     // @TODO: add description
     public ArrayRow createRow() {
         ArrayRow row;
-        if (OPTIMIZED_ENGINE) {
+        if (SPARSE_ENGINE) {
+            row = mCache.mSparseArrayRowPool.acquire();
+            if (row == null) {
+                row = new SparseRow(mCache);
+                SPARSE_ARRAY_ROW_CREATION++;
+            } else {
+                row.reset();
+            }
+        } else if (OPTIMIZED_ENGINE) {
             row = mCache.mOptimizedArrayRowPool.acquire();
             if (row == null) {
                 row = new ValuesRow(mCache);
@@ -557,11 +597,7 @@ public class LinearSystem {
                 mRows[mNumRows - 1] = null;
                 mNumRows--;
                 i--;
-                if (OPTIMIZED_ENGINE) {
-                    mCache.mOptimizedArrayRowPool.release(current);
-                } else {
-                    mCache.mArrayRowPool.release(current);
-                }
+                releaseRow(current);
             }
             i++;
         }
@@ -634,11 +670,7 @@ public class LinearSystem {
                         if (!row.mIsSimpleDefinition) {
                             row.mVariable.updateReferencesWithNewDefinition(this, row);
                         }
-                        if (OPTIMIZED_ENGINE) {
-                            mCache.mOptimizedArrayRowPool.release(row);
-                        } else {
-                            mCache.mArrayRowPool.release(row);
-                        }
+                        releaseRow(row);
                         mNumRows--;
                     }
                 }
@@ -681,11 +713,7 @@ public class LinearSystem {
                 if (mRows[i] != null && mRows[i].mIsSimpleDefinition) {
                     ArrayRow removedRow = mRows[i];
                     removedRow.mVariable.setFinalValue(this, removedRow.mConstantValue);
-                    if (OPTIMIZED_ENGINE) {
-                        mCache.mOptimizedArrayRowPool.release(removedRow);
-                    } else {
-                        mCache.mArrayRowPool.release(removedRow);
-                    }
+                    releaseRow(removedRow);
                     mRows[i] = null;
                     int lastRow = i + 1;
                     for (int j = i + 1; j < mNumRows; j++) {
@@ -722,11 +750,7 @@ public class LinearSystem {
             if (!row.mVariable.isFinalValue) {
                 row.mVariable.setFinalValue(this, row.mConstantValue);
             }
-            if (OPTIMIZED_ENGINE) {
-                mCache.mOptimizedArrayRowPool.release(row);
-            } else {
-                mCache.mArrayRowPool.release(row);
-            }
+            releaseRow(row);
         }
     }
 
@@ -1068,6 +1092,123 @@ public class LinearSystem {
         }
     }
 
+    /*--------------------------------------------------------------------------------------------*/
+    // Incremental resolution
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * Add an edit constraint of the form variable = value. Unlike a regular equality, the
+     * value of an edit constraint can later be changed through {@link #suggestValue} and the
+     * system re-solved with {@link #resolve()}, starting from the current solution instead
+     * of rebuilding all the rows.
+     *
+     * @param variable the variable we want to edit
+     * @param value    the initial value
+     * @param strength strength used
+     */
+    public void addEditVariable(SolverVariable variable, int value, int strength) {
+        if (DEBUG_CONSTRAINTS) {
+            System.out.println("-> [edit] " + variable + " = " + value
+                    + " " + getDisplayStrength(strength));
+        }
+        // variable = value + ep - em
+        ArrayRow row = createRow();
+        SolverVariable errorPlus = createErrorVariable(strength, "ep");
+        SolverVariable errorMinus = createErrorVariable(strength, "em");
+        row.mConstantValue = value;
+        row.variables.put(variable, -1);
+        row.variables.put(errorPlus, 1);
+        row.variables.put(errorMinus, -1);
+        addConstraint(row);
+
+        if (mEditVariables == null) {
+            mEditVariables = new SolverVariable[8];
+            mEditErrors = new SolverVariable[8];
+            mEditValues = new float[8];
+        } else if (mNumEditVariables >= mEditVariables.length) {
+            int size = mEditVariables.length * 2;
+            mEditVariables = Arrays.copyOf(mEditVariables, size);
+            mEditErrors = Arrays.copyOf(mEditErrors, size);
+            mEditValues = Arrays.copyOf(mEditValues, size);
+        }
+        mEditVariables[mNumEditVariables] = variable;
+        mEditErrors[mNumEditVariables] = errorPlus;
+        mEditValues[mNumEditVariables] = value;
+        mNumEditVariables++;
+    }
+
+    /**
+     * Change the value of an edit variable. The constants of the rows are updated in place,
+     * which may leave the system infeasible -- call {@link #resolve()} to re-optimize it.
+     *
+     * @param variable an edit variable previously added with {@link #addEditVariable}
+     * @param value    the new value
+     * @return false if the variable isn't an edit variable of the system, or if its edit
+     * constraint has been simplified away; the system then needs to be rebuilt.
+     */
+    public boolean suggestValue(SolverVariable variable, int value) {
+        int index = -1;
+        for (int i = 0; i < mNumEditVariables; i++) {
+            if (mEditVariables[i] == variable) {
+                index = i;
+                break;
+            }
+        }
+        if (index == -1) {
+            return false;
+        }
+        SolverVariable errorPlus = mEditErrors[index];
+        if (errorPlus.isFinalValue || errorPlus.id == -1) {
+            return false;
+        }
+        float delta = value - mEditValues[index];
+        if (delta == 0) {
+            return true;
+        }
+        if (sMetrics != null) {
+            sMetrics.editSuggestions++;
+        }
+        mEditValues[index] = value;
+
+        // The edit constraint is variable = value + ep - em. Changing value by delta
+        // is equivalent to substituting ep by (ep + delta) in the whole system.
+        if (errorPlus.mDefinitionId != -1) {
+            mRows[errorPlus.mDefinitionId].mConstantValue -= delta;
+        }
+        for (int i = 0; i < mNumRows; i++) {
+            ArrayRow row = mRows[i];
+            if (row.mVariable == errorPlus) {
+                continue;
+            }
+            float amount = row.variables.get(errorPlus);
+            if (amount != 0) {
+                row.mConstantValue += amount * delta;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Re-solve the system after changing edit variables via {@link #suggestValue}. The
+     * current basis is kept: we only restore feasibility of the rows whose constants
+     * changed, then optimize the goal again.
+     */
+    public void resolve() throws Exception {
+        if (sMetrics != null) {
+            sMetrics.incrementalResolves++;
+        }
+        // parametric variables are zero in the solution; a previous resolution
+        // may have left a value on variables that since exited the basis
+        for (int i = 1; i <= mVariablesID; i++) {
+            SolverVariable variable = mCache.mIndexedVariables[i];
+            if (variable != null && variable.mDefinitionId == -1
+                    && !variable.isFinalValue && !variable.mIsSynonym) {
+                variable.computedValue = 0;
+            }
+        }
+        minimize();
+    }
+
     /*--------------------------------------------------------------------------------------------*/
     // Display utility functions
     /*--------------------------------------------------------------------------------------------*/
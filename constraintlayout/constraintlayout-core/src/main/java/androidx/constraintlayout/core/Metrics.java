@@ -68,6 +68,10 @@ public class Metrics {
     public long mEquations;
     public long mVariables;
     public long mSimpleEquations;
+    public long editSuggestions;
+    public long incrementalResolves;
+    public long measureCacheHits; // child measures served from the widgets measure cache
+    public long measureCacheMisses; // child measures that went to the measurer and got cached
 
     // @TODO: add description
     @Override
@@ -125,6 +129,10 @@ public class Metrics {
         mVariables = 0;
         mEquations = 0;
         mSimpleEquations = 0;
+        editSuggestions = 0;
+        incrementalResolves = 0;
+        measureCacheHits = 0;
+        measureCacheMisses = 0;
     }
 
     /**
@@ -170,5 +178,9 @@ public class Metrics {
         graphSolved = metrics.graphSolved;
         resolvedWidgets = metrics.resolvedWidgets;
         nonresolvedWidgets = metrics.nonresolvedWidgets;
+        editSuggestions = metrics.editSuggestions;
+        incrementalResolves = metrics.incrementalResolves;
+        measureCacheHits = metrics.measureCacheHits;
+        measureCacheMisses = metrics.measureCacheMisses;
     }
 }
@@ -16,6 +16,8 @@
 
 package androidx.constraintlayout.core;
 
+import java.util.Arrays;
+
 /**
  * Helper class for crating pools of objects. An example use looks like this:
  * <pre>
@@ -81,7 +83,12 @@ final class Pools {
      * @param <T> The pooled type.
      */
     static class SimplePool<T> implements Pool<T> {
-        private final Object[] mPool;
+        private static final int INITIAL_POOL_SIZE = 16;
+
+        // grows as instances are released, up to mMaxPoolSize
+        private Object[] mPool;
+
+        private final int mMaxPoolSize;
 
         private int mPoolSize;
 
@@ -95,7 +102,19 @@ final class Pools {
             if (maxPoolSize <= 0) {
                 throw new IllegalArgumentException("The max pool size must be > 0");
             }
-            mPool = new Object[maxPoolSize];
+            mMaxPoolSize = maxPoolSize;
+            mPool = new Object[Math.min(maxPoolSize, INITIAL_POOL_SIZE)];
+        }
+
+        private boolean hasRoom() {
+            if (mPoolSize < mPool.length) {
+                return true;
+            }
+            if (mPool.length < mMaxPoolSize) {
+                mPool = Arrays.copyOf(mPool, Math.min(mPool.length * 2, mMaxPoolSize));
+                return true;
+            }
+            return false;
         }
 
         @Override
@@ -118,7 +137,7 @@ final class Pools {
                     throw new IllegalStateException("Already in the pool!");
                 }
             }
-            if (mPoolSize < mPool.length) {
+            if (hasRoom()) {
                 mPool[mPoolSize] = instance;
                 mPoolSize++;
                 return true;
@@ -138,7 +157,7 @@ final class Pools {
                         throw new IllegalStateException("Already in the pool!");
                     }
                 }
-                if (mPoolSize < mPool.length) {
+                if (hasRoom()) {
                     mPool[mPoolSize] = instance;
                     mPoolSize++;
                 }
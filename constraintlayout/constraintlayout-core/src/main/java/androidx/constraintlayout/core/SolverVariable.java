@@ -20,6 +20,7 @@ import static androidx.constraintlayout.core.LinearSystem.FULL_DEBUG;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a given variable used in the {@link LinearSystem linear expression solver}.
@@ -43,11 +44,12 @@ public class SolverVariable implements Comparable<SolverVariable> {
     public static final int STRENGTH_CENTERING = 7;
     public static final int STRENGTH_FIXED = 8;
 
-    private static int sUniqueSlackId = 1;
-    private static int sUniqueErrorId = 1;
-    private static int sUniqueUnrestrictedId = 1;
-    private static int sUniqueConstantId = 1;
-    private static int sUniqueId = 1;
+    // shared by the systems solved concurrently when grouping in parallel
+    private static final AtomicInteger sUniqueSlackId = new AtomicInteger(1);
+    private static final AtomicInteger sUniqueErrorId = new AtomicInteger(1);
+    private static final AtomicInteger sUniqueUnrestrictedId = new AtomicInteger(1);
+    private static final AtomicInteger sUniqueConstantId = new AtomicInteger(1);
+    private static final AtomicInteger sUniqueId = new AtomicInteger(1);
     public boolean inGoal;
 
     private String mName;
@@ -98,25 +100,25 @@ public class SolverVariable implements Comparable<SolverVariable> {
     }
 
     static void increaseErrorId() {
-        sUniqueErrorId++;
+        sUniqueErrorId.incrementAndGet();
     }
 
     private static String getUniqueName(Type type, String prefix) {
         if (prefix != null) {
-            return prefix + sUniqueErrorId;
+            return prefix + sUniqueErrorId.get();
         }
         switch (type) {
             case UNRESTRICTED:
-                return "U" + ++sUniqueUnrestrictedId;
+                return "U" + sUniqueUnrestrictedId.incrementAndGet();
             case CONSTANT:
-                return "C" + ++sUniqueConstantId;
+                return "C" + sUniqueConstantId.incrementAndGet();
             case SLACK:
-                return "S" + ++sUniqueSlackId;
+                return "S" + sUniqueSlackId.incrementAndGet();
             case ERROR: {
-                return "e" + ++sUniqueErrorId;
+                return "e" + sUniqueErrorId.incrementAndGet();
             }
             case UNKNOWN:
-                return "V" + ++sUniqueId;
+                return "V" + sUniqueId.incrementAndGet();
         }
         throw new AssertionError(type.name());
     }
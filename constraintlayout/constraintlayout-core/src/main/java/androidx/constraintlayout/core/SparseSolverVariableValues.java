@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import java.util.Arrays;
+
+/**
+ * Store a set of variables and their values as two parallel flat arrays (variable ids and
+ * coefficients), kept sorted by variable id.
+ *
+ * Indexed access is direct, lookups are binary searches, and substituting a definition
+ * into the row is done as a linear merge of the two sorted rows through a scratch buffer
+ * shared by the whole system (see {@link Cache}). Rows are pooled, so once the arrays
+ * have grown to the size needed by a layout, solving it again doesn't allocate.
+ */
+public class SparseSolverVariableValues implements ArrayRow.ArrayRowVariables {
+
+    private static final boolean DEBUG = false;
+    private static final float EPSILON = 0.001f;
+    private static final int NONE = -1;
+
+    int[] mIds = new int[16];
+    float[] mValues = new float[16];
+    int mCount = 0;
+
+    private final ArrayRow mRow; // our owner
+    // pointer to the system-wide cache, allowing access to SolverVariables
+    protected final Cache mCache;
+
+    SparseSolverVariableValues(ArrayRow row, Cache cache) {
+        mRow = row;
+        mCache = cache;
+    }
+
+    @Override
+    public int getCurrentSize() {
+        return mCount;
+    }
+
+    @Override
+    public SolverVariable getVariable(int index) {
+        if (index < 0 || index >= mCount) {
+            return null;
+        }
+        return mCache.mIndexedVariables[mIds[index]];
+    }
+
+    @Override
+    public float getVariableValue(int index) {
+        if (index < 0 || index >= mCount) {
+            return 0;
+        }
+        return mValues[index];
+    }
+
+    @Override
+    public boolean contains(SolverVariable variable) {
+        return indexOf(variable) != NONE;
+    }
+
+    @Override
+    public int indexOf(SolverVariable variable) {
+        if (mCount == 0 || variable == null) {
+            return NONE;
+        }
+        int index = Arrays.binarySearch(mIds, 0, mCount, variable.id);
+        return index >= 0 ? index : NONE;
+    }
+
+    @Override
+    public float get(SolverVariable variable) {
+        final int index = indexOf(variable);
+        if (index != NONE) {
+            return mValues[index];
+        }
+        return 0;
+    }
+
+    @Override
+    public void display() {
+        System.out.println(this);
+    }
+
+    @Override
+    public String toString() {
+        String str = hashCode() + " { ";
+        for (int i = 0; i < mCount; i++) {
+            str += getVariable(i) + " = " + mValues[i] + " ";
+        }
+        str += "}";
+        return str;
+    }
+
+    @Override
+    public void clear() {
+        if (DEBUG) {
+            System.out.println(this + " <clear>");
+        }
+        for (int i = 0; i < mCount; i++) {
+            SolverVariable v = mCache.mIndexedVariables[mIds[i]];
+            if (v != null) {
+                v.removeFromRow(mRow);
+            }
+        }
+        mCount = 0;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > mIds.length) {
+            int newSize = Math.max(size, mIds.length * 2);
+            mIds = Arrays.copyOf(mIds, newSize);
+            mValues = Arrays.copyOf(mValues, newSize);
+        }
+    }
+
+    private void insert(int index, SolverVariable variable, float value) {
+        ensureCapacity(mCount + 1);
+        if (index < mCount) {
+            System.arraycopy(mIds, index, mIds, index + 1, mCount - index);
+            System.arraycopy(mValues, index, mValues, index + 1, mCount - index);
+        }
+        mIds[index] = variable.id;
+        mValues[index] = value;
+        mCount++;
+        variable.addToRow(mRow);
+        variable.usageInRowCount++;
+    }
+
+    @Override
+    public void put(SolverVariable variable, float value) {
+        if (DEBUG) {
+            System.out.println(this + " <put> " + variable.id + " = " + value);
+        }
+        if (value > -EPSILON && value < EPSILON) {
+            remove(variable, true);
+            return;
+        }
+        int index = Arrays.binarySearch(mIds, 0, mCount, variable.id);
+        if (index >= 0) {
+            mValues[index] = value;
+        } else {
+            insert(-(index + 1), variable, value);
+        }
+    }
+
+    @Override
+    public int sizeInBytes() {
+        return mIds.length * 4 + mValues.length * 4 + 4;
+    }
+
+    @Override
+    public float remove(SolverVariable v, boolean removeFromDefinition) {
+        if (DEBUG) {
+            System.out.println(this + " <remove> " + v.id);
+        }
+        int index = indexOf(v);
+        if (index == NONE) {
+            return 0;
+        }
+        float value = mValues[index];
+        int tail = mCount - index - 1;
+        if (tail > 0) {
+            System.arraycopy(mIds, index + 1, mIds, index, tail);
+            System.arraycopy(mValues, index + 1, mValues, index, tail);
+        }
+        mCount--;
+        v.usageInRowCount--;
+        if (removeFromDefinition) {
+            v.removeFromRow(mRow);
+        }
+        return value;
+    }
+
+    @Override
+    public void add(SolverVariable v, float value, boolean removeFromDefinition) {
+        if (DEBUG) {
+            System.out.println(this + " <add> " + v.id + " = " + value);
+        }
+        if (value > -EPSILON && value < EPSILON) {
+            return;
+        }
+        int index = Arrays.binarySearch(mIds, 0, mCount, v.id);
+        if (index < 0) {
+            insert(-(index + 1), v, value);
+        } else {
+            mValues[index] += value;
+            if (mValues[index] > -EPSILON && mValues[index] < EPSILON) {
+                remove(v, removeFromDefinition);
+            }
+        }
+    }
+
+    @Override
+    public float use(ArrayRow definition, boolean removeFromDefinition) {
+        float value = get(definition.mVariable);
+        remove(definition.mVariable, removeFromDefinition);
+        if (!(definition.variables instanceof SparseSolverVariableValues)) {
+            ArrayRow.ArrayRowVariables definitionVariables = definition.variables;
+            int definitionSize = definitionVariables.getCurrentSize();
+            for (int i = 0; i < definitionSize; i++) {
+                SolverVariable definitionVariable = definitionVariables.getVariable(i);
+                float definitionValue = definitionVariables.getVariableValue(i);
+                add(definitionVariable, definitionValue * value, removeFromDefinition);
+            }
+            return value;
+        }
+        SparseSolverVariableValues localDef = (SparseSolverVariableValues) definition.variables;
+        final int definitionSize = localDef.mCount;
+        if (definitionSize == 0) {
+            return value;
+        }
+
+        // Both rows are sorted by id, merge them in the scratch buffer
+        int size = mCount + definitionSize;
+        if (mCache.mSparseScratchIds.length < size) {
+            int newSize = Math.max(size, mCache.mSparseScratchIds.length * 2);
+            mCache.mSparseScratchIds = new int[newSize];
+            mCache.mSparseScratchValues = new float[newSize];
+        }
+        final int[] ids = mCache.mSparseScratchIds;
+        final float[] values = mCache.mSparseScratchValues;
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < mCount || j < definitionSize) {
+            int id = i < mCount ? mIds[i] : Integer.MAX_VALUE;
+            int definitionId = j < definitionSize ? localDef.mIds[j] : Integer.MAX_VALUE;
+            if (id < definitionId) {
+                ids[count] = id;
+                values[count] = mValues[i];
+                count++;
+                i++;
+            } else if (definitionId < id) {
+                float amount = localDef.mValues[j] * value;
+                if (amount <= -EPSILON || amount >= EPSILON) {
+                    SolverVariable variable = mCache.mIndexedVariables[definitionId];
+                    variable.addToRow(mRow);
+                    variable.usageInRowCount++;
+                    ids[count] = definitionId;
+                    values[count] = amount;
+                    count++;
+                }
+                j++;
+            } else {
+                float amount = mValues[i] + localDef.mValues[j] * value;
+                if (amount > -EPSILON && amount < EPSILON) {
+                    SolverVariable variable = mCache.mIndexedVariables[id];
+                    variable.usageInRowCount--;
+                    if (removeFromDefinition) {
+                        variable.removeFromRow(mRow);
+                    }
+                } else {
+                    ids[count] = id;
+                    values[count] = amount;
+                    count++;
+                }
+                i++;
+                j++;
+            }
+        }
+        ensureCapacity(count);
+        System.arraycopy(ids, 0, mIds, 0, count);
+        System.arraycopy(values, 0, mValues, 0, count);
+        mCount = count;
+        return value;
+    }
+
+    @Override
+    public void invert() {
+        for (int i = 0; i < mCount; i++) {
+            mValues[i] *= -1;
+        }
+    }
+
+    @Override
+    public void divideByAmount(float amount) {
+        for (int i = 0; i < mCount; i++) {
+            mValues[i] /= amount;
+        }
+    }
+}
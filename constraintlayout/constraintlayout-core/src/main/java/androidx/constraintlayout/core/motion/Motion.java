@@ -32,6 +32,7 @@ import androidx.constraintlayout.core.motion.utils.KeyCache;
 import androidx.constraintlayout.core.motion.utils.KeyCycleOscillator;
 import androidx.constraintlayout.core.motion.utils.KeyFrameArray;
 import androidx.constraintlayout.core.motion.utils.Rect;
+import androidx.constraintlayout.core.motion.utils.SampledCurveFit;
 import androidx.constraintlayout.core.motion.utils.SplineSet;
 import androidx.constraintlayout.core.motion.utils.TimeCycleSplineSet;
 import androidx.constraintlayout.core.motion.utils.TypedBundle;
@@ -125,6 +126,7 @@ public class Motion implements TypedValues {
     private float mQuantizeMotionPhase = Float.NaN;
     private DifferentialInterpolator mQuantizeMotionInterpolator = null;
     private boolean mNoMovement = false;
+    private float mBakeError = Float.NaN;
     Motion mRelativeMotion;
     /**
      * Get the view to pivot around
@@ -999,6 +1001,31 @@ public class Motion implements TypedValues {
         }
 
         //--------------------------- end cycle support ----------------
+        if (!Float.isNaN(mBakeError)) {
+            bake(mBakeError);
+        }
+    }
+
+    /**
+     * Replace the splines computed by setup with ones sampled into tables within maxError,
+     * so that interpolating does not search the key positions
+     */
+    private void bake(double maxError) {
+        if (mSpline != null) {
+            mSpline[0] = SampledCurveFit.bake(mSpline[0], mInterpolateVariables.length, maxError);
+            for (int i = 0; i < mAttributeNames.length; i++) {
+                mSpline[i + 1] = SampledCurveFit.bake(mSpline[i + 1],
+                        mAttributeInterpolatorCount[i], maxError);
+            }
+        }
+        if (mArcSpline != null) {
+            mArcSpline = SampledCurveFit.bake(mArcSpline, 2, maxError);
+        }
+        if (mAttributesMap != null) {
+            for (SplineSet splineSet : mAttributesMap.values()) {
+                splineSet.bake(maxError);
+            }
+        }
     }
 
     /**
@@ -1738,6 +1765,21 @@ public class Motion implements TypedValues {
         return 0;
     }
 
+    /**
+     * Sample the curves into tables at the end of setup, for scenes where evaluating the
+     * splines of many widgets every frame is too slow.
+     * Curves that can't be sampled within maxError are kept as they are.
+     *
+     * @param maxError the largest difference allowed with the original curves, needs to be
+     *                 positive, Float.NaN (the default) to not sample them
+     */
+    public void setBakeError(float maxError) {
+        if (!Float.isNaN(maxError) && !(maxError > 0)) {
+            throw new IllegalArgumentException("maxError must be positive: " + maxError);
+        }
+        mBakeError = maxError;
+    }
+
     /**
      * Set stagger scale
      */
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.constraintlayout.core.motion.utils;
+
+/**
+ * A curve fit backed by tables of positions and slopes sampled at a fixed resolution
+ * from another curve fit, over the range of its time points.
+ * Looking up a value does not depend on the number of key positions: it only picks
+ * the interval the time falls in and does a cubic Hermite interpolation between its two
+ * samples. Slopes are the derivative of that same interpolation, so that they stay
+ * consistent with the positions. Outside the sampled range, the original curve fit is
+ * used to extrapolate.
+ */
+public class SampledCurveFit extends CurveFit {
+    // resolutions tried, a multiple of 100 so that key positions (in percent) fall on samples
+    private static final int MIN_SAMPLES = 100;
+    private static final int MAX_SAMPLES = 6400;
+    // points of each interval, in addition to the samples, at which the error is measured
+    private static final double[] ERROR_POINTS = {0.25, 0.5, 0.75};
+
+    private final CurveFit mSource;
+    private final int mDimension;
+    private final int mSamples;
+    private final double mStart;
+    private final double mEnd;
+    private final double mScale;
+    private final double mStep;
+    private final double[] mPosition;
+    private final double[] mSlope;
+    private double mMaxError;
+
+    /**
+     * Sample the given curve fit, increasing the resolution until the values interpolated
+     * from the samples are within maxError of the curve fit.
+     *
+     * @param source    the curve fit to sample
+     * @param dimension the number of values the curve fit computes
+     * @param maxError  the maximum difference allowed between the curve fit and the samples,
+     *                  needs to be positive
+     * @return the sampled curve fit, or source if it has a single time point or can't be
+     * sampled within maxError
+     */
+    public static CurveFit bake(CurveFit source, int dimension, double maxError) {
+        if (!(maxError > 0)) {
+            throw new IllegalArgumentException("maxError must be positive: " + maxError);
+        }
+        if (source instanceof SampledCurveFit) {
+            return source;
+        }
+        double[] time = source.getTimePoints();
+        if (time.length < 2 || !(time[time.length - 1] > time[0])) {
+            return source;
+        }
+        for (int samples = MIN_SAMPLES; samples <= MAX_SAMPLES; samples *= 2) {
+            SampledCurveFit fit = new SampledCurveFit(source, dimension,
+                    time[0], time[time.length - 1], samples);
+            if (fit.mMaxError <= maxError) {
+                return fit;
+            }
+        }
+        return source;
+    }
+
+    SampledCurveFit(CurveFit source, int dimension, double start, double end, int samples) {
+        mSource = source;
+        mDimension = dimension;
+        mSamples = samples;
+        mStart = start;
+        mEnd = end;
+        mStep = (end - start) / samples;
+        mScale = samples / (end - start);
+        mPosition = new double[(samples + 1) * dimension];
+        mSlope = new double[(samples + 1) * dimension];
+        double[] values = new double[dimension];
+        for (int i = 0; i <= samples; i++) {
+            double t = i == samples ? end : start + i * mStep;
+            source.getPos(t, values);
+            System.arraycopy(values, 0, mPosition, i * dimension, dimension);
+            source.getSlope(t, values);
+            System.arraycopy(values, 0, mSlope, i * dimension, dimension);
+        }
+        mMaxError = measureError(values);
+    }
+
+    /**
+     * Compare the interpolation with the curve fit at several points of each interval,
+     * as the error isn't always the largest in the middle (e.g. next to a key position
+     * that isn't on a sample)
+     */
+    private double measureError(double[] values) {
+        double maxError = 0;
+        for (int i = 0; i < mSamples; i++) {
+            for (double u : ERROR_POINTS) {
+                mSource.getPos(mStart + (i + u) * mStep, values);
+                for (int j = 0; j < mDimension; j++) {
+                    double error = Math.abs(interpolate(i, u, j) - values[j]);
+                    if (!(error <= maxError)) {
+                        maxError = error;
+                    }
+                }
+            }
+        }
+        return maxError;
+    }
+
+    /**
+     * Returns the largest difference between the samples and the original curve fit
+     */
+    public double getMaxError() {
+        return mMaxError;
+    }
+
+    /**
+     * Returns the number of intervals the range of the curve fit was sampled with
+     */
+    public int getSampleCount() {
+        return mSamples;
+    }
+
+    private double interpolate(int interval, double u, int j) {
+        int i0 = interval * mDimension + j;
+        int i1 = i0 + mDimension;
+        double u2 = u * u;
+        double u3 = u2 * u;
+        return (2 * u3 - 3 * u2 + 1) * mPosition[i0]
+                + (u3 - 2 * u2 + u) * mStep * mSlope[i0]
+                + (-2 * u3 + 3 * u2) * mPosition[i1]
+                + (u3 - u2) * mStep * mSlope[i1];
+    }
+
+    /**
+     * Derivative of {@link #interpolate(int, double, int)} with respect to the time
+     */
+    private double differentiate(int interval, double u, int j) {
+        int i0 = interval * mDimension + j;
+        int i1 = i0 + mDimension;
+        double u2 = u * u;
+        return (6 * u2 - 6 * u) * mScale * (mPosition[i0] - mPosition[i1])
+                + (3 * u2 - 4 * u + 1) * mSlope[i0]
+                + (3 * u2 - 2 * u) * mSlope[i1];
+    }
+
+    private int interval(double x) {
+        int interval = (int) x;
+        return interval < mSamples ? interval : mSamples - 1;
+    }
+
+    @Override
+    public void getPos(double t, double[] v) {
+        if (t < mStart || t > mEnd) {
+            mSource.getPos(t, v);
+            return;
+        }
+        double x = (t - mStart) * mScale;
+        int interval = interval(x);
+        double u = x - interval;
+        for (int j = 0; j < mDimension; j++) {
+            v[j] = interpolate(interval, u, j);
+        }
+    }
+
+    @Override
+    public void getPos(double t, float[] v) {
+        if (t < mStart || t > mEnd) {
+            mSource.getPos(t, v);
+            return;
+        }
+        double x = (t - mStart) * mScale;
+        int interval = interval(x);
+        double u = x - interval;
+        for (int j = 0; j < mDimension; j++) {
+            v[j] = (float) interpolate(interval, u, j);
+        }
+    }
+
+    @Override
+    public double getPos(double t, int j) {
+        if (t < mStart || t > mEnd) {
+            return mSource.getPos(t, j);
+        }
+        double x = (t - mStart) * mScale;
+        int interval = interval(x);
+        return interpolate(interval, x - interval, j);
+    }
+
+    @Override
+    public void getSlope(double t, double[] v) {
+        if (t < mStart || t > mEnd) {
+            mSource.getSlope(t, v);
+            return;
+        }
+        double x = (t - mStart) * mScale;
+        int interval = interval(x);
+        double u = x - interval;
+        for (int j = 0; j < mDimension; j++) {
+            v[j] = differentiate(interval, u, j);
+        }
+    }
+
+    @Override
+    public double getSlope(double t, int j) {
+        if (t < mStart || t > mEnd) {
+            return mSource.getSlope(t, j);
+        }
+        double x = (t - mStart) * mScale;
+        int interval = interval(x);
+        return differentiate(interval, x - interval, j);
+    }
+
+    @Override
+    public double[] getTimePoints() {
+        return mSource.getTimePoints();
+    }
+}
@@ -114,6 +114,16 @@ public abstract class SplineSet {
         mCurveFit = CurveFit.get(curveType, time, values);
     }
 
+    /**
+     * Replace the curve set up by {@link #setup(int)} with one sampled within maxError,
+     * see {@link SampledCurveFit#bake(CurveFit, int, double)}
+     */
+    public void bake(double maxError) {
+        if (mCurveFit != null) {
+            mCurveFit = SampledCurveFit.bake(mCurveFit, 1, maxError);
+        }
+    }
+
     // @TODO: add description
     public static SplineSet makeCustomSpline(String str, KeyFrameArray.CustomArray attrList) {
         return new CustomSet(str, attrList);
@@ -208,6 +218,13 @@ public abstract class SplineSet {
             mCurveFit = CurveFit.get(curveType, time, values);
         }
 
+        @Override
+        public void bake(double maxError) {
+            if (mCurveFit != null) {
+                mCurveFit = SampledCurveFit.bake(mCurveFit, mTempValues.length, maxError);
+            }
+        }
+
         // @TODO: add description
         @Override
         public void setPoint(int position, float value) {
@@ -278,6 +295,13 @@ public abstract class SplineSet {
             mCurveFit = CurveFit.get(curveType, time, values);
         }
 
+        @Override
+        public void bake(double maxError) {
+            if (mCurveFit != null) {
+                mCurveFit = SampledCurveFit.bake(mCurveFit, mTempValues.length, maxError);
+            }
+        }
+
         // @TODO: add description
         @Override
         public void setPoint(int position, float value) {
@@ -74,7 +74,7 @@ public class CLContainer extends CLElement {
         for (CLElement element : mElements) {
             if (element instanceof CLKey) {
                 CLKey key = (CLKey) element;
-                if (key.content().equals(name)) {
+                if (key.contentEquals(name)) {
                     return true;
                 }
             }
@@ -86,7 +86,7 @@ public class CLContainer extends CLElement {
     public void put(String name, CLElement value) {
         for (CLElement element : mElements) {
             CLKey key = (CLKey) element;
-            if (key.content().equals(name)) {
+            if (key.contentEquals(name)) {
                 key.set(value);
                 return;
             }
@@ -112,7 +112,7 @@ public class CLContainer extends CLElement {
         ArrayList<CLElement> toRemove = new ArrayList<>();
         for (CLElement element : mElements) {
             CLKey key = (CLKey) element;
-            if (key.content().equals(name)) {
+            if (key.contentEquals(name)) {
                 toRemove.add(element);
             }
         }
@@ -133,7 +133,7 @@ public class CLContainer extends CLElement {
     public CLElement get(String name) throws CLParsingException {
         for (CLElement element : mElements) {
             CLKey key = (CLKey) element;
-            if (key.content().equals(name)) {
+            if (key.contentEquals(name)) {
                 return key.getValue();
             }
         }
@@ -212,7 +212,7 @@ public class CLContainer extends CLElement {
     public CLElement getOrNull(String name) {
         for (CLElement element : mElements) {
             CLKey key = (CLKey) element;
-            if (key.content().equals(name)) {
+            if (key.contentEquals(name)) {
                 return key.getValue();
             }
         }
@@ -30,6 +30,8 @@ public class CLElement implements Cloneable {
     protected long mEnd = Long.MAX_VALUE;
     protected CLContainer mContainer;
     private int mLine;
+    // content() materialized on first access, only valid for the current start/end
+    private String mCachedContent;
 
     protected static int sMaxLine = 80; // Max number of characters before the formatter indents
     protected static int sBaseIndent = 2; // default indentation value
@@ -58,6 +60,7 @@ public class CLElement implements Cloneable {
 
     public void setStart(long start) {
         this.mStart = start;
+        mCachedContent = null;
     }
 
     /**
@@ -80,6 +83,7 @@ public class CLElement implements Cloneable {
             return;
         }
         this.mEnd = end;
+        mCachedContent = null;
         if (CLParser.sDebug) {
             System.out.println("closing " + this.hashCode() + " -> " + this);
         }
@@ -99,8 +103,7 @@ public class CLElement implements Cloneable {
         if (mStart > mEnd || mEnd == Long.MAX_VALUE) {
             return this.getClass() + " (INVALID, " + mStart + "-" + mEnd + ")";
         }
-        String content = new String(mContent);
-        content = content.substring((int) mStart, (int) mEnd + 1);
+        String content = new String(mContent, (int) mStart, (int) (mEnd - mStart) + 1);
 
         return getStrClass() + " (" + mStart + " : " + mEnd + ") <<" + content + ">>";
     }
@@ -117,17 +120,51 @@ public class CLElement implements Cloneable {
         return "";
     }
 
-    // @TODO: add description
+    /**
+     * Returns the content of this element. Elements only keep offsets into the parsed
+     * characters, the string is created on the first call and kept afterward.
+     */
     public String content() {
-        String content = new String(mContent);
-        // Handle empty string
-        if (content.length() < 1) {
-            return "";
+        if (mCachedContent == null) {
+            // Handle empty string
+            if (mContent.length < 1) {
+                mCachedContent = "";
+            } else {
+                mCachedContent = new String(mContent, (int) mStart, contentLength());
+            }
         }
+        return mCachedContent;
+    }
+
+    /**
+     * Returns true if the content of this element is the given string, comparing it
+     * directly against the parsed characters rather than materializing it.
+     */
+    public boolean contentEquals(String string) {
+        if (mCachedContent != null) {
+            return mCachedContent.equals(string);
+        }
+        if (mContent.length < 1) {
+            return string.isEmpty();
+        }
+        int length = contentLength();
+        if (length != string.length()) {
+            return false;
+        }
+        int start = (int) mStart;
+        for (int i = 0; i < length; i++) {
+            if (mContent[start + i] != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int contentLength() {
         if (mEnd == Long.MAX_VALUE || mEnd < mStart) {
-            return content.substring((int) mStart, (int) mStart + 1);
+            return 1;
         }
-        return content.substring((int) mStart, (int) mEnd + 1);
+        return (int) (mEnd - mStart) + 1;
     }
 
     /**
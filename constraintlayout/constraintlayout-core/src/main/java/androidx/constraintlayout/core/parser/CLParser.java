@@ -19,7 +19,7 @@ public class CLParser {
 
     static boolean sDebug = false;
 
-    private String mContent;
+    private char[] mContent;
     private boolean mHasComment = false;
     private int mLineNumber;
 
@@ -30,7 +30,19 @@ public class CLParser {
         return new CLParser(string).parse();
     }
 
+    /**
+     * Parse the given characters. The array is not copied: the elements of the resulting
+     * tree reference it directly, it should not be modified afterward.
+     */
+    public static CLObject parse(char[] content) throws CLParsingException {
+        return new CLParser(content).parse();
+    }
+
     public CLParser(String content) {
+        mContent = content.toCharArray();
+    }
+
+    public CLParser(char[] content) {
         mContent = content;
     }
 
@@ -38,7 +50,7 @@ public class CLParser {
     public CLObject parse() throws CLParsingException {
         @SuppressWarnings("unused") CLObject root = null;
 
-        char[] content = mContent.toCharArray();
+        char[] content = mContent;
         @SuppressWarnings("unused") CLElement currentElement = null;
 
         final int length = content.length;
@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.state;
+
+import androidx.constraintlayout.core.parser.CLObject;
+import androidx.constraintlayout.core.parser.CLParser;
+import androidx.constraintlayout.core.parser.CLParsingException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of parsing a MotionScene json, that can be saved to a compact binary form and
+ * reloaded later on without parsing the json again.
+ *
+ * {@link ConstraintSetParser#parseMotionSceneJSON(CoreMotionScene, String)} only gives
+ * the scene the json of each ConstraintSet (with the ones it extends already merged in)
+ * and Transition, this records them so that they can be given to another scene with
+ * {@link #applyTo(CoreMotionScene)}.
+ *
+ * A {@link CoreMotionScene} only takes json, so the scene given to {@link #applyTo} still
+ * parses it. {@link #populateState} and {@link #populateTransition} instead work from the
+ * {@link CLObject} of the ConstraintSet or Transition, parsed once on first use and reused
+ * afterward.
+ */
+public class CompiledMotionScene implements CoreMotionScene {
+
+    private static final int MAGIC = 0x434c4d53; // CLMS
+    private static final int VERSION = 1;
+
+    private final LinkedHashMap<String, Content> mConstraintSets = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Content> mTransitions = new LinkedHashMap<>();
+    private String mDebugName;
+
+    /**
+     * Parse the given MotionScene json
+     */
+    public static CompiledMotionScene compile(String content) {
+        CompiledMotionScene scene = new CompiledMotionScene();
+        ConstraintSetParser.parseMotionSceneJSON(scene, content);
+        return scene;
+    }
+
+    /**
+     * Give the parsed ConstraintSets, Transitions and debug name to the given scene,
+     * the same way parsing the json would have.
+     */
+    public void applyTo(CoreMotionScene scene) {
+        for (Map.Entry<String, Content> entry : mConstraintSets.entrySet()) {
+            scene.setConstraintSetContent(entry.getKey(), entry.getValue().mJson);
+        }
+        for (Map.Entry<String, Content> entry : mTransitions.entrySet()) {
+            scene.setTransitionContent(entry.getKey(), entry.getValue().mJson);
+        }
+        if (mDebugName != null) {
+            scene.setDebugName(mDebugName);
+        }
+    }
+
+    /**
+     * Returns the binary form of this scene, to be read back with {@link #fromByteArray(byte[])}
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, mDebugName);
+            writeMap(out, mConstraintSets);
+            writeMap(out, mTransitions);
+            out.flush();
+        } catch (IOException e) {
+            // can't happen when writing to memory
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read back a scene saved with {@link #toByteArray()}
+     *
+     * @throws IOException if the data is not a compiled scene, or was written by an
+     *                     incompatible version
+     */
+    public static CompiledMotionScene fromByteArray(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a compiled motion scene");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported compiled motion scene version " + version);
+        }
+        CompiledMotionScene scene = new CompiledMotionScene();
+        scene.mDebugName = readString(in);
+        readMap(in, scene.mConstraintSets);
+        readMap(in, scene.mTransitions);
+        return scene;
+    }
+
+    private static void writeMap(DataOutputStream out, LinkedHashMap<String, Content> map)
+            throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, Content> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue().mJson);
+        }
+    }
+
+    private static void readMap(DataInputStream in, LinkedHashMap<String, Content> map)
+            throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            map.put(name, new Content(readString(in)));
+        }
+    }
+
+    // writeUTF() is limited to 64KB, which a ConstraintSet could exceed
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException("invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void setTransitionContent(String elementName, String toJSON) {
+        mTransitions.put(elementName, new Content(toJSON));
+    }
+
+    @Override
+    public String getConstraintSet(String ext) {
+        Content content = mConstraintSets.get(ext);
+        return content != null ? content.mJson : null;
+    }
+
+    @Override
+    public void setConstraintSetContent(String csName, String toJSON) {
+        mConstraintSets.put(csName, new Content(toJSON));
+    }
+
+    @Override
+    public void setDebugName(String name) {
+        mDebugName = name;
+    }
+
+    @Override
+    public String getTransition(String str) {
+        Content content = mTransitions.get(str);
+        return content != null ? content.mJson : null;
+    }
+
+    @Override
+    public String getConstraintSet(int index) {
+        if (index < 0 || index >= mConstraintSets.size()) {
+            return null;
+        }
+        return new ArrayList<>(mConstraintSets.values()).get(index).mJson;
+    }
+
+    /**
+     * Populate the state with the ConstraintSet of the given name, without parsing its json
+     * again if it was already used.
+     *
+     * @return false if there is no ConstraintSet of that name
+     * @throws CLParsingException if the ConstraintSet json is invalid
+     */
+    public boolean populateState(String constraintSetName, State state,
+            ConstraintSetParser.LayoutVariables layoutVariables) throws CLParsingException {
+        Content content = mConstraintSets.get(constraintSetName);
+        if (content == null) {
+            return false;
+        }
+        ConstraintSetParser.populateState(content.getObject(), state, layoutVariables);
+        return true;
+    }
+
+    /**
+     * Populate the transition with the Transition of the given name, without parsing its
+     * json again if it was already used.
+     *
+     * @return false if there is no Transition of that name
+     * @throws CLParsingException if the Transition json is invalid
+     */
+    public boolean populateTransition(String transitionName, Transition transition)
+            throws CLParsingException {
+        Content content = mTransitions.get(transitionName);
+        if (content == null) {
+            return false;
+        }
+        TransitionParser.parse(content.getObject(), transition);
+        return true;
+    }
+
+    /**
+     * Returns the debug name set by the scene header, if any
+     */
+    public String getDebugName() {
+        return mDebugName;
+    }
+
+    /**
+     * The json of a ConstraintSet or Transition, and its parsed form once requested.
+     *
+     * The parsers only read the object (elements cache their content as an immutable string
+     * on first access), so it is shared by all the callers. It is published through a
+     * volatile field; if two threads need it at the same time, both may parse the json, and
+     * one of the equivalent results is kept.
+     */
+    private static class Content {
+        final String mJson;
+        private volatile CLObject mObject;
+
+        Content(String json) {
+            mJson = json;
+        }
+
+        CLObject getObject() throws CLParsingException {
+            CLObject object = mObject;
+            if (object == null) {
+                object = CLParser.parse(mJson);
+                mObject = object;
+            }
+            return object;
+        }
+    }
+}
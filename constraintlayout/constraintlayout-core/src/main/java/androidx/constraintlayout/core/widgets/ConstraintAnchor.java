@@ -112,7 +112,10 @@ public class ConstraintAnchor {
 
     SolverVariable mSolverVariable;
 
-    // @TODO: add description
+    /**
+     * Copy the connection of the given anchor, using the given map to find the copy of the
+     * target widget. Targets without a copy in the map are left unconnected.
+     */
     public void copyFrom(ConstraintAnchor source, HashMap<ConstraintWidget, ConstraintWidget> map) {
         if (mTarget != null) {
             if (mTarget.mDependents != null) {
@@ -122,7 +125,7 @@ public class ConstraintAnchor {
         if (source.mTarget != null) {
             Type type = source.mTarget.getType();
             ConstraintWidget owner = map.get(source.mTarget.mOwner);
-            mTarget = owner.getAnchor(type);
+            mTarget = owner != null ? owner.getAnchor(type) : null;
         } else {
             mTarget = null;
         }
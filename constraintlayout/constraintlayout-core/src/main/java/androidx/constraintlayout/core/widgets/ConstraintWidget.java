@@ -20,10 +20,12 @@ import static androidx.constraintlayout.core.LinearSystem.FULL_DEBUG;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour.WRAP_CONTENT;
 
+import androidx.annotation.RestrictTo;
 import androidx.constraintlayout.core.Cache;
 import androidx.constraintlayout.core.LinearSystem;
 import androidx.constraintlayout.core.SolverVariable;
 import androidx.constraintlayout.core.state.WidgetFrame;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
 import androidx.constraintlayout.core.widgets.analyzer.ChainRun;
 import androidx.constraintlayout.core.widgets.analyzer.HorizontalWidgetRun;
 import androidx.constraintlayout.core.widgets.analyzer.VerticalWidgetRun;
@@ -443,6 +445,37 @@ public class ConstraintWidget {
         setMeasureRequested(false);
     }
 
+    /**
+     * Spec and results of the last measure of this widget, when its container memoizes
+     * measures (see {@link Optimizer#OPTIMIZATION_MEMOIZE_MEASURES}).
+     */
+    private BasicMeasure.Measure mCachedMeasure = null;
+
+    /**
+     * Returns the spec and results of the last memoized measure, or null if none
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public BasicMeasure.Measure getCachedMeasure() {
+        return mCachedMeasure;
+    }
+
+    /**
+     * Set the spec and results of the last memoized measure
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public void setCachedMeasure(BasicMeasure.Measure measure) {
+        mCachedMeasure = measure;
+    }
+
+    /**
+     * Discard the memoized measure of this widget. Needs to be called when the content of
+     * the widget changes in a way that would give a different measure for the same spec.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public void invalidateMeasureCache() {
+        mCachedMeasure = null;
+    }
+
     /**
      * Define how the widget will resize
      */
@@ -614,6 +647,7 @@ public class ConstraintWidget {
         mIsInBarrier[HORIZONTAL] = false;
         mIsInBarrier[VERTICAL] = false;
         mMeasureRequested = true;
+        mCachedMeasure = null;
         mResolvedMatchConstraintDefault[HORIZONTAL] = 0;
         mResolvedMatchConstraintDefault[VERTICAL] = 0;
         mWidthOverride = -1;
@@ -3541,6 +3575,7 @@ public class ConstraintWidget {
 
         mMatchConstraintMinWidth = src.mMatchConstraintMinWidth;
         mMatchConstraintMaxWidth = src.mMatchConstraintMaxWidth;
+        mMatchConstraintPercentWidth = src.mMatchConstraintPercentWidth;
         mMatchConstraintMinHeight = src.mMatchConstraintMinHeight;
         mMatchConstraintMaxHeight = src.mMatchConstraintMaxHeight;
         mMatchConstraintPercentHeight = src.mMatchConstraintPercentHeight;
@@ -3549,12 +3584,18 @@ public class ConstraintWidget {
 
         mResolvedDimensionRatioSide = src.mResolvedDimensionRatioSide;
         mResolvedDimensionRatio = src.mResolvedDimensionRatio;
+        mResolvedHasRatio = src.mResolvedHasRatio;
 
         mMaxDimension = Arrays.copyOf(src.mMaxDimension, src.mMaxDimension.length);
         mCircleConstraintAngle = src.mCircleConstraintAngle;
 
         mHasBaseline = src.mHasBaseline;
         mInPlaceholder = src.mInPlaceholder;
+        mInVirtualLayout = src.mInVirtualLayout;
+        mWrapBehaviorInParent = src.mWrapBehaviorInParent;
+        mOptimizeWrapOnResolved = src.mOptimizeWrapOnResolved;
+        mIsInBarrier[HORIZONTAL] = src.mIsInBarrier[HORIZONTAL];
+        mIsInBarrier[VERTICAL] = src.mIsInBarrier[VERTICAL];
 
         // The anchors available on the widget
         // note: all anchors should be added to the mAnchors array (see addAnchors())
@@ -3567,7 +3608,7 @@ public class ConstraintWidget {
         mCenterX.reset();
         mCenterY.reset();
         mCenter.reset();
-        mListDimensionBehaviors = Arrays.copyOf(mListDimensionBehaviors, 2);
+        mListDimensionBehaviors = Arrays.copyOf(src.mListDimensionBehaviors, 2);
         mParent = (mParent == null) ? null : map.get(src.mParent);
 
         mWidth = src.mWidth;
@@ -3629,6 +3670,27 @@ public class ConstraintWidget {
                 ? null : map.get(src.mVerticalNextWidget);
     }
 
+    /**
+     * Copy the direct resolution state of the given widget (resolved flags and final
+     * values of the anchors). The widget needs to be of the same type.
+     *
+     * @param src the widget to copy from
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public void copyResolution(ConstraintWidget src) {
+        mResolvedHorizontal = src.mResolvedHorizontal;
+        mResolvedVertical = src.mResolvedVertical;
+        for (int i = 0, mAnchorsSize = mAnchors.size(); i < mAnchorsSize; i++) {
+            ConstraintAnchor anchor = mAnchors.get(i);
+            ConstraintAnchor srcAnchor = src.mAnchors.get(i);
+            if (srcAnchor.hasFinalValue()) {
+                anchor.setFinalValue(srcAnchor.getFinalValue());
+            } else {
+                anchor.resetFinalResolution();
+            }
+        }
+    }
+
     // @TODO: add description
     public void updateFromRuns(boolean updateHorizontal, boolean updateVertical) {
         updateHorizontal &= mHorizontalRun.isResolved();
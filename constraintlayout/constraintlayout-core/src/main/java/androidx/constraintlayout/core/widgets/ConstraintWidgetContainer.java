@@ -20,6 +20,7 @@ import static androidx.constraintlayout.core.LinearSystem.FULL_DEBUG;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour.FIXED;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour.WRAP_CONTENT;
 
+import androidx.annotation.RestrictTo;
 import androidx.constraintlayout.core.LinearSystem;
 import androidx.constraintlayout.core.Metrics;
 import androidx.constraintlayout.core.SolverVariable;
@@ -59,6 +60,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
      */
     public void invalidateGraph() {
         mDependencyGraph.invalidateGraph();
+        mIncrementalChildren = null;
     }
 
     /**
@@ -66,6 +68,21 @@ public class ConstraintWidgetContainer extends WidgetContainer {
      */
     public void invalidateMeasures() {
         mDependencyGraph.invalidateMeasures();
+        invalidateMeasureCache();
+    }
+
+    /**
+     * Discard the memoized measure of this container and of all its descendants
+     * (see {@link Optimizer#OPTIMIZATION_MEMOIZE_MEASURES})
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @Override
+    public void invalidateMeasureCache() {
+        super.invalidateMeasureCache();
+        for (int i = 0; i < mChildren.size(); i++) {
+            // recurses into the children that are containers themselves
+            mChildren.get(i).invalidateMeasureCache();
+        }
     }
 
 
@@ -108,6 +125,12 @@ public class ConstraintWidgetContainer extends WidgetContainer {
 
     ////////////////////////////////////////////////////////////////////////////////////////////////
 
+    // spec of the last measure, see invalidateMeasureCache()
+    private int mLastWidthMode = -1;
+    private int mLastWidthSize = -1;
+    private int mLastHeightMode = -1;
+    private int mLastHeightSize = -1;
+
     /**
      * Measure the layout
      */
@@ -116,6 +139,15 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             int lastMeasureHeight, int paddingX, int paddingY) {
         mPaddingLeft = paddingX;
         mPaddingTop = paddingY;
+        if (widthMode != mLastWidthMode || widthSize != mLastWidthSize
+                || heightMode != mLastHeightMode || heightSize != mLastHeightSize) {
+            // wrap content and match parent children depend on the spec we get
+            invalidateMeasureCache();
+            mLastWidthMode = widthMode;
+            mLastWidthSize = widthSize;
+            mLastHeightMode = heightMode;
+            mLastHeightSize = heightSize;
+        }
         return mBasicMeasureSolver.solverMeasure(this, optimizationLevel, paddingX, paddingY,
                 widthMode, widthSize, heightMode, heightSize,
                 lastMeasureWidth, lastMeasureHeight);
@@ -124,6 +156,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
     // @TODO: add description
     public void updateHierarchy() {
         mBasicMeasureSolver.updateHierarchy(this);
+        mIncrementalChildren = null;
     }
 
     protected BasicMeasure.Measurer mMeasurer = null;
@@ -244,6 +277,11 @@ public class ConstraintWidgetContainer extends WidgetContainer {
     @Override
     public void reset() {
         mSystem.reset();
+        resetChains();
+        mVerticalWrapMin = null;
+        mHorizontalWrapMin = null;
+        mVerticalWrapMax = null;
+        mHorizontalWrapMax = null;
         mPaddingLeft = 0;
         mPaddingRight = 0;
         mPaddingTop = 0;
@@ -303,6 +341,41 @@ public class ConstraintWidgetContainer extends WidgetContainer {
         }
     }
 
+    /**
+     * Returns the anchors gathered while adding resolved children to a solver, used to
+     * compute our wrap dimensions, in the order expected by {@link #addWrapAnchors}.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public ConstraintAnchor[] getWrapAnchors() {
+        return new ConstraintAnchor[]{
+                mVerticalWrapMin != null ? mVerticalWrapMin.get() : null,
+                mHorizontalWrapMin != null ? mHorizontalWrapMin.get() : null,
+                mVerticalWrapMax != null ? mVerticalWrapMax.get() : null,
+                mHorizontalWrapMax != null ? mHorizontalWrapMax.get() : null};
+    }
+
+    /**
+     * Add wrap anchors gathered on another container, e.g. on a copy of this one
+     * (see {@link androidx.constraintlayout.core.widgets.analyzer.WidgetGroup}).
+     *
+     * @param anchors the anchors, as returned by {@link #getWrapAnchors()}
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public void addWrapAnchors(ConstraintAnchor[] anchors) {
+        if (anchors[0] != null) {
+            addVerticalWrapMinVariable(anchors[0]);
+        }
+        if (anchors[1] != null) {
+            addHorizontalWrapMinVariable(anchors[1]);
+        }
+        if (anchors[2] != null) {
+            addVerticalWrapMaxVariable(anchors[2]);
+        }
+        if (anchors[3] != null) {
+            addHorizontalWrapMaxVariable(anchors[3]);
+        }
+    }
+
     private void addMinWrap(ConstraintAnchor constraintAnchor, SolverVariable parentMin) {
         SolverVariable variable = mSystem.createObjectVariable(constraintAnchor);
         int wrapStrength = SolverVariable.STRENGTH_EQUALITY;
@@ -600,7 +673,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
                     measuredHeight = measure.verticalDimension;
                 } else {
                     measure.horizontalBehavior = WRAP_CONTENT;
-                    measurer.measure(widget, measure);
+                    BasicMeasure.measureWithCache(measurer, widget, measure);
                     measuredHeight = measure.measuredHeight;
                 }
                 measure.horizontalBehavior = FIXED;
@@ -623,7 +696,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
                     measuredWidth = measure.horizontalDimension;
                 } else {
                     measure.verticalBehavior = WRAP_CONTENT;
-                    measurer.measure(widget, measure);
+                    BasicMeasure.measureWithCache(measurer, widget, measure);
                     measuredWidth = measure.measuredWidth;
                 }
                 measure.verticalBehavior = FIXED;
@@ -643,7 +716,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             }
         }
 
-        measurer.measure(widget, measure);
+        BasicMeasure.measureWithCache(measurer, widget, measure);
         widget.setWidth(measure.measuredWidth);
         widget.setHeight(measure.measuredHeight);
         widget.setHasBaseline(measure.measuredHasBaseline);
@@ -696,6 +769,12 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             mMetrics.layouts++;
         }
 
+        if (resolveIncrementally()) {
+            return;
+        }
+        mIncrementalChildren = null;
+        mEditableDimensions = canResolveIncrementally();
+
 
         boolean wrap_override = false;
 
@@ -830,6 +909,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
 
         // Now let's solve our system as usual
         boolean needsSolving = true;
+        boolean solverFailed = false;
         while (needsSolving) {
             countSolve++;
             try {
@@ -877,6 +957,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             } catch (Exception e) {
                 e.printStackTrace();
                 System.out.println("EXCEPTION : " + e);
+                solverFailed = true;
             }
             if (needsSolving) {
                 needsSolving = updateChildrenFromSolver(mSystem, Optimizer.sFlags);
@@ -1003,7 +1084,166 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             mListDimensionBehaviors[DIMENSION_VERTICAL] = originalVerticalDimensionBehaviour;
         }
 
-        resetSolverVariables(mSystem.getCache());
+        if (mEditableDimensions && countSolve == 1 && !wrap_override && !solverFailed) {
+            // keep the system (and the solver variables of the anchors) around
+            saveIncrementalState();
+        } else {
+            resetSolverVariables(mSystem.getCache());
+        }
+        mEditableDimensions = false;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Incremental resolution (see Optimizer.OPTIMIZATION_INCREMENTAL)
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private static final int INCREMENTAL_STATE_SIZE = 5;
+
+    // set while building a system whose root dimensions are edit variables
+    private boolean mEditableDimensions = false;
+
+    // children and their dimensions when the current system was solved,
+    // null if the system can't be re-solved incrementally
+    private ConstraintWidget[] mIncrementalChildren = null;
+    private int[] mIncrementalState = null;
+
+    /**
+     * Returns true if a new size of this container can be applied to the current system
+     * through its edit variables, without anything else in the system depending on it.
+     * This excludes the direct / graph resolutions (they turn positions into constants),
+     * wrap content, match parent children (resolved against our size by checkMatchParent),
+     * and children that lay out or measure themselves against our size.
+     */
+    private boolean canResolveIncrementally() {
+        if (!optimizeFor(Optimizer.OPTIMIZATION_INCREMENTAL)
+                || (mOptimizationLevel & (Optimizer.OPTIMIZATION_DIRECT
+                | Optimizer.OPTIMIZATION_GRAPH | Optimizer.OPTIMIZATION_GRAPH_WRAP
+                | Optimizer.OPTIMIZATION_GROUPING)) != 0) {
+            return false;
+        }
+        if (mParent != null
+                || mListDimensionBehaviors[DIMENSION_HORIZONTAL] != FIXED
+                || mListDimensionBehaviors[DIMENSION_VERTICAL] != FIXED) {
+            return false;
+        }
+        final int count = mChildren.size();
+        for (int i = 0; i < count; i++) {
+            ConstraintWidget child = mChildren.get(i);
+            if (child instanceof WidgetContainer || child instanceof VirtualLayout) {
+                return false;
+            }
+            if (!canResolveIncrementally(child, DIMENSION_HORIZONTAL,
+                    child.mMatchConstraintDefaultWidth)
+                    || !canResolveIncrementally(child, DIMENSION_VERTICAL,
+                    child.mMatchConstraintDefaultHeight)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean canResolveIncrementally(ConstraintWidget child, int dimension,
+            int matchConstraintDefault) {
+        switch (child.mListDimensionBehaviors[dimension]) {
+            case MATCH_PARENT:
+                return false;
+            case MATCH_CONSTRAINT:
+                return child.mDimensionRatio == 0
+                        && (matchConstraintDefault == MATCH_CONSTRAINT_SPREAD
+                        || matchConstraintDefault == MATCH_CONSTRAINT_PERCENT);
+            default:
+                return true;
+        }
+    }
+
+    private void saveIncrementalState() {
+        final int count = mChildren.size();
+        mIncrementalChildren = mChildren.toArray(new ConstraintWidget[count]);
+        if (mIncrementalState == null
+                || mIncrementalState.length < count * INCREMENTAL_STATE_SIZE) {
+            mIncrementalState = new int[count * INCREMENTAL_STATE_SIZE];
+        }
+        for (int i = 0; i < count; i++) {
+            ConstraintWidget child = mIncrementalChildren[i];
+            int index = i * INCREMENTAL_STATE_SIZE;
+            mIncrementalState[index] = child.getWidth();
+            mIncrementalState[index + 1] = child.getHeight();
+            mIncrementalState[index + 2] = child.getVisibility();
+            mIncrementalState[index + 3] =
+                    child.mListDimensionBehaviors[DIMENSION_HORIZONTAL].ordinal();
+            mIncrementalState[index + 4] =
+                    child.mListDimensionBehaviors[DIMENSION_VERTICAL].ordinal();
+        }
+    }
+
+    private boolean hasSameChildren() {
+        final int count = mChildren.size();
+        if (count != mIncrementalChildren.length) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            ConstraintWidget child = mChildren.get(i);
+            int index = i * INCREMENTAL_STATE_SIZE;
+            if (child != mIncrementalChildren[i]
+                    || mIncrementalState[index] != child.getWidth()
+                    || mIncrementalState[index + 1] != child.getHeight()
+                    || mIncrementalState[index + 2] != child.getVisibility()
+                    || mIncrementalState[index + 3]
+                    != child.mListDimensionBehaviors[DIMENSION_HORIZONTAL].ordinal()
+                    || mIncrementalState[index + 4]
+                    != child.mListDimensionBehaviors[DIMENSION_VERTICAL].ordinal()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * If the previous layout left a system that we can re-solve, and only our own size
+     * changed since then, suggest the new size to the solver and re-solve from the
+     * previous solution instead of rebuilding the system.
+     *
+     * @return true if the layout was done incrementally
+     */
+    private boolean resolveIncrementally() {
+        if (mIncrementalChildren == null
+                || getWidth() < mMinWidth || getHeight() < mMinHeight
+                || !canResolveIncrementally() || !hasSameChildren()) {
+            return false;
+        }
+        if (!mSystem.suggestValue(mRight.getSolverVariable(), getWidth())
+                || !mSystem.suggestValue(mBottom.getSolverVariable(), getHeight())) {
+            return false;
+        }
+        try {
+            mSystem.resolve();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (updateChildrenFromSolver(mSystem, Optimizer.sFlags)) {
+            // a child needs another pass, do a full layout
+            return false;
+        }
+        saveIncrementalState();
+        return true;
+    }
+
+    @Override
+    public void addToSolver(LinearSystem system, boolean optimize) {
+        if (!mEditableDimensions) {
+            super.addToSolver(system, optimize);
+            return;
+        }
+        // Same as a fixed size root, except that the size is set through edit
+        // variables so that it can be changed in resolveIncrementally()
+        system.addEquality(system.createObjectVariable(mLeft), mX);
+        system.addEquality(system.createObjectVariable(mTop), mY);
+        system.addEditVariable(system.createObjectVariable(mRight),
+                mX + Math.max(mWidth, mMinWidth), SolverVariable.STRENGTH_FIXED);
+        system.addEditVariable(system.createObjectVariable(mBottom),
+                mY + Math.max(mHeight, mMinHeight), SolverVariable.STRENGTH_FIXED);
+        system.createObjectVariable(mBaseline);
     }
 
     /**
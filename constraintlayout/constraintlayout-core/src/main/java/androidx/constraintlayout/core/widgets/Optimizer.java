@@ -39,6 +39,10 @@ public class Optimizer {
     public static final int OPTIMIZATION_CACHE_MEASURES = 1 << 8;
     public static final int OPTIMIZATION_DEPENDENCY_ORDERING = 1 << 9;
     public static final int OPTIMIZATION_GROUPING = 1 << 10;
+    public static final int OPTIMIZATION_PARALLEL_GROUPING = 1 << 11;
+    public static final int OPTIMIZATION_MEMOIZE_MEASURES = 1 << 12;
+    // re-solve the previous system when only the size of the root container changed
+    public static final int OPTIMIZATION_INCREMENTAL = 1 << 13;
     public static final int OPTIMIZATION_STANDARD = OPTIMIZATION_DIRECT
             /* | OPTIMIZATION_GROUPING */
             /* | OPTIMIZATION_DEPENDENCY_ORDERING */
@@ -207,7 +207,7 @@ public class VirtualLayout extends HelperWidget {
             mMeasure.verticalBehavior = heightBehavior;
             mMeasure.horizontalDimension = widget.getWidth();
             mMeasure.verticalDimension = widget.getHeight();
-            measurer.measure(widget, mMeasure);
+            BasicMeasure.measureWithCache(measurer, widget, mMeasure);
             widget.setWidth(mMeasure.measuredWidth);
             widget.setHeight(mMeasure.measuredHeight);
             widget.setBaselineDistance(mMeasure.measuredBaseline);
@@ -230,7 +230,7 @@ public class VirtualLayout extends HelperWidget {
         mMeasure.verticalBehavior = verticalBehavior;
         mMeasure.horizontalDimension = horizontalDimension;
         mMeasure.verticalDimension = verticalDimension;
-        mMeasurer.measure(widget, mMeasure);
+        BasicMeasure.measureWithCache(mMeasurer, widget, mMeasure);
         widget.setWidth(mMeasure.measuredWidth);
         widget.setHeight(mMeasure.measuredHeight);
         widget.setHasBaseline(mMeasure.measuredHasBaseline);
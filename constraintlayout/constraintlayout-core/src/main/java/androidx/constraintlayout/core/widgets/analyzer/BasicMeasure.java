@@ -488,7 +488,7 @@ public class BasicMeasure {
             }
         }
 
-        measurer.measure(widget, mMeasure);
+        measureWithCache(measurer, widget, mMeasure);
         widget.setWidth(mMeasure.measuredWidth);
         widget.setHeight(mMeasure.measuredHeight);
         widget.setHasBaseline(mMeasure.measuredHasBaseline);
@@ -497,6 +497,52 @@ public class BasicMeasure {
         return mMeasure.measuredNeedsSolverPass;
     }
 
+    /**
+     * Call the measurer on the widget. If its container memoizes measures
+     * ({@link Optimizer#OPTIMIZATION_MEMOIZE_MEASURES}) and the widget was last measured with
+     * the same spec, the results of that last measure are reused instead.
+     *
+     * Only the last measure is kept: the measurer of the host toolkit leaves its own views
+     * measured with the last spec it got, so serving an older spec could make them disagree
+     * with the widgets.
+     *
+     * @param measurer the measurer callback
+     * @param widget   the widget to measure
+     * @param measure  the measure spec, where the results are set
+     */
+    public static void measureWithCache(Measurer measurer, ConstraintWidget widget,
+            Measure measure) {
+        ConstraintWidgetContainer container = null;
+        if (widget.getParent() instanceof ConstraintWidgetContainer) {
+            container = (ConstraintWidgetContainer) widget.getParent();
+        }
+        if (container == null
+                || !container.optimizeFor(Optimizer.OPTIMIZATION_MEMOIZE_MEASURES)) {
+            measurer.measure(widget, measure);
+            return;
+        }
+        Measure cached = widget.getCachedMeasure();
+        if (cached != null && cached.hasSameSpec(measure)) {
+            measure.copyResults(cached);
+            if (container.mMetrics != null) {
+                container.mMetrics.measureCacheHits++;
+            }
+            return;
+        }
+        if (cached == null) {
+            cached = new Measure();
+        }
+        // the spec is kept before calling the measurer, as it is free to modify it
+        cached.copySpec(measure);
+        widget.setCachedMeasure(null);
+        measurer.measure(widget, measure);
+        cached.copyResults(measure);
+        widget.setCachedMeasure(cached);
+        if (container.mMetrics != null) {
+            container.mMetrics.measureCacheMisses++;
+        }
+    }
+
     public interface Measurer {
         // @TODO: add description
         void measure(ConstraintWidget widget, Measure measure);
@@ -519,5 +565,38 @@ public class BasicMeasure {
         public boolean measuredHasBaseline;
         public boolean measuredNeedsSolverPass;
         public int measureStrategy;
+
+        /**
+         * Returns true if the given measure asks for the same spec than this one
+         */
+        public boolean hasSameSpec(Measure measure) {
+            return horizontalBehavior == measure.horizontalBehavior
+                    && verticalBehavior == measure.verticalBehavior
+                    && horizontalDimension == measure.horizontalDimension
+                    && verticalDimension == measure.verticalDimension
+                    && measureStrategy == measure.measureStrategy;
+        }
+
+        /**
+         * Copy the spec (behaviours, dimensions and strategy) of the given measure
+         */
+        public void copySpec(Measure measure) {
+            horizontalBehavior = measure.horizontalBehavior;
+            verticalBehavior = measure.verticalBehavior;
+            horizontalDimension = measure.horizontalDimension;
+            verticalDimension = measure.verticalDimension;
+            measureStrategy = measure.measureStrategy;
+        }
+
+        /**
+         * Copy the results of the given measure
+         */
+        public void copyResults(Measure measure) {
+            measuredWidth = measure.measuredWidth;
+            measuredHeight = measure.measuredHeight;
+            measuredBaseline = measure.measuredBaseline;
+            measuredHasBaseline = measure.measuredHasBaseline;
+            measuredNeedsSolverPass = measure.measuredNeedsSolverPass;
+        }
     }
 }
@@ -387,7 +387,7 @@ public class DependencyGraph {
         mMeasure.verticalBehavior = verticalBehavior;
         mMeasure.horizontalDimension = horizontalDimension;
         mMeasure.verticalDimension = verticalDimension;
-        mMeasurer.measure(widget, mMeasure);
+        BasicMeasure.measureWithCache(mMeasurer, widget, mMeasure);
         widget.setWidth(mMeasure.measuredWidth);
         widget.setHeight(mMeasure.measuredHeight);
         widget.setHasBaseline(mMeasure.measuredHasBaseline);
@@ -22,6 +22,7 @@ import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionB
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.HORIZONTAL;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.VERTICAL;
 
+import androidx.constraintlayout.core.LinearSystem;
 import androidx.constraintlayout.core.widgets.Barrier;
 import androidx.constraintlayout.core.widgets.ConstraintAnchor;
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
@@ -29,8 +30,11 @@ import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
 import androidx.constraintlayout.core.widgets.Flow;
 import androidx.constraintlayout.core.widgets.Guideline;
 import androidx.constraintlayout.core.widgets.HelperWidget;
+import androidx.constraintlayout.core.widgets.Optimizer;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Implements a simple grouping mechanism, to group interdependent widgets together.
@@ -44,6 +48,13 @@ public class Grouping {
     private static final boolean DEBUG_GROUPING = false;
     private static final boolean FORCE_USE = true;
 
+    /**
+     * Minimum number of widgets in the layout for the groups to be measured concurrently,
+     * when {@link Optimizer#OPTIMIZATION_PARALLEL_GROUPING} is set. Below it, the cost of
+     * copying the groups and dispatching them is higher than what we gain.
+     */
+    public static final int PARALLEL_GROUPING_THRESHOLD = 256;
+
     // @TODO: add description
     public static boolean validInGroup(ConstraintWidget.DimensionBehaviour layoutHorizontal,
             ConstraintWidget.DimensionBehaviour layoutVertical,
@@ -291,6 +302,13 @@ public class Grouping {
             return false;
         }
 
+        boolean parallel = Optimizer.enabled(layout.getOptimizationLevel(),
+                Optimizer.OPTIMIZATION_PARALLEL_GROUPING)
+                && count >= PARALLEL_GROUPING_THRESHOLD
+                // the global metrics aren't updated atomically
+                && LinearSystem.sMetrics == null
+                && WidgetGroup.canMeasureOnCopy(children);
+
         if (DEBUG) {
             System.out.println("----------------------------------");
             System.out.println("-- Horizontal dependency lists:");
@@ -318,12 +336,15 @@ public class Grouping {
                 == ConstraintWidget.DimensionBehaviour.WRAP_CONTENT) {
             int maxWrap = 0;
             WidgetGroup picked = null;
+            boolean concurrent = parallel
+                    && measureWrapsConcurrently(allDependencyLists, HORIZONTAL);
             for (WidgetGroup list : allDependencyLists) {
                 if (list.getOrientation() == VERTICAL) {
                     continue;
                 }
                 list.setAuthoritative(false);
-                int wrap = list.measureWrap(layout.getSystem(), HORIZONTAL);
+                int wrap = concurrent ? list.commitMeasureOnCopy()
+                        : list.measureWrap(layout.getSystem(), HORIZONTAL);
                 if (wrap > maxWrap) {
                     picked = list;
                     maxWrap = wrap;
@@ -347,12 +368,15 @@ public class Grouping {
                 == ConstraintWidget.DimensionBehaviour.WRAP_CONTENT) {
             int maxWrap = 0;
             WidgetGroup picked = null;
+            boolean concurrent = parallel
+                    && measureWrapsConcurrently(allDependencyLists, VERTICAL);
             for (WidgetGroup list : allDependencyLists) {
                 if (list.getOrientation() == HORIZONTAL) {
                     continue;
                 }
                 list.setAuthoritative(false);
-                int wrap = list.measureWrap(layout.getSystem(), VERTICAL);
+                int wrap = concurrent ? list.commitMeasureOnCopy()
+                        : list.measureWrap(layout.getSystem(), VERTICAL);
                 if (wrap > maxWrap) {
                     picked = list;
                     maxWrap = wrap;
@@ -374,6 +398,74 @@ public class Grouping {
         return horizontalPick != null || verticalPick != null;
     }
 
+    /**
+     * Measure the wrap dimension of the groups in the given orientation, each one on copies
+     * of its widgets solved in a separate {@link LinearSystem},
+     * using a fork-join pool. Results are collected by
+     * {@link WidgetGroup#commitMeasureOnCopy()}.
+     *
+     * @return false if there wasn't enough groups to measure for it to be worth it
+     */
+    private static boolean measureWrapsConcurrently(ArrayList<WidgetGroup> groups,
+            int orientation) {
+        int skipped = orientation == HORIZONTAL ? VERTICAL : HORIZONTAL;
+        ArrayList<WidgetGroup> measured = new ArrayList<>(groups.size());
+        for (WidgetGroup group : groups) {
+            if (group.getOrientation() != skipped) {
+                measured.add(group);
+            }
+        }
+        if (measured.size() < 2) {
+            return false;
+        }
+        PoolHolder.POOL.invoke(new MeasureTask(measured, 0, measured.size(), orientation));
+        return true;
+    }
+
+    private static class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    // one scratch container (and system) per worker thread, so that they are only
+    // allocated and grown once
+    private static final ThreadLocal<ConstraintWidgetContainer> sContainers =
+            new ThreadLocal<>();
+
+    /**
+     * Measure a range of groups, splitting it until a single group is left
+     */
+    private static class MeasureTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ArrayList<WidgetGroup> mGroups;
+        private final int mStart;
+        private final int mEnd;
+        private final int mOrientation;
+
+        MeasureTask(ArrayList<WidgetGroup> groups, int start, int end, int orientation) {
+            mGroups = groups;
+            mStart = start;
+            mEnd = end;
+            mOrientation = orientation;
+        }
+
+        @Override
+        protected void compute() {
+            if (mEnd - mStart == 1) {
+                ConstraintWidgetContainer container = sContainers.get();
+                if (container == null) {
+                    container = new ConstraintWidgetContainer();
+                    sContainers.set(container);
+                }
+                mGroups.get(mStart).measureWrapOnCopy(container, mOrientation);
+                return;
+            }
+            int middle = (mStart + mEnd) >>> 1;
+            invokeAll(new MeasureTask(mGroups, mStart, middle, mOrientation),
+                    new MeasureTask(mGroups, middle, mEnd, mOrientation));
+        }
+    }
+
     private static WidgetGroup findGroup(ArrayList<WidgetGroup> horizontalDependencyLists,
             int groupId) {
         final int count = horizontalDependencyLists.size();
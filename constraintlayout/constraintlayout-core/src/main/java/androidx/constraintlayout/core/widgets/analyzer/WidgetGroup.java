@@ -20,13 +20,19 @@ import static androidx.constraintlayout.core.widgets.ConstraintWidget.HORIZONTAL
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.VERTICAL;
 
 import androidx.constraintlayout.core.LinearSystem;
+import androidx.constraintlayout.core.widgets.Barrier;
 import androidx.constraintlayout.core.widgets.Chain;
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
 import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Guideline;
+import androidx.constraintlayout.core.widgets.HelperWidget;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 
 /**
  * Represents a group of widget for the grouping mechanism.
@@ -41,6 +47,11 @@ public class WidgetGroup {
     ArrayList<MeasureResult> mResults = null;
     private int mMoveTo = -1;
 
+    // state of a measure done on copies of the widgets, see measureWrapOnCopy()
+    private HashMap<ConstraintWidget, ConstraintWidget> mCopies = null;
+    private ConstraintAnchor[] mWrapAnchors = null;
+    private int mCopyWrap = 0;
+
     public WidgetGroup(int orientation) {
         mId = sCount++;
         this.mOrientation = orientation;
@@ -139,11 +150,12 @@ public class WidgetGroup {
             return 0;
         }
         // TODO: add direct wrap computation for simpler cases instead of calling the solver
-        return solverMeasure(system, mWidgets, orientation);
+        return solverMeasure(system, mWidgets, mWidgets, orientation);
     }
 
     private int solverMeasure(LinearSystem system,
             ArrayList<ConstraintWidget> widgets,
+            ArrayList<ConstraintWidget> targets,
             int orientation) {
         ConstraintWidgetContainer container =
                 (ConstraintWidgetContainer) widgets.get(0).getParent();
@@ -179,7 +191,7 @@ public class WidgetGroup {
         mResults = new ArrayList<>();
         for (int i = 0; i < widgets.size(); i++) {
             ConstraintWidget widget = widgets.get(i);
-            MeasureResult result = new MeasureResult(widget, system, orientation);
+            MeasureResult result = new MeasureResult(targets.get(i), widget, system, orientation);
             mResults.add(result);
         }
 
@@ -196,6 +208,155 @@ public class WidgetGroup {
         }
     }
 
+    /**
+     * Returns true if all the widgets of the container can be copied for
+     * {@link #measureWrapOnCopy(ConstraintWidgetContainer, int)}.
+     */
+    static boolean canMeasureOnCopy(ArrayList<ConstraintWidget> children) {
+        for (int i = 0; i < children.size(); i++) {
+            ConstraintWidget child = children.get(i);
+            if (child instanceof HelperWidget && !(child instanceof Barrier)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link #measureWrap(LinearSystem, int)}, but working on copies of the widgets
+     * of the group (and of the widgets directly connected to them), parented to the given
+     * scratch container and solved in its {@link LinearSystem}. As nothing reachable from
+     * the original widgets is modified, disjoint groups can be measured concurrently, as
+     * long as each thread uses its own scratch container.
+     *
+     * {@link #commitMeasureOnCopy()} needs to be called afterward, from the thread owning
+     * the widgets, to bring the results back.
+     */
+    void measureWrapOnCopy(ConstraintWidgetContainer containerCopy, int orientation) {
+        mCopyWrap = 0;
+        if (mWidgets.isEmpty()) {
+            return;
+        }
+        ConstraintWidgetContainer container =
+                (ConstraintWidgetContainer) mWidgets.get(0).getParent();
+        HashMap<ConstraintWidget, ConstraintWidget> copies = new HashMap<>();
+        containerCopy.reset();
+        containerCopy.copy(container, copies);
+        containerCopy.copyResolution(container);
+        containerCopy.setRtl(container.isRtl());
+        copies.put(container, containerCopy);
+
+        // The widgets we reference or that reference us (in the other orientation, or
+        // through helpers) are copied as well, without their own constraints, so that
+        // chains, dependents and margins are seen the same way than in the original.
+        LinkedHashSet<ConstraintWidget> references = new LinkedHashSet<>(mWidgets);
+        for (int i = 0; i < mWidgets.size(); i++) {
+            ConstraintWidget widget = mWidgets.get(i);
+            ArrayList<ConstraintAnchor> anchors = widget.getAnchors();
+            for (int j = 0; j < anchors.size(); j++) {
+                ConstraintAnchor anchor = anchors.get(j);
+                if (anchor.mTarget != null) {
+                    references.add(anchor.mTarget.mOwner);
+                }
+                if (anchor.getDependents() != null) {
+                    for (ConstraintAnchor dependent : anchor.getDependents()) {
+                        references.add(dependent.mOwner);
+                    }
+                }
+            }
+            if (widget instanceof HelperWidget) {
+                HelperWidget helper = (HelperWidget) widget;
+                for (int j = 0; j < helper.mWidgetsCount; j++) {
+                    references.add(helper.mWidgets[j]);
+                }
+            }
+        }
+        references.remove(container);
+        ArrayList<ConstraintWidget> originals = new ArrayList<>(references);
+        for (int i = 0; i < originals.size(); i++) {
+            ConstraintWidget original = originals.get(i);
+            ConstraintWidget copy = createCopy(original);
+            containerCopy.add(copy);
+            copies.put(original, copy);
+        }
+        for (int i = 0; i < originals.size(); i++) {
+            ConstraintWidget original = originals.get(i);
+            ConstraintWidget copy = copies.get(original);
+            copy.copy(original, copies);
+            copy.copyResolution(original);
+            ArrayList<ConstraintAnchor> anchors = original.getAnchors();
+            ArrayList<ConstraintAnchor> copyAnchors = copy.getAnchors();
+            for (int j = 0; j < anchors.size(); j++) {
+                copyAnchors.get(j).copyFrom(anchors.get(j), copies);
+            }
+        }
+
+        ArrayList<ConstraintWidget> widgets = new ArrayList<>(mWidgets.size());
+        for (int i = 0; i < mWidgets.size(); i++) {
+            widgets.add(copies.get(mWidgets.get(i)));
+        }
+        mCopies = copies;
+        try {
+            mCopyWrap = solverMeasure(containerCopy.getSystem(), widgets, mWidgets, orientation);
+
+            // the scratch container will be reused, keep the wrap anchors it collected
+            mWrapAnchors = containerCopy.getWrapAnchors();
+            for (int i = 0; i < mWrapAnchors.length; i++) {
+                ConstraintAnchor anchor = mWrapAnchors[i];
+                if (anchor != null) {
+                    ConstraintWidget original = findOriginal(anchor.getOwner());
+                    mWrapAnchors[i] =
+                            original != null ? original.getAnchor(anchor.getType()) : null;
+                }
+            }
+        } finally {
+            // the scratch container outlives the layout, don't let it hold on to the
+            // copies, its system rows or the companion widget copied from the original
+            containerCopy.reset();
+        }
+    }
+
+    private ConstraintWidget findOriginal(ConstraintWidget copy) {
+        for (ConstraintWidget original : mCopies.keySet()) {
+            if (mCopies.get(original) == copy) {
+                return original;
+            }
+        }
+        return null;
+    }
+
+    private static ConstraintWidget createCopy(ConstraintWidget widget) {
+        if (widget instanceof Guideline) {
+            return new Guideline();
+        }
+        if (widget instanceof Barrier) {
+            return new Barrier();
+        }
+        return new ConstraintWidget();
+    }
+
+    /**
+     * Bring back the state resulting from
+     * {@link #measureWrapOnCopy(ConstraintWidgetContainer, int)} to the original widgets,
+     * returning the measured wrap dimension.
+     */
+    int commitMeasureOnCopy() {
+        if (mCopies == null) {
+            return mCopyWrap;
+        }
+        // adding widgets to the solver may consume their direct resolution
+        for (int i = 0; i < mWidgets.size(); i++) {
+            ConstraintWidget widget = mWidgets.get(i);
+            widget.copyResolution(mCopies.get(widget));
+        }
+        ConstraintWidgetContainer container =
+                (ConstraintWidgetContainer) mWidgets.get(0).getParent();
+        container.addWrapAnchors(mWrapAnchors);
+        mCopies = null;
+        mWrapAnchors = null;
+        return mCopyWrap;
+    }
+
     public void setOrientation(int orientation) {
         this.mOrientation = orientation;
     }
@@ -262,12 +423,17 @@ public class WidgetGroup {
         int mOrientation;
 
         MeasureResult(ConstraintWidget widget, LinearSystem system, int orientation) {
+            this(widget, widget, system, orientation);
+        }
+
+        MeasureResult(ConstraintWidget widget, ConstraintWidget solved,
+                LinearSystem system, int orientation) {
             mWidgetRef = new WeakReference<>(widget);
-            mLeft = system.getObjectVariableValue(widget.mLeft);
-            mTop = system.getObjectVariableValue(widget.mTop);
-            mRight = system.getObjectVariableValue(widget.mRight);
-            mBottom = system.getObjectVariableValue(widget.mBottom);
-            mBaseline = system.getObjectVariableValue(widget.mBaseline);
+            mLeft = system.getObjectVariableValue(solved.mLeft);
+            mTop = system.getObjectVariableValue(solved.mTop);
+            mRight = system.getObjectVariableValue(solved.mRight);
+            mBottom = system.getObjectVariableValue(solved.mBottom);
+            mBaseline = system.getObjectVariableValue(solved.mBaseline);
             this.mOrientation = orientation;
         }
 
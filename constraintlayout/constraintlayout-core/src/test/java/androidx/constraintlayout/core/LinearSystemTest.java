@@ -16,6 +16,7 @@
 package androidx.constraintlayout.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
@@ -350,4 +351,87 @@ public class LinearSystemTest {
         assertEquals(xr, 100);
     }
 
+    @Test
+    public void testIncrementalEditVariable() throws Exception {
+        SolverVariable x = mLS.getVariable("x", SolverVariable.Type.UNRESTRICTED);
+        SolverVariable y = mLS.getVariable("y", SolverVariable.Type.UNRESTRICTED);
+        SolverVariable z = mLS.getVariable("z", SolverVariable.Type.UNRESTRICTED);
+        mLS.addEditVariable(x, 100, SolverVariable.STRENGTH_HIGH);
+        mLS.addEquality(y, x, 20, SolverVariable.STRENGTH_FIXED); // y = x + 20
+        mLS.addGreaterThan(z, y, 0, SolverVariable.STRENGTH_FIXED); // z >= y
+        add(new LinearEquation(mLS).var("z").equalsTo().var(50), 1);
+        mLS.minimize();
+        assertEquals(100, mLS.getValueFor("x"), 0f);
+        assertEquals(120, mLS.getValueFor("y"), 0f);
+        assertEquals(120, mLS.getValueFor("z"), 0f);
+
+        assertTrue(mLS.suggestValue(x, 10));
+        mLS.resolve();
+        assertEquals(10, mLS.getValueFor("x"), 0f);
+        assertEquals(30, mLS.getValueFor("y"), 0f);
+        assertEquals(50, mLS.getValueFor("z"), 0f);
+
+        assertTrue(mLS.suggestValue(x, 200));
+        mLS.resolve();
+        assertEquals(200, mLS.getValueFor("x"), 0f);
+        assertEquals(220, mLS.getValueFor("y"), 0f);
+        assertEquals(220, mLS.getValueFor("z"), 0f);
+
+        assertFalse(mLS.suggestValue(y, 0));
+    }
+
+    private float[] solveChainedWidgets(boolean sparseEngine) throws Exception {
+        boolean previousEngine = LinearSystem.SPARSE_ENGINE;
+        LinearSystem.SPARSE_ENGINE = sparseEngine;
+        try {
+            LinearSystem system = new LinearSystem();
+            int count = 40;
+            SolverVariable parentLeft = system.getVariable("pl", SolverVariable.Type.UNRESTRICTED);
+            SolverVariable parentRight =
+                    system.getVariable("pr", SolverVariable.Type.UNRESTRICTED);
+            system.addEquality(parentLeft, 0);
+            system.addEquality(parentRight, 1000);
+            SolverVariable[] left = new SolverVariable[count];
+            SolverVariable[] right = new SolverVariable[count];
+            for (int i = 0; i < count; i++) {
+                left[i] = system.getVariable("l" + i, SolverVariable.Type.UNRESTRICTED);
+                right[i] = system.getVariable("r" + i, SolverVariable.Type.UNRESTRICTED);
+                SolverVariable previous = i == 0 ? parentLeft : right[i - 1];
+                if (i % 3 == 2) {
+                    // match constraint, limited by a min and a max
+                    system.addGreaterThan(right[i], left[i], 10, SolverVariable.STRENGTH_FIXED);
+                    system.addLowerThan(right[i], left[i], 200, SolverVariable.STRENGTH_FIXED);
+                    system.addEquality(left[i], previous, 4, SolverVariable.STRENGTH_FIXED);
+                    system.addEquality(right[i], parentRight, -4 * i,
+                            SolverVariable.STRENGTH_MEDIUM);
+                } else {
+                    system.addEquality(right[i], left[i], 10 + i, SolverVariable.STRENGTH_FIXED);
+                    system.addCentering(left[i], previous, 2, 0.1f * (i % 10),
+                            parentRight, right[i], 2, SolverVariable.STRENGTH_CENTERING);
+                }
+                system.addGreaterThan(left[i], parentLeft, 0, SolverVariable.STRENGTH_HIGH);
+            }
+            system.minimize();
+            float[] values = new float[count * 2];
+            for (int i = 0; i < count; i++) {
+                values[i * 2] = system.getValueFor("l" + i);
+                values[i * 2 + 1] = system.getValueFor("r" + i);
+            }
+            return values;
+        } finally {
+            LinearSystem.SPARSE_ENGINE = previousEngine;
+        }
+    }
+
+    @Test
+    public void testSparseEngineMatchesDefaultEngine() throws Exception {
+        float[] expected = solveChainedWidgets(false);
+        float[] actual = solveChainedWidgets(true);
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("value " + i, expected[i], actual[i], 0.01f);
+        }
+        assertTrue(expected[expected.length - 1] > 0);
+    }
+
 }
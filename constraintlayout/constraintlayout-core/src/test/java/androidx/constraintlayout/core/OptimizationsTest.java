@@ -16,6 +16,8 @@
 package androidx.constraintlayout.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import androidx.constraintlayout.core.widgets.Barrier;
 import androidx.constraintlayout.core.widgets.ConstraintAnchor;
@@ -26,9 +28,12 @@ import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
 import androidx.constraintlayout.core.widgets.Guideline;
 import androidx.constraintlayout.core.widgets.Optimizer;
 import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+import androidx.constraintlayout.core.widgets.analyzer.Grouping;
 
 import org.junit.Test;
 
+import java.util.HashMap;
+
 public class OptimizationsTest {
     @Test
     public void testGoneMatchConstraint() {
@@ -1839,4 +1844,282 @@ public class OptimizationsTest {
         System.out.println("guideline start: " + guidelineStart);
         System.out.println("guideline end: " + guidelineEnd);
     }
+
+    private ConstraintWidgetContainer createGroupsLayout(int optimizationLevel, int groups) {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 600, 600);
+        root.setDebugName("root");
+        root.setOptimizationLevel(optimizationLevel);
+        for (int i = 0; i < groups; i++) {
+            ConstraintWidget a = new ConstraintWidget(100 + (i % 4) * 10, 20);
+            ConstraintWidget b = new ConstraintWidget(60, 20 + (i % 3) * 10);
+            ConstraintWidget c = new ConstraintWidget(80, 20);
+            a.setDebugName("A" + i);
+            b.setDebugName("B" + i);
+            c.setDebugName("C" + i);
+            a.setBaselineDistance(8);
+            b.setBaselineDistance(8);
+            c.setBaselineDistance(8);
+            root.add(a, b, c);
+            a.connect(Type.LEFT, root, Type.LEFT, 8 * (i % 5));
+            a.connect(Type.TOP, root, Type.TOP, 40 * i);
+            if (i % 3 == 0) {
+                // horizontal chain
+                a.connect(Type.RIGHT, b, Type.LEFT);
+                b.connect(Type.LEFT, a, Type.RIGHT, 8);
+                b.connect(Type.RIGHT, c, Type.LEFT);
+                c.connect(Type.LEFT, b, Type.RIGHT);
+                c.setHorizontalChainStyle(ConstraintWidget.CHAIN_PACKED);
+                b.connect(Type.BASELINE, a, Type.BASELINE);
+                c.connect(Type.BASELINE, a, Type.BASELINE);
+            } else if (i % 3 == 1) {
+                // barrier
+                b.connect(Type.LEFT, root, Type.LEFT, 16);
+                b.connect(Type.TOP, a, Type.BOTTOM, 4);
+                Barrier barrier = new Barrier();
+                barrier.setDebugName("barrier" + i);
+                barrier.setBarrierType(Barrier.RIGHT);
+                barrier.add(a);
+                barrier.add(b);
+                root.add(barrier);
+                c.connect(Type.LEFT, barrier, Type.RIGHT, 8);
+                c.connect(Type.TOP, a, Type.TOP);
+            } else {
+                // centered between two widgets
+                b.connect(Type.LEFT, a, Type.RIGHT, 16);
+                b.connect(Type.TOP, a, Type.TOP);
+                c.connect(Type.LEFT, a, Type.LEFT);
+                c.connect(Type.RIGHT, b, Type.RIGHT);
+                c.connect(Type.TOP, a, Type.BOTTOM, 8);
+            }
+        }
+        root.setMeasurer(sMeasurer);
+        root.setHorizontalDimensionBehaviour(DimensionBehaviour.WRAP_CONTENT);
+        root.setVerticalDimensionBehaviour(DimensionBehaviour.WRAP_CONTENT);
+        return root;
+    }
+
+    @Test
+    public void testParallelGrouping() {
+        // each group adds at least three widgets
+        int groups = Grouping.PARALLEL_GROUPING_THRESHOLD / 3 + 1;
+        for (int base : new int[]{Optimizer.OPTIMIZATION_GROUPING,
+                Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GROUPING}) {
+            ConstraintWidgetContainer sequential = createGroupsLayout(base, groups);
+            ConstraintWidgetContainer parallel = createGroupsLayout(
+                    base | Optimizer.OPTIMIZATION_PARALLEL_GROUPING, groups);
+            sequential.layout();
+            parallel.layout();
+            assertEquals(sequential.getWidth(), parallel.getWidth());
+            assertEquals(sequential.getHeight(), parallel.getHeight());
+            assertEquals(sequential.getChildren().size(), parallel.getChildren().size());
+            for (int i = 0; i < sequential.getChildren().size(); i++) {
+                ConstraintWidget expected = sequential.getChildren().get(i);
+                ConstraintWidget actual = parallel.getChildren().get(i);
+                assertEquals(expected.toString(), actual.toString());
+            }
+        }
+    }
+
+    private static class ContentMeasurer implements BasicMeasure.Measurer {
+        HashMap<ConstraintWidget, int[]> mContent = new HashMap<>();
+        int mMeasures = 0;
+
+        @Override
+        public void measure(ConstraintWidget widget, BasicMeasure.Measure measure) {
+            mMeasures++;
+            int[] content = mContent.get(widget);
+            measure.measuredWidth = measure.horizontalBehavior == DimensionBehaviour.FIXED
+                    ? measure.horizontalDimension : content[0];
+            measure.measuredHeight = measure.verticalBehavior == DimensionBehaviour.FIXED
+                    ? measure.verticalDimension : content[1];
+            measure.measuredBaseline = 8;
+        }
+
+        @Override
+        public void didMeasures() {
+        }
+    }
+
+    private ConstraintWidgetContainer createContentLayout(int optimizationLevel,
+            ContentMeasurer measurer) {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 600, 600);
+        root.setDebugName("root");
+        root.setOptimizationLevel(optimizationLevel);
+        ConstraintWidget a = new ConstraintWidget("A", 0, 0);
+        ConstraintWidget b = new ConstraintWidget("B", 0, 0);
+        ConstraintWidget c = new ConstraintWidget("C", 0, 0);
+        root.add(a, b, c);
+        a.setHorizontalDimensionBehaviour(DimensionBehaviour.WRAP_CONTENT);
+        a.setVerticalDimensionBehaviour(DimensionBehaviour.WRAP_CONTENT);
+        a.connect(Type.LEFT, root, Type.LEFT, 8);
+        a.connect(Type.TOP, root, Type.TOP, 8);
+        b.setHorizontalDimensionBehaviour(DimensionBehaviour.MATCH_CONSTRAINT);
+        b.setVerticalDimensionBehaviour(DimensionBehaviour.WRAP_CONTENT);
+        b.connect(Type.LEFT, a, Type.RIGHT, 8);
+        b.connect(Type.RIGHT, root, Type.RIGHT, 8);
+        b.connect(Type.TOP, a, Type.TOP);
+        c.setHorizontalDimensionBehaviour(DimensionBehaviour.WRAP_CONTENT);
+        c.setVerticalDimensionBehaviour(DimensionBehaviour.WRAP_CONTENT);
+        c.connect(Type.LEFT, a, Type.LEFT);
+        c.connect(Type.RIGHT, b, Type.RIGHT);
+        c.connect(Type.TOP, b, Type.BOTTOM, 8);
+        measurer.mContent.put(a, new int[]{120, 40});
+        measurer.mContent.put(b, new int[]{200, 60});
+        measurer.mContent.put(c, new int[]{80, 20});
+        root.setMeasurer(measurer);
+        return root;
+    }
+
+    private void measureContentLayout(ConstraintWidgetContainer root, int width) {
+        root.setWidth(width);
+        root.measure(root.getOptimizationLevel(), BasicMeasure.EXACTLY, width,
+                BasicMeasure.EXACTLY, 600, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testMemoizedMeasures() {
+        for (int base : new int[]{Optimizer.OPTIMIZATION_NONE,
+                Optimizer.OPTIMIZATION_STANDARD}) {
+            ContentMeasurer expectedMeasurer = new ContentMeasurer();
+            ContentMeasurer memoizedMeasurer = new ContentMeasurer();
+            ConstraintWidgetContainer expected = createContentLayout(base, expectedMeasurer);
+            ConstraintWidgetContainer memoized = createContentLayout(
+                    base | Optimizer.OPTIMIZATION_MEMOIZE_MEASURES, memoizedMeasurer);
+            Metrics metrics = new Metrics();
+            memoized.fillMetrics(metrics);
+
+            for (int i = 0; i < 4; i++) {
+                measureContentLayout(expected, 600);
+                measureContentLayout(memoized, 600);
+                assertChildrenEquals(expected, memoized);
+            }
+            assertTrue(metrics.measureCacheHits > 0);
+            assertEquals(memoizedMeasurer.mMeasures, metrics.measureCacheMisses);
+            assertTrue(memoizedMeasurer.mMeasures < expectedMeasurer.mMeasures);
+
+            // the content of a widget changed, the new measure needs to be picked up
+            ConstraintWidget a = memoized.getChildren().get(0);
+            expectedMeasurer.mContent.get(expected.getChildren().get(0))[0] = 160;
+            memoizedMeasurer.mContent.get(a)[0] = 160;
+            a.invalidateMeasureCache();
+            measureContentLayout(expected, 600);
+            measureContentLayout(memoized, 600);
+            assertEquals(168, a.getRight());
+            assertChildrenEquals(expected, memoized);
+
+            // a different spec for the container invalidates all the measures
+            int misses = memoizedMeasurer.mMeasures;
+            measureContentLayout(expected, 500);
+            measureContentLayout(memoized, 500);
+            assertTrue(memoizedMeasurer.mMeasures > misses);
+            assertChildrenEquals(expected, memoized);
+        }
+    }
+
+    @Test
+    public void testInvalidateMeasureCacheOfNestedContainers() {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 600, 800);
+        ConstraintWidgetContainer nested = new ConstraintWidgetContainer(0, 0, 300, 400);
+        ConstraintWidget a = new ConstraintWidget(100, 20);
+        ConstraintWidget b = new ConstraintWidget(100, 20);
+        root.add(a);
+        root.add(nested);
+        nested.add(b);
+        a.setCachedMeasure(new BasicMeasure.Measure());
+        nested.setCachedMeasure(new BasicMeasure.Measure());
+        b.setCachedMeasure(new BasicMeasure.Measure());
+
+        root.invalidateMeasureCache();
+        assertNull(a.getCachedMeasure());
+        assertNull(nested.getCachedMeasure());
+        assertNull(b.getCachedMeasure());
+    }
+
+    private ConstraintWidgetContainer createResizableLayout(int optimizationLevel) {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 600, 800);
+        ConstraintWidget a = new ConstraintWidget(100, 20);
+        ConstraintWidget b = new ConstraintWidget(100, 20);
+        ConstraintWidget c = new ConstraintWidget(100, 20);
+        Guideline guideline = new Guideline();
+        root.setDebugName("root");
+        a.setDebugName("A");
+        b.setDebugName("B");
+        c.setDebugName("C");
+        guideline.setDebugName("guideline");
+        guideline.setOrientation(Guideline.VERTICAL);
+        guideline.setGuidePercent(0.7f);
+        root.add(a);
+        root.add(b);
+        root.add(c);
+        root.add(guideline);
+
+        a.connect(Type.LEFT, root, Type.LEFT, 8);
+        a.connect(Type.RIGHT, root, Type.RIGHT, 8);
+        a.connect(Type.TOP, root, Type.TOP, 8);
+        a.connect(Type.BOTTOM, root, Type.BOTTOM, 8);
+        a.setHorizontalBiasPercent(0.3f);
+        a.setVerticalBiasPercent(0.2f);
+        b.setHorizontalDimensionBehaviour(DimensionBehaviour.MATCH_CONSTRAINT);
+        b.connect(Type.LEFT, a, Type.RIGHT, 8);
+        b.connect(Type.RIGHT, guideline, Type.LEFT, 8);
+        b.connect(Type.TOP, a, Type.BOTTOM, 8);
+        c.setHorizontalDimensionBehaviour(DimensionBehaviour.MATCH_CONSTRAINT);
+        c.setHorizontalMatchStyle(ConstraintWidget.MATCH_CONSTRAINT_PERCENT, 0, 0, 0.5f);
+        c.connect(Type.LEFT, root, Type.LEFT);
+        c.connect(Type.RIGHT, root, Type.RIGHT);
+        c.connect(Type.BOTTOM, root, Type.BOTTOM, 8);
+
+        root.setOptimizationLevel(optimizationLevel);
+        return root;
+    }
+
+    @Test
+    public void testIncrementalResize() {
+        ConstraintWidgetContainer expected = createResizableLayout(Optimizer.OPTIMIZATION_NONE);
+        ConstraintWidgetContainer incremental =
+                createResizableLayout(Optimizer.OPTIMIZATION_INCREMENTAL);
+        Metrics metrics = new Metrics();
+        incremental.fillMetrics(metrics);
+        expected.layout();
+        incremental.layout();
+        assertChildrenEquals(expected, incremental);
+        assertEquals(0, metrics.incrementalResolves);
+
+        int[][] sizes = {{800, 600}, {400, 900}, {430, 910}, {600, 800}, {600, 800}};
+        for (int[] size : sizes) {
+            expected.setWidth(size[0]);
+            expected.setHeight(size[1]);
+            incremental.setWidth(size[0]);
+            incremental.setHeight(size[1]);
+            expected.layout();
+            incremental.layout();
+            assertChildrenEquals(expected, incremental);
+        }
+        assertEquals(sizes.length, metrics.incrementalResolves);
+
+        // a child changed size, the system has to be rebuilt
+        expected.getChildren().get(0).setWidth(150);
+        incremental.getChildren().get(0).setWidth(150);
+        expected.layout();
+        incremental.layout();
+        assertChildrenEquals(expected, incremental);
+        assertEquals(sizes.length, metrics.incrementalResolves);
+
+        // then it can be resized incrementally again
+        expected.setWidth(500);
+        incremental.setWidth(500);
+        expected.layout();
+        incremental.layout();
+        assertChildrenEquals(expected, incremental);
+        assertEquals(sizes.length + 1, metrics.incrementalResolves);
+    }
+
+    private void assertChildrenEquals(ConstraintWidgetContainer expected,
+            ConstraintWidgetContainer actual) {
+        assertEquals(expected.getChildren().size(), actual.getChildren().size());
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertEquals(expected.getChildren().get(i).toString(),
+                    actual.getChildren().get(i).toString());
+        }
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SparseSolverVariableValuesTest {
+
+    private SolverVariable[] createVariables(Cache cache, int count) {
+        SolverVariable[] variables = new SolverVariable[count];
+        for (int i = 0; i < count; i++) {
+            SolverVariable variable = new SolverVariable("v" + i, SolverVariable.Type.SLACK);
+            variable.id = i;
+            cache.mIndexedVariables[i] = variable;
+            variables[i] = variable;
+        }
+        return variables;
+    }
+
+    @Test
+    public void testSortedAccess() {
+        Cache cache = new Cache();
+        SolverVariable[] v = createVariables(cache, 12);
+        SparseSolverVariableValues values = new SparseSolverVariableValues(null, cache);
+        values.put(v[5], 1f);
+        values.put(v[1], -1f);
+        values.put(v[11], 3f);
+        values.put(v[3], -2f);
+        assertEquals(4, values.getCurrentSize());
+        assertEquals(v[1], values.getVariable(0));
+        assertEquals(v[3], values.getVariable(1));
+        assertEquals(v[5], values.getVariable(2));
+        assertEquals(v[11], values.getVariable(3));
+        assertEquals(-2f, values.getVariableValue(1), 0f);
+
+        values.remove(v[3], true);
+        assertFalse(values.contains(v[3]));
+        assertEquals(v[5], values.getVariable(1));
+        assertEquals(2, v[5].usageInRowCount + v[1].usageInRowCount);
+
+        values.add(v[5], -1f, true);
+        assertFalse(values.contains(v[5]));
+        values.put(v[11], 0f);
+        assertEquals(1, values.getCurrentSize());
+        assertEquals(-1f, values.get(v[1]), 0f);
+    }
+
+    @Test
+    public void testUse() {
+        Cache cache = new Cache();
+        SolverVariable[] v = createVariables(cache, 8);
+        ArrayRow row = new LinearSystem.SparseRow(cache);
+        ArrayRow definition = new LinearSystem.SparseRow(cache);
+
+        // row: 0 = 2 v1 + v2 - v4
+        row.variables.put(v[1], 2f);
+        row.variables.put(v[2], 1f);
+        row.variables.put(v[4], -1f);
+        // definition: v2 = 10 + v4 - v6
+        definition.mVariable = v[2];
+        definition.mConstantValue = 10;
+        definition.variables.put(v[4], 1f);
+        definition.variables.put(v[6], -1f);
+
+        row.updateFromRow(null, definition, true);
+        // 0 = 10 + 2 v1 - v6
+        assertEquals(10f, row.mConstantValue, 0f);
+        assertEquals(2, row.variables.getCurrentSize());
+        assertEquals(2f, row.variables.get(v[1]), 0f);
+        assertEquals(-1f, row.variables.get(v[6]), 0f);
+        assertFalse(row.variables.contains(v[2]));
+        assertFalse(row.variables.contains(v[4]));
+        assertTrue(row.variables.getVariable(0).id < row.variables.getVariable(1).id);
+    }
+}
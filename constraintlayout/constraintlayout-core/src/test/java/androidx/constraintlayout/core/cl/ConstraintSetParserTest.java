@@ -15,11 +15,17 @@
  */
 package androidx.constraintlayout.core.cl;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import androidx.constraintlayout.core.parser.CLParsingException;
+import androidx.constraintlayout.core.state.CompiledMotionScene;
 import androidx.constraintlayout.core.state.ConstraintReference;
 import androidx.constraintlayout.core.state.ConstraintSetParser;
+import androidx.constraintlayout.core.state.CoreMotionScene;
 import androidx.constraintlayout.core.state.State;
 import androidx.constraintlayout.core.state.Transition;
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
@@ -27,6 +33,10 @@ import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
 
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
 public class ConstraintSetParserTest {
 
     @Test
@@ -101,5 +111,113 @@ public class ConstraintSetParserTest {
         Transition transition = new Transition(dp -> dp);
         ConstraintSetParser.parseJSON(jsonString, transition, 0);
     }
+
+    private static class TestMotionScene implements CoreMotionScene {
+        HashMap<String, String> mConstraintSets = new HashMap<>();
+        HashMap<String, String> mTransitions = new HashMap<>();
+        String mDebugName;
+
+        @Override
+        public void setTransitionContent(String elementName, String toJSON) {
+            mTransitions.put(elementName, toJSON);
+        }
+
+        @Override
+        public String getConstraintSet(String ext) {
+            return mConstraintSets.get(ext);
+        }
+
+        @Override
+        public void setConstraintSetContent(String csName, String toJSON) {
+            mConstraintSets.put(csName, toJSON);
+        }
+
+        @Override
+        public void setDebugName(String name) {
+            mDebugName = name;
+        }
+
+        @Override
+        public String getTransition(String str) {
+            return mTransitions.get(str);
+        }
+
+        @Override
+        public String getConstraintSet(int index) {
+            return null;
+        }
+    }
+
+    @Test
+    public void testCompiledMotionScene() throws IOException {
+        String jsonString = "{\n"
+                + "  Header: { export: 'scene' },\n"
+                + "  ConstraintSets: {\n"
+                + "    start: {\n"
+                + "      box: { width: 40, height: 40, start: ['parent', 'start', 16] }\n"
+                + "    },\n"
+                + "    end: {\n"
+                + "      Extends: 'start',\n"
+                + "      box: { clear: ['constraints'], end: ['parent', 'end', 16] }\n"
+                + "    }\n"
+                + "  },\n"
+                + "  Transitions: {\n"
+                + "    default: { from: 'start', to: 'end', pathMotionArc: 'startHorizontal' }\n"
+                + "  }\n"
+                + "}";
+        TestMotionScene parsed = new TestMotionScene();
+        ConstraintSetParser.parseMotionSceneJSON(parsed, jsonString);
+
+        byte[] data = CompiledMotionScene.compile(jsonString).toByteArray();
+        TestMotionScene loaded = new TestMotionScene();
+        CompiledMotionScene.fromByteArray(data).applyTo(loaded);
+
+        assertEquals(2, loaded.mConstraintSets.size());
+        assertEquals(parsed.mConstraintSets, loaded.mConstraintSets);
+        assertEquals(parsed.mTransitions, loaded.mTransitions);
+        assertEquals("scene", loaded.mDebugName);
+
+        try {
+            CompiledMotionScene.fromByteArray(jsonString.getBytes(StandardCharsets.UTF_8));
+            fail("json content should not be read as a compiled scene");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCompiledMotionScenePopulate() throws IOException, CLParsingException {
+        String jsonString = "{\n"
+                + "  ConstraintSets: {\n"
+                + "    start: { box: { width: 40, height: 30 } }\n"
+                + "  },\n"
+                + "  Transitions: {\n"
+                + "    default: { from: 'start', to: 'start', onSwipe: { anchor: 'box' } }\n"
+                + "  }\n"
+                + "}";
+        CompiledMotionScene scene = CompiledMotionScene.fromByteArray(
+                CompiledMotionScene.compile(jsonString).toByteArray());
+
+        // the second time around uses the object parsed the first time
+        for (int i = 0; i < 2; i++) {
+            State state = new State();
+            state.setDpToPixel(dp -> dp);
+            assertTrue(scene.populateState("start", state,
+                    new ConstraintSetParser.LayoutVariables()));
+            ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 1000, 1000);
+            state.apply(root);
+            root.layout();
+            ConstraintWidget box = state.constraints("box").getConstraintWidget();
+            assertEquals(40, box.getWidth());
+            assertEquals(30, box.getHeight());
+
+            Transition transition = new Transition(dp -> dp);
+            assertTrue(scene.populateTransition("default", transition));
+            assertTrue(transition.hasOnSwipe());
+        }
+        assertFalse(scene.populateState("end", new State(),
+                new ConstraintSetParser.LayoutVariables()));
+        assertFalse(scene.populateTransition("other", new Transition(dp -> dp)));
+    }
 }
 
@@ -16,9 +16,11 @@
 package androidx.constraintlayout.core.motion;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import androidx.constraintlayout.core.motion.utils.ArcCurveFit;
 import androidx.constraintlayout.core.motion.utils.CurveFit;
+import androidx.constraintlayout.core.motion.utils.SampledCurveFit;
 
 import org.junit.Test;
 
@@ -87,6 +89,61 @@ public class MotionArcCurveTest {
         assertEquals(Math.sqrt(0.5), y, 0.001);
     }
 
+    @Test
+    public void bakedCurveTest() {
+        double[][] points = {
+                {0, 0}, {1, 3}, {4, 1}, {2, 2}
+        };
+        double[] time = {
+                0, 0.3, 0.7, 1
+        };
+        CurveFit spline = CurveFit.get(CurveFit.SPLINE, time, points);
+        CurveFit baked = SampledCurveFit.bake(spline, 2, 0.0001);
+        assertTrue(baked instanceof SampledCurveFit);
+        assertTrue(((SampledCurveFit) baked).getMaxError() <= 0.0001);
+        for (int i = 0; i <= 1000; i++) {
+            double t = i / 1000.0;
+            assertEquals(spline.getPos(t, 0), baked.getPos(t, 0), 0.0001);
+            assertEquals(spline.getPos(t, 1), baked.getPos(t, 1), 0.0001);
+            assertEquals(spline.getSlope(t, 0), baked.getSlope(t, 0), 0.1);
+            assertEquals(spline.getSlope(t, 1), baked.getSlope(t, 1), 0.1);
+        }
+        // outside the key positions the original curve extrapolates
+        assertEquals(spline.getPos(1.5, 0), baked.getPos(1.5, 0), 0);
+        assertEquals(spline.getPos(-0.5, 1), baked.getPos(-0.5, 1), 0);
+    }
+
+    @Test
+    public void bakedSlopeMatchesPositions() {
+        double[][] points = {
+                {0, 0}, {1, 3}, {4, 1}, {2, 2}
+        };
+        double[] time = {
+                0, 0.3, 0.7, 1
+        };
+        CurveFit baked = SampledCurveFit.bake(
+                CurveFit.get(CurveFit.SPLINE, time, points), 2, 0.0001);
+        double h = 1e-6;
+        for (int i = 1; i < 1000; i++) {
+            double t = i / 1000.0 + 0.0003;
+            for (int j = 0; j < 2; j++) {
+                double slope = (baked.getPos(t + h, j) - baked.getPos(t - h, j)) / (2 * h);
+                assertEquals(slope, baked.getSlope(t, j), 0.001);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bakeRejectsNonPositiveError() {
+        double[][] points = {
+                {0, 0}, {1, 3}
+        };
+        double[] time = {
+                0, 1
+        };
+        SampledCurveFit.bake(CurveFit.get(CurveFit.SPLINE, time, points), 2, 0);
+    }
+
     @Test
     public void arcTest3() {
         double[][] points = {
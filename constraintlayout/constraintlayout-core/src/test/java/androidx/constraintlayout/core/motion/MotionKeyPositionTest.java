@@ -149,6 +149,44 @@ public class MotionKeyPositionTest {
         assertEquals("400, 400, 460, 480", res.toString());
     }
 
+    @Test
+    public void keyPositionBaked() {
+        MotionWidget mw1 = new MotionWidget();
+        MotionWidget mw2 = new MotionWidget();
+        MotionWidget res = new MotionWidget();
+        MotionWidget baked = new MotionWidget();
+        KeyCache cache = new KeyCache();
+        mw1.setBounds(0, 0, 30, 40);
+        mw2.setBounds(400, 400, 460, 480);
+        MotionKeyPosition keyPosition = new MotionKeyPosition();
+        keyPosition.setFramePosition(30);
+        keyPosition.setValue(TypedValues.PositionType.TYPE_PERCENT_X, 0.3f);
+        keyPosition.setValue(TypedValues.PositionType.TYPE_PERCENT_Y, 0.3f);
+
+        Motion motion = new Motion(mw1);
+        motion.setStart(mw1);
+        motion.setEnd(mw2);
+        motion.addKey(keyPosition);
+        motion.setup(1000, 1000, 2, 1000000);
+
+        Motion bakedMotion = new Motion(mw1);
+        bakedMotion.setStart(mw1);
+        bakedMotion.setEnd(mw2);
+        bakedMotion.addKey(keyPosition);
+        bakedMotion.setBakeError(0.01f);
+        bakedMotion.setup(1000, 1000, 2, 1000000);
+
+        for (int i = 0; i <= 100; i++) {
+            float p = i / 100f;
+            motion.interpolate(res, p, 1000000 + 1000, cache);
+            bakedMotion.interpolate(baked, p, 1000000 + 1000, cache);
+            assertEquals(res.getLeft(), baked.getLeft(), 1);
+            assertEquals(res.getTop(), baked.getTop(), 1);
+            assertEquals(res.getRight(), baked.getRight(), 1);
+            assertEquals(res.getBottom(), baked.getBottom(), 1);
+        }
+    }
+
     @Test
     public void keyPosition4() {
         MotionWidget mw1 = new MotionWidget();
@@ -16,6 +16,7 @@
 package androidx.constraintlayout.core.parser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -758,6 +759,23 @@ public class CLParserTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void testContentEquals() throws CLParsingException {
+        char[] content = "{ first: 'hello', 'second': [1, 'world'], third: 2.5 }"
+                .toCharArray();
+        CLObject parsedContent = CLParser.parse(content);
+        CLKey key = (CLKey) parsedContent.get(1);
+        assertTrue(key.contentEquals("second"));
+        assertFalse(key.contentEquals("secon"));
+        assertFalse(key.contentEquals("seconds"));
+        assertEquals("second", key.getName());
+        assertTrue(key.contentEquals("second"));
+        assertEquals("world", parsedContent.getArray("second").getString(1));
+        assertEquals(2.5f, parsedContent.getFloat("third"), 0f);
+        assertFalse(parsedContent.has("fourth"));
+        assertEquals("hello", parsedContent.getString("first"));
+    }
 }
 
 
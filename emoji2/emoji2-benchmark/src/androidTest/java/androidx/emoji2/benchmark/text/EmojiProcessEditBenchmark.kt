@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.emoji2.benchmark.text
+
+import android.text.SpannableStringBuilder
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.emoji2.text.EmojiCompat
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Processing a long transcript after a small edit, and many messages in one call.
+ */
+@RunWith(Parameterized::class)
+@LargeTest
+@SdkSuppress(minSdkVersion = 23)
+class EmojiProcessEditBenchmark(
+    private val size: Int,
+    private val replaceAll: Boolean
+) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    companion object {
+        @Parameterized.Parameters(name = "size={0},replaceAll={1}")
+        @JvmStatic
+        fun parameters() = mutableListOf<Array<Any>>().apply {
+            listOf(1_000, 10_000, 50_000).forEach { size ->
+                listOf(true, false).forEach { replaceAll ->
+                    add(arrayOf(size, replaceAll))
+                }
+            }
+        }
+    }
+
+    @Test
+    fun processAll_afterTyping() {
+        doEditBenchmark { text, _ -> ec.process(text) }
+    }
+
+    @Test
+    fun processEdit_afterTyping() {
+        doEditBenchmark { text, position ->
+            ec.processEdit(text, position, position + 1, EmojiCompat.EMOJI_COUNT_UNLIMITED,
+                EmojiCompat.REPLACE_STRATEGY_DEFAULT)
+        }
+    }
+
+    @Test
+    fun process_messages() {
+        initializeEmojiCompatWithBundledForTest(replaceAll)
+        val messages = transcriptMessages()
+        benchmarkRule.measureRepeated {
+            messages.forEach { ec.process(it) }
+        }
+    }
+
+    @Test
+    fun processBatch_messages() {
+        initializeEmojiCompatWithBundledForTest(replaceAll)
+        val messages = transcriptMessages()
+        benchmarkRule.measureRepeated {
+            ec.processBatch(messages, EmojiCompat.REPLACE_STRATEGY_DEFAULT)
+        }
+    }
+
+    private val ec: EmojiCompat
+        get() = EmojiCompat.get()
+
+    private fun doEditBenchmark(process: (SpannableStringBuilder, Int) -> Unit) {
+        initializeEmojiCompatWithBundledForTest(replaceAll)
+        val text = SpannableStringBuilder(transcriptMessages().joinToString("\n"))
+        ec.process(text)
+        var position = text.length / 2
+        benchmarkRule.measureRepeated {
+            // type one character in the middle of the transcript
+            runWithTimingDisabled {
+                if (position >= text.length) position = text.length / 2
+                text.insert(position, "a")
+            }
+            process(text, position)
+            position++
+        }
+    }
+
+    /**
+     * Messages of about 50 characters, with a few emojis each, adding up to size characters.
+     */
+    private fun transcriptMessages(): List<String> {
+        val emojis = emojisList(40)
+        val messages = mutableListOf<String>()
+        var length = 0
+        var index = 0
+        while (length < size) {
+            val message = "message $index " + emojis[index % emojis.size] +
+                " some more words " + emojis[(index * 7) % emojis.size] + " end"
+            messages.add(message)
+            length += message.length + 1
+            index++
+        }
+        return messages
+    }
+}
@@ -117,7 +117,7 @@ public class EmojiTextWatcherDisabledTest {
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
         mTextWatcher.afterTextChanged(new SpannableStringBuilder(testString));
 
-        verify(mEmojiCompat, times(1)).process(
+        verify(mEmojiCompat, times(1)).processEdit(
                 EmojiMatcher.sameCharSequence(testString),
                 eq(0),
                 eq(1),
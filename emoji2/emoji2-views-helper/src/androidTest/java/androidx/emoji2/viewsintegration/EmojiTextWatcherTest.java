@@ -70,7 +70,7 @@ public class EmojiTextWatcherTest {
 
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
 
-        verify(mEmojiCompat, times(0)).process(
+        verify(mEmojiCompat, times(0)).processEdit(
                 EmojiMatcher.sameCharSequence(testString),
                 eq(0),
                 eq(1),
@@ -87,7 +87,7 @@ public class EmojiTextWatcherTest {
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
         mTextWatcher.afterTextChanged(new SpannableStringBuilder(testString));
 
-        verify(mEmojiCompat, times(1)).process(
+        verify(mEmojiCompat, times(1)).processEdit(
                 EmojiMatcher.sameCharSequence(testString),
                 eq(0),
                 eq(1),
@@ -104,8 +104,8 @@ public class EmojiTextWatcherTest {
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
         mTextWatcher.afterTextChanged(new SpannableStringBuilder(testString));
 
-        verify(mEmojiCompat, times(0)).process(any(Spannable.class), anyInt(), anyInt(), anyInt(),
-                anyInt());
+        verify(mEmojiCompat, times(0)).processEdit(any(Spannable.class), anyInt(), anyInt(),
+                anyInt(), anyInt());
         verify(mEmojiCompat, times(1)).registerInitCallback(any(EmojiCompat.InitCallback.class));
     }
 
@@ -117,8 +117,8 @@ public class EmojiTextWatcherTest {
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
         mTextWatcher.afterTextChanged(new SpannableStringBuilder(testString));
 
-        verify(mEmojiCompat, times(0)).process(any(Spannable.class), anyInt(), anyInt(), anyInt(),
-                anyInt());
+        verify(mEmojiCompat, times(0)).processEdit(any(Spannable.class), anyInt(), anyInt(),
+                anyInt(), anyInt());
         verify(mEmojiCompat, times(0)).registerInitCallback(any(EmojiCompat.InitCallback.class));
     }
 
@@ -134,7 +134,7 @@ public class EmojiTextWatcherTest {
         SpannableStringBuilder ssb = new SpannableStringBuilder((testString));
         mTextWatcher.afterTextChanged(ssb);
 
-        verify(mEmojiCompat, times(1)).process(any(Spannable.class), anyInt(),
+        verify(mEmojiCompat, times(1)).processEdit(any(Spannable.class), anyInt(),
                 anyInt(),
                 anyInt(),
                 eq(EmojiCompat.REPLACE_STRATEGY_DEFAULT));
@@ -144,8 +144,8 @@ public class EmojiTextWatcherTest {
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
         mTextWatcher.afterTextChanged(ssb);
 
-        verify(mEmojiCompat, times(1)).process(any(Spannable.class), anyInt(), anyInt(), anyInt(),
-                eq(EmojiCompat.REPLACE_STRATEGY_ALL));
+        verify(mEmojiCompat, times(1)).processEdit(any(Spannable.class), anyInt(), anyInt(),
+                anyInt(), eq(EmojiCompat.REPLACE_STRATEGY_ALL));
     }
 
     @Test
@@ -98,7 +98,7 @@ final class EmojiTextWatcher implements android.text.TextWatcher {
         if (length > 0) {
             switch (EmojiCompat.get().getLoadState()){
                 case EmojiCompat.LOAD_STATE_SUCCEEDED:
-                    EmojiCompat.get().process(s, pos, pos + length, mMaxEmojiCount,
+                    EmojiCompat.get().processEdit(s, pos, pos + length, mMaxEmojiCount,
                             mEmojiReplaceStrategy);
                     break;
                 case EmojiCompat.LOAD_STATE_LOADING:
@@ -21,6 +21,7 @@ import static org.mockito.Mockito.mock;
 
 import android.graphics.Typeface;
 import android.text.Spannable;
+import android.text.SpannableStringBuilder;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.LargeTest;
@@ -32,8 +33,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @LargeTest
@@ -56,6 +59,9 @@ public class EmojiProcessorTest extends TestCase {
     TestTypefaceEmojiRasterizer mExcludedEmoji = new TestTypefaceEmojiRasterizer(new int[] {6}, 5,
             (short) 3);
 
+    TestTypefaceEmojiRasterizer mSkinToneInitial = new TestTypefaceEmojiRasterizer(
+            new int[]{1, 0x1F3FB}, 7, (short) 2);
+
     @Before
     public void clearResourceIndex() {
         init(Collections.emptySet());
@@ -69,6 +75,7 @@ public class EmojiProcessorTest extends TestCase {
         metadataRepo.put(mUnrelatedLast);
         metadataRepo.put(mExactMatchLast);
         metadataRepo.put(mExcludedEmoji);
+        metadataRepo.put(mSkinToneInitial);
         EmojiCompat.SpanFactory spanFactory = new EmojiCompat.DefaultSpanFactory();
         EmojiCompat.GlyphChecker glyphChecker = (charSequence, start, end, sdkAdded) -> true;
         mProcessor = new EmojiProcessor(metadataRepo,
@@ -181,6 +188,66 @@ public class EmojiProcessorTest extends TestCase {
         assertEquals(-1, mProcessor.getEmojiEnd(source, 4));
     }
 
+    @Test
+    public void processEdit_widensToSequence() {
+        // the skin tone modifier alone is no emoji, but changes the emoji before it
+        final CharSequence source = sequenceFor(77, 1, 0x1F3FB, 77);
+
+        final CharSequence processed = mProcessor.process(source, 2, 4,
+                EmojiCompat.EMOJI_COUNT_UNLIMITED, true);
+        final CharSequence edited = mProcessor.processEdit(source, 2, 4,
+                EmojiCompat.EMOJI_COUNT_UNLIMITED, true);
+
+        assertFalse(processed instanceof Spannable);
+        assertTrue(edited instanceof Spannable);
+        assertEmojiSpan(mSkinToneInitial, 1, 4, (Spannable) edited);
+    }
+
+    @Test
+    public void processEdit_deletion() {
+        final Spannable source = new SpannableStringBuilder(sequenceFor(1, 0x1F3FB, 77));
+        mProcessor.process(source, 0, source.length(), EmojiCompat.EMOJI_COUNT_UNLIMITED, true);
+        assertEmojiSpan(mSkinToneInitial, 0, 3, source);
+
+        // the span shrinks to the remaining codepoint, which is another emoji
+        ((SpannableStringBuilder) source).delete(1, 3);
+        mProcessor.processEdit(source, 1, 1, EmojiCompat.EMOJI_COUNT_UNLIMITED, true);
+
+        assertEmojiSpan(mInitialCodepoint, 0, 1, source);
+    }
+
+    @Test
+    public void processAgain_keepsSpans() {
+        final Spannable source = new SpannableStringBuilder(sequenceFor(1, 77, 77, 3, 4));
+        mProcessor.process(source, 0, source.length(), EmojiCompat.EMOJI_COUNT_UNLIMITED, true);
+        final EmojiSpan[] spans = source.getSpans(0, source.length(), EmojiSpan.class);
+        assertEquals(2, spans.length);
+
+        ((SpannableStringBuilder) source).replace(2, 3, sequenceFor(2));
+        mProcessor.processEdit(source, 0, source.length(), EmojiCompat.EMOJI_COUNT_UNLIMITED,
+                true);
+
+        final EmojiSpan[] newSpans = source.getSpans(0, source.length(), EmojiSpan.class);
+        assertEquals(3, newSpans.length);
+        for (EmojiSpan span : spans) {
+            assertTrue(Arrays.asList(newSpans).contains(span));
+        }
+        assertEmojiSpan(mAnotherInitial, 2, 3, source);
+    }
+
+    @Test
+    public void processBatch() {
+        final List<CharSequence> result = mProcessor.processBatch(
+                Arrays.asList(sequenceFor(1, 77), null, sequenceFor(77), sequenceFor(3, 4)),
+                true);
+
+        assertEquals(4, result.size());
+        assertEmojiSpan(mInitialCodepoint, 0, 1, (Spannable) result.get(0));
+        assertNull(result.get(1));
+        assertEquals(sequenceFor(77), result.get(2));
+        assertEmojiSpan(mUnrelatedLast, 0, 2, (Spannable) result.get(3));
+    }
+
     private CharSequence sequenceFor(int... codepoints) {
         StringBuilder sb = new StringBuilder(codepoints.length);
         for (int i = 0; i < codepoints.length; i++) {
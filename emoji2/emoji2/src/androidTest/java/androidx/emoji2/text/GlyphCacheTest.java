@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji2.text;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class GlyphCacheTest {
+    private static final String KEY = "key";
+
+    @Test
+    public void testSet() {
+        final GlyphCache cache = new GlyphCache(40);
+        cache.set(17, true);
+        cache.set(18, false);
+
+        assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN, cache.get(16));
+        assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_EXISTS, cache.get(17));
+        assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_ABSENT, cache.get(18));
+
+        cache.reset(17);
+        assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN, cache.get(17));
+        assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_ABSENT, cache.get(18));
+    }
+
+    @Test
+    public void testSet_outOfRange() {
+        final GlyphCache cache = new GlyphCache(40);
+        cache.set(40, true);
+        cache.set(-1, true);
+
+        assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN, cache.get(40));
+        assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN, cache.get(-1));
+    }
+
+    @Test
+    public void testOnDirtyListener_calledOncePerWrite() throws IOException {
+        final GlyphCache cache = new GlyphCache(40);
+        final AtomicInteger calls = new AtomicInteger();
+        cache.setOnDirtyListener(calls::incrementAndGet);
+
+        cache.set(1, true);
+        cache.set(2, true);
+        cache.set(2, true);
+        assertEquals(1, calls.get());
+
+        write(cache, KEY);
+        cache.set(2, true);
+        assertEquals(1, calls.get());
+        cache.set(3, false);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testOnDirtyListener_calledWhenAlreadyDirty() {
+        final GlyphCache cache = new GlyphCache(40);
+        cache.set(1, true);
+        final AtomicInteger calls = new AtomicInteger();
+
+        cache.setOnDirtyListener(calls::incrementAndGet);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        final GlyphCache cache = new GlyphCache(40);
+        for (int i = 0; i < 40; i += 3) {
+            cache.set(i, i % 2 == 0);
+        }
+
+        final GlyphCache read = new GlyphCache(40);
+        read.set(1, true);
+        read.set(3, true);
+        read(read, write(cache, KEY), KEY);
+
+        for (int i = 0; i < 40; i++) {
+            if (i == 1 || i == 3) {
+                // known entries are kept
+                assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_EXISTS, read.get(i));
+            } else {
+                assertEquals(cache.get(i), read.get(i));
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_otherKey() throws IOException {
+        read(new GlyphCache(40), write(new GlyphCache(40), KEY), "other");
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_otherSize() throws IOException {
+        read(new GlyphCache(41), write(new GlyphCache(40), KEY), KEY);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_notACache() throws IOException {
+        read(new GlyphCache(40), new byte[64], KEY);
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        final File file = File.createTempFile("glyphs", null,
+                ApplicationProvider.getApplicationContext().getCacheDir());
+        try {
+            final GlyphCache cache = new GlyphCache(40);
+            cache.set(5, true);
+            cache.save(file, KEY);
+
+            final GlyphCache loaded = new GlyphCache(40);
+            loaded.load(file, KEY);
+            assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_EXISTS, loaded.get(5));
+
+            final GlyphCache otherKey = new GlyphCache(40);
+            otherKey.load(file, "other");
+            assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN, otherKey.get(5));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoad_missingFile() {
+        final GlyphCache cache = new GlyphCache(40);
+        cache.load(new File(ApplicationProvider.getApplicationContext().getCacheDir(),
+                "missing"), KEY);
+        assertEquals(TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN, cache.get(0));
+    }
+
+    private static byte[] write(GlyphCache cache, String key) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        cache.write(new DataOutputStream(bytes), key);
+        return bytes.toByteArray();
+    }
+
+    private static void read(GlyphCache cache, byte[] bytes, String key) throws IOException {
+        cache.read(new DataInputStream(new ByteArrayInputStream(bytes)), key);
+    }
+}
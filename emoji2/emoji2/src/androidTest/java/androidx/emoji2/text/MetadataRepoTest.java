@@ -95,20 +95,29 @@ public class MetadataRepoTest {
         assertNull(getNode(new int[]{1, 2, 3, 4, 5}));
     }
 
-    final TypefaceEmojiRasterizer getNode(final int[] codepoints) {
-        return getNode(mMetadataRepo.getRootNode(), codepoints, 0);
+    @Test
+    public void testPut_manyCodePoints() {
+        // enough emojis for the trie to grow a few times
+        final TypefaceEmojiRasterizer[] metadata = new TypefaceEmojiRasterizer[2000];
+        for (int i = 0; i < metadata.length; i++) {
+            metadata[i] = new TestTypefaceEmojiRasterizer(new int[]{0x1F000 + i / 2, i % 2});
+            mMetadataRepo.put(metadata[i]);
+        }
+
+        for (int i = 0; i < metadata.length; i++) {
+            assertSame(metadata[i], getNode(new int[]{0x1F000 + i / 2, i % 2}));
+        }
+        assertNull(getNode(new int[]{0x1F000}));
+        assertNull(getNode(new int[]{0x1F000, 2}));
+        assertNull(getNode(new int[]{0x1F000 + metadata.length, 0}));
     }
 
-    final TypefaceEmojiRasterizer getNode(
-            MetadataRepo.Node node,
-            final int[] codepoints,
-            int start
-    ) {
-        if (codepoints.length < start) return null;
-        if (codepoints.length == start) return node.getData();
-
-        final MetadataRepo.Node childNode = node.get(codepoints[start]);
-        if (childNode == null) return null;
-        return getNode(childNode, codepoints, start + 1);
+    final TypefaceEmojiRasterizer getNode(final int[] codepoints) {
+        int node = MetadataTrie.ROOT;
+        for (int codepoint : codepoints) {
+            node = mMetadataRepo.getChildNode(node, codepoint);
+            if (node == MetadataTrie.NONE) return null;
+        }
+        return mMetadataRepo.getNodeData(node);
     }
 }
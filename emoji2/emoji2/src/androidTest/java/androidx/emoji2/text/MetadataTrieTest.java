@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji2.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class MetadataTrieTest {
+    private static final int VERSION = 3;
+    private static final long CONTENT_HASH = 0x123456789abcdefL;
+
+    @Test
+    public void testAddChild_returnsExistingChild() {
+        final MetadataTrie trie = new MetadataTrie(1);
+        final int child = trie.addChild(MetadataTrie.ROOT, 0x1F600);
+        assertNotEquals(MetadataTrie.ROOT, child);
+        assertEquals(child, trie.addChild(MetadataTrie.ROOT, 0x1F600));
+        assertEquals(child, trie.getChild(MetadataTrie.ROOT, 0x1F600));
+        assertEquals(MetadataTrie.NONE, trie.getChild(child, 0x1F600));
+        assertEquals(MetadataTrie.NONE, trie.getData(child));
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        final MetadataTrie trie = createTrie();
+
+        final MetadataTrie read = MetadataTrie.read(ByteBuffer.wrap(write(trie, 100)), 100,
+                VERSION, CONTENT_HASH);
+
+        for (int i = 0; i < 100; i++) {
+            final int node = read.getChild(read.getChild(MetadataTrie.ROOT, i), 0xFE0F);
+            assertEquals(i, read.getData(node));
+        }
+        assertEquals(MetadataTrie.NONE, read.getChild(MetadataTrie.ROOT, 100));
+    }
+
+    @Test
+    public void testRead_movesPosition() throws IOException {
+        final byte[] bytes = write(createTrie(), 100);
+        final ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 4);
+        buffer.put(bytes).putInt(42).rewind();
+
+        MetadataTrie.read(buffer, 100, VERSION, CONTENT_HASH);
+
+        assertEquals(42, buffer.getInt());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_otherDataCount() throws IOException {
+        MetadataTrie.read(ByteBuffer.wrap(write(createTrie(), 100)), 99, VERSION, CONTENT_HASH);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_otherMetadataVersion() throws IOException {
+        MetadataTrie.read(ByteBuffer.wrap(write(createTrie(), 100)), 100, VERSION + 1,
+                CONTENT_HASH);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_otherContentWithSameDataCount() throws IOException {
+        // a stale index, for metadata with as many emojis but other codepoints
+        MetadataTrie.read(ByteBuffer.wrap(write(createTrie(), 100)), 100, VERSION,
+                CONTENT_HASH ^ 1L << 40);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_truncated() throws IOException {
+        final byte[] bytes = write(createTrie(), 100);
+        MetadataTrie.read(ByteBuffer.wrap(bytes, 0, bytes.length - 4), 100, VERSION,
+                CONTENT_HASH);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_notAnIndex() throws IOException {
+        MetadataTrie.read(ByteBuffer.wrap(new byte[64]), 100, VERSION, CONTENT_HASH);
+    }
+
+    private static MetadataTrie createTrie() {
+        final MetadataTrie trie = new MetadataTrie(4);
+        for (int i = 0; i < 100; i++) {
+            final int node = trie.addChild(trie.addChild(MetadataTrie.ROOT, i), 0xFE0F);
+            trie.setData(node, i);
+        }
+        return trie;
+    }
+
+    private static byte[] write(MetadataTrie trie, int dataCount) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        trie.write(new DataOutputStream(bytes), dataCount, VERSION, CONTENT_HASH);
+        return bytes.toByteArray();
+    }
+}
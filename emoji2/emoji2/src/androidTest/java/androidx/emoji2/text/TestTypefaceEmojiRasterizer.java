@@ -65,6 +65,16 @@ public class TestTypefaceEmojiRasterizer extends TypefaceEmojiRasterizer {
         return true;
     }
 
+    @Override
+    int getCachedHasGlyph() {
+        // not read from a MetadataRepo
+        return HAS_GLYPH_UNKNOWN;
+    }
+
+    @Override
+    void setCachedHasGlyph(int hasGlyph) {
+    }
+
     public CharSequence asCharSequence() {
         StringBuilder sb = new StringBuilder(mCodePoints.length);
         for (int i = 0; i < mCodePoints.length; i++) {
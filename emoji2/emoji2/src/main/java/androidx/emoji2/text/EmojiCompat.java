@@ -24,6 +24,7 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
 import android.text.Editable;
 import android.text.method.KeyListener;
 import android.view.KeyEvent;
@@ -44,6 +45,7 @@ import androidx.annotation.VisibleForTesting;
 import androidx.collection.ArraySet;
 import androidx.core.util.Preconditions;
 
+import java.io.File;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
@@ -408,6 +410,12 @@ public class EmojiCompat {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     private final GlyphChecker mGlyphChecker;
 
+    /**
+     * @see Config#setGlyphCacheFile(File)
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final @Nullable File mGlyphCacheFile;
+
     private static final String NOT_INITIALIZED_ERROR_TEXT = "EmojiCompat is not initialized.\n"
             + "\n"
             + "You must initialize EmojiCompat prior to referencing the EmojiCompat instance.\n"
@@ -457,6 +465,7 @@ public class EmojiCompat {
         mMetadataLoader = config.mMetadataLoader;
         mMetadataLoadStrategy = config.mMetadataLoadStrategy;
         mGlyphChecker = config.mGlyphChecker;
+        mGlyphCacheFile = config.mGlyphCacheFile;
         mInitCallbacks = new ArraySet<>();
         SpanFactory localSpanFactory = config.mSpanFactory;
         mSpanFactory = localSpanFactory != null ? localSpanFactory : new DefaultSpanFactory();
@@ -1143,21 +1152,109 @@ public class EmojiCompat {
             return charSequence;
         }
 
-        final boolean replaceAll;
+        return mHelper.process(charSequence, start, end, maxEmojiCount,
+                isReplaceAll(replaceStrategy));
+    }
+
+    /**
+     * Checks the edited range of a CharSequence for emojis, and adds EmojiSpans if any emojis are
+     * found, like {@link #process(CharSequence, int, int, int, int)}. The range is first widened
+     * to the emoji sequences that the edit joined or split, such as an emoji followed by an
+     * inserted skin tone modifier. EmojiSpans of the emojis that did not change are kept, so that
+     * processing long text after each small edit does not replace all its spans.
+     * <p>
+     * When used on devices running API 18 or below, returns the given {@code charSequence} without
+     * processing it.
+     *
+     * @param charSequence CharSequence to add the EmojiSpans, cannot be {@code null}
+     * @param start start index of the edited range, should be greater than or equal to {@code 0},
+     *              also less than or equal to {@code charSequence.length()}
+     * @param end end index of the edited range, should be greater than or equal to {@code start}
+     *            parameter, also less than or equal to {@code charSequence.length()}. Equal to
+     *            {@code start} if characters were deleted at {@code start}.
+     * @param maxEmojiCount maximum number of emojis in the {@code charSequence}, should be greater
+     *                      than or equal to {@code 0}
+     * @param replaceStrategy whether to replace all emoji with {@link EmojiSpan}s, should be one of
+     *                        {@link #REPLACE_STRATEGY_DEFAULT},
+     *                        {@link #REPLACE_STRATEGY_NON_EXISTENT},
+     *                        {@link #REPLACE_STRATEGY_ALL}
+     *
+     * @throws IllegalStateException if not initialized yet
+     * @throws IllegalArgumentException in the following cases:
+     *                                  {@code start < 0}, {@code end < 0}, {@code end < start},
+     *                                  {@code start > charSequence.length()},
+     *                                  {@code end > charSequence.length()}
+     *                                  {@code maxEmojiCount < 0}
+     */
+    @Nullable
+    @CheckResult
+    public CharSequence processEdit(@Nullable final CharSequence charSequence,
+            @IntRange(from = 0) final int start, @IntRange(from = 0) final int end,
+            @IntRange(from = 0) final int maxEmojiCount, @ReplaceStrategy int replaceStrategy) {
+        Preconditions.checkState(isInitialized(), "Not initialized yet");
+        Preconditions.checkArgumentNonnegative(start, "start cannot be negative");
+        Preconditions.checkArgumentNonnegative(end, "end cannot be negative");
+        Preconditions.checkArgumentNonnegative(maxEmojiCount, "maxEmojiCount cannot be negative");
+        Preconditions.checkArgument(start <= end, "start should be <= than end");
+
+        // early return since there is nothing to do
+        if (charSequence == null) {
+            return null;
+        }
+
+        Preconditions.checkArgument(start <= charSequence.length(),
+                "start should be < than charSequence length");
+        Preconditions.checkArgument(end <= charSequence.length(),
+                "end should be < than charSequence length");
+
+        // early return since there is nothing to do
+        if (charSequence.length() == 0) {
+            return charSequence;
+        }
+
+        return mHelper.processEdit(charSequence, start, end, maxEmojiCount,
+                isReplaceAll(replaceStrategy));
+    }
+
+    /**
+     * Checks each of the given CharSequences for emojis, and adds EmojiSpans if any emojis are
+     * found, like {@link #process(CharSequence)}. Processing many CharSequences in one call, such
+     * as the messages of a transcript, saves setting up the processing for each of them.
+     * <p>
+     * When used on devices running API 18 or below, returns the given CharSequences without
+     * processing them.
+     *
+     * @param charSequences CharSequences to add the EmojiSpans, {@code null} items are returned
+     *                      as {@code null}
+     * @param replaceStrategy whether to replace all emoji with {@link EmojiSpan}s, should be one of
+     *                        {@link #REPLACE_STRATEGY_DEFAULT},
+     *                        {@link #REPLACE_STRATEGY_NON_EXISTENT},
+     *                        {@link #REPLACE_STRATEGY_ALL}
+     *
+     * @return the processed CharSequences, in the same order as {@code charSequences}
+     *
+     * @throws IllegalStateException if not initialized yet
+     */
+    @NonNull
+    @CheckResult
+    public List<CharSequence> processBatch(
+            @NonNull final List<? extends CharSequence> charSequences,
+            @ReplaceStrategy int replaceStrategy) {
+        Preconditions.checkState(isInitialized(), "Not initialized yet");
+        Preconditions.checkNotNull(charSequences, "charSequences cannot be null");
+        return mHelper.processBatch(charSequences, isReplaceAll(replaceStrategy));
+    }
+
+    private boolean isReplaceAll(@ReplaceStrategy int replaceStrategy) {
         switch (replaceStrategy) {
             case REPLACE_STRATEGY_ALL:
-                replaceAll = true;
-                break;
+                return true;
             case REPLACE_STRATEGY_NON_EXISTENT:
-                replaceAll = false;
-                break;
+                return false;
             case REPLACE_STRATEGY_DEFAULT:
             default:
-                replaceAll = mReplaceAll;
-                break;
+                return mReplaceAll;
         }
-
-        return mHelper.process(charSequence, start, end, maxEmojiCount, replaceAll);
     }
 
     /**
@@ -1407,6 +1504,9 @@ public class EmojiCompat {
         @SuppressWarnings("WeakerAccess") /* synthetic access */
         @NonNull
         GlyphChecker mGlyphChecker = new DefaultGlyphChecker();
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        @Nullable
+        File mGlyphCacheFile;
 
         /**
          * Default constructor.
@@ -1637,6 +1737,26 @@ public class EmojiCompat {
             return this;
         }
 
+        /**
+         * Sets the file in which EmojiCompat keeps whether the system can render each emoji, so
+         * that the {@link GlyphChecker} is only called once per emoji instead of once per emoji
+         * per process. The file is read and written on a background thread, and is ignored
+         * when the metadata, the system build or the class of the GlyphChecker changes.
+         * <p>
+         * The GlyphChecker must give the same answer for an emoji for as long as the system
+         * build does not change. The file is typically in
+         * {@link Context#getNoBackupFilesDir()}, since it describes the device.
+         *
+         * @param glyphCacheFile the file to keep the results in, or {@code null} to only keep
+         *                       them in memory, which is the default
+         * @return EmojiCompat.Config instance
+         */
+        @NonNull
+        public Config setGlyphCacheFile(@Nullable File glyphCacheFile) {
+            mGlyphCacheFile = glyphCacheFile;
+            return this;
+        }
+
         /**
          * Returns the {@link MetadataRepoLoader}.
          */
@@ -1688,6 +1808,19 @@ public class EmojiCompat {
             return charSequence;
         }
 
+        CharSequence processEdit(@NonNull final CharSequence charSequence,
+                @IntRange(from = 0) final int start, @IntRange(from = 0) final int end,
+                @IntRange(from = 0) final int maxEmojiCount, boolean replaceAll) {
+            // Returns the given charSequence as it is.
+            return charSequence;
+        }
+
+        List<CharSequence> processBatch(@NonNull final List<? extends CharSequence> charSequences,
+                boolean replaceAll) {
+            // Returns the given charSequences as they are.
+            return new ArrayList<>(charSequences);
+        }
+
         void updateEditorInfoAttrs(@NonNull final EditorInfo outAttrs) {
             // Does not add any EditorInfo attributes.
         }
@@ -1704,6 +1837,9 @@ public class EmojiCompat {
 
     @RequiresApi(19)
     private static final class CompatInternal19 extends CompatInternal {
+        private static final String GLYPH_CACHE_THREAD_NAME = "EmojiCompatGlyphCache";
+        private static final long GLYPH_CACHE_SAVE_DELAY_MS = 1000;
+
         /**
          * Responsible to process a CharSequence and add the spans. @{code Null} until the time the
          * metadata is loaded.
@@ -1757,10 +1893,33 @@ public class EmojiCompat {
                     mEmojiCompat.mEmojiAsDefaultStyleExceptions,
                     EmojiExclusions.getEmojiExclusions()
             );
+            if (mEmojiCompat.mGlyphCacheFile != null) {
+                loadGlyphCache(metadataRepo, mEmojiCompat.mGlyphCacheFile);
+            }
 
             mEmojiCompat.onMetadataLoadSuccess();
         }
 
+        /**
+         * Reads the glyph cache of metadataRepo from file in the background, then saves it back
+         * a little after each time new results are added to it.
+         */
+        private void loadGlyphCache(@NonNull final MetadataRepo metadataRepo,
+                @NonNull final File file) {
+            final GlyphCache glyphCache = metadataRepo.getGlyphCache();
+            final String key = GlyphCache.createKey(metadataRepo, mEmojiCompat.mGlyphChecker);
+            final Executor executor = ConcurrencyHelpers.createBackgroundPriorityExecutor(
+                    GLYPH_CACHE_THREAD_NAME);
+            final Handler handler = ConcurrencyHelpers.mainHandlerAsync();
+            // results usually come in bursts while text is processed, save once per burst
+            final Runnable save = () -> executor.execute(() -> glyphCache.save(file, key));
+            executor.execute(() -> {
+                glyphCache.load(file, key);
+                glyphCache.setOnDirtyListener(
+                        () -> handler.postDelayed(save, GLYPH_CACHE_SAVE_DELAY_MS));
+            });
+        }
+
         @Override
         boolean hasEmojiGlyph(@NonNull CharSequence sequence) {
             return mProcessor.getEmojiMatch(sequence) == EMOJI_SUPPORTED;
@@ -1793,6 +1952,18 @@ public class EmojiCompat {
             return mProcessor.process(charSequence, start, end, maxEmojiCount, replaceAll);
         }
 
+        @Override
+        CharSequence processEdit(@NonNull CharSequence charSequence, int start, int end,
+                int maxEmojiCount, boolean replaceAll) {
+            return mProcessor.processEdit(charSequence, start, end, maxEmojiCount, replaceAll);
+        }
+
+        @Override
+        List<CharSequence> processBatch(@NonNull List<? extends CharSequence> charSequences,
+                boolean replaceAll) {
+            return mProcessor.processBatch(charSequences, replaceAll);
+        }
+
         @Override
         void updateEditorInfoAttrs(@NonNull EditorInfo outAttrs) {
             outAttrs.extras.putInt(EDITOR_INFO_METAVERSION_KEY, mMetadataRepo.getMetadataVersion());
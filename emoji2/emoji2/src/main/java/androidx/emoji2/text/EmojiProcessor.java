@@ -38,7 +38,10 @@ import androidx.annotation.RestrictTo;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 
@@ -95,6 +98,14 @@ final class EmojiProcessor {
      */
     private static final int MAX_LOOK_AROUND_CHARACTER = 16;
 
+    /**
+     * The max number of characters {@link #processEdit} looks around an edit for the rest of the
+     * emoji sequences that the edit joined or split.
+     */
+    private static final int MAX_SEQUENCE_LOOK_AROUND_CHARACTER = 64;
+
+    private static final int ZERO_WIDTH_JOINER = 0x200D;
+
     /**
      * Factory used to create EmojiSpans.
      */
@@ -158,7 +169,7 @@ final class EmojiProcessor {
     @EmojiCompat.CodepointSequenceMatchResult
     int getEmojiMatch(@NonNull final CharSequence charSequence,
             final int metadataVersion) {
-        final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
+        final ProcessorSm sm = new ProcessorSm(mMetadataRepo,
                 mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
         final int end = charSequence.length();
         int currentOffset = 0;
@@ -287,6 +298,104 @@ final class EmojiProcessor {
     CharSequence process(@NonNull final CharSequence charSequence, @IntRange(from = 0) int start,
             @IntRange(from = 0) int end, @IntRange(from = 0) int maxEmojiCount,
             final boolean replaceAll) {
+        return process(charSequence, start, end, maxEmojiCount, replaceAll, newProcessorSm());
+    }
+
+    /**
+     * Same as {@link #process(CharSequence, int, int, int, boolean)}, after widening the range to
+     * the emoji sequences the edit of the range may have joined or split. For instance, typing a
+     * skin tone modifier after an emoji changes the emoji before the edited range.
+     *
+     * @param charSequence CharSequence to add the EmojiSpans, cannot be {@code null}
+     * @param start start index of the edited range
+     * @param end end index of the edited range, equal to {@code start} for a deletion
+     * @param maxEmojiCount maximum number of emojis in the {@code charSequence}, should be greater
+     *                      than or equal to {@code 0}
+     * @param replaceAll whether to replace all emoji with {@link EmojiSpan}s
+     */
+    CharSequence processEdit(@NonNull final CharSequence charSequence,
+            @IntRange(from = 0) int start, @IntRange(from = 0) int end,
+            @IntRange(from = 0) int maxEmojiCount, final boolean replaceAll) {
+        final int length = charSequence.length();
+        final int minStart = Math.max(0, start - MAX_SEQUENCE_LOOK_AROUND_CHARACTER);
+        while (start > minStart && isInSequence(charSequence, start)) {
+            start -= Character.charCount(Character.codePointBefore(charSequence, start));
+        }
+        final int maxEnd = Math.min(length, end + MAX_SEQUENCE_LOOK_AROUND_CHARACTER);
+        while (end < maxEnd && isInSequence(charSequence, end)) {
+            end += Character.charCount(Character.codePointAt(charSequence, end));
+        }
+        return process(charSequence, start, end, maxEmojiCount, replaceAll, newProcessorSm());
+    }
+
+    /**
+     * Same as {@link #process(CharSequence, int, int, int, boolean)} on each of the
+     * CharSequences, without a limit on the number of emojis.
+     *
+     * @param charSequences CharSequences to add the EmojiSpans, {@code null} items are returned
+     *                      as they are
+     * @param replaceAll whether to replace all emoji with {@link EmojiSpan}s
+     *
+     * @return the processed CharSequences, in the same order
+     */
+    @NonNull
+    List<CharSequence> processBatch(@NonNull final List<? extends CharSequence> charSequences,
+            final boolean replaceAll) {
+        final ProcessorSm sm = newProcessorSm();
+        final int size = charSequences.size();
+        final List<CharSequence> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final CharSequence charSequence = charSequences.get(i);
+            if (charSequence == null || charSequence.length() == 0) {
+                result.add(charSequence);
+            } else {
+                result.add(process(charSequence, 0, charSequence.length(),
+                        EmojiCompat.EMOJI_COUNT_UNLIMITED, replaceAll, sm));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return whether index is inside an emoji sequence, between two codepoints that are only
+     *         rendered as an emoji together
+     */
+    private static boolean isInSequence(@NonNull final CharSequence charSequence,
+            final int index) {
+        if (index <= 0 || index >= charSequence.length()) {
+            return false;
+        }
+        final int before = Character.codePointBefore(charSequence, index);
+        final int after = Character.codePointAt(charSequence, index);
+        return before == ZERO_WIDTH_JOINER || after == ZERO_WIDTH_JOINER
+                || isSequenceModifier(after)
+                || (isRegionalIndicator(before) && isRegionalIndicator(after));
+    }
+
+    /**
+     * @return whether codePoint changes the emoji before it: a variation selector, a skin tone
+     *         modifier, a tag or the combining keycap
+     */
+    private static boolean isSequenceModifier(final int codePoint) {
+        return codePoint == 0xFE0E || codePoint == 0xFE0F
+                || (codePoint >= 0x1F3FB && codePoint <= 0x1F3FF)
+                || (codePoint >= 0xE0020 && codePoint <= 0xE007F)
+                || codePoint == 0x20E3;
+    }
+
+    private static boolean isRegionalIndicator(final int codePoint) {
+        return codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF;
+    }
+
+    private ProcessorSm newProcessorSm() {
+        return new ProcessorSm(mMetadataRepo, mUseEmojiAsDefaultStyle,
+                mEmojiAsDefaultStyleExceptions);
+    }
+
+    private CharSequence process(@NonNull final CharSequence charSequence,
+            @IntRange(from = 0) int start, @IntRange(from = 0) int end,
+            @IntRange(from = 0) int maxEmojiCount, final boolean replaceAll,
+            @NonNull final ProcessorSm sm) {
         final boolean isSpannableBuilder = charSequence instanceof SpannableBuilder;
         if (isSpannableBuilder) {
             ((SpannableBuilder) charSequence).beginBatchEdit();
@@ -310,22 +419,24 @@ final class EmojiProcessor {
                 }
             }
 
+            // existing spans that are replaced, unless the same emoji is found at the same place
+            final List<EmojiSpan> replacedSpans = new ArrayList<>();
             if (spannable != null) {
                 final EmojiSpan[] spans = spannable.getSpans(start, end, EmojiSpan.class);
                 if (spans != null && spans.length > 0) {
-                    // remove existing spans, and realign the start, end according to spans
+                    // replace existing spans, and realign the start, end according to spans
                     // if start or end is in the middle of an emoji they should be aligned
                     final int length = spans.length;
                     for (int index = 0; index < length; index++) {
                         final EmojiSpan span = spans[index];
                         final int spanStart = spannable.getSpanStart(span);
                         final int spanEnd = spannable.getSpanEnd(span);
-                        // Remove span only when its spanStart is NOT equal to current end.
+                        // Replace span only when its spanStart is NOT equal to current end.
                         // During add operation an emoji at index 0 is added with 0-1 as start and
                         // end indices. Therefore if there are emoji spans at [0-1] and [1-2]
                         // and end is 1, the span between 0-1 should be deleted, not 1-2.
                         if (spanStart != end) {
-                            spannable.removeSpan(span);
+                            replacedSpans.add(span);
                         }
                         start = Math.min(spanStart, start);
                         end = Math.max(spanEnd, end);
@@ -334,17 +445,22 @@ final class EmojiProcessor {
             }
 
             if (start == end || start >= charSequence.length()) {
+                removeSpans(spannable, replacedSpans);
                 return charSequence;
             }
 
             // calculate max number of emojis that can be added. since getSpans call is a relatively
             // expensive operation, do it only when maxEmojiCount is not unlimited.
             if (maxEmojiCount != EmojiCompat.EMOJI_COUNT_UNLIMITED && spannable != null) {
-                maxEmojiCount -= spannable.getSpans(0, spannable.length(), EmojiSpan.class).length;
+                maxEmojiCount -= spannable.getSpans(0, spannable.length(), EmojiSpan.class).length
+                        - replacedSpans.size();
             }
 
-            spannable = process(charSequence, start, end, maxEmojiCount, replaceAll,
-                    new EmojiProcessAddSpanCallback(spannable, mSpanFactory));
+            final EmojiProcessAddSpanCallback callback = new EmojiProcessAddSpanCallback(spannable,
+                    mSpanFactory, replacedSpans);
+            spannable = process(charSequence, start, end, maxEmojiCount, replaceAll, sm, callback);
+            // the spans of emojis that are still there were kept, remove the others
+            removeSpans(spannable, callback.getReplacedSpans());
 
             // if nothing was written, always return the source
             if (spannable != null) {
@@ -359,12 +475,32 @@ final class EmojiProcessor {
         }
     }
 
+    private static void removeSpans(@Nullable final Spannable spannable,
+            @NonNull final List<EmojiSpan> spans) {
+        if (spannable == null) {
+            return;
+        }
+        for (int i = 0; i < spans.size(); i++) {
+            final EmojiSpan span = spans.get(i);
+            if (span != null) {
+                spannable.removeSpan(span);
+            }
+        }
+    }
+
     private <T> T process(@NonNull final CharSequence charSequence, @IntRange(from = 0) int start,
             @IntRange(from = 0) int end, @IntRange(from = 0) int maxEmojiCount,
             final boolean processAll, final EmojiProcessCallback<T> emojiProcessCallback) {
+        return process(charSequence, start, end, maxEmojiCount, processAll, newProcessorSm(),
+                emojiProcessCallback);
+    }
+
+    private <T> T process(@NonNull final CharSequence charSequence, @IntRange(from = 0) int start,
+            @IntRange(from = 0) int end, @IntRange(from = 0) int maxEmojiCount,
+            final boolean processAll, @NonNull final ProcessorSm sm,
+            final EmojiProcessCallback<T> emojiProcessCallback) {
         int addedCount = 0;
-        final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
-                mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
+        sm.reset();
 
         int currentOffset = start;
         int codePoint = Character.codePointAt(charSequence, currentOffset);
@@ -585,14 +721,21 @@ final class EmojiProcessor {
      */
     private boolean hasGlyph(final CharSequence charSequence, int start, final int end,
             final TypefaceEmojiRasterizer rasterizer) {
-        // if the existence is not calculated yet
-        if (rasterizer.getHasGlyph() == TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN) {
-            final boolean hasGlyph = mGlyphChecker.hasGlyph(charSequence, start, end,
-                    rasterizer.getSdkAdded());
-            rasterizer.setHasGlyph(hasGlyph);
+        int hasGlyph = rasterizer.getHasGlyph();
+        // if the existence is not calculated yet for this instance
+        if (hasGlyph == TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN) {
+            // another instance for the same emoji, or an earlier process, may have calculated it
+            hasGlyph = rasterizer.getCachedHasGlyph();
+            if (hasGlyph == TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN) {
+                hasGlyph = mGlyphChecker.hasGlyph(charSequence, start, end,
+                        rasterizer.getSdkAdded()) ? TypefaceEmojiRasterizer.HAS_GLYPH_EXISTS
+                        : TypefaceEmojiRasterizer.HAS_GLYPH_ABSENT;
+                rasterizer.setCachedHasGlyph(hasGlyph);
+            }
+            rasterizer.setHasGlyph(hasGlyph == TypefaceEmojiRasterizer.HAS_GLYPH_EXISTS);
         }
 
-        return rasterizer.getHasGlyph() == TypefaceEmojiRasterizer.HAS_GLYPH_EXISTS;
+        return hasGlyph == TypefaceEmojiRasterizer.HAS_GLYPH_EXISTS;
     }
 
     /**
@@ -606,20 +749,20 @@ final class EmojiProcessor {
         private int mState = STATE_DEFAULT;
 
         /**
-         * Root of the trie
+         * Repo holding the trie
          */
-        private final MetadataRepo.Node mRootNode;
+        private final MetadataRepo mMetadataRepo;
 
         /**
          * Pointer to the node after last codepoint.
          */
-        private MetadataRepo.Node mCurrentNode;
+        private int mCurrentNode = MetadataTrie.ROOT;
 
         /**
          * The node where ACTION_FLUSH is called. Required since after flush action is
          * returned mCurrentNode is reset to be the root.
          */
-        private MetadataRepo.Node mFlushNode;
+        private int mFlushNode = MetadataTrie.NONE;
 
         /**
          * The code point that was checked.
@@ -641,10 +784,9 @@ final class EmojiProcessor {
          */
         private final int[] mEmojiAsDefaultStyleExceptions;
 
-        ProcessorSm(MetadataRepo.Node rootNode, boolean useEmojiAsDefaultStyle,
+        ProcessorSm(MetadataRepo metadataRepo, boolean useEmojiAsDefaultStyle,
                 int[] emojiAsDefaultStyleExceptions) {
-            mRootNode = rootNode;
-            mCurrentNode = rootNode;
+            mMetadataRepo = metadataRepo;
             mUseEmojiAsDefaultStyle = useEmojiAsDefaultStyle;
             mEmojiAsDefaultStyleExceptions = emojiAsDefaultStyleExceptions;
         }
@@ -652,10 +794,10 @@ final class EmojiProcessor {
         @Action
         int check(final int codePoint) {
             final int action;
-            MetadataRepo.Node node = mCurrentNode.get(codePoint);
+            final int node = mMetadataRepo.getChildNode(mCurrentNode, codePoint);
             switch (mState) {
                 case STATE_WALKING:
-                    if (node != null) {
+                    if (node != MetadataTrie.NONE) {
                         mCurrentNode = node;
                         mCurrentDepth += 1;
                         action = ACTION_ADVANCE_END;
@@ -664,7 +806,7 @@ final class EmojiProcessor {
                             action = reset();
                         } else if (isEmojiStyle(codePoint)) {
                             action = ACTION_ADVANCE_END;
-                        } else if (mCurrentNode.getData() != null) {
+                        } else if (mMetadataRepo.getNodeData(mCurrentNode) != null) {
                             if (mCurrentDepth == 1) {
                                 if (shouldUseEmojiPresentationStyleForSingleCodepoint()) {
                                     mFlushNode = mCurrentNode;
@@ -685,7 +827,7 @@ final class EmojiProcessor {
                     break;
                 case STATE_DEFAULT:
                 default:
-                    if (node == null) {
+                    if (node == MetadataTrie.NONE) {
                         action = reset();
                     } else {
                         mState = STATE_WALKING;
@@ -701,9 +843,9 @@ final class EmojiProcessor {
         }
 
         @Action
-        private int reset() {
+        int reset() {
             mState = STATE_DEFAULT;
-            mCurrentNode = mRootNode;
+            mCurrentNode = MetadataTrie.ROOT;
             mCurrentDepth = 0;
             return ACTION_ADVANCE_BOTH;
         }
@@ -712,14 +854,14 @@ final class EmojiProcessor {
          * @return the metadata node when ACTION_FLUSH is returned
          */
         TypefaceEmojiRasterizer getFlushMetadata() {
-            return mFlushNode.getData();
+            return mMetadataRepo.getNodeData(mFlushNode);
         }
 
         /**
          * @return current pointer to the metadata node in the trie
          */
         TypefaceEmojiRasterizer getCurrentMetadata() {
-            return mCurrentNode.getData();
+            return mMetadataRepo.getNodeData(mCurrentNode);
         }
 
         /**
@@ -730,12 +872,13 @@ final class EmojiProcessor {
          * @return whether the current state requires an emoji to be added
          */
         boolean isInFlushableState() {
-            return mState == STATE_WALKING && mCurrentNode.getData() != null
+            return mState == STATE_WALKING && mMetadataRepo.getNodeData(mCurrentNode) != null
                     && (mCurrentDepth > 1 || shouldUseEmojiPresentationStyleForSingleCodepoint());
         }
 
         private boolean shouldUseEmojiPresentationStyleForSingleCodepoint() {
-            if (mCurrentNode.getData().isDefaultEmoji()) {
+            final TypefaceEmojiRasterizer data = mMetadataRepo.getNodeData(mCurrentNode);
+            if (data.isDefaultEmoji()) {
                 // The codepoint is emoji style by default.
                 return true;
             }
@@ -749,7 +892,7 @@ final class EmojiProcessor {
                 if (mEmojiAsDefaultStyleExceptions == null) {
                     return true;
                 }
-                final int codepoint = mCurrentNode.getData().getCodepointAt(0);
+                final int codepoint = data.getCodepointAt(0);
                 final int index = Arrays.binarySearch(mEmojiAsDefaultStyleExceptions, codepoint);
                 if (index < 0) {
                     // Index is negative, so the codepoint was not found in the array of exceptions.
@@ -909,10 +1052,27 @@ final class EmojiProcessor {
         public UnprecomputeTextOnModificationSpannable spannable;
         private final EmojiCompat.SpanFactory mSpanFactory;
 
+        /**
+         * Spans being replaced, in start order. The ones kept for the same emoji are set to
+         * {@code null}.
+         */
+        private final List<EmojiSpan> mReplacedSpans;
+        private int mNextReplacedSpan;
+
         EmojiProcessAddSpanCallback(@Nullable UnprecomputeTextOnModificationSpannable spannable,
-                EmojiCompat.SpanFactory spanFactory) {
+                EmojiCompat.SpanFactory spanFactory, @NonNull List<EmojiSpan> replacedSpans) {
             this.spannable = spannable;
             this.mSpanFactory = spanFactory;
+            mReplacedSpans = replacedSpans;
+            if (spannable != null && replacedSpans.size() > 1) {
+                final Spannable source = spannable;
+                Collections.sort(replacedSpans, new Comparator<EmojiSpan>() {
+                    @Override
+                    public int compare(EmojiSpan lhs, EmojiSpan rhs) {
+                        return source.getSpanStart(lhs) - source.getSpanStart(rhs);
+                    }
+                });
+            }
         }
 
         @Override
@@ -921,6 +1081,10 @@ final class EmojiProcessor {
             if (metadata.isPreferredSystemRender()) {
                 return true;
             }
+            if (keepReplacedSpan(start, end, metadata)) {
+                // the emoji did not change, save the span watchers and the layout an update
+                return true;
+            }
             if (spannable == null) {
                 spannable = new UnprecomputeTextOnModificationSpannable(
                         charSequence instanceof Spannable
@@ -932,6 +1096,35 @@ final class EmojiProcessor {
             return true;
         }
 
+        /**
+         * @return {@code true} if a replaced span is already there for the emoji
+         */
+        private boolean keepReplacedSpan(int start, int end, TypefaceEmojiRasterizer metadata) {
+            // emojis are found in start order, so the spans before start cannot match anymore
+            while (mNextReplacedSpan < mReplacedSpans.size()) {
+                final EmojiSpan span = mReplacedSpans.get(mNextReplacedSpan);
+                final int spanStart = spannable.getSpanStart(span);
+                if (spanStart > start) {
+                    return false;
+                }
+                mNextReplacedSpan++;
+                if (spanStart == start && spannable.getSpanEnd(span) == end
+                        && span.getTypefaceRasterizer() == metadata) {
+                    mReplacedSpans.set(mNextReplacedSpan - 1, null);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the replaced spans that were not kept, with {@code null} for the kept ones
+         */
+        @NonNull
+        List<EmojiSpan> getReplacedSpans() {
+            return mReplacedSpans;
+        }
+
         @Override
         public UnprecomputeTextOnModificationSpannable getResult() {
             return spannable;
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji2.text;
+
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.core.util.AtomicFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Whether the system can render each emoji of a {@link MetadataRepo}, indexed like its
+ * {@link androidx.emoji2.text.flatbuffer.MetadataList}.
+ * <p>
+ * The results of {@link EmojiCompat.GlyphChecker} are kept as two bits per emoji, holding a
+ * {@link TypefaceEmojiRasterizer.HasGlyph} value, so that they survive the
+ * TypefaceEmojiRasterizer instances and can be written to a file and read back by the next
+ * process, see {@link #save(File, String)} and {@link #load(File, String)}. The results are only
+ * valid for the key they were computed for, which identifies the metadata, the system fonts and
+ * the GlyphChecker.
+ * <p>
+ * Reads are not synchronized: a thread may see a stale
+ * {@link TypefaceEmojiRasterizer#HAS_GLYPH_UNKNOWN}, which only costs one more call to the
+ * GlyphChecker.
+ */
+@AnyThread
+final class GlyphCache {
+    private static final String TAG = "EmojiCompat.GlyphCache";
+
+    private static final int MAGIC = 0x454d4a47; // "EMJG"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int BITS_PER_ENTRY = 2;
+    private static final int ENTRIES_PER_WORD = Integer.SIZE / BITS_PER_ENTRY;
+    private static final int ENTRY_MASK = (1 << BITS_PER_ENTRY) - 1;
+
+    private final int mSize;
+
+    /**
+     * {@link #ENTRIES_PER_WORD} entries per int, so that an entry is always written in a single
+     * int store.
+     */
+    private final int[] mWords;
+
+    /**
+     * Whether an entry changed since the cache was last saved. Guarded by this.
+     */
+    private boolean mDirty;
+
+    /**
+     * Called when the cache becomes dirty. Guarded by this.
+     */
+    @Nullable
+    private Runnable mOnDirtyListener;
+
+    /**
+     * @param size number of emojis in the metadata
+     */
+    GlyphCache(int size) {
+        mSize = size;
+        mWords = new int[(size + ENTRIES_PER_WORD - 1) / ENTRIES_PER_WORD];
+    }
+
+    /**
+     * @return the cached result for the emoji at index, or
+     * {@link TypefaceEmojiRasterizer#HAS_GLYPH_UNKNOWN} if it is not known or index is not part of
+     * the metadata
+     */
+    @TypefaceEmojiRasterizer.HasGlyph
+    int get(int index) {
+        if (index < 0 || index >= mSize) {
+            return TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN;
+        }
+        return (mWords[index / ENTRIES_PER_WORD] >>> shift(index)) & ENTRY_MASK;
+    }
+
+    /**
+     * Sets whether the system can render the emoji at index. Indices outside of the metadata are
+     * ignored.
+     */
+    void set(int index, boolean hasGlyph) {
+        setEntry(index, hasGlyph ? TypefaceEmojiRasterizer.HAS_GLYPH_EXISTS
+                : TypefaceEmojiRasterizer.HAS_GLYPH_ABSENT);
+    }
+
+    /**
+     * Forgets the result for the emoji at index.
+     */
+    void reset(int index) {
+        setEntry(index, TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN);
+    }
+
+    private void setEntry(int index, int value) {
+        if (index < 0 || index >= mSize) {
+            return;
+        }
+        final Runnable listener;
+        synchronized (this) {
+            final int word = index / ENTRIES_PER_WORD;
+            final int shift = shift(index);
+            final int oldValue = mWords[word];
+            final int newValue = (oldValue & ~(ENTRY_MASK << shift)) | (value << shift);
+            if (newValue == oldValue) {
+                return;
+            }
+            mWords[word] = newValue;
+            if (mDirty) {
+                return;
+            }
+            mDirty = true;
+            listener = mOnDirtyListener;
+        }
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private static int shift(int index) {
+        return (index % ENTRIES_PER_WORD) * BITS_PER_ENTRY;
+    }
+
+    /**
+     * Sets the listener called, on the thread that changed the cache, each time the cache becomes
+     * dirty, for instance to schedule a {@link #save(File, String)}. It is called right away if
+     * the cache is already dirty.
+     */
+    void setOnDirtyListener(@Nullable Runnable listener) {
+        final boolean dirty;
+        synchronized (this) {
+            mOnDirtyListener = listener;
+            dirty = mDirty;
+        }
+        if (dirty && listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Writes the cache in the format read by {@link #read(DataInputStream, String)}.
+     *
+     * @param out stream to write to, it is not closed
+     * @param key identifies the metadata, the system fonts and the GlyphChecker the results were
+     *            computed for
+     */
+    void write(@NonNull DataOutputStream out, @NonNull String key) throws IOException {
+        final int[] words;
+        synchronized (this) {
+            words = mWords.clone();
+            mDirty = false;
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(key);
+        out.writeInt(mSize);
+        for (int word : words) {
+            out.writeInt(word);
+        }
+    }
+
+    /**
+     * Reads a cache written by {@link #write(DataOutputStream, String)} into this one. Entries
+     * that are already known are kept.
+     *
+     * @param in stream to read from, it is not closed
+     * @param key the key the cache is expected to be written with
+     *
+     * @throws IOException if the stream does not hold a cache written for key with as many emojis
+     *                     as this one
+     */
+    void read(@NonNull DataInputStream in, @NonNull String key) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not an emoji glyph cache");
+        }
+        if (!key.equals(in.readUTF()) || in.readInt() != mSize) {
+            throw new IOException("Emoji glyph cache is out of date");
+        }
+        final int[] words = new int[mWords.length];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readInt();
+        }
+        for (int index = 0; index < mSize; index++) {
+            if (((words[index / ENTRIES_PER_WORD] >>> shift(index)) & ENTRY_MASK)
+                    > TypefaceEmojiRasterizer.HAS_GLYPH_EXISTS) {
+                throw new IOException("Emoji glyph cache is corrupt");
+            }
+        }
+        synchronized (this) {
+            for (int index = 0; index < mSize; index++) {
+                final int word = index / ENTRIES_PER_WORD;
+                final int shift = shift(index);
+                final int value = (words[word] >>> shift) & ENTRY_MASK;
+                if (((mWords[word] >>> shift) & ENTRY_MASK)
+                        == TypefaceEmojiRasterizer.HAS_GLYPH_UNKNOWN) {
+                    mWords[word] |= value << shift;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return key for the results of glyphChecker on the emojis of metadataRepo with the current
+     * system fonts
+     */
+    @NonNull
+    static String createKey(@NonNull MetadataRepo metadataRepo,
+            @NonNull EmojiCompat.GlyphChecker glyphChecker) {
+        // there is no API for the version of the system fonts, they change with system updates
+        return metadataRepo.getMetadataVersion()
+                + "/" + metadataRepo.getMetadataList().sourceSha()
+                + "/" + Build.VERSION.SDK_INT
+                + "/" + Build.FINGERPRINT
+                + "/" + glyphChecker.getClass().getName();
+    }
+
+    /**
+     * Reads the cache saved in file for key, if there is one. A missing, stale or corrupt file is
+     * ignored.
+     */
+    @WorkerThread
+    void load(@NonNull File file, @NonNull String key) {
+        final AtomicFile atomicFile = new AtomicFile(file);
+        try (DataInputStream in = new DataInputStream(atomicFile.openRead())) {
+            read(in, key);
+        } catch (FileNotFoundException e) {
+            // nothing saved yet
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring emoji glyph cache " + file, e);
+        }
+    }
+
+    /**
+     * Saves the cache to file for key, replacing the file atomically.
+     */
+    @WorkerThread
+    void save(@NonNull File file, @NonNull String key) {
+        final AtomicFile atomicFile = new AtomicFile(file);
+        FileOutputStream stream = null;
+        try {
+            stream = atomicFile.startWrite();
+            final DataOutputStream out = new DataOutputStream(stream);
+            write(out, key);
+            out.flush();
+            atomicFile.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot save emoji glyph cache " + file, e);
+            if (stream != null) {
+                atomicFile.failWrite(stream);
+            }
+        }
+    }
+}
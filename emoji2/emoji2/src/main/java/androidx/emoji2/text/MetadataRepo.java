@@ -19,20 +19,24 @@ import static androidx.annotation.RestrictTo.Scope.LIBRARY;
 
 import android.content.res.AssetManager;
 import android.graphics.Typeface;
-import android.util.SparseArray;
 
 import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.os.TraceCompat;
 import androidx.core.util.Preconditions;
+import androidx.emoji2.text.flatbuffer.MetadataItem;
 import androidx.emoji2.text.flatbuffer.MetadataList;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Class to hold the emoji metadata required to process and draw emojis.
@@ -41,9 +45,14 @@ import java.nio.ByteBuffer;
 @RequiresApi(19)
 public final class MetadataRepo {
     /**
-     * The default children size of the root node.
+     * Average number of codepoints per emoji, used to size the trie.
      */
-    private static final int DEFAULT_ROOT_SIZE = 1024;
+    private static final int EXPECTED_CODEPOINTS_PER_EMOJI = 2;
+    /**
+     * Parameters of the 64 bit FNV-1a hash of the metadata, see {@link #hashContent}.
+     */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
     private static final String S_TRACE_CREATE_REPO = "EmojiCompat.MetadataRepo.create";
 
     /**
@@ -59,9 +68,26 @@ public final class MetadataRepo {
     private final @NonNull char[] mEmojiCharArray;
 
     /**
-     * Empty root node of the trie.
+     * Trie from emoji codepoints to the index of their TypefaceEmojiRasterizer.
+     */
+    private final @NonNull MetadataTrie mTrie;
+
+    /**
+     * TypefaceEmojiRasterizer for each emoji in {@link #mMetadataList}, created the first time
+     * the emoji is found in text, followed by the ones added with {@link #put}.
+     */
+    private @NonNull AtomicReferenceArray<TypefaceEmojiRasterizer> mRasterizers;
+
+    /**
+     * Number of TypefaceEmojiRasterizers in {@link #mRasterizers}, including the ones that have
+     * not been created yet.
+     */
+    private int mRasterizerCount;
+
+    /**
+     * Whether the system can render each emoji in {@link #mMetadataList}.
      */
-    private final @NonNull Node mRootNode;
+    private final @NonNull GlyphCache mGlyphCache;
 
     /**
      * Typeface to be used to render emojis.
@@ -76,11 +102,28 @@ public final class MetadataRepo {
      */
     private MetadataRepo(@NonNull final Typeface typeface,
             @NonNull final MetadataList metadataList) {
+        this(typeface, metadataList, null);
+    }
+
+    /**
+     * Private constructor that is called by one of {@code create} methods.
+     *
+     * @param typeface Typeface to be used to render emojis
+     * @param metadataList MetadataList that contains the emoji metadata
+     * @param trie trie built by {@link #writeIndex(OutputStream)} from the same metadata, or
+     *             {@code null} to build it
+     */
+    private MetadataRepo(@NonNull final Typeface typeface,
+            @NonNull final MetadataList metadataList, @Nullable final MetadataTrie trie) {
         mTypeface = typeface;
         mMetadataList = metadataList;
-        mRootNode = new Node(DEFAULT_ROOT_SIZE);
-        mEmojiCharArray = new char[mMetadataList.listLength() * 2];
-        constructIndex(mMetadataList);
+        mRasterizerCount = mMetadataList.listLength();
+        mRasterizers = new AtomicReferenceArray<>(mRasterizerCount);
+        mEmojiCharArray = new char[mRasterizerCount * 2];
+        mGlyphCache = new GlyphCache(mRasterizerCount);
+        mTrie = trie != null ? trie
+                : new MetadataTrie(mRasterizerCount * EXPECTED_CODEPOINTS_PER_EMOJI);
+        constructIndex(mMetadataList, trie == null);
     }
 
     /**
@@ -136,6 +179,34 @@ public final class MetadataRepo {
         }
     }
 
+    /**
+     * Construct MetadataRepo from a byte buffer and an index previously written by
+     * {@link #writeIndex(OutputStream)} for the same metadata, which saves building the index.
+     * The index can be a file mapped in memory. The positions of the ByteBuffers will change, it
+     * is caller's responsibility to reposition the buffers if required.
+     *
+     * @param typeface Typeface to be used to render emojis
+     * @param byteBuffer ByteBuffer to read emoji metadata from
+     * @param indexBuffer ByteBuffer to read the emoji index from
+     *
+     * @throws IOException if the metadata cannot be read, or if the index was not written for
+     *                     the same metadata
+     */
+    @NonNull
+    public static MetadataRepo create(@NonNull final Typeface typeface,
+            @NonNull final ByteBuffer byteBuffer, @NonNull final ByteBuffer indexBuffer)
+            throws IOException {
+        try {
+            TraceCompat.beginSection(S_TRACE_CREATE_REPO);
+            final MetadataList metadataList = MetadataListReader.read(byteBuffer);
+            return new MetadataRepo(typeface, metadataList,
+                    MetadataTrie.read(indexBuffer, metadataList.listLength(),
+                            metadataList.version(), hashContent(metadataList)));
+        } finally {
+            TraceCompat.endSection();
+        }
+    }
+
     /**
      * Construct MetadataRepo from an asset.
      *
@@ -158,19 +229,67 @@ public final class MetadataRepo {
 
     /**
      * Read emoji metadata list and construct the trie.
+     *
+     * @param buildTrie {@code false} if the trie was read from a precompiled index
      */
-    private void constructIndex(final MetadataList metadataList) {
+    private void constructIndex(final MetadataList metadataList, final boolean buildTrie) {
+        final MetadataItem item = new MetadataItem();
         int length = metadataList.listLength();
         for (int i = 0; i < length; i++) {
-            final TypefaceEmojiRasterizer metadata = new TypefaceEmojiRasterizer(this, i);
+            metadataList.list(item, i);
             //since all emojis are mapped to a single codepoint in Private Use Area A they are 2
             //chars wide
             //noinspection ResultOfMethodCallIgnored
-            Character.toChars(metadata.getId(), mEmojiCharArray, i * 2);
-            put(metadata);
+            Character.toChars(item.id(), mEmojiCharArray, i * 2);
+            if (buildTrie) {
+                final int codepointsLength = item.codepointsLength();
+                Preconditions.checkArgument(codepointsLength > 0,
+                        "invalid metadata codepoint length");
+                int node = MetadataTrie.ROOT;
+                for (int j = 0; j < codepointsLength; j++) {
+                    node = mTrie.addChild(node, item.codepoints(j));
+                }
+                mTrie.setData(node, i);
+            }
         }
     }
 
+    /**
+     * Writes the index of the emoji metadata, so that it can be passed to
+     * {@link #create(Typeface, ByteBuffer, ByteBuffer)} instead of being built again, for
+     * instance cached in a file next to the font. The library does not close the given
+     * OutputStream.
+     *
+     * @param outputStream OutputStream to write the index to
+     */
+    public void writeIndex(@NonNull final OutputStream outputStream) throws IOException {
+        final DataOutputStream out = new DataOutputStream(outputStream);
+        mTrie.write(out, mMetadataList.listLength(), mMetadataList.version(),
+                hashContent(mMetadataList));
+        out.flush();
+    }
+
+    /**
+     * @return hash of the ids and codepoints of the emojis in metadataList, everything the index
+     * is built from, so that an index built from other metadata with the same number of emojis
+     * is not used
+     */
+    private static long hashContent(@NonNull final MetadataList metadataList) {
+        final MetadataItem item = new MetadataItem();
+        final int length = metadataList.listLength();
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < length; i++) {
+            metadataList.list(item, i);
+            hash = (hash ^ item.id()) * FNV_PRIME;
+            final int codepointsLength = item.codepointsLength();
+            hash = (hash ^ codepointsLength) * FNV_PRIME;
+            for (int j = 0; j < codepointsLength; j++) {
+                hash = (hash ^ item.codepoints(j)) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
     /**
      */
     @NonNull
@@ -187,11 +306,45 @@ public final class MetadataRepo {
     }
 
     /**
+     * @return the child of node in the trie for codePoint, or {@link MetadataTrie#NONE}
+     * @see MetadataTrie#ROOT
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    int getChildNode(final int node, final int codePoint) {
+        return mTrie.getChild(node, codePoint);
+    }
+
+    /**
+     * @return the emoji ending at node in the trie, or {@code null}
+     */
+    @Nullable
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    TypefaceEmojiRasterizer getNodeData(final int node) {
+        final int index = mTrie.getData(node);
+        if (index == MetadataTrie.NONE) {
+            return null;
+        }
+        final AtomicReferenceArray<TypefaceEmojiRasterizer> rasterizers = mRasterizers;
+        final TypefaceEmojiRasterizer rasterizer = rasterizers.get(index);
+        if (rasterizer != null) {
+            return rasterizer;
+        }
+        // Racing threads may each create one, but only the first one published is used, so that
+        // the state set on it, such as the exclusion, is seen by every thread.
+        final TypefaceEmojiRasterizer created = new TypefaceEmojiRasterizer(this, index);
+        if (rasterizers.compareAndSet(index, null, created)) {
+            return created;
+        }
+        return rasterizers.get(index);
+    }
+
+    /**
+     * @return whether the system can render the emojis of the metadata
      */
     @NonNull
     @RestrictTo(RestrictTo.Scope.LIBRARY)
-    Node getRootNode() {
-        return mRootNode;
+    GlyphCache getGlyphCache() {
+        return mGlyphCache;
     }
 
     /**
@@ -221,50 +374,20 @@ public final class MetadataRepo {
         Preconditions.checkArgument(data.getCodepointsLength() > 0,
                 "invalid metadata codepoint length");
 
-        mRootNode.put(data, 0, data.getCodepointsLength() - 1);
-    }
-
-    /**
-     * Trie node that holds mapping from emoji codepoint(s) to TypefaceEmojiRasterizer.
-     *
-     * A single codepoint emoji is represented by a child of the root node.
-     *
-     */
-    @RestrictTo(RestrictTo.Scope.LIBRARY)
-    static class Node {
-        private final SparseArray<Node> mChildren;
-        private TypefaceEmojiRasterizer mData;
-
-        private Node() {
-            this(1);
+        int node = MetadataTrie.ROOT;
+        for (int i = 0; i < data.getCodepointsLength(); i++) {
+            node = mTrie.addChild(node, data.getCodepointAt(i));
         }
-
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        Node(final int defaultChildrenSize) {
-            mChildren = new SparseArray<>(defaultChildrenSize);
-        }
-
-        Node get(final int key) {
-            return mChildren == null ? null : mChildren.get(key);
-        }
-
-        final TypefaceEmojiRasterizer getData() {
-            return mData;
-        }
-
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        void put(@NonNull final TypefaceEmojiRasterizer data, final int start, final int end) {
-            Node node = get(data.getCodepointAt(start));
-            if (node == null) {
-                node = new Node();
-                mChildren.put(data.getCodepointAt(start), node);
-            }
-
-            if (end > start) {
-                node.put(data, start + 1, end);
-            } else {
-                node.mData = data;
+        if (mRasterizerCount == mRasterizers.length()) {
+            final AtomicReferenceArray<TypefaceEmojiRasterizer> rasterizers =
+                    new AtomicReferenceArray<>(mRasterizerCount * 2 + 1);
+            for (int i = 0; i < mRasterizerCount; i++) {
+                rasterizers.set(i, mRasterizers.get(i));
             }
+            mRasterizers = rasterizers;
         }
+        mRasterizers.set(mRasterizerCount, data);
+        mTrie.setData(node, mRasterizerCount);
+        mRasterizerCount++;
     }
 }
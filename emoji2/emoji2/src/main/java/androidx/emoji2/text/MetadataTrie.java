@@ -0,0 +1,277 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji2.text;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Trie from emoji codepoint sequences to the index of their metadata, stored in flat int arrays.
+ * <p>
+ * Nodes are ints, the root being {@link #ROOT}. The edges of all the nodes are kept in a single
+ * open addressing hash table keyed by the parent node and the codepoint, so walking one codepoint
+ * down the trie only reads a few consecutive ints, and building the trie allocates no object per
+ * node. The arrays can also be written out once and read back with a bulk copy, see
+ * {@link #write(DataOutputStream, int, int, long)} and
+ * {@link #read(ByteBuffer, int, int, long)}.
+ */
+@AnyThread
+final class MetadataTrie {
+    /**
+     * Root node of the trie, the node for the empty codepoint sequence.
+     */
+    static final int ROOT = 0;
+
+    /**
+     * Returned for a missing child node, or for the data of a node that no emoji ends at.
+     */
+    static final int NONE = -1;
+
+    private static final int MAGIC = 0x454d4a54; // "EMJT"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Ints per edge in {@link #mEdges}: parent node, codepoint and child node.
+     */
+    private static final int EDGE_SIZE = 3;
+
+    private int mNodeCount;
+
+    /**
+     * Data index for each node, {@link #NONE} if no emoji ends at the node.
+     */
+    private int[] mNodeData;
+
+    private int mEdgeCount;
+
+    /**
+     * Hash table of edges, {@link #EDGE_SIZE} ints per slot. A child node of {@link #ROOT} marks
+     * an empty slot, since the root is never the child of another node.
+     */
+    private int[] mEdges;
+
+    /**
+     * @param expectedNodeCount number of nodes to allocate space for
+     */
+    MetadataTrie(int expectedNodeCount) {
+        final int nodeCount = Math.max(expectedNodeCount, 1);
+        mNodeData = new int[nodeCount];
+        Arrays.fill(mNodeData, NONE);
+        mNodeCount = 1;
+        mEdges = new int[tableSizeFor(nodeCount) * EDGE_SIZE];
+    }
+
+    private MetadataTrie(int nodeCount, int[] nodeData, int edgeCount, int[] edges) {
+        mNodeCount = nodeCount;
+        mNodeData = nodeData;
+        mEdgeCount = edgeCount;
+        mEdges = edges;
+    }
+
+    /**
+     * @return the child of node for codePoint, or {@link #NONE} if there is none
+     */
+    int getChild(int node, int codePoint) {
+        final int[] edges = mEdges;
+        final int mask = edges.length / EDGE_SIZE - 1;
+        int slot = hash(node, codePoint) & mask;
+        while (true) {
+            final int offset = slot * EDGE_SIZE;
+            final int child = edges[offset + 2];
+            if (child == ROOT) {
+                return NONE;
+            }
+            if (edges[offset + 1] == codePoint && edges[offset] == node) {
+                return child;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @return the data index of the emoji ending at node, or {@link #NONE}
+     */
+    int getData(int node) {
+        return mNodeData[node];
+    }
+
+    /**
+     * @return the child of node for codePoint, added to the trie if it was not there yet
+     */
+    int addChild(int node, int codePoint) {
+        final int existing = getChild(node, codePoint);
+        if (existing != NONE) {
+            return existing;
+        }
+        // keep the table at most half full so that probe sequences stay short
+        if ((mEdgeCount + 1) * 2 > mEdges.length / EDGE_SIZE) {
+            rehash(mEdges.length / EDGE_SIZE * 2);
+        }
+        if (mNodeCount == mNodeData.length) {
+            final int oldLength = mNodeData.length;
+            mNodeData = Arrays.copyOf(mNodeData, oldLength * 2);
+            Arrays.fill(mNodeData, oldLength, mNodeData.length, NONE);
+        }
+        final int child = mNodeCount++;
+        insertEdge(mEdges, node, codePoint, child);
+        mEdgeCount++;
+        return child;
+    }
+
+    /**
+     * Sets the data index of the emoji ending at node.
+     */
+    void setData(int node, int data) {
+        mNodeData[node] = data;
+    }
+
+    private void rehash(int slotCount) {
+        final int[] oldEdges = mEdges;
+        final int[] edges = new int[slotCount * EDGE_SIZE];
+        for (int offset = 0; offset < oldEdges.length; offset += EDGE_SIZE) {
+            if (oldEdges[offset + 2] != ROOT) {
+                insertEdge(edges, oldEdges[offset], oldEdges[offset + 1], oldEdges[offset + 2]);
+            }
+        }
+        mEdges = edges;
+    }
+
+    private static void insertEdge(int[] edges, int node, int codePoint, int child) {
+        final int mask = edges.length / EDGE_SIZE - 1;
+        int slot = hash(node, codePoint) & mask;
+        while (edges[slot * EDGE_SIZE + 2] != ROOT) {
+            slot = (slot + 1) & mask;
+        }
+        final int offset = slot * EDGE_SIZE;
+        edges[offset] = node;
+        edges[offset + 1] = codePoint;
+        edges[offset + 2] = child;
+    }
+
+    private static int hash(int node, int codePoint) {
+        final int h = (node * 31 + codePoint) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return smallest power of two slot count that keeps edgeCount edges at most half full
+     */
+    private static int tableSizeFor(int edgeCount) {
+        return Integer.highestOneBit(Math.max(edgeCount, 4) * 2 - 1) << 1;
+    }
+
+    /**
+     * Writes the trie in the format read by {@link #read(ByteBuffer, int, int, long)}.
+     * The metadata the trie was built from is identified by dataCount, metadataVersion and
+     * contentHash, which are checked when it is read.
+     *
+     * @param out stream to write to, it is not closed
+     * @param dataCount number of data indices the trie refers to
+     * @param metadataVersion version of the metadata
+     * @param contentHash hash of the content of the metadata
+     */
+    void write(@NonNull DataOutputStream out, int dataCount, int metadataVersion,
+            long contentHash) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(dataCount);
+        out.writeInt(metadataVersion);
+        out.writeLong(contentHash);
+        out.writeInt(mNodeCount);
+        out.writeInt(mEdges.length / EDGE_SIZE);
+        for (int i = 0; i < mNodeCount; i++) {
+            out.writeInt(mNodeData[i]);
+        }
+        for (int edge : mEdges) {
+            out.writeInt(edge);
+        }
+    }
+
+    /**
+     * Reads a trie written by {@link #write(DataOutputStream, int, int, long)}. The position of
+     * the buffer is moved past the trie.
+     *
+     * @param buffer buffer to read from, for instance a file mapped in memory
+     * @param dataCount number of data indices the trie is expected to refer to
+     * @param metadataVersion version of the metadata the trie is expected to be built from
+     * @param contentHash hash of the content of the metadata the trie is expected to be built
+     *                    from
+     *
+     * @throws IOException if the buffer does not hold a trie built from the same metadata
+     */
+    @NonNull
+    static MetadataTrie read(@NonNull ByteBuffer buffer, int dataCount, int metadataVersion,
+            long contentHash) throws IOException {
+        final ByteBuffer data = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (data.remaining() < HEADER_SIZE * 4) {
+            throw new IOException("Emoji index is truncated");
+        }
+        final IntBuffer ints = data.asIntBuffer();
+        if (ints.get() != MAGIC || ints.get() != FORMAT_VERSION) {
+            throw new IOException("Not an emoji index");
+        }
+        final int writtenDataCount = ints.get();
+        final int writtenMetadataVersion = ints.get();
+        final long writtenContentHash = ((long) ints.get() << 32) | (ints.get() & 0xFFFFFFFFL);
+        if (writtenDataCount != dataCount || writtenMetadataVersion != metadataVersion
+                || writtenContentHash != contentHash) {
+            throw new IOException("Emoji index does not match the metadata");
+        }
+        final int nodeCount = ints.get();
+        final int slotCount = ints.get();
+        if (nodeCount < 1 || slotCount < 1 || Integer.bitCount(slotCount) != 1
+                || slotCount > ints.remaining() / EDGE_SIZE
+                || nodeCount > ints.remaining() - slotCount * EDGE_SIZE) {
+            throw new IOException("Emoji index is truncated");
+        }
+        final int[] nodeData = new int[nodeCount];
+        final int[] edges = new int[slotCount * EDGE_SIZE];
+        ints.get(nodeData);
+        ints.get(edges);
+
+        // a corrupt index would otherwise fail much later, while processing text
+        for (int value : nodeData) {
+            if (value < NONE || value >= dataCount) {
+                throw new IOException("Emoji index is corrupt");
+            }
+        }
+        int edgeCount = 0;
+        for (int offset = 0; offset < edges.length; offset += EDGE_SIZE) {
+            final int child = edges[offset + 2];
+            if (child == ROOT) {
+                continue;
+            }
+            if (child < 0 || child >= nodeCount || edges[offset] < 0
+                    || edges[offset] >= nodeCount) {
+                throw new IOException("Emoji index is corrupt");
+            }
+            edgeCount++;
+        }
+        if (edgeCount * 2 > slotCount) {
+            throw new IOException("Emoji index is corrupt");
+        }
+        buffer.position(buffer.position() + (HEADER_SIZE + nodeCount + edges.length) * 4);
+        return new MetadataTrie(nodeCount, nodeData, edgeCount, edges);
+    }
+}
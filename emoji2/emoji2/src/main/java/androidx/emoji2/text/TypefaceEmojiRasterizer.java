@@ -234,6 +234,32 @@ public class TypefaceEmojiRasterizer {
         } else {
             mCache = 0b0000;
         }
+        setCachedHasGlyph(HAS_GLYPH_UNKNOWN);
+    }
+
+    /**
+     * Returns the hasGlyph value of this emoji kept by its MetadataRepo, which is shared with the
+     * other instances for the same emoji and can be persisted across processes.
+     *
+     * @see GlyphCache
+     */
+    @HasGlyph
+    int getCachedHasGlyph() {
+        return mMetadataRepo.getGlyphCache().get(mIndex);
+    }
+
+    /**
+     * Sets the hasGlyph value of this emoji kept by its MetadataRepo.
+     *
+     * @see #getCachedHasGlyph()
+     */
+    void setCachedHasGlyph(@HasGlyph int hasGlyph) {
+        final GlyphCache glyphCache = mMetadataRepo.getGlyphCache();
+        if (hasGlyph == HAS_GLYPH_UNKNOWN) {
+            glyphCache.reset(mIndex);
+        } else {
+            glyphCache.set(mIndex, hasGlyph == HAS_GLYPH_EXISTS);
+        }
     }
 
     /**
@@ -57,6 +57,7 @@ import org.junit.runner.RunWith;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.File;
@@ -67,9 +68,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Objects;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
@@ -967,6 +971,130 @@ public class ExifInterfaceTest {
 
     }
 
+    @Test
+    @LargeTest
+    public void testSaveAttributesInPlace() throws IOException {
+        File imageFile = clone(getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II));
+        // Make sure that the file stores the orientation in every directory that can hold it.
+        ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION,
+                Integer.toString(ExifInterface.ORIENTATION_NORMAL));
+        exif.saveAttributes();
+        byte[] before = readFully(imageFile);
+
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        long[] range = exif.getAttributeRange(ExifInterface.TAG_ORIENTATION);
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION,
+                Integer.toString(ExifInterface.ORIENTATION_ROTATE_90));
+        exif.saveAttributes();
+        byte[] after = readFully(imageFile);
+
+        // Only the orientation values changed.
+        assertEquals(before.length, after.length);
+        assertFalse(Arrays.equals(Arrays.copyOfRange(before, (int) range[0],
+                (int) (range[0] + range[1])), Arrays.copyOfRange(after, (int) range[0],
+                (int) (range[0] + range[1]))));
+        int changedBytes = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] != after[i]) {
+                changedBytes++;
+            }
+        }
+        assertTrue(changedBytes <= 2 * range[1]);
+        assertIntTag(new ExifInterface(imageFile.getAbsolutePath()),
+                ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_ROTATE_90);
+
+        // The same instance can patch the file again.
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION,
+                Integer.toString(ExifInterface.ORIENTATION_ROTATE_180));
+        exif.saveAttributes();
+        assertEquals(before.length, imageFile.length());
+        assertIntTag(new ExifInterface(imageFile.getAbsolutePath()),
+                ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_ROTATE_180);
+        assertBitmapsEquivalent(getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II), imageFile);
+    }
+
+    @Test
+    @LargeTest
+    public void testSaveAttributesInPlace_valueOfOtherSize() throws IOException {
+        File imageFile = clone(getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II));
+        ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
+        String make = exif.getAttribute(ExifInterface.TAG_MAKE);
+        exif.setAttribute(ExifInterface.TAG_MAKE, make + " and a longer name");
+        exif.saveAttributes();
+
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        assertEquals(make + " and a longer name", exif.getAttribute(ExifInterface.TAG_MAKE));
+        // Going back to the shorter value rewrites the file again.
+        exif.setAttribute(ExifInterface.TAG_MAKE, make);
+        exif.saveAttributes();
+        assertEquals(make, new ExifInterface(imageFile.getAbsolutePath())
+                .getAttribute(ExifInterface.TAG_MAKE));
+    }
+
+    @Test
+    @LargeTest
+    public void testReadSelectedTags() throws IOException {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        ExifInterface exif = new ExifInterface(imageFile);
+        ExifInterface selectedExif = new ExifInterface(imageFile,
+                Collections.singleton(ExifInterface.TAG_ORIENTATION));
+
+        assertEquals(exif.getAttribute(ExifInterface.TAG_ORIENTATION),
+                selectedExif.getAttribute(ExifInterface.TAG_ORIENTATION));
+        // The thumbnail is skipped when none of its tags are requested.
+        assertTrue(exif.hasThumbnail());
+        assertFalse(selectedExif.hasThumbnail());
+        assertNull(selectedExif.getThumbnail());
+        assertThrows(IOException.class, selectedExif::saveAttributes);
+    }
+
+    @Test
+    @LargeTest
+    public void testReadSelectedTags_fromInputStream() throws IOException {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_WITH_XMP);
+        ExifInterface exif = new ExifInterface(imageFile);
+        ExifInterface selectedExif;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(imageFile))) {
+            selectedExif = new ExifInterface(in, new HashSet<>(Arrays.asList(
+                    ExifInterface.TAG_DATETIME_ORIGINAL, ExifInterface.TAG_GPS_LATITUDE,
+                    ExifInterface.TAG_XMP)));
+        }
+
+        assertEquals(exif.getAttribute(ExifInterface.TAG_DATETIME_ORIGINAL),
+                selectedExif.getAttribute(ExifInterface.TAG_DATETIME_ORIGINAL));
+        assertEquals(exif.getAttribute(ExifInterface.TAG_GPS_LATITUDE),
+                selectedExif.getAttribute(ExifInterface.TAG_GPS_LATITUDE));
+        assertEquals(exif.getAttribute(ExifInterface.TAG_XMP),
+                selectedExif.getAttribute(ExifInterface.TAG_XMP));
+    }
+
+    @Test
+    @LargeTest
+    public void testReadFromByteBuffer() throws IOException {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        ExifInterface exif = new ExifInterface(imageFile);
+        byte[] imageBytes = readFully(imageFile);
+        // The image data does not start at the beginning of the buffer.
+        ByteBuffer buffer = ByteBuffer.allocate(imageBytes.length + 4);
+        buffer.position(4);
+        buffer.put(imageBytes);
+        buffer.position(4);
+        ExifInterface bufferExif = new ExifInterface(buffer);
+
+        assertEquals(4, buffer.position());
+        assertEquals(exif.getAttribute(ExifInterface.TAG_MAKE),
+                bufferExif.getAttribute(ExifInterface.TAG_MAKE));
+        assertEquals(exif.getAttribute(ExifInterface.TAG_ORIENTATION),
+                bufferExif.getAttribute(ExifInterface.TAG_ORIENTATION));
+        assertTrue(Arrays.equals(exif.getAttributeRange(ExifInterface.TAG_MAKE),
+                bufferExif.getAttributeRange(ExifInterface.TAG_MAKE)));
+        assertTrue(Arrays.equals(exif.getAttributeBytes(ExifInterface.TAG_MAKE),
+                bufferExif.getAttributeBytes(ExifInterface.TAG_MAKE)));
+        assertTrue(Arrays.equals(exif.getThumbnailBytes(), bufferExif.getThumbnailBytes()));
+        assertThrows(IOException.class, bufferExif::saveAttributes);
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     @SmallTest
@@ -1208,6 +1336,13 @@ public class ExifInterfaceTest {
             closeQuietly(in);
         }
 
+        // Creates via ByteBuffer.
+        try (FileChannel channel = new FileInputStream(imageFile).getChannel()) {
+            exifInterface = new ExifInterface(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            compareWithExpectedValue(exifInterface, expectedValue, verboseTag, true);
+        }
+
         // Creates via FileDescriptor.
         if (Build.VERSION.SDK_INT >= 21) {
             FileDescriptor fd = null;
@@ -1503,6 +1638,14 @@ public class ExifInterfaceTest {
         }
     }
 
+    private byte[] readFully(File file) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            copy(inputStream, outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
     private File clone(File original) throws IOException {
         File cloned =
                 File.createTempFile("tmp_", System.nanoTime() + "_" + original.getName());
@@ -21,6 +21,7 @@ import static androidx.exifinterface.media.ExifInterfaceUtils.closeQuietly;
 import static androidx.exifinterface.media.ExifInterfaceUtils.convertToLongArray;
 import static androidx.exifinterface.media.ExifInterfaceUtils.copy;
 import static androidx.exifinterface.media.ExifInterfaceUtils.parseSubSeconds;
+import static androidx.exifinterface.media.ExifInterfaceUtils.sliceFrom;
 import static androidx.exifinterface.media.ExifInterfaceUtils.startsWith;
 
 import static java.nio.ByteOrder.BIG_ENDIAN;
@@ -61,13 +62,17 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
@@ -3112,7 +3117,10 @@ public class ExifInterface {
         public final int format;
         public final int numberOfComponents;
         public final long bytesOffset;
-        public final byte[] bytes;
+        // The value, or null until it is copied out of mByteBuffer
+        private byte[] mBytes;
+        // A view of the value in the image data, or null if the value is held by mBytes
+        private final ByteBuffer mByteBuffer;
 
         @SuppressWarnings("WeakerAccess") /* synthetic access */
         ExifAttribute(int format, int numberOfComponents, byte[] bytes) {
@@ -3124,7 +3132,44 @@ public class ExifInterface {
             this.format = format;
             this.numberOfComponents = numberOfComponents;
             this.bytesOffset = bytesOffset;
-            this.bytes = bytes;
+            this.mBytes = bytes;
+            this.mByteBuffer = null;
+        }
+
+        /**
+         * Creates an attribute whose value stays in the given view of the image data until its
+         * bytes are requested. The view must not be modified afterwards.
+         */
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        ExifAttribute(int format, int numberOfComponents, long bytesOffset,
+                ByteBuffer byteBuffer) {
+            this.format = format;
+            this.numberOfComponents = numberOfComponents;
+            this.bytesOffset = bytesOffset;
+            this.mBytes = null;
+            this.mByteBuffer = byteBuffer;
+        }
+
+        /** Returns the raw bytes of the value, copying them out of the image data if needed. */
+        public byte[] getBytes() {
+            if (mBytes == null) {
+                final byte[] bytes = new byte[mByteBuffer.remaining()];
+                mByteBuffer.duplicate().get(bytes);
+                mBytes = bytes;
+            }
+            return mBytes;
+        }
+
+        /** Returns the length of the raw value, without copying it. */
+        public int getByteCount() {
+            return mBytes != null ? mBytes.length : mByteBuffer.remaining();
+        }
+
+        // Returns the value as a buffer positioned at its start, without copying it
+        private ByteBuffer getValueBuffer(ByteOrder byteOrder) {
+            final ByteBuffer buffer = mBytes != null
+                    ? ByteBuffer.wrap(mBytes) : mByteBuffer.duplicate();
+            return buffer.order(byteOrder);
         }
 
         public static ExifAttribute createUShort(int[] values, ByteOrder byteOrder) {
@@ -3219,23 +3264,21 @@ public class ExifInterface {
         @NonNull
         @Override
         public String toString() {
-            return "(" + IFD_FORMAT_NAMES[format] + ", data length:" + bytes.length + ")";
+            return "(" + IFD_FORMAT_NAMES[format] + ", data length:" + getByteCount() + ")";
         }
 
         @SuppressWarnings("WeakerAccess") /* synthetic access */
         Object getValue(ByteOrder byteOrder) {
-            ByteOrderedDataInputStream inputStream = null;
             try {
-                inputStream = new ByteOrderedDataInputStream(bytes);
-                inputStream.setByteOrder(byteOrder);
+                final ByteBuffer buffer = getValueBuffer(byteOrder);
                 switch (format) {
                     case IFD_FORMAT_BYTE:
                     case IFD_FORMAT_SBYTE: {
                         // Exception for GPSAltitudeRef tag
-                        if (bytes.length == 1 && bytes[0] >= 0 && bytes[0] <= 1) {
-                            return new String(new char[] { (char) (bytes[0] + '0') });
+                        if (buffer.remaining() == 1 && buffer.get(0) >= 0 && buffer.get(0) <= 1) {
+                            return new String(new char[] { (char) (buffer.get(0) + '0') });
                         }
-                        return new String(bytes, ASCII);
+                        return new String(getBytes(), ASCII);
                     }
                     case IFD_FORMAT_UNDEFINED:
                     case IFD_FORMAT_STRING: {
@@ -3243,7 +3286,7 @@ public class ExifInterface {
                         if (numberOfComponents >= EXIF_ASCII_PREFIX.length) {
                             boolean same = true;
                             for (int i = 0; i < EXIF_ASCII_PREFIX.length; ++i) {
-                                if (bytes[i] != EXIF_ASCII_PREFIX[i]) {
+                                if (buffer.get(i) != EXIF_ASCII_PREFIX[i]) {
                                     same = false;
                                     break;
                                 }
@@ -3255,7 +3298,7 @@ public class ExifInterface {
 
                         StringBuilder stringBuilder = new StringBuilder();
                         while (index < numberOfComponents) {
-                            int ch = bytes[index];
+                            int ch = buffer.get(index);
                             if (ch == 0) {
                                 break;
                             }
@@ -3271,22 +3314,22 @@ public class ExifInterface {
                     case IFD_FORMAT_USHORT: {
                         final int[] values = new int[numberOfComponents];
                         for (int i = 0; i < numberOfComponents; ++i) {
-                            values[i] = inputStream.readUnsignedShort();
+                            values[i] = buffer.getShort() & 0xffff;
                         }
                         return values;
                     }
                     case IFD_FORMAT_ULONG: {
                         final long[] values = new long[numberOfComponents];
                         for (int i = 0; i < numberOfComponents; ++i) {
-                            values[i] = inputStream.readUnsignedInt();
+                            values[i] = buffer.getInt() & 0xffffffffL;
                         }
                         return values;
                     }
                     case IFD_FORMAT_URATIONAL: {
                         final Rational[] values = new Rational[numberOfComponents];
                         for (int i = 0; i < numberOfComponents; ++i) {
-                            final long numerator = inputStream.readUnsignedInt();
-                            final long denominator = inputStream.readUnsignedInt();
+                            final long numerator = buffer.getInt() & 0xffffffffL;
+                            final long denominator = buffer.getInt() & 0xffffffffL;
                             values[i] = new Rational(numerator, denominator);
                         }
                         return values;
@@ -3294,22 +3337,22 @@ public class ExifInterface {
                     case IFD_FORMAT_SSHORT: {
                         final int[] values = new int[numberOfComponents];
                         for (int i = 0; i < numberOfComponents; ++i) {
-                            values[i] = inputStream.readShort();
+                            values[i] = buffer.getShort();
                         }
                         return values;
                     }
                     case IFD_FORMAT_SLONG: {
                         final int[] values = new int[numberOfComponents];
                         for (int i = 0; i < numberOfComponents; ++i) {
-                            values[i] = inputStream.readInt();
+                            values[i] = buffer.getInt();
                         }
                         return values;
                     }
                     case IFD_FORMAT_SRATIONAL: {
                         final Rational[] values = new Rational[numberOfComponents];
                         for (int i = 0; i < numberOfComponents; ++i) {
-                            final long numerator = inputStream.readInt();
-                            final long denominator = inputStream.readInt();
+                            final long numerator = buffer.getInt();
+                            final long denominator = buffer.getInt();
                             values[i] = new Rational(numerator, denominator);
                         }
                         return values;
@@ -3317,31 +3360,23 @@ public class ExifInterface {
                     case IFD_FORMAT_SINGLE: {
                         final double[] values = new double[numberOfComponents];
                         for (int i = 0; i < numberOfComponents; ++i) {
-                            values[i] = inputStream.readFloat();
+                            values[i] = buffer.getFloat();
                         }
                         return values;
                     }
                     case IFD_FORMAT_DOUBLE: {
                         final double[] values = new double[numberOfComponents];
                         for (int i = 0; i < numberOfComponents; ++i) {
-                            values[i] = inputStream.readDouble();
+                            values[i] = buffer.getDouble();
                         }
                         return values;
                     }
                     default:
                         return null;
                 }
-            } catch (IOException e) {
-                Log.w(TAG, "IOException occurred during reading a value", e);
+            } catch (BufferUnderflowException e) {
+                Log.w(TAG, "BufferUnderflowException occurred during reading a value", e);
                 return null;
-            } finally {
-                if (inputStream != null) {
-                    try {
-                        inputStream.close();
-                    } catch (IOException e) {
-                        Log.e(TAG, "IOException occurred while closing InputStream", e);
-                    }
-                }
             }
         }
 
@@ -3877,11 +3912,21 @@ public class ExifInterface {
     private String mFilename;
     private FileDescriptor mSeekableFileDescriptor;
     private AssetManager.AssetInputStream mAssetInputStream;
+    // The image data when read from a buffer, which the attributes are views into
+    @Nullable
+    private ByteBuffer mByteBuffer;
     private int mMimeType;
     private boolean mIsExifDataOnly;
+    // The tags to read, or null to read all of them
+    @Nullable
+    private Set<String> mTagsToRead;
     @SuppressWarnings("unchecked")
     private final HashMap<String, ExifAttribute>[] mAttributes = new HashMap[EXIF_TAGS.length];
     private Set<Integer> mAttributesOffsets = new HashSet<>(EXIF_TAGS.length);
+    // The attributes as they are stored in the file, to find the ones that can be patched in place
+    // by saveAttributes(). Null once the file has been rewritten, since their offsets are stale.
+    @Nullable
+    private HashMap<String, ExifAttribute>[] mStoredAttributes;
     private ByteOrder mExifByteOrder = BIG_ENDIAN;
     private boolean mHasThumbnail;
     private boolean mHasThumbnailStrips;
@@ -3929,6 +3974,32 @@ public class ExifInterface {
         initForFilename(file.getAbsolutePath());
     }
 
+    /**
+     * Reads the given Exif tags from the specified image file. Only the image file directories
+     * that can hold these tags are parsed, and the thumbnail is skipped unless one of its tags is
+     * requested, so that little more than the Exif data of the file is read. Other tags may or may
+     * not be available. Attribute mutation is not supported since the other tags would be lost.
+     * <p>
+     * For example, {@code new ExifInterface(file, Collections.singleton(TAG_ORIENTATION))} reads
+     * the orientation of an image while skipping most of its metadata.
+     *
+     * @param file the file of the image data
+     * @param tags the names of the tags to read, such as {@link #TAG_ORIENTATION}
+     * @throws NullPointerException if file or tags is null
+     * @throws IOException if an I/O error occurs while retrieving file descriptor via
+     *         {@link FileInputStream#getFD()}.
+     */
+    public ExifInterface(@NonNull File file, @NonNull Set<String> tags) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("file cannot be null");
+        }
+        if (tags == null) {
+            throw new NullPointerException("tags cannot be null");
+        }
+        mTagsToRead = new HashSet<>(tags);
+        initForFilename(file.getAbsolutePath());
+    }
+
     /**
      * Reads Exif tags from the specified image file.
      *
@@ -3987,6 +4058,28 @@ public class ExifInterface {
         }
     }
 
+    /**
+     * Reads Exif tags from the remaining bytes of the specified buffer, from its position to its
+     * limit, without changing its position. Tag values are kept in the buffer until they are
+     * requested instead of being copied out of it, so reading the Exif data of a file through a
+     * {@link java.nio.MappedByteBuffer} from {@link java.nio.channels.FileChannel#map} avoids both
+     * the copies and most of the reads of the other constructors. The buffer must not be modified
+     * while this object is in use. Attribute mutation is not supported for buffers.
+     *
+     * @param buffer the buffer that contains the image data
+     * @throws NullPointerException if the buffer is null
+     */
+    public ExifInterface(@NonNull ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new NullPointerException("buffer cannot be null");
+        }
+        mAssetInputStream = null;
+        mFilename = null;
+        mSeekableFileDescriptor = null;
+        mByteBuffer = buffer.slice();
+        loadAttributes(new ByteBufferInputStream(mByteBuffer));
+    }
+
     /**
      * Reads Exif tags from the specified image input stream. Attribute mutation is not supported
      * for input streams. The given input stream will proceed from its current position. Developers
@@ -4014,10 +4107,36 @@ public class ExifInterface {
      */
     public ExifInterface(@NonNull InputStream inputStream, @ExifStreamType int streamType)
             throws IOException {
+        this(inputStream, streamType, null);
+    }
+
+    /**
+     * Reads the given Exif tags from the specified image input stream. Only the image file
+     * directories that can hold these tags are parsed, and the thumbnail is skipped unless one of
+     * its tags is requested, so that the stream is read little further than its Exif data. Other
+     * tags may or may not be available. Attribute mutation is not supported for input streams. The
+     * given input stream will proceed from its current position. Developers should close the input
+     * stream after use. This constructor is not intended to be used with an input stream that
+     * performs any networking operations.
+     *
+     * @param inputStream the input stream that contains the image data
+     * @param tags the names of the tags to read, such as {@link #TAG_ORIENTATION}
+     * @throws NullPointerException if the input stream or tags is null
+     * @throws IOException if an I/O error occurs while retrieving file descriptor via
+     *         {@link FileInputStream#getFD()}.
+     */
+    public ExifInterface(@NonNull InputStream inputStream, @NonNull Set<String> tags)
+            throws IOException {
+        this(inputStream, STREAM_TYPE_FULL_IMAGE_DATA, requireTags(tags));
+    }
+
+    private ExifInterface(@NonNull InputStream inputStream, @ExifStreamType int streamType,
+            @Nullable Set<String> tags) throws IOException {
         if (inputStream == null) {
             throw new NullPointerException("inputStream cannot be null");
         }
         mFilename = null;
+        mTagsToRead = tags != null ? new HashSet<>(tags) : null;
 
         mIsExifDataOnly = streamType == STREAM_TYPE_EXIF_DATA_ONLY;
         if (mIsExifDataOnly) {
@@ -4039,6 +4158,13 @@ public class ExifInterface {
         loadAttributes(inputStream);
     }
 
+    private static Set<String> requireTags(Set<String> tags) {
+        if (tags == null) {
+            throw new NullPointerException("tags cannot be null");
+        }
+        return tags;
+    }
+
     /**
      * Returns whether ExifInterface currently supports reading data from the specified mime type
      * or not.
@@ -4561,8 +4687,11 @@ public class ExifInterface {
 
             // Check file type
             if (!mIsExifDataOnly) {
-                in = new BufferedInputStream(in, SIGNATURE_CHECK_SIZE);
-                mMimeType = getMimeType((BufferedInputStream) in);
+                if (!(in instanceof ByteBufferInputStream)) {
+                    // A buffer is read directly, so that the attributes can be views into it.
+                    in = new BufferedInputStream(in, SIGNATURE_CHECK_SIZE);
+                }
+                mMimeType = getMimeType(in);
             }
 
             if (shouldSupportSeek(mMimeType)) {
@@ -4609,6 +4738,7 @@ public class ExifInterface {
             }
         } finally {
             addDefaultValuesForCompatibility();
+            storeAttributes();
 
             if (DEBUG) {
                 printAttributes();
@@ -4616,6 +4746,15 @@ public class ExifInterface {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private void storeAttributes() {
+        final HashMap<String, ExifAttribute>[] storedAttributes = new HashMap[EXIF_TAGS.length];
+        for (int i = 0; i < EXIF_TAGS.length; i++) {
+            storedAttributes[i] = new HashMap<>(mAttributes[i]);
+        }
+        mStoredAttributes = storedAttributes;
+    }
+
     private static boolean isSeekableFD(FileDescriptor fd) {
         if (Build.VERSION.SDK_INT >= 21) {
             try {
@@ -4649,6 +4788,11 @@ public class ExifInterface {
      * other. It's best to use {@link #setAttribute(String,String)} to set all attributes to write
      * and make a single call rather than multiple calls for each attribute.
      * <p>
+     * For JPEG and WebP files, when every attribute set since the file was read replaces an
+     * existing value of the same format and size, such as the orientation, the new values are
+     * written over the old ones instead, without copying the file. Adding or removing an
+     * attribute, or changing the size of its value, still rewrites the whole file.
+     * <p>
      * This method is supported for JPEG, PNG, and WebP formats.
      * <p class="note">
      * Note: after calling this method, any attempts to obtain range information
@@ -4671,6 +4815,10 @@ public class ExifInterface {
             throw new IOException(
                     "ExifInterface does not support saving attributes for the current input.");
         }
+        if (mTagsToRead != null) {
+            throw new IOException("ExifInterface does not support saving attributes when only "
+                    + "some tags were read.");
+        }
         if (mHasThumbnail && mHasThumbnailStrips && !mAreThumbnailStripsConsecutive) {
             throw new IOException("ExifInterface does not support saving attributes when the image "
                     + "file has non-consecutive thumbnail strips");
@@ -4680,6 +4828,12 @@ public class ExifInterface {
         // originally parsed, meaning we can't answer range questions
         mModified = true;
 
+        if (saveAttributesInPlace()) {
+            return;
+        }
+        // The offsets of the stored attributes do not survive the rewrite
+        mStoredAttributes = null;
+
         // Keep the thumbnail in memory
         mThumbnailBytes = getThumbnail();
 
@@ -4771,6 +4925,89 @@ public class ExifInterface {
         mThumbnailBytes = null;
     }
 
+    /**
+     * Writes the attributes set since the file was read over their stored values, when each of
+     * them has the same format and size as the value it replaces.
+     *
+     * @return false if the file needs to be rewritten instead, in which case it is left untouched
+     */
+    private boolean saveAttributesInPlace() throws IOException {
+        final HashMap<String, ExifAttribute>[] storedAttributes = mStoredAttributes;
+        if (storedAttributes == null
+                || (mMimeType != IMAGE_TYPE_JPEG && mMimeType != IMAGE_TYPE_WEBP)) {
+            // PNG chunks end with a CRC of their data, which patching the data would invalidate.
+            return false;
+        }
+
+        final List<Integer> ifdTypes = new ArrayList<>();
+        final List<String> tags = new ArrayList<>();
+        final List<ExifAttribute> patches = new ArrayList<>();
+        for (int ifdType = 0; ifdType < EXIF_TAGS.length; ++ifdType) {
+            if (!mAttributes[ifdType].keySet().containsAll(storedAttributes[ifdType].keySet())) {
+                return false;
+            }
+            for (Map.Entry<String, ExifAttribute> entry : mAttributes[ifdType].entrySet()) {
+                final ExifAttribute attribute = entry.getValue();
+                final ExifAttribute stored = storedAttributes[ifdType].get(entry.getKey());
+                if (attribute == stored) {
+                    continue;
+                }
+                if (stored == null) {
+                    if (ifdType > IFD_TYPE_THUMBNAIL) {
+                        // Rewriting the file does not link these IFDs either, see
+                        // writeExifSegment(), so the new tags would not be read back anyway.
+                        continue;
+                    }
+                    return false;
+                }
+                if (stored.bytesOffset == ExifAttribute.BYTES_OFFSET_UNKNOWN
+                        || attribute.format != stored.format
+                        || attribute.getByteCount() != stored.getByteCount()) {
+                    return false;
+                }
+                ifdTypes.add(ifdType);
+                tags.add(entry.getKey());
+                patches.add(new ExifAttribute(attribute.format, attribute.numberOfComponents,
+                        stored.bytesOffset, attribute.getBytes()));
+            }
+        }
+        if (patches.isEmpty()) {
+            return true;
+        }
+
+        RandomAccessFile file = null;
+        FileOutputStream out = null;
+        try {
+            final FileChannel channel;
+            if (mFilename != null) {
+                file = new RandomAccessFile(mFilename, "rw");
+                channel = file.getChannel();
+            } else {
+                out = new FileOutputStream(mSeekableFileDescriptor);
+                channel = out.getChannel();
+            }
+            for (ExifAttribute patch : patches) {
+                final ByteBuffer buffer = ByteBuffer.wrap(patch.getBytes());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, patch.bytesOffset + buffer.position());
+                }
+            }
+        } catch (Exception e) {
+            throw new IOException("Failed to save new file", e);
+        } finally {
+            closeQuietly(file);
+            closeQuietly(out);
+        }
+
+        // Keep the offsets so that the attributes can be patched again
+        for (int i = 0; i < patches.size(); i++) {
+            final int ifdType = ifdTypes.get(i);
+            mAttributes[ifdType].put(tags.get(i), patches.get(i));
+            storedAttributes[ifdType].put(tags.get(i), patches.get(i));
+        }
+        return true;
+    }
+
     /**
      * Returns true if the image file has a thumbnail.
      */
@@ -4818,6 +5055,14 @@ public class ExifInterface {
         InputStream in = null;
         FileDescriptor newFileDescriptor = null;
         try {
+            if (mByteBuffer != null) {
+                final ByteBuffer buffer = mByteBuffer.duplicate();
+                buffer.position(mThumbnailOffset + mOffsetToExifData);
+                final byte[] thumbnailBytes = new byte[mThumbnailLength];
+                buffer.get(thumbnailBytes);
+                mThumbnailBytes = thumbnailBytes;
+                return thumbnailBytes;
+            }
             if (mAssetInputStream != null) {
                 in = mAssetInputStream;
                 if (in.markSupported()) {
@@ -4961,7 +5206,7 @@ public class ExifInterface {
 
         final ExifAttribute attribute = getExifAttribute(tag);
         if (attribute != null) {
-            return new long[] { attribute.bytesOffset, attribute.bytes.length };
+            return new long[] { attribute.bytesOffset, attribute.getByteCount() };
         } else {
             return null;
         }
@@ -4981,7 +5226,7 @@ public class ExifInterface {
         }
         final ExifAttribute attribute = getExifAttribute(tag);
         if (attribute != null) {
-            return attribute.bytes;
+            return attribute.getBytes();
         } else {
             return null;
         }
@@ -5314,8 +5559,8 @@ public class ExifInterface {
         return degrees + "/1," + minutes + "/1," + seconds + "/10000000";
     }
 
-    // Checks the type of image file
-    private int getMimeType(BufferedInputStream in) throws IOException {
+    // Checks the type of image file, given an input stream that supports mark/reset
+    private int getMimeType(InputStream in) throws IOException {
         in.mark(SIGNATURE_CHECK_SIZE);
         byte[] signatureCheckBytes = new byte[SIGNATURE_CHECK_SIZE];
         in.read(signatureCheckBytes);
@@ -5591,14 +5836,12 @@ public class ExifInterface {
             switch (marker) {
                 case MARKER_APP1: {
                     final int start = bytesRead;
-                    final byte[] bytes = new byte[length];
-                    in.readFully(bytes);
+                    final ByteBuffer segment = in.readByteBuffer(length);
                     bytesRead += length;
                     length = 0;
 
-                    if (startsWith(bytes, IDENTIFIER_EXIF_APP1)) {
-                        final byte[] value = Arrays.copyOfRange(bytes, IDENTIFIER_EXIF_APP1.length,
-                                bytes.length);
+                    if (startsWith(segment, IDENTIFIER_EXIF_APP1)) {
+                        final ByteBuffer value = sliceFrom(segment, IDENTIFIER_EXIF_APP1.length);
                         // Save offset to EXIF data for handling thumbnail and attribute offsets.
                         mOffsetToExifData = offsetToJpeg
                                 + /* offset to EXIF from JPEG start */ start
@@ -5606,16 +5849,21 @@ public class ExifInterface {
                         readExifSegment(value, imageType);
 
                         setThumbnailData(new ByteOrderedDataInputStream(value));
-                    } else if (startsWith(bytes, IDENTIFIER_XMP_APP1)) {
+
+                        if (!shouldReadJpegSegmentsAfterExif()) {
+                            // Everything requested was in the Exif data
+                            in.setByteOrder(mExifByteOrder);
+                            return;
+                        }
+                    } else if (startsWith(segment, IDENTIFIER_XMP_APP1)) {
                         // See XMP Specification Part 3: Storage in Files, 1.1.3 JPEG, Table 6
                         final int offset = start + IDENTIFIER_XMP_APP1.length;
-                        final byte[] value = Arrays.copyOfRange(bytes,
-                                IDENTIFIER_XMP_APP1.length, bytes.length);
+                        final ByteBuffer value = sliceFrom(segment, IDENTIFIER_XMP_APP1.length);
                         // TODO: check if ignoring separate XMP data when tag 700 already exists is
                         //  valid.
                         if (getAttribute(TAG_XMP) == null) {
                             mAttributes[IFD_TYPE_PRIMARY].put(TAG_XMP, new ExifAttribute(
-                                    IFD_FORMAT_BYTE, value.length, offset, value));
+                                    IFD_FORMAT_BYTE, value.remaining(), offset, value));
                             mXmpIsFromSeparateMarker = true;
                         }
                     }
@@ -5694,7 +5942,7 @@ public class ExifInterface {
             if (makerNoteAttribute != null) {
                 // Create an ordered DataInputStream for MakerNote
                 SeekableByteOrderedDataInputStream makerNoteDataInputStream =
-                        new SeekableByteOrderedDataInputStream(makerNoteAttribute.bytes);
+                        new SeekableByteOrderedDataInputStream(makerNoteAttribute.getBytes());
                 makerNoteDataInputStream.setByteOrder(mExifByteOrder);
 
                 // Skip to MakerNote data
@@ -5998,7 +6246,7 @@ public class ExifInterface {
         if (makerNoteAttribute != null) {
             // Create an ordered DataInputStream for MakerNote
             SeekableByteOrderedDataInputStream makerNoteDataInputStream =
-                    new SeekableByteOrderedDataInputStream(makerNoteAttribute.bytes);
+                    new SeekableByteOrderedDataInputStream(makerNoteAttribute.getBytes());
             makerNoteDataInputStream.setByteOrder(mExifByteOrder);
 
             // There are two types of headers for Olympus MakerNotes
@@ -6080,7 +6328,7 @@ public class ExifInterface {
                 mAttributes[IFD_TYPE_PRIMARY].get(TAG_RW2_JPG_FROM_RAW);
         if (jpgFromRawAttribute != null) {
             ByteOrderedDataInputStream jpegInputStream =
-                    new ByteOrderedDataInputStream(jpgFromRawAttribute.bytes);
+                    new ByteOrderedDataInputStream(jpgFromRawAttribute.getBytes());
             getJpegAttributes(jpegInputStream, (int) jpgFromRawAttribute.bytesOffset,
                     IFD_TYPE_PREVIEW);
         }
@@ -6217,8 +6465,7 @@ public class ExifInterface {
 
                 if (Arrays.equals(WEBP_CHUNK_TYPE_EXIF, code)) {
                     // TODO: Need to handle potential OutOfMemoryError
-                    byte[] payload = new byte[chunkSize];
-                    in.readFully(payload);
+                    final ByteBuffer payload = in.readByteBuffer(chunkSize);
                     // Save offset to EXIF data for handling thumbnail and attribute offsets.
                     mOffsetToExifData = bytesRead;
                     readExifSegment(payload, IFD_TYPE_PRIMARY);
@@ -6683,8 +6930,13 @@ public class ExifInterface {
 
     // Reads the given EXIF byte area and save its tag data into attributes.
     private void readExifSegment(byte[] exifBytes, int imageType) throws IOException {
+        readExifSegment(ByteBuffer.wrap(exifBytes), imageType);
+    }
+
+    // Reads the remaining bytes of the given EXIF buffer and save its tag data into attributes.
+    private void readExifSegment(ByteBuffer exifBuffer, int imageType) throws IOException {
         SeekableByteOrderedDataInputStream dataInputStream =
-                new SeekableByteOrderedDataInputStream(exifBytes);
+                new SeekableByteOrderedDataInputStream(exifBuffer);
 
         // Parse TIFF Headers. See JEITA CP-3451C Section 4.5.2. Table 1.
         parseTiffHeaders(dataInputStream);
@@ -6904,7 +7156,12 @@ public class ExifInterface {
                 // Check if the next IFD offset
                 // 1. Is a non-negative value (within the length of the input, if known), and
                 // 2. Does not point to a previously read IFD.
-                if (offset > 0L
+                if (!shouldReadIfd(nextIfdType)) {
+                    if (DEBUG) {
+                        Log.d(TAG, "Skip jump into the IFD since none of its tags are requested: "
+                                + "IfdType " + nextIfdType);
+                    }
+                } else if (offset > 0L
                         && (dataInputStream.length() == ByteOrderedDataInputStream.LENGTH_UNSET
                                 || offset < dataInputStream.length())) {
                     if (!mAttributesOffsets.contains((int) offset)) {
@@ -6932,10 +7189,16 @@ public class ExifInterface {
             }
 
             final int bytesOffset = dataInputStream.position() + mOffsetToExifData;
-            final byte[] bytes = new byte[(int) byteCount];
-            dataInputStream.readFully(bytes);
-            ExifAttribute attribute = new ExifAttribute(dataFormat, numberOfComponents,
-                    bytesOffset, bytes);
+            final ExifAttribute attribute;
+            if (mByteBuffer != null) {
+                // Keep the value in the image buffer until it is requested
+                attribute = new ExifAttribute(dataFormat, numberOfComponents, bytesOffset,
+                        dataInputStream.readByteBuffer((int) byteCount));
+            } else {
+                final byte[] bytes = new byte[(int) byteCount];
+                dataInputStream.readFully(bytes);
+                attribute = new ExifAttribute(dataFormat, numberOfComponents, bytesOffset, bytes);
+            }
             mAttributes[ifdType].put(tag.name, attribute);
 
             // DNG files have a DNG Version tag specifying the version of specifications that the
@@ -6973,9 +7236,13 @@ public class ExifInterface {
                 dataInputStream.seek(nextIfdOffset);
                 if (mAttributes[IFD_TYPE_THUMBNAIL].isEmpty()) {
                     // Do not overwrite thumbnail IFD data if it already exists.
-                    readImageFileDirectory(dataInputStream, IFD_TYPE_THUMBNAIL);
+                    if (shouldReadIfd(IFD_TYPE_THUMBNAIL)) {
+                        readImageFileDirectory(dataInputStream, IFD_TYPE_THUMBNAIL);
+                    }
                 } else if (mAttributes[IFD_TYPE_PREVIEW].isEmpty()) {
-                    readImageFileDirectory(dataInputStream, IFD_TYPE_PREVIEW);
+                    if (shouldReadIfd(IFD_TYPE_PREVIEW)) {
+                        readImageFileDirectory(dataInputStream, IFD_TYPE_PREVIEW);
+                    }
                 }
             } else {
                 if (DEBUG) {
@@ -6991,6 +7258,40 @@ public class ExifInterface {
         }
     }
 
+    /**
+     * Returns whether the given IFD, or an IFD it points to, can hold one of the requested tags.
+     */
+    private boolean shouldReadIfd(@IfdType int ifdType) {
+        final Set<String> tagsToRead = mTagsToRead;
+        if (tagsToRead == null) {
+            return true;
+        }
+        if (ifdType == IFD_TYPE_EXIF && shouldReadIfd(IFD_TYPE_INTEROPERABILITY)) {
+            return true;
+        }
+        for (String tag : tagsToRead) {
+            if (sExifTagMapsForWriting[ifdType].containsKey(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the requested tags may be found in the JPEG segments following the Exif
+     * data: a separate XMP segment, a comment, or the frame header giving the image size.
+     */
+    private boolean shouldReadJpegSegmentsAfterExif() {
+        final Set<String> tagsToRead = mTagsToRead;
+        return tagsToRead == null
+                || tagsToRead.contains(TAG_XMP)
+                || tagsToRead.contains(TAG_USER_COMMENT)
+                || tagsToRead.contains(TAG_IMAGE_LENGTH)
+                || tagsToRead.contains(TAG_IMAGE_WIDTH)
+                || tagsToRead.contains(TAG_THUMBNAIL_IMAGE_LENGTH)
+                || tagsToRead.contains(TAG_THUMBNAIL_IMAGE_WIDTH);
+    }
+
     /**
      * JPEG compressed images do not contain IMAGE_LENGTH & IMAGE_WIDTH tags.
      * This value uses JpegInterchangeFormat(JPEG data offset) value, and calls getJpegAttributes()
@@ -7077,7 +7378,7 @@ public class ExifInterface {
             if (thumbnailOffset > 0 && thumbnailLength > 0) {
                 mHasThumbnail = true;
                 if (mFilename == null && mAssetInputStream == null
-                        && mSeekableFileDescriptor == null) {
+                        && mSeekableFileDescriptor == null && mByteBuffer == null) {
                     // TODO: Need to handle potential OutOfMemoryError
                     // Save the thumbnail in memory if the input doesn't support reading again.
                     byte[] thumbnailBytes = new byte[thumbnailLength];
@@ -7533,7 +7834,7 @@ public class ExifInterface {
                         dataOutputStream.writeUnsignedInt(dataOffset);
                         dataOffset += size;
                     } else {
-                        dataOutputStream.write(attribute.bytes);
+                        dataOutputStream.write(attribute.getBytes());
                         // Fill zero up to 4 bytes
                         if (size < 4) {
                             for (int i = size; i < 4; ++i) {
@@ -7556,8 +7857,8 @@ public class ExifInterface {
                 for (Map.Entry<String, ExifAttribute> entry : mAttributes[ifdType].entrySet()) {
                     ExifAttribute attribute = entry.getValue();
 
-                    if (attribute.bytes.length > 4) {
-                        dataOutputStream.write(attribute.bytes, 0, attribute.bytes.length);
+                    if (attribute.getByteCount() > 4) {
+                        dataOutputStream.write(attribute.getBytes());
                     }
                 }
             }
@@ -7671,6 +7972,13 @@ public class ExifInterface {
             mDataInputStream.mark(Integer.MAX_VALUE);
         }
 
+        SeekableByteOrderedDataInputStream(ByteBuffer buffer) {
+            super(buffer);
+            // No need to check if mark is supported here since ByteOrderedDataInputStream will
+            // create a ByteBufferInputStream, which supports mark.
+            mDataInputStream.mark(Integer.MAX_VALUE);
+        }
+
         /**
          * Given input stream should support mark/reset, and should be set to the beginning of
          * the stream.
@@ -7713,12 +8021,19 @@ public class ExifInterface {
         private ByteOrder mByteOrder;
         private byte[] mSkipBuffer;
         private int mLength;
+        // The underlying stream when it reads from a buffer, which can give views of its data
+        @Nullable
+        private final ByteBufferInputStream mByteBufferInputStream;
 
         ByteOrderedDataInputStream(byte[] bytes) throws IOException {
             this(new ByteArrayInputStream(bytes), BIG_ENDIAN);
             this.mLength = bytes.length;
         }
 
+        ByteOrderedDataInputStream(ByteBuffer buffer) {
+            this(new ByteBufferInputStream(buffer), BIG_ENDIAN);
+        }
+
         ByteOrderedDataInputStream(InputStream in) throws IOException {
             this(in, BIG_ENDIAN);
         }
@@ -7728,9 +8043,15 @@ public class ExifInterface {
             mDataInputStream.mark(0);
             mPosition = 0;
             mByteOrder = byteOrder;
-            this.mLength = in instanceof ByteOrderedDataInputStream
-                    ? ((ByteOrderedDataInputStream) in).length()
-                    : LENGTH_UNSET;
+            if (in instanceof ByteBufferInputStream) {
+                mByteBufferInputStream = (ByteBufferInputStream) in;
+                this.mLength = mByteBufferInputStream.available();
+            } else {
+                mByteBufferInputStream = null;
+                this.mLength = in instanceof ByteOrderedDataInputStream
+                        ? ((ByteOrderedDataInputStream) in).length()
+                        : LENGTH_UNSET;
+            }
         }
 
         public void setByteOrder(ByteOrder byteOrder) {
@@ -7760,6 +8081,21 @@ public class ExifInterface {
             return Arrays.copyOf(data, bytesRead);
         }
 
+        /**
+         * Reads the next length bytes as a buffer, which is a view of the underlying data when this
+         * stream reads from a buffer, and a copy otherwise.
+         */
+        public ByteBuffer readByteBuffer(int length) throws IOException {
+            if (mByteBufferInputStream != null) {
+                final ByteBuffer buffer = mByteBufferInputStream.readSlice(length);
+                mPosition += length;
+                return buffer;
+            }
+            final byte[] bytes = new byte[length];
+            readFully(bytes);
+            return ByteBuffer.wrap(bytes);
+        }
+
         @Override
         public int available() throws IOException {
             return mDataInputStream.available();
@@ -7965,6 +8301,79 @@ public class ExifInterface {
         }
     }
 
+    // An input stream reading the remaining bytes of a buffer, which supports mark/reset and can
+    // give views of the data instead of copies.
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer mBuffer;
+        private int mMark;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            mBuffer = buffer.slice();
+        }
+
+        @Override
+        public int read() {
+            if (!mBuffer.hasRemaining()) {
+                return -1;
+            }
+            return mBuffer.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!mBuffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, mBuffer.remaining());
+            mBuffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            final int skipped = (int) Math.min(n, mBuffer.remaining());
+            mBuffer.position(mBuffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return mBuffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+            mMark = mBuffer.position();
+        }
+
+        @Override
+        public void reset() {
+            mBuffer.position(mMark);
+        }
+
+        /** Returns a view of the next length bytes and skips them. */
+        ByteBuffer readSlice(int length) throws EOFException {
+            if (length < 0 || length > mBuffer.remaining()) {
+                throw new EOFException("Reached EOF while reading " + length + " bytes.");
+            }
+            final ByteBuffer slice = mBuffer.slice();
+            slice.limit(length);
+            mBuffer.position(mBuffer.position() + length);
+            return slice;
+        }
+    }
+
     // An output stream to write EXIF data area, which can be written in either little or big endian
     // order.
     private static class ByteOrderedDataOutputStream extends FilterOutputStream {
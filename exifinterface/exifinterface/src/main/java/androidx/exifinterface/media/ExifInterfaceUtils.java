@@ -31,6 +31,7 @@ import java.io.FileDescriptor;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 class ExifInterfaceUtils {
     private static final String TAG = "ExifInterfaceUtils";
@@ -105,6 +106,36 @@ class ExifInterfaceUtils {
         return true;
     }
 
+    /**
+     * Returns whether the remaining bytes of the buffer start with the given bytes, without
+     * changing its position.
+     */
+    static boolean startsWith(ByteBuffer cur, byte[] val) {
+        if (cur == null || val == null) {
+            return false;
+        }
+        if (cur.remaining() < val.length) {
+            return false;
+        }
+        final int position = cur.position();
+        for (int i = 0; i < val.length; i++) {
+            if (cur.get(position + i) != val[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a view of the remaining bytes of the buffer after the first offset ones, without
+     * changing its position.
+     */
+    static ByteBuffer sliceFrom(ByteBuffer buffer, int offset) {
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(buffer.position() + offset);
+        return duplicate.slice();
+    }
+
     static String byteArrayToHexString(byte[] bytes) {
         StringBuilder sb = new StringBuilder(bytes.length * 2);
         for (int i = 0; i < bytes.length; i++) {
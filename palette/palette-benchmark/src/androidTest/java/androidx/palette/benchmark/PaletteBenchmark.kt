@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.benchmark
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.LinearGradient
+import android.graphics.Paint
+import android.graphics.Shader
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.palette.graphics.KMeansQuantizer
+import androidx.palette.graphics.Palette
+import androidx.palette.graphics.PaletteCache
+import androidx.palette.graphics.WuQuantizer
+import androidx.test.filters.LargeTest
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import kotlin.random.Random
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Palette generation from bitmaps of several sizes, counting every pixel, sampling them, and
+ * counting them on several threads, and with each quantizer.
+ */
+@RunWith(Parameterized::class)
+@LargeTest
+class PaletteBenchmark(private val size: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val bitmap = createBitmap(size)
+    private val executor: ExecutorService = Executors.newFixedThreadPool(4)
+
+    companion object {
+        @Parameterized.Parameters(name = "size={0}")
+        @JvmStatic
+        fun parameters() = listOf(112, 512, 1024)
+
+        private fun createBitmap(size: Int): Bitmap {
+            val bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888)
+            val canvas = Canvas(bitmap)
+            val paint = Paint()
+            paint.shader = LinearGradient(
+                0f, 0f, size.toFloat(), size.toFloat(),
+                Color.rgb(200, 40, 60), Color.rgb(30, 90, 200), Shader.TileMode.CLAMP
+            )
+            canvas.drawPaint(paint)
+            paint.shader = null
+            val random = Random(size)
+            repeat(12) {
+                paint.color = Color.rgb(random.nextInt(256), random.nextInt(256),
+                    random.nextInt(256))
+                canvas.drawCircle(random.nextInt(size).toFloat(), random.nextInt(size).toFloat(),
+                    size / (4f + random.nextInt(8)), paint)
+            }
+            return bitmap
+        }
+    }
+
+    @After
+    fun tearDown() {
+        executor.shutdown()
+    }
+
+    @Test
+    fun generate() {
+        benchmarkRule.measureRepeated {
+            Palette.from(bitmap).resizeBitmapArea(0).generate()
+        }
+    }
+
+    @Test
+    fun generate_sampled() {
+        benchmarkRule.measureRepeated {
+            Palette.from(bitmap).resizeBitmapArea(0).setMaxSamplingError(0.01f).generate()
+        }
+    }
+
+    @Test
+    fun generate_parallel() {
+        benchmarkRule.measureRepeated {
+            Palette.from(bitmap).resizeBitmapArea(0).setExecutor(executor).generate()
+        }
+    }
+
+    @Test
+    fun generate_wu() {
+        val quantizer = WuQuantizer()
+        benchmarkRule.measureRepeated {
+            Palette.from(bitmap).resizeBitmapArea(0).setQuantizer(quantizer).generate()
+        }
+    }
+
+    @Test
+    fun generate_kMeans() {
+        val quantizer = KMeansQuantizer()
+        benchmarkRule.measureRepeated {
+            Palette.from(bitmap).resizeBitmapArea(0).setQuantizer(quantizer).generate()
+        }
+    }
+
+    @Test
+    fun generate_cached() {
+        val cache = PaletteCache(1)
+        benchmarkRule.measureRepeated {
+            Palette.from(bitmap).resizeBitmapArea(0).setCache(cache).generate()
+        }
+    }
+}
@@ -26,6 +26,9 @@ import androidx.test.filters.SmallTest;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @RunWith(AndroidJUnit4.class)
 public class ConsistencyTest {
 
@@ -46,6 +49,51 @@ public class ConsistencyTest {
         }
     }
 
+    @Test
+    @SmallTest
+    public void testConsistency_sampled() {
+        Palette lastPalette = null;
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+
+        for (int i = 0; i < NUMBER_TRIALS; i++) {
+            Palette newPalette = Palette.from(bitmap).setMaxSamplingError(0.01f).generate();
+            if (lastPalette != null) {
+                assetPalettesEqual(lastPalette, newPalette);
+            }
+            lastPalette = newPalette;
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testParallelSameAsSequential() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // resizing disabled so that the pixels are split between several threads
+            Palette sequential = Palette.from(bitmap).resizeBitmapArea(0).generate();
+            Palette parallel = Palette.from(bitmap).resizeBitmapArea(0).setExecutor(executor)
+                    .generate();
+            assertEquals(sequential.getSwatches(), parallel.getSwatches());
+            assetPalettesEqual(sequential, parallel);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testRejectingExecutorSameAsSequential() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        Palette sequential = Palette.from(bitmap).resizeBitmapArea(0).generate();
+        Palette rejected = Palette.from(bitmap).resizeBitmapArea(0).setExecutor(executor)
+                .generate();
+        assertEquals(sequential.getSwatches(), rejected.getSwatches());
+        assetPalettesEqual(sequential, rejected);
+    }
+
     private static void assetPalettesEqual(Palette p1, Palette p2) {
         assertEquals(p1.getVibrantSwatch(), p2.getVibrantSwatch());
         assertEquals(p1.getLightVibrantSwatch(), p2.getLightVibrantSwatch());
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PaletteCacheTest {
+
+    @Test
+    public void testSameBitmap_reusesPalette() {
+        final PaletteCache cache = new PaletteCache(4);
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+
+        final Palette first = Palette.from(bitmap).setCache(cache).generate();
+        final Palette second = Palette.from(bitmap).setCache(cache).generate();
+
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testOtherOptions_generatesPalette() {
+        final PaletteCache cache = new PaletteCache(4);
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+
+        final Palette first = Palette.from(bitmap).setCache(cache).generate();
+        final Palette second = Palette.from(bitmap).maximumColorCount(8).setCache(cache)
+                .generate();
+
+        assertNotSame(first, second);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testModifiedBitmap_generatesPalette() {
+        final PaletteCache cache = new PaletteCache(4);
+        final Bitmap bitmap = TestUtils.loadSampleBitmap().copy(Bitmap.Config.ARGB_8888, true);
+
+        final Palette first = Palette.from(bitmap).setCache(cache).generate();
+        bitmap.eraseColor(Color.BLUE);
+        final Palette second = Palette.from(bitmap).setCache(cache).generate();
+
+        assertNotSame(first, second);
+        TestUtils.assertCloseColors(Color.BLUE, second.getDominantColor(Color.BLACK));
+    }
+
+    @Test
+    public void testEvictAll() {
+        final PaletteCache cache = new PaletteCache(4);
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+
+        final Palette first = Palette.from(bitmap).setCache(cache).generate();
+        cache.evictAll();
+        final Palette second = Palette.from(bitmap).setCache(cache).generate();
+
+        assertNotSame(first, second);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Random;
+
+@RunWith(AndroidJUnit4.class)
+public class QuantizerTest {
+
+    private static final int COLOR_COUNT = 1000;
+
+    @Test
+    @SmallTest
+    public void testWu() {
+        testQuantizer(new WuQuantizer());
+    }
+
+    @Test
+    @SmallTest
+    public void testKMeans() {
+        testQuantizer(new KMeansQuantizer());
+    }
+
+    @Test
+    @SmallTest
+    public void testKMeans_noIterations() {
+        testQuantizer(new KMeansQuantizer(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SmallTest
+    public void testKMeans_negativeIterations() {
+        new KMeansQuantizer(-1);
+    }
+
+    @Test
+    @SmallTest
+    public void testWu_separatesClusters() {
+        testSeparatesClusters(new WuQuantizer());
+    }
+
+    @Test
+    @SmallTest
+    public void testKMeans_separatesClusters() {
+        testSeparatesClusters(new KMeansQuantizer());
+    }
+
+    @Test
+    @SmallTest
+    public void testPaletteWithQuantizer() {
+        final Quantizer[] quantizers = {new WuQuantizer(), new KMeansQuantizer()};
+        for (Quantizer quantizer : quantizers) {
+            final Palette palette = Palette.from(TestUtils.loadSampleBitmap())
+                    .maximumColorCount(16)
+                    .setQuantizer(quantizer)
+                    .generate();
+            assertFalse(palette.getSwatches().isEmpty());
+            assertTrue(palette.getSwatches().size() <= 16);
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testCacheKeyedByQuantizer() {
+        // the same bitmap for each palette, so that only the quantizer differs between the keys
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final PaletteCache cache = new PaletteCache(4);
+        final Quantizer quantizer = new WuQuantizer();
+        final Palette boxes = Palette.from(bitmap).setCache(cache).generate();
+        final Palette wu = Palette.from(bitmap).setQuantizer(quantizer).setCache(cache)
+                .generate();
+        assertNotSame(boxes, wu);
+        assertSame(wu, Palette.from(bitmap).setQuantizer(quantizer).setCache(cache).generate());
+        assertEquals(2, cache.size());
+    }
+
+    private static void testQuantizer(Quantizer quantizer) {
+        final Random random = new Random(0);
+        final int[] colors = new int[COLOR_COUNT];
+        final int[] populations = new int[COLOR_COUNT];
+        long totalPopulation = 0;
+        for (int i = 0; i < COLOR_COUNT; i++) {
+            // distinct colors, spread over the whole color space
+            final int color = (i * 7919) & 0x7FFF;
+            colors[i] = Color.rgb((color >> 10) << 3, ((color >> 5) & 0x1F) << 3,
+                    (color & 0x1F) << 3);
+            populations[i] = 1 + random.nextInt(100);
+            totalPopulation += populations[i];
+        }
+
+        final List<Palette.Swatch> swatches = quantizer.quantize(colors, populations, 16);
+        assertFalse(swatches.isEmpty());
+        assertTrue(swatches.size() <= 16);
+        long population = 0;
+        for (Palette.Swatch swatch : swatches) {
+            population += swatch.getPopulation();
+        }
+        assertEquals(totalPopulation, population);
+
+        // The same colors always give the same swatches
+        assertEquals(swatches, quantizer.quantize(colors, populations, 16));
+    }
+
+    private static void testSeparatesClusters(Quantizer quantizer) {
+        final int[] colors = {
+                Color.rgb(200, 0, 0), Color.rgb(208, 8, 0), Color.rgb(216, 0, 8),
+                Color.rgb(0, 0, 200), Color.rgb(0, 8, 208), Color.rgb(8, 0, 216),
+        };
+        final int[] populations = {10, 10, 10, 20, 20, 20};
+
+        final List<Palette.Swatch> swatches = quantizer.quantize(colors, populations, 2);
+        assertEquals(2, swatches.size());
+        int reds = 0;
+        for (Palette.Swatch swatch : swatches) {
+            if (Color.red(swatch.getRgb()) > Color.blue(swatch.getRgb())) {
+                assertEquals(30, swatch.getPopulation());
+                reds++;
+            } else {
+                assertEquals(60, swatch.getPopulation());
+            }
+        }
+        assertEquals(1, reds);
+    }
+}
@@ -27,6 +27,9 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An color quantizer based on the Median-cut algorithm, but optimized for picking out distinct
@@ -40,6 +43,9 @@ import java.util.PriorityQueue;
  * have roughly the same population, where this quantizer divides boxes based on their color volume.
  * This means that the color space is divided into distinct colors, rather than representative
  * colors.
+ *
+ * The boxes are only used when no other {@link Quantizer} is given, otherwise the distinct colors
+ * which pass the filters are handed to that quantizer instead.
  */
 final class ColorCutQuantizer {
     static final int COMPONENT_RED = -3;
@@ -48,12 +54,32 @@ final class ColorCutQuantizer {
 
     private static final int QUANTIZE_WORD_WIDTH = 5;
     private static final int QUANTIZE_WORD_MASK = (1 << QUANTIZE_WORD_WIDTH) - 1;
+    private static final int HISTOGRAM_SIZE = 1 << (QUANTIZE_WORD_WIDTH * 3);
+
+    /**
+     * Minimum number of pixels worth counting on another thread.
+     */
+    private static final int MIN_PIXELS_PER_TASK = 1 << 16;
+
+    /**
+     * Histogram of the quantized colors, kept for the next quantizer on the same thread since it
+     * is too large to allocate for each palette. This holds 128 KB for as long as each thread that
+     * generated a palette is alive; the threads of the executor do not keep one.
+     */
+    private static final ThreadLocal<int[]> sHistogram = new ThreadLocal<>();
 
     final int[] mColors;
     final int[] mHistogram;
     final List<Palette.Swatch> mQuantizedColors;
     @Nullable final Palette.Filter[] mFilters;
 
+    /**
+     * Number of pixels each counted pixel stands for.
+     */
+    private final int mSampleStride;
+
+    @Nullable private final Quantizer mQuantizer;
+
     private final float[] mTempHsl = new float[3];
 
     /**
@@ -64,16 +90,46 @@ final class ColorCutQuantizer {
      * @param filters Set of filters to use in the quantization stage
      */
     ColorCutQuantizer(int[] pixels, int maxColors, @Nullable Palette.Filter[] filters) {
+        this(pixels, maxColors, filters, 1, null, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pixels histogram representing an image's pixel data
+     * @param maxColors The maximum number of colors that should be in the result palette.
+     * @param filters Set of filters to use in the quantization stage
+     * @param sampleStride One pixel out of each run of sampleStride pixels is counted, picked at
+     *                     random. 1 counts every pixel.
+     * @param executor Executor to count the pixels of large images in parallel with, or
+     *                 {@code null} to count them on the calling thread
+     * @param quantizer Quantizer to reduce the colors with, or {@code null} to divide them into
+     *                  boxes
+     * @see #sampleStrideFor(int, float)
+     */
+    ColorCutQuantizer(int[] pixels, int maxColors, @Nullable Palette.Filter[] filters,
+            int sampleStride, @Nullable Executor executor, @Nullable Quantizer quantizer) {
         mFilters = filters;
+        mSampleStride = Math.max(sampleStride, 1);
+        mQuantizer = quantizer;
 
-        final int[] hist = mHistogram = new int[1 << (QUANTIZE_WORD_WIDTH * 3)];
-        for (int i = 0; i < pixels.length; i++) {
-            final int quantizedColor = quantizeFromRgb888(pixels[i]);
-            // Now update the pixel value to the quantized value
-            pixels[i] = quantizedColor;
-            // And update the histogram
-            hist[quantizedColor]++;
+        int[] hist = sHistogram.get();
+        if (hist == null) {
+            hist = new int[HISTOGRAM_SIZE];
+            sHistogram.set(hist);
+        }
+        mHistogram = hist;
+        try {
+            countPixels(pixels, mSampleStride, hist, executor);
+            mColors = findDistinctColors(hist);
+            mQuantizedColors = quantize(maxColors);
+        } finally {
+            // leave the histogram empty for the next quantizer
+            Arrays.fill(hist, 0);
         }
+    }
+
+    private int[] findDistinctColors(int[] hist) {
 
         // Now let's count the number of distinct colors
         int distinctColorCount = 0;
@@ -89,24 +145,175 @@ final class ColorCutQuantizer {
         }
 
         // Now lets go through create an array consisting of only distinct colors
-        final int[] colors = mColors = new int[distinctColorCount];
+        final int[] colors = new int[distinctColorCount];
         int distinctColorIndex = 0;
         for (int color = 0; color < hist.length; color++) {
             if (hist[color] > 0) {
                 colors[distinctColorIndex++] = color;
             }
         }
+        return colors;
+    }
 
-        if (distinctColorCount <= maxColors) {
+    private List<Palette.Swatch> quantize(int maxColors) {
+        if (mColors.length <= maxColors) {
             // The image has fewer colors than the maximum requested, so just return the colors
-            mQuantizedColors = new ArrayList<>();
-            for (int color : colors) {
-                mQuantizedColors.add(new Palette.Swatch(approximateToRgb888(color), hist[color]));
+            final List<Palette.Swatch> swatches = new ArrayList<>(mColors.length);
+            for (int color : mColors) {
+                swatches.add(new Palette.Swatch(approximateToRgb888(color),
+                        mHistogram[color] * mSampleStride));
             }
+            return swatches;
+        } else if (mQuantizer != null) {
+            return quantizeWith(mQuantizer, maxColors);
         } else {
             // We need use quantization to reduce the number of colors
-            mQuantizedColors = quantizePixels(maxColors);
+            return quantizePixels(maxColors);
+        }
+    }
+
+    private List<Palette.Swatch> quantizeWith(Quantizer quantizer, int maxColors) {
+        final int[] colors = new int[mColors.length];
+        final int[] populations = new int[mColors.length];
+        for (int i = 0; i < mColors.length; i++) {
+            colors[i] = approximateToRgb888(mColors[i]);
+            populations[i] = mHistogram[mColors[i]] * mSampleStride;
+        }
+
+        final List<Palette.Swatch> swatches = quantizer.quantize(colors, populations, maxColors);
+        final List<Palette.Swatch> filtered = new ArrayList<>(swatches.size());
+        for (Palette.Swatch swatch : swatches) {
+            // The quantizer may average colors into ones we do not want, so check them again
+            if (!shouldIgnoreColor(swatch)) {
+                filtered.add(swatch);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Adds the quantized colors of pixels to hist. Large images are split in ranges of pixels
+     * which are counted by the calling thread and by tasks posted to executor. The calling thread
+     * counts the ranges that no task has started on, so it never waits for the executor to have a
+     * free thread, and counts all of them if the executor rejects the tasks.
+     */
+    private static void countPixels(final int[] pixels, final int sampleStride, final int[] hist,
+            @Nullable Executor executor) {
+        // ranges are a whole number of sample runs so that the sampled pixels do not depend on
+        // how the pixels are split
+        final int runsPerRange = Math.max(MIN_PIXELS_PER_TASK / sampleStride, 1);
+        final int pixelsPerRange = runsPerRange * sampleStride;
+        final int rangeCount = (pixels.length + pixelsPerRange - 1) / pixelsPerRange;
+        if (executor == null || rangeCount <= 1) {
+            countPixels(pixels, 0, pixels.length, sampleStride, hist);
+            return;
+        }
+
+        final AtomicInteger nextRange = new AtomicInteger();
+        final int[] countedRanges = new int[1]; // guarded by hist
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                // allocated for each task rather than kept by the executor's threads, as the
+                // pixels of the ranges it counts take several times as much memory
+                int[] taskHist = null;
+                int counted = 0;
+                for (int range = nextRange.getAndIncrement(); range < rangeCount;
+                        range = nextRange.getAndIncrement()) {
+                    if (taskHist == null) {
+                        taskHist = new int[HISTOGRAM_SIZE];
+                    }
+                    final int start = range * pixelsPerRange;
+                    countPixels(pixels, start, Math.min(start + pixelsPerRange, pixels.length),
+                            sampleStride, taskHist);
+                    counted++;
+                }
+                if (counted == 0) {
+                    return;
+                }
+                synchronized (hist) {
+                    for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+                        hist[i] += taskHist[i];
+                    }
+                    countedRanges[0] += counted;
+                    hist.notifyAll();
+                }
+            }
+        };
+        for (int i = 1; i < rangeCount; i++) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the tasks already posted may be running, the calling thread counts the rest
+                break;
+            }
+        }
+        task.run();
+
+        boolean interrupted = false;
+        synchronized (hist) {
+            while (countedRanges[0] < rangeCount) {
+                try {
+                    hist.wait();
+                } catch (InterruptedException e) {
+                    // the ranges being counted by other threads are needed to finish
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds the quantized colors of pixels[start..end) to hist, one pixel per run of sampleStride
+     * pixels.
+     */
+    private static void countPixels(int[] pixels, int start, int end, int sampleStride,
+            int[] hist) {
+        if (sampleStride == 1) {
+            for (int i = start; i < end; i++) {
+                hist[quantizeFromRgb888(pixels[i])]++;
+            }
+            return;
+        }
+        for (int run = start / sampleStride; run * sampleStride < end; run++) {
+            final int runStart = run * sampleStride;
+            final int runLength = Math.min(sampleStride, end - runStart);
+            // pick the same pixel of a run each time, so that palettes are stable
+            final int offset = (mix(run) & Integer.MAX_VALUE) % runLength;
+            hist[quantizeFromRgb888(pixels[runStart + offset])]++;
+        }
+    }
+
+    /**
+     * @return a well distributed hash of value
+     */
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    /**
+     * Returns the sample stride that keeps the error of the population of each color below
+     * maxError.
+     * <p>
+     * Counting n random pixels estimates the share of each color in the image with a standard
+     * error of at most 0.5 / sqrt(n), so n = 0.25 / maxError&sup2; pixels are enough.
+     *
+     * @param pixelCount number of pixels of the image
+     * @param maxError maximum standard error of the share of each color, 0 to count all pixels
+     * @return number of pixels each counted pixel should stand for
+     */
+    static int sampleStrideFor(int pixelCount, float maxError) {
+        if (maxError <= 0) {
+            return 1;
         }
+        final double sampleCount = Math.ceil(0.25 / ((double) maxError * maxError));
+        return Math.max((int) (pixelCount / sampleCount), 1);
     }
 
     /**
@@ -355,7 +562,8 @@ final class ColorCutQuantizer {
             final int greenMean = Math.round(greenSum / (float) totalPopulation);
             final int blueMean = Math.round(blueSum / (float) totalPopulation);
 
-            return new Palette.Swatch(approximateToRgb888(redMean, greenMean, blueMean), totalPopulation);
+            return new Palette.Swatch(approximateToRgb888(redMean, greenMean, blueMean),
+                    totalPopulation * mSampleStride);
         }
     }
 
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A color quantizer which clusters the colors of an image with k-means, weighting each color by
+ * its population.
+ * <p>
+ * The clusters start from the most populous color and from the colors furthest from the clusters
+ * picked so far, and are then refined until no color changes cluster or the maximum number of
+ * iterations is reached. Each iteration compares every distinct color to every cluster, so the
+ * cost grows with the number of distinct colors times the number of clusters. For typical
+ * bitmaps, it takes about as long as the default quantizer while giving swatches which fit the
+ * image much better.
+ */
+public final class KMeansQuantizer implements Quantizer {
+    private static final int DEFAULT_MAX_ITERATIONS = 10;
+
+    private final int mMaxIterations;
+
+    /**
+     * Creates a k-means quantizer which refines its clusters up to 10 times.
+     */
+    public KMeansQuantizer() {
+        this(DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Creates a k-means quantizer.
+     *
+     * @param maxIterations the maximum number of times the clusters are refined, 0 to keep the
+     *                      initial clusters
+     */
+    public KMeansQuantizer(int maxIterations) {
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("maxIterations must be positive or zero");
+        }
+        mMaxIterations = maxIterations;
+    }
+
+    @NonNull
+    @Override
+    public List<Palette.Swatch> quantize(@NonNull int[] colors, @NonNull int[] populations,
+            int maxColors) {
+        final int count = colors.length;
+        final int clusterCount = Math.min(maxColors, count);
+        final float[] reds = new float[count];
+        final float[] greens = new float[count];
+        final float[] blues = new float[count];
+        for (int i = 0; i < count; i++) {
+            reds[i] = Color.red(colors[i]);
+            greens[i] = Color.green(colors[i]);
+            blues[i] = Color.blue(colors[i]);
+        }
+
+        final float[] centerReds = new float[clusterCount];
+        final float[] centerGreens = new float[clusterCount];
+        final float[] centerBlues = new float[clusterCount];
+        final int[] clusters = new int[count];
+        final float[] distances = new float[count];
+        int centers = initCenters(reds, greens, blues, populations, centerReds, centerGreens,
+                centerBlues, clusters, distances);
+
+        final long[] weights = new long[centers];
+        final double[] sumReds = new double[centers];
+        final double[] sumGreens = new double[centers];
+        final double[] sumBlues = new double[centers];
+        for (int iteration = 0; ; iteration++) {
+            // move each center to the weighted mean of its colors
+            for (int c = 0; c < centers; c++) {
+                weights[c] = 0;
+                sumReds[c] = sumGreens[c] = sumBlues[c] = 0;
+            }
+            for (int i = 0; i < count; i++) {
+                final int c = clusters[i];
+                final int population = populations[i];
+                weights[c] += population;
+                sumReds[c] += (double) population * reds[i];
+                sumGreens[c] += (double) population * greens[i];
+                sumBlues[c] += (double) population * blues[i];
+            }
+            for (int c = 0; c < centers; c++) {
+                if (weights[c] > 0) {
+                    centerReds[c] = (float) (sumReds[c] / weights[c]);
+                    centerGreens[c] = (float) (sumGreens[c] / weights[c]);
+                    centerBlues[c] = (float) (sumBlues[c] / weights[c]);
+                }
+            }
+            if (iteration >= mMaxIterations
+                    || !assign(reds, greens, blues, centerReds, centerGreens, centerBlues,
+                            centers, clusters)) {
+                break;
+            }
+        }
+
+        final List<Palette.Swatch> swatches = new ArrayList<>(centers);
+        for (int c = 0; c < centers; c++) {
+            if (weights[c] > 0) {
+                swatches.add(new Palette.Swatch(Color.rgb(Math.round(centerReds[c]),
+                        Math.round(centerGreens[c]), Math.round(centerBlues[c])),
+                        (int) weights[c]));
+            }
+        }
+        return swatches;
+    }
+
+    /**
+     * Picks the initial centers: the most populous color first, then each time the color with
+     * the largest population times squared distance to its nearest center.
+     *
+     * @return the number of centers picked, smaller than the size of the center arrays when there
+     * are fewer distinct colors
+     */
+    private static int initCenters(float[] reds, float[] greens, float[] blues,
+            int[] populations, float[] centerReds, float[] centerGreens, float[] centerBlues,
+            int[] clusters, float[] distances) {
+        final int count = reds.length;
+        int first = 0;
+        for (int i = 1; i < count; i++) {
+            if (populations[i] > populations[first]) {
+                first = i;
+            }
+        }
+        centerReds[0] = reds[first];
+        centerGreens[0] = greens[first];
+        centerBlues[0] = blues[first];
+        for (int i = 0; i < count; i++) {
+            clusters[i] = 0;
+            distances[i] = distance(reds[i], greens[i], blues[i], reds[first], greens[first],
+                    blues[first]);
+        }
+
+        int centers = 1;
+        while (centers < centerReds.length) {
+            int furthest = -1;
+            double furthestScore = 0;
+            for (int i = 0; i < count; i++) {
+                final double score = (double) populations[i] * distances[i];
+                if (score > furthestScore) {
+                    furthest = i;
+                    furthestScore = score;
+                }
+            }
+            if (furthest < 0) {
+                // every color is already a center
+                break;
+            }
+            final float red = reds[furthest];
+            final float green = greens[furthest];
+            final float blue = blues[furthest];
+            centerReds[centers] = red;
+            centerGreens[centers] = green;
+            centerBlues[centers] = blue;
+            for (int i = 0; i < count; i++) {
+                final float distance = distance(reds[i], greens[i], blues[i], red, green, blue);
+                if (distance < distances[i]) {
+                    distances[i] = distance;
+                    clusters[i] = centers;
+                }
+            }
+            centers++;
+        }
+        return centers;
+    }
+
+    /**
+     * Moves each color to the cluster of its nearest center.
+     *
+     * @return true if any color changed cluster
+     */
+    private static boolean assign(float[] reds, float[] greens, float[] blues,
+            float[] centerReds, float[] centerGreens, float[] centerBlues, int centers,
+            int[] clusters) {
+        boolean changed = false;
+        for (int i = 0; i < reds.length; i++) {
+            int nearest = clusters[i];
+            float nearestDistance = distance(reds[i], greens[i], blues[i], centerReds[nearest],
+                    centerGreens[nearest], centerBlues[nearest]);
+            for (int c = 0; c < centers; c++) {
+                final float distance = distance(reds[i], greens[i], blues[i], centerReds[c],
+                        centerGreens[c], centerBlues[c]);
+                if (distance < nearestDistance) {
+                    nearest = c;
+                    nearestDistance = distance;
+                }
+            }
+            if (nearest != clusters[i]) {
+                clusters[i] = nearest;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static float distance(float red1, float green1, float blue1, float red2,
+            float green2, float blue2) {
+        final float red = red1 - red2;
+        final float green = green1 - green2;
+        final float blue = blue1 - blue2;
+        return red * red + green * green + blue * blue;
+    }
+}
@@ -23,6 +23,7 @@ import android.util.Log;
 import android.util.SparseBooleanArray;
 
 import androidx.annotation.ColorInt;
+import androidx.annotation.FloatRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.Px;
@@ -34,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * A helper class to extract prominent colors from an image.
@@ -602,6 +604,11 @@ public final class Palette {
         private final List<Filter> mFilters = new ArrayList<>();
         @Nullable private Rect mRegion;
 
+        private float mMaxSamplingError;
+        @Nullable private Executor mExecutor;
+        @Nullable private Quantizer mQuantizer;
+        @Nullable private PaletteCache mCache;
+
         /**
          * Construct a new {@link Builder} using a source {@link Bitmap}
          */
@@ -689,6 +696,78 @@ public final class Palette {
             return this;
         }
 
+        /**
+         * Set the sampling error allowed when using a {@link android.graphics.Bitmap} as the
+         * source. Instead of counting every pixel of the resized bitmap, only enough pixels picked
+         * at random are counted for the share of each color in the image to have a standard error
+         * of at most {@code maxError}, which is faster for large bitmaps. The same pixels are
+         * picked each time, so the palette of a bitmap does not change between calls.
+         * <p>
+         * For example, an error of 0.01 counts about 2500 pixels whatever the size of the bitmap.
+         *
+         * @param maxError the maximum standard error of the share of each color, between 0 and 1,
+         *                 or 0 to count every pixel, which is the default.
+         */
+        @NonNull
+        public Builder setMaxSamplingError(@FloatRange(from = 0, to = 1) float maxError) {
+            if (maxError < 0 || maxError > 1) {
+                throw new IllegalArgumentException("maxError must be between 0 and 1");
+            }
+            mMaxSamplingError = maxError;
+            return this;
+        }
+
+        /**
+         * Set the quantizer which reduces the colors of the bitmap to at most
+         * {@link #maximumColorCount(int)} swatches, when using a {@link android.graphics.Bitmap} as
+         * the source.
+         * <p>
+         * The default quantizer divides the colors into boxes and picks out distinct colors.
+         * {@link WuQuantizer} and {@link KMeansQuantizer} find swatches which better represent
+         * the image. Wu has a fixed cost to set up its tables, which makes it the slowest for
+         * small bitmaps. The cost of k-means depends on the number of distinct colors, and is
+         * otherwise close to the one of the default quantizer.
+         *
+         * @param quantizer the quantizer to use, or {@code null} for the default one.
+         */
+        @NonNull
+        public Builder setQuantizer(@Nullable Quantizer quantizer) {
+            mQuantizer = quantizer;
+            return this;
+        }
+
+        /**
+         * Set an executor on which {@link #generate()} can count the pixels of large bitmaps in
+         * parallel with the calling thread. The calling thread still counts the pixels that no
+         * task of the executor has started on, so a busy executor never delays the palette.
+         * <p>
+         * This only helps when the bitmap is large after resizing, see
+         * {@link #resizeBitmapArea(int)}.
+         *
+         * @param executor the executor to use, or {@code null} to count all the pixels on the
+         *                 calling thread, which is the default.
+         */
+        @NonNull
+        public Builder setExecutor(@Nullable Executor executor) {
+            mExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Set a cache to reuse the palette generated earlier for the same bitmap with the same
+         * options, instead of generating it again. This only works when the original input is a
+         * {@link Bitmap}.
+         *
+         * @param cache the cache to use, or {@code null} to always generate the palette, which is
+         *              the default.
+         * @see PaletteCache
+         */
+        @NonNull
+        public Builder setCache(@Nullable PaletteCache cache) {
+            mCache = cache;
+            return this;
+        }
+
         /**
          * Clear all added filters. This includes any default filters added automatically by
          * {@link Palette}.
@@ -778,6 +857,17 @@ public final class Palette {
         public Palette generate() {
             List<Swatch> swatches;
 
+            final PaletteCache cache = mCache;
+            PaletteCache.Key cacheKey = null;
+            if (cache != null && mBitmap != null) {
+                cacheKey = new PaletteCache.Key(mBitmap, mRegion, mMaxColors, mResizeArea,
+                        mResizeMaxDimension, mMaxSamplingError, mQuantizer, mFilters, mTargets);
+                final Palette cached = cache.get(cacheKey);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
             if (mBitmap != null) {
                 // We have a Bitmap so we need to use quantization to reduce the number of colors
 
@@ -798,10 +888,14 @@ public final class Palette {
                 }
 
                 // Now generate a quantizer from the Bitmap
+                final int[] pixels = getPixelsFromBitmap(bitmap);
                 final ColorCutQuantizer quantizer = new ColorCutQuantizer(
-                        getPixelsFromBitmap(bitmap),
+                        pixels,
                         mMaxColors,
-                        mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]));
+                        mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]),
+                        ColorCutQuantizer.sampleStrideFor(pixels.length, mMaxSamplingError),
+                        mExecutor,
+                        mQuantizer);
 
                 // If created a new bitmap, recycle it
                 if (bitmap != mBitmap) {
@@ -822,6 +916,9 @@ public final class Palette {
             // And make it generate itself
             p.generate();
 
+            if (cache != null && cacheKey != null) {
+                cache.put(cacheKey, p);
+            }
             return p;
         }
 
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cache of the {@link Palette}s generated from bitmaps, to be shared by the
+ * {@link Palette.Builder}s of an app with {@link Palette.Builder#setCache(PaletteCache)}.
+ * <p>
+ * Palettes are keyed by the {@link Bitmap#getGenerationId() generation id} of their bitmap, which
+ * changes each time the pixels of the bitmap are modified, and by the options of the builder. A
+ * bitmap that is decoded again gets a new generation id and a new palette.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class PaletteCache {
+    private final LruCache<Key, Palette> mPalettes;
+
+    /**
+     * @param maxSize the maximum number of palettes to keep
+     */
+    public PaletteCache(int maxSize) {
+        mPalettes = new LruCache<>(maxSize);
+    }
+
+    /**
+     * Remove all the palettes from the cache.
+     */
+    public void evictAll() {
+        mPalettes.evictAll();
+    }
+
+    /**
+     * @return the number of palettes in the cache
+     */
+    public int size() {
+        return mPalettes.size();
+    }
+
+    @Nullable
+    Palette get(@NonNull Key key) {
+        return mPalettes.get(key);
+    }
+
+    void put(@NonNull Key key, @NonNull Palette palette) {
+        mPalettes.put(key, palette);
+    }
+
+    /**
+     * Identifies a bitmap and the options a palette is generated from it with.
+     */
+    static final class Key {
+        private final int mGenerationId;
+        private final int mWidth;
+        private final int mHeight;
+        @Nullable private final Rect mRegion;
+        private final int mMaxColors;
+        private final int mResizeArea;
+        private final int mResizeMaxDimension;
+        private final float mMaxSamplingError;
+        @Nullable private final Quantizer mQuantizer;
+        private final List<Palette.Filter> mFilters;
+        private final List<Target> mTargets;
+
+        Key(@NonNull Bitmap bitmap, @Nullable Rect region, int maxColors, int resizeArea,
+                int resizeMaxDimension, float maxSamplingError, @Nullable Quantizer quantizer,
+                @NonNull List<Palette.Filter> filters, @NonNull List<Target> targets) {
+            mGenerationId = bitmap.getGenerationId();
+            mWidth = bitmap.getWidth();
+            mHeight = bitmap.getHeight();
+            mRegion = region != null ? new Rect(region) : null;
+            mMaxColors = maxColors;
+            mResizeArea = resizeArea;
+            mResizeMaxDimension = resizeMaxDimension;
+            mMaxSamplingError = maxSamplingError;
+            mQuantizer = quantizer;
+            mFilters = new ArrayList<>(filters);
+            mTargets = new ArrayList<>(targets);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return mGenerationId == key.mGenerationId
+                    && mWidth == key.mWidth
+                    && mHeight == key.mHeight
+                    && (mRegion == null ? key.mRegion == null : mRegion.equals(key.mRegion))
+                    && mMaxColors == key.mMaxColors
+                    && mResizeArea == key.mResizeArea
+                    && mResizeMaxDimension == key.mResizeMaxDimension
+                    && Float.compare(mMaxSamplingError, key.mMaxSamplingError) == 0
+                    && (mQuantizer == null ? key.mQuantizer == null
+                            : mQuantizer.equals(key.mQuantizer))
+                    && mFilters.equals(key.mFilters)
+                    && mTargets.equals(key.mTargets);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mGenerationId;
+            result = 31 * result + mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + (mRegion != null ? mRegion.hashCode() : 0);
+            result = 31 * result + mMaxColors;
+            result = 31 * result + mResizeArea;
+            result = 31 * result + mResizeMaxDimension;
+            result = 31 * result + Float.floatToIntBits(mMaxSamplingError);
+            result = 31 * result + (mQuantizer != null ? mQuantizer.hashCode() : 0);
+            result = 31 * result + mFilters.hashCode();
+            result = 31 * result + mTargets.hashCode();
+            return result;
+        }
+    }
+}
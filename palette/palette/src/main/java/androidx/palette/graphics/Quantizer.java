@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * Reduces the colors of an image to the few swatches a {@link Palette} picks its colors from.
+ * <p>
+ * By default a {@link Palette.Builder} divides the color space into boxes of distinct colors.
+ * Other implementations, such as {@link WuQuantizer} and {@link KMeansQuantizer}, can be set with
+ * {@link Palette.Builder#setQuantizer(Quantizer)}, trading speed for quality.
+ * <p>
+ * The image is given as a histogram of its colors, after the colors rejected by the filters of the
+ * builder are removed. Implementations must be thread-safe, since a quantizer can be shared by the
+ * builders of several threads.
+ */
+public interface Quantizer {
+    /**
+     * Reduces the given colors to at most maxColors swatches.
+     *
+     * @param colors the distinct colors of the image, in RGB888, each appearing only once
+     * @param populations the number of pixels of each color in {@code colors}
+     * @param maxColors the maximum number of swatches to return, smaller than the number of colors
+     *
+     * @return the swatches, whose populations are the number of pixels they stand for
+     */
+    @NonNull
+    List<Palette.Swatch> quantize(@NonNull int[] colors, @NonNull int[] populations,
+            int maxColors);
+}
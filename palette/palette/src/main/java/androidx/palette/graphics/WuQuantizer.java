@@ -0,0 +1,392 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A color quantizer based on Xiaolin Wu's algorithm, which splits the color space into boxes that
+ * minimize the variance of the colors within each box.
+ * <p>
+ * The boxes are found with cumulative moments of the colors, so each split only takes a few
+ * lookups per candidate plane, whatever the number of colors. The resulting swatches represent
+ * the image more faithfully than the default quantizer, which favors distinct colors.
+ */
+public final class WuQuantizer implements Quantizer {
+    private static final int INDEX_BITS = 5;
+    private static final int SIDE = (1 << INDEX_BITS) + 1;
+    private static final int TOTAL_SIZE = SIDE * SIDE * SIDE;
+
+    private static final int DIRECTION_RED = 0;
+    private static final int DIRECTION_GREEN = 1;
+    private static final int DIRECTION_BLUE = 2;
+
+    /**
+     * Moments of the last image quantized on the thread, kept since they are too large to
+     * allocate for each palette.
+     */
+    private static final ThreadLocal<Moments> sMoments = new ThreadLocal<>();
+
+    /**
+     * Creates a Wu quantizer.
+     */
+    public WuQuantizer() {
+    }
+
+    @NonNull
+    @Override
+    public List<Palette.Swatch> quantize(@NonNull int[] colors, @NonNull int[] populations,
+            int maxColors) {
+        Moments moments = sMoments.get();
+        if (moments == null) {
+            moments = new Moments();
+            sMoments.set(moments);
+        }
+        moments.clear();
+        moments.add(colors, populations);
+        moments.accumulate();
+
+        final List<Box> boxes = moments.createBoxes(maxColors);
+        final List<Palette.Swatch> swatches = new ArrayList<>(boxes.size());
+        for (Box box : boxes) {
+            final long weight = moments.volume(box, moments.mWeights);
+            if (weight > 0) {
+                final int red = (int) Math.round(moments.volume(box, moments.mReds)
+                        / (double) weight);
+                final int green = (int) Math.round(moments.volume(box, moments.mGreens)
+                        / (double) weight);
+                final int blue = (int) Math.round(moments.volume(box, moments.mBlues)
+                        / (double) weight);
+                swatches.add(new Palette.Swatch(Color.rgb(red, green, blue), (int) weight));
+            }
+        }
+        return swatches;
+    }
+
+    private static int index(int red, int green, int blue) {
+        return (red * SIDE + green) * SIDE + blue;
+    }
+
+    /**
+     * A box of the color space, with exclusive lower and inclusive upper bounds, in moment
+     * indices.
+     */
+    private static final class Box {
+        int mRed0, mRed1;
+        int mGreen0, mGreen1;
+        int mBlue0, mBlue1;
+        int mVolume;
+
+        void updateVolume() {
+            mVolume = (mRed1 - mRed0) * (mGreen1 - mGreen0) * (mBlue1 - mBlue0);
+        }
+    }
+
+    /**
+     * Cumulative moments of the colors of an image, indexed by the top {@value #INDEX_BITS} bits
+     * of each component plus one.
+     */
+    private static final class Moments {
+        final long[] mWeights = new long[TOTAL_SIZE];
+        final long[] mReds = new long[TOTAL_SIZE];
+        final long[] mGreens = new long[TOTAL_SIZE];
+        final long[] mBlues = new long[TOTAL_SIZE];
+        final double[] mSquares = new double[TOTAL_SIZE];
+
+        // cut position found by maximize() in each direction
+        private final int[] mCuts = new int[3];
+
+        void clear() {
+            Arrays.fill(mWeights, 0);
+            Arrays.fill(mReds, 0);
+            Arrays.fill(mGreens, 0);
+            Arrays.fill(mBlues, 0);
+            Arrays.fill(mSquares, 0);
+        }
+
+        void add(int[] colors, int[] populations) {
+            for (int i = 0; i < colors.length; i++) {
+                final int red = Color.red(colors[i]);
+                final int green = Color.green(colors[i]);
+                final int blue = Color.blue(colors[i]);
+                final int population = populations[i];
+                final int index = index((red >> (8 - INDEX_BITS)) + 1,
+                        (green >> (8 - INDEX_BITS)) + 1, (blue >> (8 - INDEX_BITS)) + 1);
+                mWeights[index] += population;
+                mReds[index] += (long) population * red;
+                mGreens[index] += (long) population * green;
+                mBlues[index] += (long) population * blue;
+                mSquares[index] += (double) population
+                        * (red * red + green * green + blue * blue);
+            }
+        }
+
+        /**
+         * Turns the moments of each cell into the sums of the moments of all the cells below it,
+         * so that the moments of any box can be computed from its corners.
+         */
+        void accumulate() {
+            accumulate(mWeights);
+            accumulate(mReds);
+            accumulate(mGreens);
+            accumulate(mBlues);
+            accumulate(mSquares);
+        }
+
+        // The sums are taken along one axis at a time, which walks the moments in order
+        private static void accumulate(long[] moment) {
+            for (int row = SIDE; row < TOTAL_SIZE; row += SIDE) {
+                for (int index = row + 2; index < row + SIDE; index++) {
+                    moment[index] += moment[index - 1];
+                }
+            }
+            for (int plane = SIDE * SIDE; plane < TOTAL_SIZE; plane += SIDE * SIDE) {
+                for (int index = plane + 2 * SIDE; index < plane + SIDE * SIDE; index++) {
+                    moment[index] += moment[index - SIDE];
+                }
+            }
+            for (int index = 2 * SIDE * SIDE; index < TOTAL_SIZE; index++) {
+                moment[index] += moment[index - SIDE * SIDE];
+            }
+        }
+
+        private static void accumulate(double[] moment) {
+            for (int row = SIDE; row < TOTAL_SIZE; row += SIDE) {
+                for (int index = row + 2; index < row + SIDE; index++) {
+                    moment[index] += moment[index - 1];
+                }
+            }
+            for (int plane = SIDE * SIDE; plane < TOTAL_SIZE; plane += SIDE * SIDE) {
+                for (int index = plane + 2 * SIDE; index < plane + SIDE * SIDE; index++) {
+                    moment[index] += moment[index - SIDE];
+                }
+            }
+            for (int index = 2 * SIDE * SIDE; index < TOTAL_SIZE; index++) {
+                moment[index] += moment[index - SIDE * SIDE];
+            }
+        }
+
+        List<Box> createBoxes(int maxColors) {
+            final List<Box> boxes = new ArrayList<>(maxColors);
+            final double[] variances = new double[maxColors];
+            final Box first = new Box();
+            first.mRed1 = first.mGreen1 = first.mBlue1 = SIDE - 1;
+            first.updateVolume();
+            boxes.add(first);
+
+            int next = 0;
+            while (boxes.size() < maxColors) {
+                final Box box = boxes.get(next);
+                final Box newBox = new Box();
+                if (cut(box, newBox)) {
+                    variances[next] = box.mVolume > 1 ? variance(box) : 0;
+                    variances[boxes.size()] = newBox.mVolume > 1 ? variance(newBox) : 0;
+                    boxes.add(newBox);
+                } else {
+                    variances[next] = 0;
+                }
+
+                // split the box with the largest variance next
+                next = 0;
+                for (int i = 1; i < boxes.size(); i++) {
+                    if (variances[i] > variances[next]) {
+                        next = i;
+                    }
+                }
+                if (variances[next] <= 0) {
+                    break;
+                }
+            }
+            return boxes;
+        }
+
+        private double variance(Box box) {
+            final double red = volume(box, mReds);
+            final double green = volume(box, mGreens);
+            final double blue = volume(box, mBlues);
+            final double squares = volume(box, mSquares);
+            return squares - (red * red + green * green + blue * blue) / volume(box, mWeights);
+        }
+
+        /**
+         * Splits box in two along the plane that minimizes the variance of both halves, the upper
+         * half going into newBox.
+         *
+         * @return false if box cannot be split
+         */
+        private boolean cut(Box box, Box newBox) {
+            final long wholeRed = volume(box, mReds);
+            final long wholeGreen = volume(box, mGreens);
+            final long wholeBlue = volume(box, mBlues);
+            final long wholeWeight = volume(box, mWeights);
+
+            final double maxRed = maximize(box, DIRECTION_RED, box.mRed0 + 1, box.mRed1,
+                    wholeRed, wholeGreen, wholeBlue, wholeWeight);
+            final double maxGreen = maximize(box, DIRECTION_GREEN, box.mGreen0 + 1, box.mGreen1,
+                    wholeRed, wholeGreen, wholeBlue, wholeWeight);
+            final double maxBlue = maximize(box, DIRECTION_BLUE, box.mBlue0 + 1, box.mBlue1,
+                    wholeRed, wholeGreen, wholeBlue, wholeWeight);
+
+            newBox.mRed1 = box.mRed1;
+            newBox.mGreen1 = box.mGreen1;
+            newBox.mBlue1 = box.mBlue1;
+            if (maxRed >= maxGreen && maxRed >= maxBlue) {
+                if (mCuts[DIRECTION_RED] < 0) {
+                    // no plane splits the box in two non-empty halves
+                    return false;
+                }
+                box.mRed1 = mCuts[DIRECTION_RED];
+                newBox.mRed0 = box.mRed1;
+                newBox.mGreen0 = box.mGreen0;
+                newBox.mBlue0 = box.mBlue0;
+            } else if (maxGreen >= maxRed && maxGreen >= maxBlue) {
+                box.mGreen1 = mCuts[DIRECTION_GREEN];
+                newBox.mRed0 = box.mRed0;
+                newBox.mGreen0 = box.mGreen1;
+                newBox.mBlue0 = box.mBlue0;
+            } else {
+                box.mBlue1 = mCuts[DIRECTION_BLUE];
+                newBox.mRed0 = box.mRed0;
+                newBox.mGreen0 = box.mGreen0;
+                newBox.mBlue0 = box.mBlue1;
+            }
+            box.updateVolume();
+            newBox.updateVolume();
+            return true;
+        }
+
+        /**
+         * Finds the plane perpendicular to direction, between first and last, that best splits
+         * box. Its position is stored in {@link #mCuts}, -1 if there is none.
+         *
+         * @return how well the plane splits the box, larger is better
+         */
+        private double maximize(Box box, int direction, int first, int last, long wholeRed,
+                long wholeGreen, long wholeBlue, long wholeWeight) {
+            final long baseRed = bottom(box, direction, mReds);
+            final long baseGreen = bottom(box, direction, mGreens);
+            final long baseBlue = bottom(box, direction, mBlues);
+            final long baseWeight = bottom(box, direction, mWeights);
+
+            double max = 0;
+            int cut = -1;
+            for (int i = first; i < last; i++) {
+                long halfRed = baseRed + top(box, direction, i, mReds);
+                long halfGreen = baseGreen + top(box, direction, i, mGreens);
+                long halfBlue = baseBlue + top(box, direction, i, mBlues);
+                long halfWeight = baseWeight + top(box, direction, i, mWeights);
+                if (halfWeight == 0) {
+                    continue;
+                }
+                double score = ((double) halfRed * halfRed + (double) halfGreen * halfGreen
+                        + (double) halfBlue * halfBlue) / halfWeight;
+
+                halfRed = wholeRed - halfRed;
+                halfGreen = wholeGreen - halfGreen;
+                halfBlue = wholeBlue - halfBlue;
+                halfWeight = wholeWeight - halfWeight;
+                if (halfWeight == 0) {
+                    continue;
+                }
+                score += ((double) halfRed * halfRed + (double) halfGreen * halfGreen
+                        + (double) halfBlue * halfBlue) / halfWeight;
+
+                if (score > max) {
+                    max = score;
+                    cut = i;
+                }
+            }
+            mCuts[direction] = cut;
+            return max;
+        }
+
+        /**
+         * @return the part of the moment of box below its lower bound in direction, to which
+         * {@link #top} adds the part up to a plane
+         */
+        private static long bottom(Box box, int direction, long[] moment) {
+            switch (direction) {
+                case DIRECTION_RED:
+                    return -moment[index(box.mRed0, box.mGreen1, box.mBlue1)]
+                            + moment[index(box.mRed0, box.mGreen1, box.mBlue0)]
+                            + moment[index(box.mRed0, box.mGreen0, box.mBlue1)]
+                            - moment[index(box.mRed0, box.mGreen0, box.mBlue0)];
+                case DIRECTION_GREEN:
+                    return -moment[index(box.mRed1, box.mGreen0, box.mBlue1)]
+                            + moment[index(box.mRed1, box.mGreen0, box.mBlue0)]
+                            + moment[index(box.mRed0, box.mGreen0, box.mBlue1)]
+                            - moment[index(box.mRed0, box.mGreen0, box.mBlue0)];
+                default:
+                    return -moment[index(box.mRed1, box.mGreen1, box.mBlue0)]
+                            + moment[index(box.mRed1, box.mGreen0, box.mBlue0)]
+                            + moment[index(box.mRed0, box.mGreen1, box.mBlue0)]
+                            - moment[index(box.mRed0, box.mGreen0, box.mBlue0)];
+            }
+        }
+
+        /**
+         * @return the part of the moment of box up to the plane at position in direction
+         */
+        private static long top(Box box, int direction, int position, long[] moment) {
+            switch (direction) {
+                case DIRECTION_RED:
+                    return moment[index(position, box.mGreen1, box.mBlue1)]
+                            - moment[index(position, box.mGreen1, box.mBlue0)]
+                            - moment[index(position, box.mGreen0, box.mBlue1)]
+                            + moment[index(position, box.mGreen0, box.mBlue0)];
+                case DIRECTION_GREEN:
+                    return moment[index(box.mRed1, position, box.mBlue1)]
+                            - moment[index(box.mRed1, position, box.mBlue0)]
+                            - moment[index(box.mRed0, position, box.mBlue1)]
+                            + moment[index(box.mRed0, position, box.mBlue0)];
+                default:
+                    return moment[index(box.mRed1, box.mGreen1, position)]
+                            - moment[index(box.mRed1, box.mGreen0, position)]
+                            - moment[index(box.mRed0, box.mGreen1, position)]
+                            + moment[index(box.mRed0, box.mGreen0, position)];
+            }
+        }
+
+        long volume(Box box, long[] moment) {
+            return moment[index(box.mRed1, box.mGreen1, box.mBlue1)]
+                    - moment[index(box.mRed1, box.mGreen1, box.mBlue0)]
+                    - moment[index(box.mRed1, box.mGreen0, box.mBlue1)]
+                    + moment[index(box.mRed1, box.mGreen0, box.mBlue0)]
+                    - moment[index(box.mRed0, box.mGreen1, box.mBlue1)]
+                    + moment[index(box.mRed0, box.mGreen1, box.mBlue0)]
+                    + moment[index(box.mRed0, box.mGreen0, box.mBlue1)]
+                    - moment[index(box.mRed0, box.mGreen0, box.mBlue0)];
+        }
+
+        double volume(Box box, double[] moment) {
+            return moment[index(box.mRed1, box.mGreen1, box.mBlue1)]
+                    - moment[index(box.mRed1, box.mGreen1, box.mBlue0)]
+                    - moment[index(box.mRed1, box.mGreen0, box.mBlue1)]
+                    + moment[index(box.mRed1, box.mGreen0, box.mBlue0)]
+                    - moment[index(box.mRed0, box.mGreen1, box.mBlue1)]
+                    + moment[index(box.mRed0, box.mGreen1, box.mBlue0)]
+                    + moment[index(box.mRed0, box.mGreen0, box.mBlue1)]
+                    - moment[index(box.mRed0, box.mGreen0, box.mBlue0)];
+        }
+    }
+}
@@ -80,6 +80,50 @@ public class GapWorkerTest {
         assertFalse(registry.lastPrefetchIncludedPosition(0));
     }
 
+    @Test
+    public void registryPredictedVelocity() {
+        GapWorker.LayoutPrefetchRegistryImpl registry = new GapWorker.LayoutPrefetchRegistryImpl();
+        // starting from rest
+        registry.setPrefetchVector(0, 100);
+        assertEquals(100, registry.mPredictedVelocity);
+
+        registry.setPrefetchVector(0, -100);
+        assertEquals(100, registry.mPredictedVelocity);
+
+        // decelerating
+        registry.setPrefetchVector(40, 0);
+        assertEquals(10, registry.mPredictedVelocity);
+
+        registry.setPrefetchVector(0, 0);
+        assertEquals(0, registry.mPredictedVelocity);
+
+        // accelerating
+        registry.setPrefetchVector(0, 50);
+        assertEquals(50, registry.mPredictedVelocity);
+        registry.setPrefetchVector(80, 0);
+        assertEquals(80, registry.mPredictedVelocity);
+    }
+
+    @Test
+    public void prefetchMetricsReset() {
+        RecyclerView.PrefetchMetrics metrics = new RecyclerView(getContext()).getPrefetchMetrics();
+        metrics.mPrefetchCount = 4;
+        metrics.mHitCount = 3;
+        metrics.mWastedCount = 1;
+        metrics.mMissedDeadlineCount = 2;
+        assertEquals(4, metrics.getPrefetchCount());
+        assertEquals(3, metrics.getHitCount());
+        assertEquals(1, metrics.getWastedCount());
+        assertEquals(2, metrics.getMissedDeadlineCount());
+
+        metrics.reset();
+
+        assertEquals(0, metrics.getPrefetchCount());
+        assertEquals(0, metrics.getHitCount());
+        assertEquals(0, metrics.getWastedCount());
+        assertEquals(0, metrics.getMissedDeadlineCount());
+    }
+
     @Test
     public void taskOrderViewPresence() {
         ArrayList<GapWorker.Task> list = new ArrayList<>();
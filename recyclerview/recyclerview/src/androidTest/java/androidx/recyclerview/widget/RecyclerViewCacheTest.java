@@ -92,6 +92,32 @@ public class RecyclerViewCacheTest {
         }
     }
 
+    private class FrameMockingRecyclerView extends TimeMockingRecyclerView {
+        final ArrayList<Runnable> mPosted = new ArrayList<>();
+        final ArrayList<Runnable> mPostedOnAnimation = new ArrayList<>();
+
+        FrameMockingRecyclerView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public long getDrawingTime() {
+            // Pretend the last frame was drawn now
+            return TimeUnit.NANOSECONDS.toMillis(getNanoTime());
+        }
+
+        @Override
+        public boolean post(Runnable action) {
+            mPosted.add(action);
+            return true;
+        }
+
+        @Override
+        public void postOnAnimation(Runnable action) {
+            mPostedOnAnimation.add(action);
+        }
+    }
+
     @Before
     public void setup() throws Exception {
         mRecyclerView = new TimeMockingRecyclerView(getContext());
@@ -466,6 +492,109 @@ public class RecyclerViewCacheTest {
         CacheUtils.verifyCacheContainsPositions(mRecyclerView, 12, 13, 14);
     }
 
+    private RecyclerView.Adapter createSquareItemAdapter() {
+        // 100x100 pixel views
+        RecyclerView.Adapter mockAdapter = mock(RecyclerView.Adapter.class);
+        when(mockAdapter.onCreateViewHolder(any(ViewGroup.class), anyInt()))
+                .thenAnswer(new Answer<RecyclerView.ViewHolder>() {
+                    @Override
+                    public RecyclerView.ViewHolder answer(InvocationOnMock invocation)
+                            throws Throwable {
+                        View view = new View(getContext());
+                        view.setMinimumWidth(100);
+                        view.setMinimumHeight(100);
+                        return new RecyclerView.ViewHolder(view) {};
+                    }
+                });
+        when(mockAdapter.getItemCount()).thenReturn(100);
+        return mockAdapter;
+    }
+
+    @Test
+    public void prefetchMetricsCountHitsAndWaste() {
+        mRecyclerView.setLayoutManager(new GridLayoutManager(getContext(), 3));
+        mRecyclerView.setAdapter(createSquareItemAdapter());
+
+        layout(300, 150);
+        mRecyclerView.scrollBy(0, 75);
+        RecyclerView.PrefetchMetrics metrics = mRecyclerView.getPrefetchMetrics();
+        metrics.reset();
+
+        // rows 0, 1, and 2 are all attached and visible. Prefetch row 3:
+        mRecyclerView.mPrefetchRegistry.setPrefetchVector(0, 1);
+        mRecyclerView.mGapWorker.prefetch(RecyclerView.FOREVER_NS);
+        CacheUtils.verifyCacheContainsPrefetchedPositions(mRecyclerView, 9, 10, 11);
+        assertEquals(3, metrics.getPrefetchCount());
+        assertEquals(0, metrics.getHitCount());
+
+        // scroll row 3 into view, it is laid out from the cache
+        mRecyclerView.scrollBy(0, 100);
+        assertEquals(3, metrics.getHitCount());
+        assertEquals(0, metrics.getWastedCount());
+
+        // prefetch row 4, and drop it from the cache before it is laid out
+        mRecyclerView.mPrefetchRegistry.setPrefetchVector(0, 1);
+        mRecyclerView.mGapWorker.prefetch(RecyclerView.FOREVER_NS);
+        CacheUtils.verifyCacheContainsPositions(mRecyclerView, 12, 13, 14);
+        assertEquals(6, metrics.getPrefetchCount());
+        mRecycler.recycleAndClearCachedViews();
+        assertEquals(3, metrics.getHitCount());
+        assertEquals(3, metrics.getWastedCount());
+        assertEquals(0, metrics.getMissedDeadlineCount());
+    }
+
+    @Test
+    public void prefetchMissingDeadlineIsDeferred() {
+        mRecyclerView.onDetachedFromWindow();
+        FrameMockingRecyclerView recyclerView = new FrameMockingRecyclerView(getContext());
+        mRecyclerView = recyclerView;
+        mRecyclerView.onAttachedToWindow();
+        mRecycler = mRecyclerView.mRecycler;
+        mRecyclerView.setLayoutManager(new GridLayoutManager(getContext(), 3));
+        mRecyclerView.setAdapter(createSquareItemAdapter());
+
+        layout(300, 150);
+        mRecyclerView.scrollBy(0, 75);
+        mRecyclerView.getPrefetchMetrics().reset();
+
+        // items take 5 ms to create, and no time is left before the next frame
+        mRecyclerView.getRecycledViewPool().factorInCreateTime(0,
+                TimeUnit.MILLISECONDS.toNanos(5));
+        mRecyclerView.registerTimePassingMs(1000);
+        GapWorker gapWorker = mRecyclerView.mGapWorker;
+        long frameIntervalNs = gapWorker.mFrameIntervalNs;
+        gapWorker.mFrameIntervalNs = 0;
+        try {
+            gapWorker.postFromTraversal(mRecyclerView, 0, 1);
+            for (int i = 1; i <= GapWorker.MAX_DEFERRED_FRAMES; i++) {
+                recyclerView.mPosted.clear();
+                recyclerView.mPostedOnAnimation.clear();
+                gapWorker.run();
+
+                // the pass is posted again after the next frame
+                assertEquals(i, gapWorker.mDeferredFrames);
+                assertEquals(1, recyclerView.mPostedOnAnimation.size());
+                recyclerView.mPostedOnAnimation.get(0).run();
+                assertEquals(1, recyclerView.mPosted.size());
+                assertSame(gapWorker, recyclerView.mPosted.get(0));
+            }
+
+            // but not for more than MAX_DEFERRED_FRAMES frames in a row
+            recyclerView.mPostedOnAnimation.clear();
+            gapWorker.run();
+            assertTrue(recyclerView.mPostedOnAnimation.isEmpty());
+            assertEquals(0, gapWorker.mDeferredFrames);
+        } finally {
+            gapWorker.mFrameIntervalNs = frameIntervalNs;
+        }
+
+        // row 3 missed its deadline in each pass
+        RecyclerView.PrefetchMetrics metrics = mRecyclerView.getPrefetchMetrics();
+        assertEquals(3 * (GapWorker.MAX_DEFERRED_FRAMES + 1), metrics.getMissedDeadlineCount());
+        assertEquals(0, metrics.getPrefetchCount());
+        assertTrue(mRecycler.mCachedViews.isEmpty());
+    }
+
     @Test
     public void partialPrefetchAvoidsViewRecycledCallback() {
         mRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil.CenteredArray;
+import androidx.recyclerview.widget.DiffUtil.Diagonal;
+import androidx.recyclerview.widget.DiffUtil.Range;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Finds the diagonals between two lists for
+ * {@link DiffUtil#calculateAnchoredDiff(DiffUtil.Callback, boolean, Executor, int)} and
+ * {@link DiffUtil#calculateKeyedDiff(DiffUtil.Callback, boolean)}.
+ * <p>
+ * The lists are first split on their common prefix and suffix, then on the items whose key is
+ * unique in both of them, matched in order with a longest increasing subsequence (patience diff).
+ * Each match is extended as long as the items before and after it are the same. Myers's algorithm
+ * only runs on the ranges left between the matches, which are independent from each other and can
+ * be diffed in parallel. With a max range size of 0, Myers's algorithm never runs.
+ */
+final class AnchoredDiff {
+    // below this total size, handing ranges to other threads costs more than it saves
+    private static final int MIN_PARALLEL_SIZE = 2048;
+
+    private static final int DUPLICATE = -1;
+
+    private final DiffUtil.Callback mCallback;
+    @Nullable
+    private final Executor mExecutor;
+    private final int mMaxRangeSize;
+
+    AnchoredDiff(@NonNull DiffUtil.Callback callback, @Nullable Executor executor,
+            int maxRangeSize) {
+        mCallback = callback;
+        mExecutor = executor;
+        mMaxRangeSize = maxRangeSize;
+    }
+
+    /**
+     * Returns the diagonals between the old and the new list, in no particular order.
+     */
+    @NonNull
+    List<Diagonal> calculateDiagonals() {
+        final List<Diagonal> diagonals = new ArrayList<>();
+        final List<Range> ranges = new ArrayList<>();
+        split(new Range(0, mCallback.getOldListSize(), 0, mCallback.getNewListSize()),
+                diagonals, ranges);
+
+        int totalSize = 0;
+        for (Range range : ranges) {
+            totalSize += range.oldSize() + range.newSize();
+        }
+        if (mExecutor == null || ranges.size() < 2 || totalSize < MIN_PARALLEL_SIZE) {
+            final Worker worker = new Worker();
+            for (Range range : ranges) {
+                worker.diff(range, diagonals);
+            }
+        } else {
+            diffInParallel(ranges, diagonals);
+        }
+        return diagonals;
+    }
+
+    /**
+     * Splits the range on its common prefix and suffix and on the items with a key unique in
+     * it, adding the matches to diagonals and the ranges left for Myers's algorithm to ranges.
+     * Ranges larger than the max range size are split again on the keys unique within them,
+     * and dropped (all their items are removed and inserted) if that is not possible.
+     */
+    private void split(Range initialRange, List<Diagonal> diagonals, List<Range> ranges) {
+        // instead of a recursive implementation, we keep our own stack to avoid potential stack
+        // overflow exceptions
+        final List<Range> stack = new ArrayList<>();
+        stack.add(initialRange);
+        while (!stack.isEmpty()) {
+            final Range range = stack.remove(stack.size() - 1);
+            trim(range, diagonals);
+            if (range.oldSize() == 0 || range.newSize() == 0) {
+                continue;
+            }
+            final int[] anchors = findAnchors(range);
+            if (anchors.length == 0) {
+                if (range.oldSize() + range.newSize() <= mMaxRangeSize) {
+                    ranges.add(range);
+                }
+                continue;
+            }
+            int oldStart = range.oldListStart;
+            int newStart = range.newListStart;
+            for (int i = 0; i < anchors.length; i += 2) {
+                int x = anchors[i];
+                int y = anchors[i + 1];
+                if (x < oldStart || y < newStart) {
+                    // already part of the previous diagonal
+                    continue;
+                }
+                int endX = x + 1;
+                int endY = y + 1;
+                while (x > oldStart && y > newStart && mCallback.areItemsTheSame(x - 1, y - 1)) {
+                    x--;
+                    y--;
+                }
+                while (endX < range.oldListEnd && endY < range.newListEnd
+                        && mCallback.areItemsTheSame(endX, endY)) {
+                    endX++;
+                    endY++;
+                }
+                addRange(new Range(oldStart, x, newStart, y), stack, ranges);
+                diagonals.add(new Diagonal(x, y, endX - x));
+                oldStart = endX;
+                newStart = endY;
+            }
+            addRange(new Range(oldStart, range.oldListEnd, newStart, range.newListEnd), stack,
+                    ranges);
+        }
+    }
+
+    private void addRange(Range range, List<Range> stack, List<Range> ranges) {
+        if (range.oldSize() == 0 || range.newSize() == 0) {
+            return;
+        }
+        if (range.oldSize() + range.newSize() <= mMaxRangeSize) {
+            ranges.add(range);
+        } else {
+            stack.add(range);
+        }
+    }
+
+    /**
+     * Moves the start and end of the range past the items that are the same in both lists,
+     * adding them to diagonals.
+     */
+    private void trim(Range range, List<Diagonal> diagonals) {
+        int size = 0;
+        while (range.oldListStart + size < range.oldListEnd
+                && range.newListStart + size < range.newListEnd
+                && mCallback.areItemsTheSame(range.oldListStart + size,
+                range.newListStart + size)) {
+            size++;
+        }
+        if (size > 0) {
+            diagonals.add(new Diagonal(range.oldListStart, range.newListStart, size));
+            range.oldListStart += size;
+            range.newListStart += size;
+        }
+        size = 0;
+        while (range.oldListEnd - size > range.oldListStart
+                && range.newListEnd - size > range.newListStart
+                && mCallback.areItemsTheSame(range.oldListEnd - size - 1,
+                range.newListEnd - size - 1)) {
+            size++;
+        }
+        if (size > 0) {
+            range.oldListEnd -= size;
+            range.newListEnd -= size;
+            diagonals.add(new Diagonal(range.oldListEnd, range.newListEnd, size));
+        }
+    }
+
+    /**
+     * Returns the positions of the items that have a key unique in both sides of the range and
+     * that are in the same order in both lists, as pairs of old and new positions in increasing
+     * order.
+     */
+    @NonNull
+    private int[] findAnchors(Range range) {
+        final HashMap<Object, Integer> oldPositions = new HashMap<>();
+        for (int x = range.oldListStart; x < range.oldListEnd; x++) {
+            final Object key = mCallback.getOldItemKey(x);
+            if (key != null && oldPositions.put(key, x) != null) {
+                oldPositions.put(key, DUPLICATE);
+            }
+        }
+        if (oldPositions.isEmpty()) {
+            return new int[0];
+        }
+        // new position of the keys of oldPositions found in the new list
+        final HashMap<Object, Integer> newPositions = new HashMap<>();
+        for (int y = range.newListStart; y < range.newListEnd; y++) {
+            final Object key = mCallback.getNewItemKey(y);
+            if (key == null) {
+                continue;
+            }
+            final Integer x = oldPositions.get(key);
+            if (x != null && x != DUPLICATE && newPositions.put(key, y) != null) {
+                newPositions.put(key, DUPLICATE);
+            }
+        }
+        // old positions of the unique pairs, in new list order
+        final int[] xs = new int[newPositions.size()];
+        final int[] ys = new int[newPositions.size()];
+        int count = 0;
+        for (int y = range.newListStart; y < range.newListEnd && count < xs.length; y++) {
+            final Object key = mCallback.getNewItemKey(y);
+            if (key == null) {
+                continue;
+            }
+            final Integer newPosition = newPositions.get(key);
+            if (newPosition != null && newPosition == y) {
+                final int x = oldPositions.get(key);
+                if (mCallback.areItemsTheSame(x, y)) {
+                    xs[count] = x;
+                    ys[count] = y;
+                    count++;
+                }
+            }
+        }
+        return longestIncreasingSubsequence(xs, ys, count);
+    }
+
+    /**
+     * Patience sort of xs: returns the longest subsequence of pairs with increasing xs, as
+     * pairs of x and y.
+     */
+    @NonNull
+    private static int[] longestIncreasingSubsequence(int[] xs, int[] ys, int count) {
+        // tails[i] is the index of the smallest x ending an increasing subsequence of size i + 1
+        final int[] tails = new int[count];
+        final int[] previous = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (xs[tails[mid]] < xs[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == size) {
+                size++;
+            }
+        }
+        final int[] anchors = new int[size * 2];
+        int index = size > 0 ? tails[size - 1] : -1;
+        for (int i = size - 1; i >= 0; i--) {
+            anchors[i * 2] = xs[index];
+            anchors[i * 2 + 1] = ys[index];
+            index = previous[index];
+        }
+        return anchors;
+    }
+
+    /**
+     * Diffs the ranges on the calling thread and on the executor. The threads take the ranges
+     * one at a time, so the calling thread diffs all of them if the executor never runs its
+     * tasks or rejects them.
+     */
+    private void diffInParallel(final List<Range> ranges, List<Diagonal> diagonals) {
+        final int rangeCount = ranges.size();
+        final AtomicInteger nextRange = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(rangeCount);
+        final AtomicReferenceArray<List<Diagonal>> results =
+                new AtomicReferenceArray<>(rangeCount);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                final Worker worker = new Worker();
+                int index;
+                while ((index = nextRange.getAndIncrement()) < rangeCount) {
+                    try {
+                        if (failure.get() == null) {
+                            final List<Diagonal> result = new ArrayList<>();
+                            worker.diff(ranges.get(index), result);
+                            results.set(index, result);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+        final int helpers = Math.min(Runtime.getRuntime().availableProcessors() - 1,
+                rangeCount - 1);
+        for (int i = 0; i < helpers; i++) {
+            try {
+                mExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the tasks already submitted may be running, the calling thread takes the rest
+                break;
+            }
+        }
+        task.run();
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                // the other threads still use the callback, wait for them before returning
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final Throwable t = failure.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new RuntimeException(t);
+        }
+        for (int i = 0; i < rangeCount; i++) {
+            diagonals.addAll(results.get(i));
+        }
+    }
+
+    /**
+     * Runs Myers's algorithm on ranges, re-using its k-line arrays between them.
+     */
+    private class Worker {
+        private CenteredArray mForward;
+        private CenteredArray mBackward;
+
+        void diff(Range range, List<Diagonal> diagonals) {
+            final int max = (range.oldSize() + range.newSize() + 1) / 2;
+            if (mForward == null || mForward.backingData().length < max * 2 + 1) {
+                mForward = new CenteredArray(max * 2 + 1);
+                mBackward = new CenteredArray(max * 2 + 1);
+            }
+            DiffUtil.diffRange(range, mCallback, mForward, mBackward, diagonals);
+        }
+    }
+}
@@ -16,10 +16,13 @@
 
 package androidx.recyclerview.widget;
 
+import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
@@ -33,21 +36,60 @@ import java.util.concurrent.Executors;
  * @param <T> Type of items in the lists, and being compared.
  */
 public final class AsyncDifferConfig<T> {
+    /**
+     * Diff lists with {@link DiffUtil#calculateDiff(DiffUtil.Callback)}.
+     *
+     * @see Builder#setDiffAlgorithm(int)
+     */
+    public static final int DIFF_ALGORITHM_MYERS = 0;
+
+    /**
+     * Diff lists with
+     * {@link DiffUtil#calculateAnchoredDiff(DiffUtil.Callback, boolean, Executor, int)}.
+     *
+     * @see Builder#setDiffAlgorithm(int)
+     */
+    public static final int DIFF_ALGORITHM_ANCHORED = 1;
+
+    /**
+     * Diff lists with {@link DiffUtil#calculateKeyedDiff(DiffUtil.Callback, boolean)}.
+     *
+     * @see Builder#setDiffAlgorithm(int)
+     */
+    public static final int DIFF_ALGORITHM_KEYED = 2;
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    @IntDef({DIFF_ALGORITHM_MYERS, DIFF_ALGORITHM_ANCHORED, DIFF_ALGORITHM_KEYED})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface DiffAlgorithm {
+    }
+
     @Nullable
     private final Executor mMainThreadExecutor;
     @NonNull
     private final Executor mBackgroundThreadExecutor;
     @NonNull
     private final DiffUtil.ItemCallback<T> mDiffCallback;
+    @DiffAlgorithm
+    private final int mDiffAlgorithm;
+    @Nullable
+    private final Executor mParallelDiffExecutor;
+    private final int mMaxDiffRangeSize;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     AsyncDifferConfig(
             @Nullable Executor mainThreadExecutor,
             @NonNull Executor backgroundThreadExecutor,
-            @NonNull DiffUtil.ItemCallback<T> diffCallback) {
+            @NonNull DiffUtil.ItemCallback<T> diffCallback,
+            @DiffAlgorithm int diffAlgorithm,
+            @Nullable Executor parallelDiffExecutor,
+            int maxDiffRangeSize) {
         mMainThreadExecutor = mainThreadExecutor;
         mBackgroundThreadExecutor = backgroundThreadExecutor;
         mDiffCallback = diffCallback;
+        mDiffAlgorithm = diffAlgorithm;
+        mParallelDiffExecutor = parallelDiffExecutor;
+        mMaxDiffRangeSize = maxDiffRangeSize;
     }
 
     @SuppressWarnings("WeakerAccess")
@@ -69,6 +111,34 @@ public final class AsyncDifferConfig<T> {
         return mDiffCallback;
     }
 
+    /**
+     * Returns the algorithm used to diff lists.
+     *
+     * @see Builder#setDiffAlgorithm(int)
+     */
+    @SuppressWarnings("WeakerAccess")
+    @DiffAlgorithm
+    public int getDiffAlgorithm() {
+        return mDiffAlgorithm;
+    }
+
+    /**
+     * @see Builder#setParallelDiffExecutor(Executor)
+     */
+    @SuppressWarnings("WeakerAccess")
+    @Nullable
+    public Executor getParallelDiffExecutor() {
+        return mParallelDiffExecutor;
+    }
+
+    /**
+     * @see Builder#setMaxDiffRangeSize(int)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getMaxDiffRangeSize() {
+        return mMaxDiffRangeSize;
+    }
+
     /**
      * Builder class for {@link AsyncDifferConfig}.
      *
@@ -79,6 +149,11 @@ public final class AsyncDifferConfig<T> {
         private Executor mMainThreadExecutor;
         private Executor mBackgroundThreadExecutor;
         private final DiffUtil.ItemCallback<T> mDiffCallback;
+        @DiffAlgorithm
+        private int mDiffAlgorithm = DIFF_ALGORITHM_MYERS;
+        @Nullable
+        private Executor mParallelDiffExecutor;
+        private int mMaxDiffRangeSize = Integer.MAX_VALUE;
 
         public Builder(@NonNull DiffUtil.ItemCallback<T> diffCallback) {
             mDiffCallback = diffCallback;
@@ -118,6 +193,83 @@ public final class AsyncDifferConfig<T> {
             return this;
         }
 
+        /**
+         * Defines the algorithm used to diff the lists.
+         * <ul>
+         *     <li>{@link #DIFF_ALGORITHM_MYERS} uses
+         *     {@link DiffUtil#calculateDiff(DiffUtil.Callback)}.
+         *     <li>{@link #DIFF_ALGORITHM_ANCHORED} uses
+         *     {@link DiffUtil#calculateAnchoredDiff(DiffUtil.Callback, boolean, Executor, int)},
+         *     anchored on the keys returned by {@link DiffUtil.ItemCallback#getItemKey(Object)}.
+         *     This is much faster for large lists with few changes, but may not find the minimal
+         *     set of updates. Without item keys, only the common prefix and suffix of the lists
+         *     are matched before running Myers's algorithm on the rest.
+         *     <li>{@link #DIFF_ALGORITHM_KEYED} uses
+         *     {@link DiffUtil#calculateKeyedDiff(DiffUtil.Callback, boolean)}, which only matches
+         *     items on their keys and takes the same time whatever the number of changes. Use it
+         *     when every item has a unique key, such as a stable id.
+         * </ul>
+         * <p>
+         * Defaults to {@link #DIFF_ALGORITHM_MYERS}.
+         *
+         * @param diffAlgorithm The algorithm to diff lists with.
+         * @return this
+         * @throws IllegalArgumentException if diffAlgorithm is not one of the
+         *         {@code DIFF_ALGORITHM_*} constants.
+         */
+        @SuppressWarnings({"unused", "WeakerAccess"})
+        @NonNull
+        public Builder<T> setDiffAlgorithm(@DiffAlgorithm int diffAlgorithm) {
+            if (diffAlgorithm != DIFF_ALGORITHM_MYERS && diffAlgorithm != DIFF_ALGORITHM_ANCHORED
+                    && diffAlgorithm != DIFF_ALGORITHM_KEYED) {
+                throw new IllegalArgumentException("Unknown diff algorithm " + diffAlgorithm);
+            }
+            mDiffAlgorithm = diffAlgorithm;
+            return this;
+        }
+
+        /**
+         * If provided, the anchored diff splits its work across this executor, in addition to
+         * the background thread executor. The {@link DiffUtil.ItemCallback} is then called from
+         * several threads at once.
+         * <p>
+         * This executor should not be the background thread executor. If not provided or null,
+         * the diff runs on the background thread only.
+         *
+         * @param executor The executor to diff parts of the lists in parallel on.
+         * @return this
+         * @see #DIFF_ALGORITHM_ANCHORED
+         */
+        @SuppressWarnings({"unused", "WeakerAccess"})
+        @NonNull
+        public Builder<T> setParallelDiffExecutor(@Nullable Executor executor) {
+            mParallelDiffExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the largest range of the lists, old size + new size, the anchored diff runs
+         * Myers's algorithm on, which bounds the memory it uses. Larger ranges are split on the
+         * item keys unique within them when possible, and are otherwise dispatched as removals
+         * and insertions.
+         * <p>
+         * Defaults to {@link Integer#MAX_VALUE}, no limit.
+         *
+         * @param maxRangeSize The largest range to run Myers's algorithm on, at least 2.
+         * @return this
+         * @see #DIFF_ALGORITHM_ANCHORED
+         */
+        @SuppressWarnings({"unused", "WeakerAccess"})
+        @NonNull
+        public Builder<T> setMaxDiffRangeSize(int maxRangeSize) {
+            if (maxRangeSize < 2) {
+                throw new IllegalArgumentException("maxRangeSize must be at least 2, was "
+                        + maxRangeSize);
+            }
+            mMaxDiffRangeSize = maxRangeSize;
+            return this;
+        }
+
         /**
          * Creates a {@link AsyncListDiffer} with the given parameters.
          *
@@ -136,7 +288,10 @@ public final class AsyncDifferConfig<T> {
             return new AsyncDifferConfig<>(
                     mMainThreadExecutor,
                     mBackgroundThreadExecutor,
-                    mDiffCallback);
+                    mDiffCallback,
+                    mDiffAlgorithm,
+                    mParallelDiffExecutor,
+                    mMaxDiffRangeSize);
         }
 
         // TODO: remove the below once supportlib has its own appropriate executors
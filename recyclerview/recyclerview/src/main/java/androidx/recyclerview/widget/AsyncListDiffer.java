@@ -289,7 +289,7 @@ public class AsyncListDiffer<T> {
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
-                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                final DiffUtil.Callback callback = new DiffUtil.Callback() {
                     @Override
                     public int getOldListSize() {
                         return oldList.size();
@@ -342,7 +342,37 @@ public class AsyncListDiffer<T> {
                         // non-null which is the only case handled above.
                         throw new AssertionError();
                     }
-                });
+
+                    @Nullable
+                    @Override
+                    public Object getOldItemKey(int oldItemPosition) {
+                        T oldItem = oldList.get(oldItemPosition);
+                        return oldItem == null ? null
+                                : mConfig.getDiffCallback().getItemKey(oldItem);
+                    }
+
+                    @Nullable
+                    @Override
+                    public Object getNewItemKey(int newItemPosition) {
+                        T newItem = newList.get(newItemPosition);
+                        return newItem == null ? null
+                                : mConfig.getDiffCallback().getItemKey(newItem);
+                    }
+                };
+                final DiffUtil.DiffResult result;
+                switch (mConfig.getDiffAlgorithm()) {
+                    case AsyncDifferConfig.DIFF_ALGORITHM_ANCHORED:
+                        result = DiffUtil.calculateAnchoredDiff(callback, true,
+                                mConfig.getParallelDiffExecutor(),
+                                mConfig.getMaxDiffRangeSize());
+                        break;
+                    case AsyncDifferConfig.DIFF_ALGORITHM_KEYED:
+                        result = DiffUtil.calculateKeyedDiff(callback, true);
+                        break;
+                    default:
+                        result = DiffUtil.calculateDiff(callback);
+                        break;
+                }
 
                 mMainThreadExecutor.execute(new Runnable() {
                     @Override
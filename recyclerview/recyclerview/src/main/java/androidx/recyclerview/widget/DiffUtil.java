@@ -26,8 +26,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * DiffUtil is a utility class that calculates the difference between two lists and outputs a
@@ -126,12 +128,6 @@ public class DiffUtil {
 
         final List<Diagonal> diagonals = new ArrayList<>();
 
-        // instead of a recursive implementation, we keep our own stack to avoid potential stack
-        // overflow exceptions
-        final List<Range> stack = new ArrayList<>();
-
-        stack.add(new Range(0, oldSize, 0, newSize));
-
         final int max = (oldSize + newSize + 1) / 2;
         // allocate forward and backward k-lines. K lines are diagonal lines in the matrix. (see the
         // paper for details)
@@ -139,6 +135,106 @@ public class DiffUtil {
         final CenteredArray forward = new CenteredArray(max * 2 + 1);
         final CenteredArray backward = new CenteredArray(max * 2 + 1);
 
+        diffRange(new Range(0, oldSize, 0, newSize), cb, forward, backward, diagonals);
+        // sort snakes
+        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+
+        return new DiffResult(cb, diagonals,
+                forward.backingData(), backward.backingData(),
+                detectMoves);
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one,
+     * anchoring the diff on the keys returned by {@link Callback#getOldItemKey(int)} and
+     * {@link Callback#getNewItemKey(int)}.
+     * <p>
+     * The common prefix and suffix of the lists are matched first. Then, items whose key is
+     * unique in both lists are matched in order (patience diff), and Myers's algorithm only runs
+     * on the ranges between these matches. For large lists with few changes, this is much
+     * faster than {@link #calculateDiff(Callback, boolean)} and allocates far less memory. The
+     * result may not be the minimal edit script, but it is always a valid one.
+     * <p>
+     * If an executor is given, the ranges between matches are diffed in parallel on it, and the
+     * callback must support being called from several threads at once. The calling thread also
+     * takes part in the work, so the executor does not need free threads.
+     * <p>
+     * Ranges that are larger than {@code maxRangeSize} (old size + new size) are split again on
+     * the keys that are unique within them. When that is not possible, their items are
+     * reported as removed and inserted, or moved if move detection is enabled, instead of
+     * running Myers's algorithm on them. This bounds the memory used by the diff.
+     *
+     * @param cb           The callback that acts as a gateway to the backing list data
+     * @param detectMoves  True if DiffUtil should try to detect moved items, false otherwise.
+     * @param executor     The executor to diff ranges in parallel on, or null to diff them on
+     *                     the calling thread only.
+     * @param maxRangeSize The largest range Myers's algorithm runs on, or
+     *                     {@link Integer#MAX_VALUE} to not limit it.
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     */
+    @NonNull
+    public static DiffResult calculateAnchoredDiff(@NonNull Callback cb, boolean detectMoves,
+            @Nullable Executor executor, @IntRange(from = 2) int maxRangeSize) {
+        if (maxRangeSize < 2) {
+            throw new IllegalArgumentException("maxRangeSize must be at least 2, was "
+                    + maxRangeSize);
+        }
+        final List<Diagonal> diagonals =
+                new AnchoredDiff(cb, executor, maxRangeSize).calculateDiagonals();
+        // sort snakes
+        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+
+        return new DiffResult(cb, diagonals,
+                new int[cb.getOldListSize()], new int[cb.getNewListSize()],
+                detectMoves, true);
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one,
+     * matching items only on the keys returned by {@link Callback#getOldItemKey(int)} and
+     * {@link Callback#getNewItemKey(int)}, such as stable ids.
+     * <p>
+     * Items whose key is in both lists are matched, and the largest set of matches that are in
+     * the same order in both lists stays in place. The other matches are moves, and the items
+     * that were not matched are removed or inserted. This takes O(N log N) time, where N is the
+     * size of the lists, whatever the number of changes. Myers's algorithm is never run, so
+     * items without a key, or with a key duplicated in a list, are only matched with the items
+     * next to the matches or as moves.
+     *
+     * @param cb          The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if DiffUtil should try to detect moved items, false otherwise.
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     * @see #calculateAnchoredDiff(Callback, boolean, Executor, int)
+     */
+    @NonNull
+    public static DiffResult calculateKeyedDiff(@NonNull Callback cb, boolean detectMoves) {
+        final List<Diagonal> diagonals = new AnchoredDiff(cb, null, 0).calculateDiagonals();
+        // sort snakes
+        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+
+        return new DiffResult(cb, diagonals,
+                new int[cb.getOldListSize()], new int[cb.getNewListSize()],
+                detectMoves, true);
+    }
+
+    /**
+     * Runs Myers's algorithm on the given range and adds the diagonals found to the list.
+     * The forward and backward arrays must hold at least the size of the range + 1 k-lines.
+     */
+    static void diffRange(
+            Range initialRange,
+            Callback cb,
+            CenteredArray forward,
+            CenteredArray backward,
+            List<Diagonal> diagonals) {
+        // instead of a recursive implementation, we keep our own stack to avoid potential stack
+        // overflow exceptions
+        final List<Range> stack = new ArrayList<>();
+
+        stack.add(initialRange);
+
         // We pool the ranges to avoid allocations for each recursive call.
         final List<Range> rangePool = new ArrayList<>();
         while (!stack.isEmpty()) {
@@ -171,12 +267,6 @@ public class DiffUtil {
             }
 
         }
-        // sort snakes
-        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
-
-        return new DiffResult(cb, diagonals,
-                forward.backingData(), backward.backingData(),
-                detectMoves);
     }
 
     /**
@@ -395,6 +485,40 @@ public class DiffUtil {
         public Object getChangePayload(int oldItemPosition, int newItemPosition) {
             return null;
         }
+
+        /**
+         * Returns a key identifying the item at the given position of the old list, used by
+         * {@link DiffUtil#calculateAnchoredDiff(Callback, boolean, Executor, int)} and
+         * {@link DiffUtil#calculateKeyedDiff(Callback, boolean)} to match items without
+         * comparing every pair.
+         * <p>
+         * Keys are compared with {@link Object#equals(Object)} and {@link Object#hashCode()}.
+         * Two items with keys must have equal keys if and only if
+         * {@link #areItemsTheSame(int, int)} returns {@code true} for them.
+         * <p>
+         * Default implementation returns {@code null}, which means the item has no key.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @return The key of the item, or {@code null} if it has none.
+         */
+        @Nullable
+        public Object getOldItemKey(int oldItemPosition) {
+            return null;
+        }
+
+        /**
+         * Returns a key identifying the item at the given position of the new list.
+         * <p>
+         * Default implementation returns {@code null}, which means the item has no key.
+         *
+         * @param newItemPosition The position of the item in the new list
+         * @return The key of the item, or {@code null} if it has none.
+         * @see #getOldItemKey(int)
+         */
+        @Nullable
+        public Object getNewItemKey(int newItemPosition) {
+            return null;
+        }
     }
 
     /**
@@ -467,6 +591,21 @@ public class DiffUtil {
         public Object getChangePayload(@NonNull T oldItem, @NonNull T newItem) {
             return null;
         }
+
+        /**
+         * Returns a key identifying the item, such as its id, used to match items between the
+         * lists without comparing every pair. Two items with keys must have equal keys if and
+         * only if {@link #areItemsTheSame(T, T)} returns {@code true} for them.
+         * <p>
+         * Default implementation returns {@code null}, which means the item has no key.
+         *
+         * @see Callback#getOldItemKey(int)
+         * @see AsyncDifferConfig.Builder#setDiffAlgorithm(int)
+         */
+        @Nullable
+        public Object getItemKey(@NonNull T item) {
+            return null;
+        }
     }
 
     /**
@@ -653,6 +792,10 @@ public class DiffUtil {
 
         private final boolean mDetectMoves;
 
+        // True if moves are matched on the keys of the items instead of comparing every removal
+        // with every addition.
+        private final boolean mKeyedMoves;
+
         /**
          * @param callback        The callback that was used to calculate the diff
          * @param diagonals       Matches between the two lists
@@ -662,6 +805,14 @@ public class DiffUtil {
          */
         DiffResult(Callback callback, List<Diagonal> diagonals, int[] oldItemStatuses,
                 int[] newItemStatuses, boolean detectMoves) {
+            this(callback, diagonals, oldItemStatuses, newItemStatuses, detectMoves, false);
+        }
+
+        /**
+         * @param keyedMoves True if moves are matched on the item keys of the callback
+         */
+        DiffResult(Callback callback, List<Diagonal> diagonals, int[] oldItemStatuses,
+                int[] newItemStatuses, boolean detectMoves, boolean keyedMoves) {
             mDiagonals = diagonals;
             mOldItemStatuses = oldItemStatuses;
             mNewItemStatuses = newItemStatuses;
@@ -671,6 +822,7 @@ public class DiffUtil {
             mOldListSize = callback.getOldListSize();
             mNewListSize = callback.getNewListSize();
             mDetectMoves = detectMoves;
+            mKeyedMoves = keyedMoves;
             addEdgeDiagonals();
             findMatchingItems();
         }
@@ -714,13 +866,20 @@ public class DiffUtil {
         }
 
         private void findMoveMatches() {
+            final KeyedAdditions keyedAdditions = mKeyedMoves ? new KeyedAdditions() : null;
             // for each removal, find matching addition
             int posX = 0;
             for (Diagonal diagonal : mDiagonals) {
                 while (posX < diagonal.x) {
                     if (mOldItemStatuses[posX] == 0) {
                         // there is a removal, find matching addition from the rest
-                        findMatchingAddition(posX);
+                        final Object key = keyedAdditions == null ? null
+                                : mCallback.getOldItemKey(posX);
+                        if (key == null) {
+                            findMatchingAddition(posX);
+                        } else {
+                            keyedAdditions.findMatchingAddition(posX, key);
+                        }
                     }
                     posX++;
                 }
@@ -729,6 +888,50 @@ public class DiffUtil {
             }
         }
 
+        private void setMoved(int posX, int posY) {
+            boolean contentsMatching = mCallback.areContentsTheSame(posX, posY);
+            final int changeFlag = contentsMatching ? FLAG_MOVED_NOT_CHANGED
+                    : FLAG_MOVED_CHANGED;
+            // once we process one of these, it will mark the other one as ignored.
+            mOldItemStatuses[posX] = (posY << FLAG_OFFSET) | changeFlag;
+            mNewItemStatuses[posY] = (posX << FLAG_OFFSET) | changeFlag;
+        }
+
+        /**
+         * The additions of the new list, grouped by key in the order of the list, so that the
+         * matching addition of a removal is found without going through every addition.
+         */
+        private class KeyedAdditions {
+            private final HashMap<Object, Integer> mFirstPosition = new HashMap<>();
+            // position of the next addition with the same key, or NO_POSITION
+            private final int[] mNextPosition = new int[mNewListSize];
+
+            KeyedAdditions() {
+                for (int posY = mNewListSize - 1; posY >= 0; posY--) {
+                    if (mNewItemStatuses[posY] != 0) {
+                        continue;
+                    }
+                    final Object key = mCallback.getNewItemKey(posY);
+                    if (key != null) {
+                        final Integer next = mFirstPosition.put(key, posY);
+                        mNextPosition[posY] = next == null ? NO_POSITION : next;
+                    }
+                }
+            }
+
+            void findMatchingAddition(int posX, @NonNull Object key) {
+                final Integer first = mFirstPosition.get(key);
+                int posY = first == null ? NO_POSITION : first;
+                while (posY != NO_POSITION) {
+                    if (mNewItemStatuses[posY] == 0 && mCallback.areItemsTheSame(posX, posY)) {
+                        setMoved(posX, posY);
+                        return;
+                    }
+                    posY = mNextPosition[posY];
+                }
+            }
+        }
+
         /**
          * Search the whole list to find the addition for the given removal of position posX
          *
@@ -745,12 +948,7 @@ public class DiffUtil {
                         boolean matching = mCallback.areItemsTheSame(posX, posY);
                         if (matching) {
                             // yay found it, set values
-                            boolean contentsMatching = mCallback.areContentsTheSame(posX, posY);
-                            final int changeFlag = contentsMatching ? FLAG_MOVED_NOT_CHANGED
-                                    : FLAG_MOVED_CHANGED;
-                            // once we process one of these, it will mark the other one as ignored.
-                            mOldItemStatuses[posX] = (posY << FLAG_OFFSET) | changeFlag;
-                            mNewItemStatuses[posY] = (posX << FLAG_OFFSET) | changeFlag;
+                            setMoved(posX, posY);
                             return;
                         }
                     }
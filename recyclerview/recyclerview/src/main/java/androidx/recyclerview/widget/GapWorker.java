@@ -20,6 +20,7 @@ import android.view.View;
 
 import androidx.annotation.Nullable;
 import androidx.core.os.TraceCompat;
+import androidx.core.view.ViewCompat;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -31,10 +32,22 @@ final class GapWorker implements Runnable {
 
     static final ThreadLocal<GapWorker> sGapWorker = new ThreadLocal<>();
 
+    /**
+     * Number of frames in a row a prefetch pass is retried for, when items could not be
+     * prefetched before the deadline of a frame and no new scroll posts another pass.
+     */
+    static final int MAX_DEFERRED_FRAMES = 3;
+
     ArrayList<RecyclerView> mRecyclerViews = new ArrayList<>();
     long mPostTimeNs;
     long mFrameIntervalNs;
 
+    /**
+     * True if an item of the current prefetch pass could not be created or bound in time.
+     */
+    boolean mMissedDeadline;
+    int mDeferredFrames;
+
     static class Task {
         public boolean immediate;
         public int viewVelocity;
@@ -68,9 +81,21 @@ final class GapWorker implements Runnable {
         int mPrefetchDy;
         int[] mPrefetchArray;
 
+        /**
+         * Scroll distance expected for the next frame. Flings slow down, so when the last two
+         * prefetch vectors decelerate, the deceleration is extrapolated and the view yields to
+         * one that does not. Otherwise, such as when starting from rest, the last velocity is
+         * kept as is.
+         */
+        int mPredictedVelocity;
+
         int mCount;
 
         void setPrefetchVector(int dx, int dy) {
+            final int lastVelocity = Math.abs(mPrefetchDx) + Math.abs(mPrefetchDy);
+            final int velocity = Math.abs(dx) + Math.abs(dy);
+            mPredictedVelocity = velocity < lastVelocity
+                    ? Math.max(0, velocity - (lastVelocity - velocity) / 2) : velocity;
             mPrefetchDx = dx;
             mPrefetchDy = dy;
         }
@@ -182,6 +207,7 @@ final class GapWorker implements Runnable {
                 mPostTimeNs = recyclerView.getNanoTime();
                 recyclerView.post(this);
             }
+            mDeferredFrames = 0;
         }
 
         recyclerView.mPrefetchRegistry.setPrefetchVector(prefetchDx, prefetchDy);
@@ -200,7 +226,7 @@ final class GapWorker implements Runnable {
                 return lhs.immediate ? -1 : 1;
             }
 
-            // then prioritize _highest_ view velocity
+            // then prioritize _highest_ predicted view velocity
             int deltaViewVelocity = rhs.viewVelocity - lhs.viewVelocity;
             if (deltaViewVelocity != 0) return deltaViewVelocity;
 
@@ -248,7 +274,7 @@ final class GapWorker implements Runnable {
                 final int distanceToItem = prefetchRegistry.mPrefetchArray[j + 1];
 
                 task.immediate = distanceToItem <= viewVelocity;
-                task.viewVelocity = viewVelocity;
+                task.viewVelocity = prefetchRegistry.mPredictedVelocity;
                 task.distanceToItem = distanceToItem;
                 task.view = view;
                 task.position = prefetchRegistry.mPrefetchArray[j];
@@ -274,6 +300,17 @@ final class GapWorker implements Runnable {
         return false;
     }
 
+    static boolean isPrefetchPositionCached(RecyclerView view, int position) {
+        final ArrayList<RecyclerView.ViewHolder> cachedViews = view.mRecycler.mCachedViews;
+        for (int i = 0; i < cachedViews.size(); i++) {
+            RecyclerView.ViewHolder holder = cachedViews.get(i);
+            if (holder.mPosition == position && !holder.isInvalid()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private RecyclerView.ViewHolder prefetchPositionWithDeadline(RecyclerView view,
             int position, long deadlineNs) {
         if (isPrefetchPositionAttached(view, position)) {
@@ -285,9 +322,19 @@ final class GapWorker implements Runnable {
         RecyclerView.ViewHolder holder;
         try {
             view.onEnterLayoutOrScroll();
+            final boolean cached = isPrefetchPositionCached(view, position);
             holder = recycler.tryGetViewHolderForPositionByDeadline(
                     position, false, deadlineNs);
 
+            if (holder == null || !holder.isBound() || holder.isInvalid()) {
+                // not enough time left in this frame, retried in a later one
+                view.mPrefetchMetrics.mMissedDeadlineCount++;
+                mMissedDeadline = true;
+            } else if (!cached) {
+                view.mPrefetchMetrics.mPrefetchCount++;
+                holder.addFlags(RecyclerView.ViewHolder.FLAG_PREFETCHED);
+            }
+
             if (holder != null) {
                 if (holder.isBound() && !holder.isInvalid()) {
                     // Only give the view a chance to go into the cache if binding succeeded
@@ -364,12 +411,44 @@ final class GapWorker implements Runnable {
     }
 
     void prefetch(long deadlineNs) {
+        mMissedDeadline = false;
         buildTaskList();
         flushTasksWithDeadline(deadlineNs);
     }
 
+    /**
+     * Posts another prefetch pass after the next frame, if items of this pass missed their
+     * deadline. Their create and bind times are spread over the idle time of the frames that
+     * follow instead of being skipped until the next scroll.
+     */
+    private void deferIfNeeded() {
+        if (!mMissedDeadline || mDeferredFrames >= MAX_DEFERRED_FRAMES) {
+            mDeferredFrames = 0;
+            return;
+        }
+        for (int i = 0; i < mRecyclerViews.size(); i++) {
+            final RecyclerView view = mRecyclerViews.get(i);
+            if (view.isAttachedToWindow() && view.getWindowVisibility() == View.VISIBLE) {
+                mDeferredFrames++;
+                ViewCompat.postOnAnimation(view, new Runnable() {
+                    @Override
+                    public void run() {
+                        // a scroll may have already posted a pass, or the view been detached
+                        if (mPostTimeNs == 0 && view.isAttachedToWindow()
+                                && mRecyclerViews.contains(view)) {
+                            mPostTimeNs = view.getNanoTime();
+                            view.post(GapWorker.this);
+                        }
+                    }
+                });
+                return;
+            }
+        }
+    }
+
     @Override
     public void run() {
+        boolean prefetched = false;
         try {
             TraceCompat.beginSection(RecyclerView.TRACE_PREFETCH_TAG);
 
@@ -397,10 +476,12 @@ final class GapWorker implements Runnable {
             long nextFrameNs = TimeUnit.MILLISECONDS.toNanos(latestFrameVsyncMs) + mFrameIntervalNs;
 
             prefetch(nextFrameNs);
-
-            // TODO: consider rescheduling self, if there's more work to do
+            prefetched = true;
         } finally {
             mPostTimeNs = 0;
+            if (prefetched) {
+                deferIfNeeded();
+            }
             TraceCompat.endSection();
         }
     }
@@ -609,6 +609,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
     GapWorker mGapWorker;
     GapWorker.LayoutPrefetchRegistryImpl mPrefetchRegistry =
             ALLOW_THREAD_GAP_WORK ? new GapWorker.LayoutPrefetchRegistryImpl() : null;
+    final PrefetchMetrics mPrefetchMetrics = new PrefetchMetrics();
 
     final State mState = new State();
 
@@ -1677,6 +1678,20 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         return mRecycler.getRecycledViewPool();
     }
 
+    /**
+     * Returns the counts of the item prefetch work done for this RecyclerView, and of how much of
+     * it was useful.
+     * <p>
+     * Counts keep growing until {@link PrefetchMetrics#reset()} is called.
+     *
+     * @return The prefetch metrics of this RecyclerView.
+     * @see LayoutManager#setItemPrefetchEnabled(boolean)
+     */
+    @NonNull
+    public PrefetchMetrics getPrefetchMetrics() {
+        return mPrefetchMetrics;
+    }
+
     /**
      * Recycled view pools allow multiple RecyclerViews to share a common pool of scrap views.
      * This can be useful if you have multiple RecyclerViews with adapters that use the same
@@ -6277,6 +6292,63 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         }
     }
 
+    /**
+     * Counts of the items a RecyclerView prefetched ahead of scrolling, returned by
+     * {@link RecyclerView#getPrefetchMetrics()}.
+     * <p>
+     * A prefetch is a hit if the LayoutManager then lays out the prefetched view, and wasted if
+     * the view is recycled before that. A prefetch misses its deadline when the item could not be
+     * created and bound before the next frame was due, and is retried on the following frames.
+     */
+    public static final class PrefetchMetrics {
+        int mPrefetchCount;
+        int mHitCount;
+        int mWastedCount;
+        int mMissedDeadlineCount;
+
+        PrefetchMetrics() {
+        }
+
+        /**
+         * @return The number of items created and bound ahead of time.
+         */
+        public int getPrefetchCount() {
+            return mPrefetchCount;
+        }
+
+        /**
+         * @return The number of prefetched items that the LayoutManager then laid out.
+         */
+        public int getHitCount() {
+            return mHitCount;
+        }
+
+        /**
+         * @return The number of prefetched items recycled without being laid out.
+         */
+        public int getWastedCount() {
+            return mWastedCount;
+        }
+
+        /**
+         * @return The number of items that could not be prefetched before the deadline of their
+         * frame.
+         */
+        public int getMissedDeadlineCount() {
+            return mMissedDeadlineCount;
+        }
+
+        /**
+         * Sets all counts back to 0.
+         */
+        public void reset() {
+            mPrefetchCount = 0;
+            mHitCount = 0;
+            mWastedCount = 0;
+            mMissedDeadlineCount = 0;
+        }
+    }
+
     /**
      * RecycledViewPool lets you share Views between multiple RecyclerViews.
      * <p>
@@ -6856,7 +6928,14 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         }
 
         View getViewForPosition(int position, boolean dryRun) {
-            return tryGetViewHolderForPositionByDeadline(position, dryRun, FOREVER_NS).itemView;
+            final ViewHolder holder = tryGetViewHolderForPositionByDeadline(position, dryRun,
+                    FOREVER_NS);
+            if (!dryRun && holder.hasAnyOfTheFlags(ViewHolder.FLAG_PREFETCHED)) {
+                // the LayoutManager needs a view that was prefetched for it
+                holder.setFlags(0, ViewHolder.FLAG_PREFETCHED);
+                mPrefetchMetrics.mHitCount++;
+            }
+            return holder.itemView;
         }
 
         /**
@@ -7266,6 +7345,10 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          * @param dispatchRecycled True to dispatch View recycled callbacks.
          */
         void addViewHolderToRecycledViewPool(@NonNull ViewHolder holder, boolean dispatchRecycled) {
+            if (holder.hasAnyOfTheFlags(ViewHolder.FLAG_PREFETCHED)) {
+                // leaving the cache before the LayoutManager asked for it
+                mPrefetchMetrics.mWastedCount++;
+            }
             clearNestedRecyclerViewIfNotNested(holder);
             View itemView = holder.itemView;
             if (mAccessibilityDelegate != null) {
@@ -12045,6 +12128,12 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          */
         static final int FLAG_BOUNCED_FROM_HIDDEN_LIST = 1 << 13;
 
+        /**
+         * This ViewHolder was created or bound by {@link GapWorker} prefetch, and has not been
+         * requested by the LayoutManager since. Used for {@link PrefetchMetrics}.
+         */
+        static final int FLAG_PREFETCHED = 1 << 14;
+
         int mFlags;
 
         private static final List<Object> FULLUPDATE_PAYLOADS = Collections.emptyList();
@@ -17,6 +17,7 @@ package androidx.recyclerview.widget
 
 import java.util.Random
 import java.util.UUID
+import java.util.concurrent.Executors
 import org.hamcrest.CoreMatchers.equalTo
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.not
@@ -361,7 +362,98 @@ class DiffUtilTest {
         calculate().convertNewPositionToOld(2)
     }
 
-    private fun calculate() = DiffUtil.calculateDiff(callback, true)
+    private var calculate: () -> DiffUtil.DiffResult = { DiffUtil.calculateDiff(callback, true) }
+
+    @Test
+    fun anchoredRandom() {
+        calculate = { DiffUtil.calculateAnchoredDiff(callback, true, null, Int.MAX_VALUE) }
+        repeatRandom()
+    }
+
+    @Test
+    fun anchoredRandom_boundedRanges() {
+        calculate = { DiffUtil.calculateAnchoredDiff(callback, true, null, 4) }
+        repeatRandom()
+    }
+
+    @Test
+    fun anchoredRandom_parallel() {
+        val executor = Executors.newFixedThreadPool(3)
+        try {
+            calculate = { DiffUtil.calculateAnchoredDiff(callback, true, executor, 64) }
+            for (i in 0..19) {
+                testRandom(3000, 200)
+            }
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun anchoredRandom_rejectingExecutor() {
+        val executor = Executors.newSingleThreadExecutor()
+        executor.shutdown()
+        calculate = { DiffUtil.calculateAnchoredDiff(callback, true, executor, 64) }
+        for (i in 0..4) {
+            testRandom(3000, 200)
+        }
+    }
+
+    @Test
+    fun anchoredDisableMoveDetection() {
+        initWithSize(5)
+        move(0, 4)
+        val applied = applyUpdates(
+            before,
+            DiffUtil.calculateAnchoredDiff(callback, false, null, Int.MAX_VALUE)
+        )
+        assertThat(
+            applied.size,
+            `is`(5)
+        )
+        assertThat(
+            applied.contains(before[0]),
+            `is`(false)
+        )
+    }
+
+    @Test
+    fun keyedRandom() {
+        calculate = { DiffUtil.calculateKeyedDiff(callback, true) }
+        repeatRandom()
+    }
+
+    @Test
+    fun keyedDisableMoveDetection() {
+        initWithSize(5)
+        move(0, 4)
+        val applied = applyUpdates(
+            before,
+            DiffUtil.calculateKeyedDiff(callback, false)
+        )
+        assertThat(
+            applied[4].newItem,
+            `is`(true)
+        )
+        assertThat(
+            applied.contains(before[0]),
+            `is`(false)
+        )
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun anchoredInvalidRangeSize() {
+        initWithSize(2)
+        DiffUtil.calculateAnchoredDiff(callback, true, null, 1)
+    }
+
+    private fun repeatRandom() {
+        for (i in 0..49) {
+            for (j in 2..19) {
+                testRandom(i, j)
+            }
+        }
+    }
 
     @Test
     fun duplicate() {
@@ -729,6 +821,10 @@ class DiffUtilTest {
 
             return newList[newItemIndex].payload
         }
+
+        override fun getOldItemKey(oldItemIndex: Int) = oldList[oldItemIndex].id
+
+        override fun getNewItemKey(newItemIndex: Int) = newList[newItemIndex].id
     }
 
     companion object {